@@ -0,0 +1,150 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript;
+
+import static org.easymock.EasyMock.*;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginLoader;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.objenesis.ObjenesisHelper;
+
+import ch.njol.skript.aliases.Aliases;
+import ch.njol.skript.classes.data.BukkitClasses;
+import ch.njol.skript.classes.data.BukkitEventValues;
+import ch.njol.skript.classes.data.DefaultComparators;
+import ch.njol.skript.classes.data.DefaultConverters;
+import ch.njol.skript.classes.data.DefaultFunctions;
+import ch.njol.skript.classes.data.JavaClasses;
+import ch.njol.skript.classes.data.SkriptClasses;
+import ch.njol.skript.localization.Language;
+import ch.njol.skript.log.SkriptLogger;
+import ch.njol.skript.util.Version;
+
+/**
+ * Sets up Skript without a server for the benchmarks, i.e. like {@link Skript#onEnable()} does, but with a stubbed server, scheduler and plugin manager.
+ * <p>
+ * The syntax elements are loaded from Skript's jar, which is given by the system property <tt>skript.jar</tt>. The configuration and aliases are copied into a temporary data
+ * folder.
+ */
+public final class BenchmarkEnvironment {
+	
+	private BenchmarkEnvironment() {}
+	
+	private static boolean initialised = false;
+	
+	public static synchronized void init() throws Exception {
+		if (initialised)
+			return;
+		initialised = true;
+		
+		final File jar = new File(System.getProperty("skript.jar", "build/libs/Skript.jar"));
+		final File dataFolder = Files.createTempDirectory("skript-benchmark").toFile();
+		for (final String resource : new String[] {"config.sk", "aliases-english.sk"}) {
+			try (final InputStream in = BenchmarkEnvironment.class.getClassLoader().getResourceAsStream(resource)) {
+				if (in == null)
+					throw new IllegalStateException("Missing resource " + resource + ", did Gradle process the resources?");
+				Files.copy(in, new File(dataFolder, resource).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		
+		final Logger logger = Logger.getLogger(BenchmarkEnvironment.class.getCanonicalName());
+		logger.setParent(SkriptLogger.LOGGER);
+		logger.setLevel(Level.WARNING);
+		
+		final BukkitTask task = createNiceMock(BukkitTask.class);
+		replay(task);
+		final BukkitScheduler scheduler = createNiceMock(BukkitScheduler.class);
+		expect(scheduler.runTaskTimerAsynchronously(anyObject(Plugin.class), anyObject(Runnable.class), anyLong(), anyLong())).andReturn(task).anyTimes();
+		expect(scheduler.runTaskLaterAsynchronously(anyObject(Plugin.class), anyObject(Runnable.class), anyLong())).andReturn(task).anyTimes();
+		expect(scheduler.runTaskAsynchronously(anyObject(Plugin.class), anyObject(Runnable.class))).andReturn(task).anyTimes();
+		replay(scheduler);
+		final PluginManager pluginManager = createNiceMock(PluginManager.class);
+		replay(pluginManager);
+		
+		final Server server = createNiceMock(Server.class);
+		expect(server.getLogger()).andReturn(logger).anyTimes();
+		expect(server.isPrimaryThread()).andReturn(true).anyTimes();
+		expect(server.getName()).andReturn("Benchmark").anyTimes();
+		expect(server.getVersion()).andReturn("1.12.1").anyTimes();
+		expect(server.getBukkitVersion()).andReturn("1.12.1-R0.1-SNAPSHOT").anyTimes();
+		expect(server.getScheduler()).andReturn(scheduler).anyTimes();
+		expect(server.getPluginManager()).andReturn(pluginManager).anyTimes();
+		replay(server);
+		Bukkit.setServer(server);
+		
+		final Skript skript = (Skript) ObjenesisHelper.newInstance(Skript.class); // bypass the class loader check
+		setField("instance", skript);
+		
+		final PluginDescriptionFile pdf;
+		try (final InputStream in = BenchmarkEnvironment.class.getClassLoader().getResourceAsStream("plugin.yml")) {
+			pdf = new PluginDescriptionFile(in);
+		}
+		final Method init = JavaPlugin.class.getDeclaredMethod("init", PluginLoader.class, Server.class, PluginDescriptionFile.class, File.class, File.class, ClassLoader.class);
+		init.setAccessible(true);
+		init.invoke(skript, new JavaPluginLoader(server), server, pdf, dataFolder, jar, BenchmarkEnvironment.class.getClassLoader());
+		
+		setField("version", new Version("" + pdf.getVersion()));
+		setField("minecraftVersion", new Version(1, 12, 1));
+		
+		Language.loadDefault(Skript.getAddonInstance());
+		
+		new JavaClasses();
+		new BukkitClasses();
+		new BukkitEventValues();
+		new SkriptClasses();
+		
+		new DefaultComparators();
+		new DefaultConverters();
+		new DefaultFunctions();
+		
+		Skript.getAddonInstance().loadClasses("ch.njol.skript", "conditions", "effects", "events", "expressions", "entity");
+		
+		SkriptConfig.load();
+		Aliases.load();
+		
+		final Method stop = Skript.class.getDeclaredMethod("stopAcceptingRegistrations");
+		stop.setAccessible(true);
+		stop.invoke(null);
+	}
+	
+	private static void setField(final String name, final Object value) throws Exception {
+		final Field f = Skript.class.getDeclaredField(name);
+		f.setAccessible(true);
+		f.set(null, value);
+	}
+	
+}
@@ -0,0 +1,95 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.Node;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.lang.parser.ParserInstance;
+import ch.njol.skript.log.ParseLogHandler;
+import ch.njol.skript.log.SkriptLogger;
+
+/**
+ * Benchmarks parsing the triggers of a bundled script (<tt>corpus.sk</tt>), i.e. parsing the events and loading the items of the triggers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScriptParserBenchmark {
+	
+	private String corpus;
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		BenchmarkEnvironment.init();
+		try (final InputStream in = ScriptParserBenchmark.class.getResourceAsStream("corpus.sk");
+				final Scanner s = new Scanner(in, StandardCharsets.UTF_8.name())) {
+			corpus = s.useDelimiter("\\A").next();
+		}
+		// make sure that the corpus is still valid, as the benchmark ignores errors
+		final Config config = new Config(corpus, "corpus.sk", true, false, ":");
+		for (final Node n : config.getMainNode()) {
+			if (n instanceof SectionNode && ScriptLoader.loadTrigger((SectionNode) n) == null)
+				throw new IllegalStateException("Could not parse the trigger '" + n.getKey() + "' of the corpus");
+		}
+	}
+	
+	@Benchmark
+	public void parse(final Blackhole bh) throws Exception {
+		final Config config = new Config(corpus, "corpus.sk", true, false, ":");
+		final ParserInstance pi = ParserInstance.get();
+		pi.setCurrentScript(config);
+		final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+		try {
+			for (final Node n : config.getMainNode()) {
+				if (n instanceof SectionNode) {
+					final Trigger t = ScriptLoader.loadTrigger((SectionNode) n);
+					bh.consume(t);
+				}
+			}
+		} finally {
+			log.stop();
+			pi.setCurrentScript(null);
+		}
+	}
+	
+}
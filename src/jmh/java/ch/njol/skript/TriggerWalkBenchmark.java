@@ -0,0 +1,102 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.easymock.EasyMock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.Node;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.lang.TriggerCompiler;
+
+/**
+ * Benchmarks executing a trigger with a loop, a conditional and local variables, both interpreted and {@link TriggerCompiler compiled}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TriggerWalkBenchmark {
+	
+	private final static String SCRIPT = "on join:\n"
+			+ "	set {_sum} to 0\n"
+			+ "	loop 100 times:\n"
+			+ "		if loop-number is greater than 50:\n"
+			+ "			add loop-number to {_sum}\n"
+			+ "		else:\n"
+			+ "			remove 1 from {_sum}\n"
+			+ "	set {_result} to {_sum} * 2\n";
+	
+	@Param({"false", "true"})
+	public boolean compiled;
+	
+	private Trigger trigger;
+	private Event event;
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		BenchmarkEnvironment.init();
+		
+		final Player player = EasyMock.createNiceMock(Player.class);
+		EasyMock.replay(player);
+		event = new PlayerJoinEvent(player, "");
+		
+		final Config config = new Config(SCRIPT, "benchmark.sk", true, false, ":");
+		final Node node = config.getMainNode().get("on join");
+		if (!(node instanceof SectionNode))
+			throw new IllegalStateException();
+		final boolean wasEnabled = TriggerCompiler.isEnabled();
+		TriggerCompiler.setEnabled(compiled);
+		try {
+			final Trigger t = ScriptLoader.loadTrigger((SectionNode) node);
+			if (t == null)
+				throw new IllegalStateException("Could not parse the benchmark's trigger");
+			trigger = t;
+		} finally {
+			TriggerCompiler.setEnabled(wasEnabled);
+		}
+	}
+	
+	@Benchmark
+	public boolean execute() {
+		return trigger.execute(event);
+	}
+	
+}
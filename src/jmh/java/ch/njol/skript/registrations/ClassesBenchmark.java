@@ -0,0 +1,103 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.registrations;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.njol.skript.BenchmarkEnvironment;
+import ch.njol.skript.util.Date;
+import ch.njol.skript.util.Timespan;
+import ch.njol.skript.variables.SerializedVariable.Value;
+
+/**
+ * Benchmarks serialising and deserialising values of some common types with {@link Classes#serialize(Object)} and {@link Classes#deserialize(String, byte[])}, and
+ * converting them to strings with {@link Classes#toString(Object)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassesBenchmark {
+	
+	@Param({"long", "double", "string", "timespan", "date"})
+	public String type;
+	
+	private Object value;
+	private Value serialized;
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		BenchmarkEnvironment.init();
+		switch (type) {
+			case "long":
+				value = 123456789L;
+				break;
+			case "double":
+				value = 3.14159;
+				break;
+			case "string":
+				value = "The quick brown fox jumps over the lazy dog";
+				break;
+			case "timespan":
+				value = new Timespan(90000);
+				break;
+			case "date":
+				value = new Date(1500000000000L);
+				break;
+			default:
+				throw new IllegalArgumentException(type);
+		}
+		final Value v = Classes.serialize(value);
+		if (v == null)
+			throw new IllegalStateException("Cannot serialise " + type);
+		serialized = v;
+	}
+	
+	@Benchmark
+	public Value serialize() {
+		return Classes.serialize(value);
+	}
+	
+	@Benchmark
+	public Object deserialize() {
+		return Classes.deserialize(serialized.type, serialized.data);
+	}
+	
+	@Benchmark
+	public String convertToString() {
+		return Classes.toString(value);
+	}
+	
+}
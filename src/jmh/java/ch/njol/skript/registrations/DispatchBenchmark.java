@@ -0,0 +1,91 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.registrations;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.njol.skript.BenchmarkEnvironment;
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.classes.Comparator;
+import ch.njol.skript.classes.Comparator.Relation;
+import ch.njol.skript.classes.Converter;
+import ch.njol.skript.util.Timespan;
+
+/**
+ * Benchmarks the lookups of converters, comparators and class infos that scripts do at runtime, e.g. for every comparison. Run with several threads, as scripts can do
+ * them from any thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class DispatchBenchmark {
+	
+	private final Long number = 42L;
+	private final Double otherNumber = 42.5;
+	private final Timespan timespan = new Timespan(1000);
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		BenchmarkEnvironment.init();
+	}
+	
+	@Benchmark
+	public Converter<?, ?> getConverter() {
+		return Converters.getConverter(Long.class, String.class);
+	}
+	
+	@Benchmark
+	public Comparator<?, ?> getComparator() {
+		return Comparators.getComparator(Long.class, Double.class);
+	}
+	
+	@Benchmark
+	public Relation compare() {
+		return Comparators.compare(number, otherNumber);
+	}
+	
+	@Benchmark
+	public Relation compareTimespans() {
+		return Comparators.compare(timespan, timespan);
+	}
+	
+	@Benchmark
+	public ClassInfo<?> getSuperClassInfo() {
+		return Classes.getSuperClassInfo(Long.class);
+	}
+	
+}
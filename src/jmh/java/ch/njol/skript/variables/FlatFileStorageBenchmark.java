@@ -0,0 +1,104 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.njol.skript.BenchmarkEnvironment;
+import ch.njol.skript.Skript;
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.variables.SerializedVariable.Value;
+
+/**
+ * Benchmarks loading and saving a variables.csv file with a {@link FlatFileStorage}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlatFileStorageBenchmark {
+	
+	@Param({"10000", "100000"})
+	public int variables;
+	
+	private FlatFileStorage storage;
+	private SectionNode node;
+	
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		BenchmarkEnvironment.init();
+		Variables.tempVars.set(null); // as after Skript has loaded all variables
+		
+		final File file = new File(Skript.getInstance().getDataFolder(), "variables.csv");
+		try (final PrintWriter pw = new PrintWriter(file, "UTF-8")) {
+			pw.println("# version: " + Skript.getVersion());
+			for (int i = 0; i < variables; i++) {
+				final Object value = i % 4 == 0 ? (Object) ("player " + i) : i % 4 == 1 ? (Object) (long) i : i % 4 == 2 ? (Object) (i / 7.0) : (Object) (i % 3 == 0);
+				final Value v = Classes.serialize(value);
+				assert v != null;
+				pw.println("benchmark::" + i + "::value, " + v.type + ", " + FlatFileStorage.encode(v.data));
+			}
+		}
+		
+		node = new Config("pattern: .*\nfile: " + file.getPath() + "\nbackup interval: 0", "benchmark.sk", false, false, ":").getMainNode();
+		storage = new FlatFileStorage("benchmark");
+		storage.file = file;
+		storage.load_i(node);
+		storage.disconnect();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		storage.disconnect();
+	}
+	
+	@Benchmark
+	public boolean load() {
+		final boolean r = storage.load_i(node);
+		storage.disconnect();
+		return r;
+	}
+	
+	@Benchmark
+	public void save() {
+		storage.saveVariables(false);
+	}
+	
+}
@@ -0,0 +1,104 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks getting, setting and iterating variables in a {@link VariablesMap}, which holds all global variables and the local variables of every trigger execution.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariablesMapBenchmark {
+	
+	/**
+	 * The number of elements of the list variable, and the number of other variables in the map
+	 */
+	@Param({"10", "1000", "100000"})
+	public int size;
+	
+	private VariablesMap map;
+	private String[] names;
+	private int next = 0;
+	
+	@Setup
+	public void setup() {
+		map = new VariablesMap();
+		names = new String[size];
+		for (int i = 0; i < size; i++) {
+			names[i] = "player::" + i + "::balance";
+			map.setVariable(names[i], (double) i);
+			map.setVariable("list::" + (i + 1), "element " + i);
+		}
+	}
+	
+	private String nextName() {
+		final String name = names[next];
+		next = (next + 1) % names.length;
+		return name;
+	}
+	
+	@Benchmark
+	public Object get() {
+		return map.getVariable(nextName());
+	}
+	
+	@Benchmark
+	public void set() {
+		map.setVariable(nextName(), 1.0);
+	}
+	
+	@Benchmark
+	public void setAndDelete() {
+		map.setVariable("temporary::" + next, 1.0);
+		map.setVariable("temporary::" + next, null);
+		next = (next + 1) % names.length;
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Benchmark
+	public void iterateList(final Blackhole bh) {
+		final Map<String, Object> list = (Map<String, Object>) map.getVariable("list::*");
+		assert list != null;
+		for (final Map.Entry<String, Object> e : list.entrySet()) {
+			bh.consume(e.getKey());
+			bh.consume(e.getValue());
+		}
+	}
+	
+}
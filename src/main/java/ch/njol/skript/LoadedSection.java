@@ -0,0 +1,176 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.command.ScriptCommand;
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.Node;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
+import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.lang.function.Function;
+
+/**
+ * A top-level section of a loaded script and what it has been loaded as. Used by {@link ScriptLoader#reloadScript(java.io.File)} to only reload the sections of a
+ * script that changed.
+ */
+final class LoadedSection {
+	
+	LoadedSection(final String key, final SectionNode node) {
+		this.key = key;
+		parsedNode = node;
+		this.node = node;
+	}
+	
+	/**
+	 * The text of the section and of all options and aliases before it, see {@link #getKeys(Config)}
+	 */
+	final String key;
+	
+	/**
+	 * The node the section was parsed from. The section's trigger, command or function and e.g. its function calls refer to this node and its children even after
+	 * the section has been kept for a newer version of the script, thus this identifies the section's parts when it is unloaded.
+	 */
+	final SectionNode parsedNode;
+	
+	/**
+	 * The node of the section in the current version of the script, which may be on another line than {@link #parsedNode}.
+	 */
+	SectionNode node;
+	
+	@Nullable
+	Trigger trigger;
+	@Nullable
+	ScriptCommand command;
+	@Nullable
+	Function<?> function;
+	boolean hasErrors;
+	
+	/**
+	 * @return Whether this section can be kept as it is if it didn't change. Sections that had errors are always parsed again to show the errors again, and
+	 *         self-registering events are always registered again, as they might do something when they are (un)registered, like 'on script load'.
+	 */
+	boolean isReusable() {
+		final Trigger t = trigger;
+		if (hasErrors || t == null && command == null && function == null)
+			return false;
+		return t == null || !(t.getEvent() instanceof SelfRegisteringSkriptEvent);
+	}
+	
+	/**
+	 * Identifies the top-level sections of a script by their text, including the text of all aliases, options and variables sections before them, as these affect how
+	 * a section is parsed.
+	 * 
+	 * @param config The script
+	 * @return The keys of all top-level sections that are not aliases, options or variables, in the order they appear in the script
+	 */
+	static Map<SectionNode, String> getKeys(final Config config) {
+		final Map<SectionNode, String> keys = new LinkedHashMap<>();
+		final StringBuilder header = new StringBuilder();
+		for (final Node n : config.getMainNode()) {
+			if (!(n instanceof SectionNode))
+				continue;
+			final String key = n.getKey();
+			if (key == null)
+				continue;
+			final StringBuilder text = new StringBuilder();
+			appendText(text, n);
+			if (key.equalsIgnoreCase("aliases") || key.equalsIgnoreCase("options") || key.equalsIgnoreCase("variables"))
+				header.append(text);
+			else
+				keys.put((SectionNode) n, header + "\n" + text);
+		}
+		return keys;
+	}
+	
+	private static void appendText(final StringBuilder b, final Node n) {
+		b.append(n.save()).append('\n');
+		if (n instanceof SectionNode) {
+			for (final Node child : (SectionNode) n)
+				appendText(b, child);
+		}
+	}
+	
+	/**
+	 * The difference between the sections a script has been loaded with and a new version of the script.
+	 */
+	static final class Diff {
+		
+		/**
+		 * The sections that can be kept as they are, by their node in the new version of the script
+		 */
+		final Map<SectionNode, LoadedSection> unchanged = new HashMap<>();
+		
+		/**
+		 * The sections that changed or have been removed, and thus have to be unloaded
+		 */
+		final List<LoadedSection> removed = new ArrayList<>();
+		
+		/**
+		 * The {@link LoadedSection#parsedNode parsed nodes} of all {@link #removed} sections
+		 */
+		final Set<Node> removedNodes = new HashSet<>();
+		
+	}
+	
+	/**
+	 * Compares the sections a script has been loaded with to a new version of the script.
+	 * 
+	 * @param previous The sections of the loaded script
+	 * @param config The new version of the script
+	 * @return Which sections can be kept and which have to be unloaded
+	 */
+	static Diff diff(final List<LoadedSection> previous, final Config config) {
+		final Map<String, List<LoadedSection>> reusable = new HashMap<>();
+		for (final LoadedSection section : previous) {
+			if (!section.isReusable())
+				continue;
+			List<LoadedSection> l = reusable.get(section.key);
+			if (l == null)
+				reusable.put(section.key, l = new ArrayList<>(1));
+			l.add(section);
+		}
+		final Diff diff = new Diff();
+		for (final Map.Entry<SectionNode, String> e : getKeys(config).entrySet()) {
+			final List<LoadedSection> l = reusable.get(e.getValue());
+			if (l != null && !l.isEmpty())
+				diff.unchanged.put(e.getKey(), l.remove(0));
+		}
+		final Set<LoadedSection> kept = new HashSet<>(diff.unchanged.values());
+		for (final LoadedSection section : previous) {
+			if (!kept.contains(section)) {
+				diff.removed.add(section);
+				diff.removedNodes.add(section.parsedNode);
+			}
+		}
+		return diff;
+	}
+	
+}
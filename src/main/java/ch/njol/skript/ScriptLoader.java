@@ -29,6 +29,7 @@ import java.io.OutputStream;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Paths;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -42,6 +43,14 @@ import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 
 import org.bukkit.Bukkit;
@@ -63,8 +72,10 @@ import ch.njol.skript.effects.Delay;
 import ch.njol.skript.lang.Condition;
 import ch.njol.skript.lang.Conditional;
 import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.LocalVariableSlots;
 import ch.njol.skript.lang.Loop;
 import ch.njol.skript.lang.ParseContext;
+import ch.njol.skript.lang.ScriptOptimizer;
 import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
 import ch.njol.skript.lang.SkriptEvent;
 import ch.njol.skript.lang.SkriptEventInfo;
@@ -78,6 +89,8 @@ import ch.njol.skript.lang.function.Function;
 import ch.njol.skript.lang.function.FunctionEvent;
 import ch.njol.skript.lang.function.Functions;
 import ch.njol.skript.lang.function.Signature;
+import ch.njol.skript.lang.parser.ParserInstance;
+import ch.njol.skript.lang.parser.ScriptCache;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.localization.Message;
 import ch.njol.skript.localization.PluralizingArgsMessage;
@@ -109,25 +122,26 @@ final public class ScriptLoader {
 			m_no_scripts = new Message("skript.no scripts");
 	private final static PluralizingArgsMessage m_scripts_loaded = new PluralizingArgsMessage("skript.scripts loaded");
 	
-	@Nullable
-	public static Config currentScript = null;
+	/*
+	 * The state of the parser is kept in the parser instance of the current thread, so that multiple scripts can be parsed at the same time.
+	 */
 	
 	/**
-	 * use {@link #setCurrentEvent(String, Class...)}
+	 * @return The script that is currently being parsed by this thread
 	 */
 	@Nullable
-	private static String currentEventName = null;
+	public static Config getCurrentScript() {
+		return ParserInstance.get().getCurrentScript();
+	}
 	
-	@Nullable
-	public static String getCurrentEventName() {
-		return currentEventName;
+	public static void setCurrentScript(final @Nullable Config script) {
+		ParserInstance.get().setCurrentScript(script);
 	}
 	
-	/**
-	 * use {@link #setCurrentEvent(String, Class...)}
-	 */
 	@Nullable
-	private static Class<? extends Event>[] currentEvents = null;
+	public static String getCurrentEventName() {
+		return ParserInstance.get().getCurrentEventName();
+	}
 	
 	/**
 	 * Call {@link #deleteCurrentEvent()} after parsing
@@ -136,33 +150,110 @@ final public class ScriptLoader {
 	 * @param events
 	 */
 	public static void setCurrentEvent(final String name, final @Nullable Class<? extends Event>... events) {
-		currentEventName = name;
-		currentEvents = events;
-		hasDelayBefore = Kleenean.FALSE;
+		ParserInstance.get().setCurrentEvent(name, events);
 	}
 	
 	public static void deleteCurrentEvent() {
-		currentEventName = null;
-		currentEvents = null;
-		hasDelayBefore = Kleenean.FALSE;
+		ParserInstance.get().setCurrentEvent(null, null);
+	}
+	
+	public static List<TriggerSection> getCurrentSections() {
+		return ParserInstance.get().getCurrentSections();
 	}
 	
-	public static List<TriggerSection> currentSections = new ArrayList<>();
-	public static List<Loop> currentLoops = new ArrayList<>();
-	private final static Map<String, ItemType> currentAliases = new HashMap<>();
-	final static HashMap<String, String> currentOptions = new HashMap<>();
+	public static List<Loop> getCurrentLoops() {
+		return ParserInstance.get().getCurrentLoops();
+	}
 	
 	public static Map<String, ItemType> getScriptAliases() {
-		return currentAliases;
+		return ParserInstance.get().getCurrentAliases();
 	}
 	
 	/**
-	 * must be synchronized
+	 * @return Whether a delay has been parsed before the current position in the trigger
 	 */
-	private final static ScriptInfo loadedScripts = new ScriptInfo();
+	public static Kleenean getHasDelayBefore() {
+		return ParserInstance.get().getHasDelayBefore();
+	}
+	
+	public static void setHasDelayBefore(final Kleenean hasDelayBefore) {
+		ParserInstance.get().setHasDelayBefore(hasDelayBefore);
+	}
+	
+	/*
+	 * The fields below used to hold the state of the parser and are only kept for addons that still use them.
+	 */
+	
+	/**
+	 * @deprecated Use {@link #getCurrentScript()}. This field is set whenever a thread starts parsing another script, thus it is only correct if scripts are parsed by one
+	 *             thread. Assigning it has no effect.
+	 */
+	@Deprecated
+	@Nullable
+	public static Config currentScript = null;
+	
+	/**
+	 * @deprecated Use {@link #getCurrentSections()}. This list is a view of the sections of the calling thread.
+	 */
+	@Deprecated
+	public static List<TriggerSection> currentSections = new ParserInstanceList<>(() -> getCurrentSections());
 	
+	/**
+	 * @deprecated Use {@link #getCurrentLoops()}. This list is a view of the loops of the calling thread.
+	 */
+	@Deprecated
+	public static List<Loop> currentLoops = new ParserInstanceList<>(() -> getCurrentLoops());
+	
+	/**
+	 * @deprecated Use {@link #getHasDelayBefore()} and {@link #setHasDelayBefore(Kleenean)}. This field is set whenever the value changes for any thread, thus it is only
+	 *             correct if scripts are parsed by one thread. Assigning it has no effect.
+	 */
+	@Deprecated
 	public static Kleenean hasDelayBefore = Kleenean.FALSE;
 	
+	/**
+	 * A list that delegates to a list of the {@link ParserInstance} of the calling thread.
+	 */
+	private final static class ParserInstanceList<E> extends AbstractList<E> {
+		
+		private final Supplier<List<E>> list;
+		
+		ParserInstanceList(final Supplier<List<E>> list) {
+			this.list = list;
+		}
+		
+		@Override
+		public E get(final int index) {
+			return list.get().get(index);
+		}
+		
+		@Override
+		public int size() {
+			return list.get().size();
+		}
+		
+		@Override
+		public E set(final int index, final E element) {
+			return list.get().set(index, element);
+		}
+		
+		@Override
+		public void add(final int index, final E element) {
+			list.get().add(index, element);
+		}
+		
+		@Override
+		public E remove(final int index) {
+			return list.get().remove(index);
+		}
+		
+	}
+	
+	/**
+	 * must be synchronized
+	 */
+	private final static ScriptInfo loadedScripts = new ScriptInfo();
+	
 	public static class ScriptInfo {
 		public int files, triggers, commands, functions;
 		
@@ -213,8 +304,6 @@ final public class ScriptLoader {
 //		public final List<ScriptCommand> commands = new ArrayList<ScriptCommand>();
 //	}
 	
-	private static String indentation = "";
-	
 	// Load scripts in separate (one) thread
 	static final BlockingQueue<Runnable> loadQueue = new ArrayBlockingQueue<>(20, true);
 	static final Thread loaderThread;
@@ -236,6 +325,11 @@ final public class ScriptLoader {
 		return loadAsync;
 	}
 	
+	/**
+	 * How many threads are used to parse scripts. If this is more than 1, multiple scripts are parsed at the same time, but they are still enabled one after another.
+	 */
+	static int loaderThreads = 1;
+	
 	/**
 	 * All loaded script files.
 	 */
@@ -341,15 +435,22 @@ final public class ScriptLoader {
 		Runnable task = () -> {
 			// Do NOT sort here, list must be loaded in order it came in (see issue #667)
 			final boolean wasLocal = Language.setUseLocal(false);
+			ScriptCache.startLoading();
+			SkriptParser.clearCompiledPatterns();
 			try {
-				for (final Config cfg : configs) {
-					assert cfg != null : configs.toString();
-					i.add(loadScript(cfg));
+				if (loaderThreads > 1 && configs.size() > 1) {
+					i.add(loadScriptsParallel(configs));
+				} else {
+					for (final Config cfg : configs) {
+						assert cfg != null : configs.toString();
+						i.add(loadScript(cfg));
+					}
 				}
 			} finally {
 				if (wasLocal)
 					Language.setUseLocal(true);
 			}
+			ScriptCache.save();
 			
 			SkriptEventHandler.registerBukkitEvents();
 		};
@@ -410,17 +511,71 @@ final public class ScriptLoader {
 	 */
 	private static class ParsedEventData {
 		
-		public ParsedEventData(NonNullPair<SkriptEventInfo<?>, SkriptEvent> info, String event, SectionNode node, List<TriggerItem> items) {
+		public ParsedEventData(NonNullPair<SkriptEventInfo<?>, SkriptEvent> info, String event, SectionNode node, List<TriggerItem> items, @Nullable LocalVariableSlots localVariableSlots, @Nullable LoadedSection section) {
 			this.info = info;
 			this.event = event;
 			this.node = node;
 			this.items = items;
+			this.localVariableSlots = localVariableSlots;
+			this.section = section;
 		}
 		
 		public final NonNullPair<SkriptEventInfo<?>, SkriptEvent> info;
 		public final String event;
 		public final SectionNode node;
 		public final List<TriggerItem> items;
+		@Nullable
+		public final LocalVariableSlots localVariableSlots;
+		@Nullable
+		public final LoadedSection section;
+	}
+	
+	/**
+	 * Whether only the sections of a script that changed are parsed again when the script is reloaded.
+	 */
+	static boolean reloadChangedSectionsOnly = false;
+	
+	/**
+	 * The sections of loaded scripts. Only used if {@link #reloadChangedSectionsOnly} is enabled.
+	 */
+	private final static Map<File, List<LoadedSection>> loadedSections = new ConcurrentHashMap<>();
+	
+	/**
+	 * A script that has been parsed, but whose commands, functions and triggers have not been enabled yet.
+	 */
+	private static class ParsedScript {
+		
+		public ParsedScript(final Config config, final List<ScriptCommand> commands, final List<Function<?>> functions, final List<ParsedEventData> events, final ScriptInfo info) {
+			this.config = config;
+			this.commands = commands;
+			this.functions = functions;
+			this.events = events;
+			this.info = info;
+		}
+		
+		public final Config config;
+		public final List<ScriptCommand> commands;
+		public final List<Function<?>> functions;
+		public final List<ParsedEventData> events;
+		public final ScriptInfo info;
+		
+		/**
+		 * All sections of the script, or null if they are not tracked
+		 */
+		@Nullable
+		public List<LoadedSection> sections;
+		
+		/**
+		 * If only the changed sections of the script have been parsed, the sections that have to be unloaded
+		 */
+		@Nullable
+		public List<LoadedSection> removed;
+		
+		/**
+		 * What was logged while parsing the script, if it was parsed on another thread
+		 */
+		@Nullable
+		public List<LogEntry> log;
 	}
 	
 	/**
@@ -429,36 +584,63 @@ final public class ScriptLoader {
 	 * @param config Config for script to be loaded.
 	 * @return Info about script that is loaded
 	 */
-	@SuppressWarnings("unchecked")
 	private final static ScriptInfo loadScript(final @Nullable Config config) {
 		if (config == null) { // Something bad happened, hopefully got logged to console
 			return new ScriptInfo();
 		}
 		
+		final ParsedScript script = parseScript(config, null);
+		enableScript(script);
+		return script.info;
+	}
+	
+	/**
+	 * Parses one script, but doesn't enable anything yet. As the state of the parser is kept per thread, this can be called for multiple scripts at once.
+	 * @param config Config for script to be parsed.
+	 * @param unchanged If only the changed sections of the script should be parsed, the sections of the script that didn't change and what they were loaded as
+	 * @return The parsed script, to be enabled with {@link #enableScript(ParsedScript)}
+	 */
+	@SuppressWarnings("unchecked")
+	private final static ParsedScript parseScript(final Config config, final @Nullable Map<SectionNode, LoadedSection> unchanged) {
 		// When something is parsed, it goes there to be loaded later
 		List<ScriptCommand> commands = new ArrayList<>();
 		List<Function<?>> functions = new ArrayList<>();
 		List<ParsedEventData> events = new ArrayList<>();
 		
+		// Track the sections to be able to only reload the changed ones later
+		final Map<SectionNode, String> keys = reloadChangedSectionsOnly ? LoadedSection.getKeys(config) : null;
+		final List<LoadedSection> sections = keys != null ? new ArrayList<>() : null;
+		
 		// Track what is loaded
 		int numTriggers = 0;
 		int numCommands = 0;
 		int numFunctions = 0;
 		
 		try {
-			if (SkriptConfig.keepConfigsLoaded.value())
-				SkriptConfig.configs.add(config);
+			if (SkriptConfig.keepConfigsLoaded.value()) {
+				synchronized (SkriptConfig.configs) {
+					SkriptConfig.configs.add(config);
+				}
+			}
 			
-			currentAliases.clear();
-			currentOptions.clear();
-			currentScript = config;
+			final ParserInstance pi = ParserInstance.get();
+			pi.getCurrentAliases().clear();
+			pi.getCurrentOptions().clear();
+			pi.setCurrentScript(config);
+			pi.setScriptCache(ScriptCache.getEntry(config));
 			
 //			final SerializedScript script = new SerializedScript();
 			
 			final CountingLogHandler numErrors = SkriptLogger.startLogHandler(new CountingLogHandler(SkriptLogger.SEVERE));
 			
 			try {
+				LoadedSection section = null;
+				int errorsBefore = 0;
 				for (final Node cnode : config.getMainNode()) {
+					if (section != null) // errors are counted per section to always parse sections with errors again
+						section.hasErrors = numErrors.getCount() > errorsBefore;
+					section = null;
+					
 					if (!(cnode instanceof SectionNode)) {
 						Skript.error("invalid line - all code has to be put into triggers");
 						continue;
@@ -469,6 +651,19 @@ final public class ScriptLoader {
 					if (event == null)
 						continue;
 					
+					final String key = keys != null ? keys.get(node) : null;
+					if (key != null && sections != null) {
+						final LoadedSection old = unchanged != null ? unchanged.get(node) : null;
+						if (old != null) { // Keep what the section was loaded as, but remember where it is now
+							old.node = node;
+							sections.add(old);
+							continue;
+						}
+						section = new LoadedSection(key, node);
+						sections.add(section);
+						errorsBefore = numErrors.getCount();
+					}
+					
 					if (event.equalsIgnoreCase("aliases")) {
 						node.convertToEntries(0, "=");
 						for (final Node n : node) {
@@ -479,7 +674,7 @@ final public class ScriptLoader {
 							final ItemType t = Aliases.parseAlias(((EntryNode) n).getValue());
 							if (t == null)
 								continue;
-							currentAliases.put(((EntryNode) n).getKey().toLowerCase(), t);
+							pi.getCurrentAliases().put(((EntryNode) n).getKey().toLowerCase(), t);
 						}
 						continue;
 					} else if (event.equalsIgnoreCase("options")) {
@@ -489,7 +684,7 @@ final public class ScriptLoader {
 								Skript.error("invalid line in options");
 								continue;
 							}
-							currentOptions.put(((EntryNode) n).getKey(), ((EntryNode) n).getValue());
+							pi.getCurrentOptions().put(((EntryNode) n).getKey(), ((EntryNode) n).getValue());
 						}
 						continue;
 					} else if (event.equalsIgnoreCase("variables")) {
@@ -571,6 +766,8 @@ final public class ScriptLoader {
 						final ScriptCommand c = Commands.loadCommand(node, false);
 						if (c != null) {
 							commands.add(c);
+							if (section != null)
+								section.command = c;
 						}
 						numCommands++;
 						
@@ -584,6 +781,8 @@ final public class ScriptLoader {
 						final Function<?> func = Functions.loadFunction(node);
 						if (func != null) {
 							functions.add(func);
+							if (section != null)
+								section.function = func;
 						}
 						numFunctions++;
 						
@@ -609,7 +808,7 @@ final public class ScriptLoader {
 					
 					try {
 						setCurrentEvent("" + parsedEvent.getFirst().getName().toLowerCase(Locale.ENGLISH), parsedEvent.getFirst().events);
-						events.add(new ParsedEventData(parsedEvent, event, node, loadItems(node)));
+						events.add(new ParsedEventData(parsedEvent, event, node, loadItems(node), pi.getLocalVariableSlots(), section));
 					} finally {
 						deleteCurrentEvent();
 					}
@@ -620,20 +819,38 @@ final public class ScriptLoader {
 					
 					numTriggers++;
 				}
+				if (section != null)
+					section.hasErrors = numErrors.getCount() > errorsBefore;
 				
 				if (Skript.logHigh())
 					Skript.info("loaded " + numTriggers + " trigger" + (numTriggers == 1 ? "" : "s") + " and " + numCommands + " command" + (numCommands == 1 ? "" : "s") + " from '" + config.getFileName() + "'");
 				
-				currentScript = null;
+				pi.setCurrentScript(null);
 			} finally {
 				numErrors.stop();
 			}
 		} catch (final Exception e) {
 			Skript.exception(e, "Could not load " + config.getFileName());
 		} finally {
+			ParserInstance.get().setScriptCache(null);
 			SkriptLogger.setNode(null);
 		}
 		
+		final ParsedScript script = new ParsedScript(config, commands, functions, events, new ScriptInfo(1, numTriggers, numCommands, numFunctions));
+		script.sections = sections;
+		return script;
+	}
+	
+	/**
+	 * Enables a parsed script, i.e. registers its commands, functions and triggers. This is always done on the main thread.
+	 * @param script The parsed script.
+	 */
+	private final static void enableScript(final ParsedScript script) {
+		final Config config = script.config;
+		final List<ScriptCommand> commands = script.commands;
+		final List<Function<?>> functions = script.functions;
+		final List<ParsedEventData> events = script.events;
+		
 		// In always sync task, enable stuff
 		Callable<Void> callable = new Callable<Void>() {
 
@@ -643,7 +860,17 @@ final public class ScriptLoader {
 				// Unload script IF we're doing async stuff
 				// (else it happened already)
 				File file = config.getFile();
-				if (loadAsync) {
+				final List<LoadedSection> removed = script.removed;
+				if (removed != null) {
+					// Only unload the sections that changed
+					final ScriptInfo info = new ScriptInfo();
+					info.files = 1; // the script itself stays loaded and is counted again below
+					for (final LoadedSection section : removed)
+						info.add(unloadSection(section));
+					synchronized (loadedScripts) {
+						loadedScripts.subtract(info);
+					}
+				} else if (loadAsync) {
 					if (file != null)
 						unloadScript_(file);
 				}
@@ -665,11 +892,15 @@ final public class ScriptLoader {
 					final Trigger trigger;
 					try {
 						trigger = new Trigger(config.getFile(), event.event, event.info.getSecond(), event.items);
+						trigger.setLocalVariableSlots(event.localVariableSlots);
 						trigger.setLineNumber(event.node.getLine()); // Set line number for debugging
 						trigger.setDebugLabel(config.getFileName() + ": line " + event.node.getLine());
 					} finally {
 						deleteCurrentEvent();
 					}
+					final LoadedSection section = event.section;
+					if (section != null)
+						section.trigger = trigger;
 					
 					if (event.info.getSecond() instanceof SelfRegisteringSkriptEvent) {
 						((SelfRegisteringSkriptEvent) event.info.getSecond()).register(trigger);
@@ -683,6 +914,23 @@ final public class ScriptLoader {
 				
 				// Add to loaded files to use for future reloads
 				loadedFiles.add(file);
+				synchronized (loadedScripts) {
+					loadedScripts.add(script.info);
+				}
+				
+				final List<LoadedSection> sections = script.sections;
+				if (file != null && sections != null) {
+					for (final LoadedSection section : sections) {
+						final Trigger t = section.trigger;
+						if (t != null && t.getLineNumber() != section.node.getLine()) { // An unchanged section might have moved
+							t.setLineNumber(section.node.getLine());
+							t.setDebugLabel(config.getFileName() + ": line " + section.node.getLine());
+						}
+					}
+					loadedSections.put(file, sections);
+				}
+				if (removed != null)
+					Functions.validateFunctions();
 				
 				return null;
 			}
@@ -696,8 +944,74 @@ final public class ScriptLoader {
 				Skript.exception(e);
 			}
 		}
-		
-		return new ScriptInfo(1, numTriggers, numCommands, numFunctions);
+	}
+	
+	/**
+	 * Parses the given scripts on {@link #loaderThreads} threads, and then enables them one after another in the given order, printing the log of each script just before
+	 * it is enabled. Thus everything happens in the same order as if the scripts were loaded one by one. The signatures of the functions of all scripts have already been
+	 * loaded by {@link #loadStructures(File)}, so scripts can use functions of any other script.
+	 * @param configs Configs for scripts, loaded by {@link #loadStructures(File[])}
+	 * @return Info on the loaded scripts
+	 */
+	private final static ScriptInfo loadScriptsParallel(final List<Config> configs) {
+		final ScriptInfo info = new ScriptInfo();
+		final ForkJoinPool pool = new ForkJoinPool(Math.min(loaderThreads, configs.size()), new ForkJoinWorkerThreadFactory() {
+			private final AtomicInteger threadNumber = new AtomicInteger(1);
+			
+			@Override
+			public ForkJoinWorkerThread newThread(final ForkJoinPool p) {
+				final ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+				t.setName("Skript script loader #" + threadNumber.getAndIncrement());
+				return t;
+			}
+		}, null, false);
+		try {
+			final List<Future<ParsedScript>> parsed = new ArrayList<>(configs.size());
+			for (final Config config : configs) {
+				assert config != null : configs.toString();
+				parsed.add(pool.submit(new Callable<ParsedScript>() {
+					@SuppressWarnings("synthetic-access")
+					@Override
+					public ParsedScript call() throws Exception {
+						SkriptLogger.startThreadLog();
+						try {
+							final RetainingLogHandler log = SkriptLogger.startRetainingLog();
+							final ParsedScript script;
+							try {
+								script = parseScript(config, null);
+								script.log = new ArrayList<>(log.getLog());
+							} finally {
+								log.clear();
+								log.printLog();
+							}
+							return script;
+						} finally {
+							SkriptLogger.stopThreadLog();
+						}
+					}
+				}));
+			}
+			for (final Future<ParsedScript> f : parsed) {
+				final ParsedScript script;
+				try {
+					script = f.get();
+				} catch (final ExecutionException e) {
+					Skript.exception(e.getCause(), "Could not load a script");
+					continue;
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+				final List<LogEntry> log = script.log;
+				if (log != null)
+					SkriptLogger.logAll(log);
+				enableScript(script);
+				info.add(script.info);
+			}
+		} finally {
+			pool.shutdown();
+		}
+		return info;
 	}
 	
 	/**
@@ -816,7 +1130,7 @@ final public class ScriptLoader {
 					}
 				}
 				
-				currentScript = null;
+				setCurrentScript(null);
 			} finally {
 				//numErrors.stop();
 			}
@@ -869,6 +1183,7 @@ final public class ScriptLoader {
 	}
 	
 	private final static ScriptInfo unloadScript_(final File script) {
+		loadedSections.remove(script);
 		if (loadedFiles.contains(script)) {
 			final ScriptInfo info = SkriptEventHandler.removeTriggers(script); // Remove triggers
 			synchronized (loadedScripts) { // Update script info
@@ -882,12 +1197,116 @@ final public class ScriptLoader {
 		return new ScriptInfo(); // Return that we unloaded literally nothing
 	}
 	
+	/**
+	 * Forgets the sections of all scripts, e.g. because all scripts have been disabled.
+	 */
+	static void clearLoadedSections() {
+		loadedSections.clear();
+	}
+	
+	/**
+	 * Unloads the trigger, command or function of a single section of a script.
+	 * 
+	 * @return What has been unloaded, without the script file itself
+	 */
+	private final static ScriptInfo unloadSection(final LoadedSection section) {
+		final ScriptInfo info = new ScriptInfo();
+		final Trigger t = section.trigger;
+		if (t != null) {
+			SkriptEventHandler.removeTrigger(t);
+			info.triggers++;
+		}
+		final ScriptCommand c = section.command;
+		if (c != null) {
+			Commands.unregisterCommand(c);
+			info.commands++;
+		}
+		final Function<?> f = section.function;
+		if (f != null) {
+			Functions.removeFunction(f);
+			info.functions++;
+		}
+		return info;
+	}
+	
+	/**
+	 * Reloads a single script.
+	 * <p>
+	 * If {@link #reloadChangedSectionsOnly} is enabled and the script is loaded, only the top-level sections of the script that changed since it was loaded are parsed
+	 * again and replaced. The triggers, commands and functions of all other sections are kept as they are, and only the function calls of changed functions are
+	 * validated again.
+	 * 
+	 * @param file The script's file
+	 */
+	public final static void reloadScript(final File file) {
+		final List<LoadedSection> previous = reloadChangedSectionsOnly && file.exists() ? loadedSections.get(file) : null;
+		if (previous == null) {
+			if (!loadAsync)
+				unloadScript(file);
+			loadScripts(loadStructure(file));
+			return;
+		}
+		
+		final Runnable task = () -> {
+			final Config config;
+			try {
+				String name = Skript.getInstance().getDataFolder().toPath().resolve(Skript.SCRIPTSFOLDER).relativize(file.toPath()).toString();
+				assert name != null;
+				config = new Config(new FileInputStream(file), name, file, true, false, ":");
+			} catch (final IOException e) {
+				Skript.error("Could not load " + file.getName() + ": " + ExceptionUtils.toString(e));
+				return;
+			}
+			
+			// Find the sections that didn't change
+			final LoadedSection.Diff diff = LoadedSection.diff(previous, config);
+			final Map<SectionNode, LoadedSection> unchanged = diff.unchanged;
+			final List<LoadedSection> removed = diff.removed;
+			
+			// Function calls in removed sections are gone, and calls of changed functions have to be validated again against their new signatures
+			Functions.clearCalls(file, diff.removedNodes);
+			for (final LoadedSection section : removed) {
+				final Function<?> f = section.function;
+				if (f != null)
+					Functions.unloadSignature(f.getName());
+			}
+			for (final Node n : config.getMainNode()) {
+				final String key = n.getKey();
+				if (n instanceof SectionNode && !unchanged.containsKey(n) && key != null && key.toLowerCase(Locale.ENGLISH).startsWith("function ") && SkriptParser.validateLine(key)) {
+					setCurrentEvent("function", FunctionEvent.class);
+					Functions.loadSignature(config.getFileName(), (SectionNode) n);
+					deleteCurrentEvent();
+				}
+			}
+			SkriptLogger.setNode(null);
+			
+			final boolean wasLocal = Language.setUseLocal(false);
+			ScriptCache.startLoading();
+			SkriptParser.clearCompiledPatterns();
+			try {
+				final ParsedScript script = parseScript(config, unchanged);
+				script.removed = removed;
+				enableScript(script);
+			} finally {
+				if (wasLocal)
+					Language.setUseLocal(true);
+			}
+			ScriptCache.save();
+			
+			SkriptEventHandler.registerBukkitEvents();
+		};
+		if (loadAsync && Bukkit.isPrimaryThread())
+			loadQueue.add(task);
+		else
+			task.run();
+	}
+	
 	public final static String replaceOptions(final String s) {
 		final String r = StringUtils.replaceAll(s, "\\{@(.+?)\\}", new Callback<String, Matcher>() {
 			@Override
 			@Nullable
 			public String run(final Matcher m) {
-				final String option = currentOptions.get(m.group(1));
+				final String option = ParserInstance.get().getCurrentOptions().get(m.group(1));
 				if (option == null) {
 					Skript.error("undefined option " + m.group());
 					return m.group();
@@ -901,9 +1320,10 @@ final public class ScriptLoader {
 	
 	@SuppressWarnings("unchecked")
 	public static ArrayList<TriggerItem> loadItems(final SectionNode node) {
+		final ParserInstance pi = ParserInstance.get();
 		
 		if (Skript.debug())
-			indentation += "    ";
+			pi.setIndentation(pi.getIndentation() + "    ");
 		
 		final ArrayList<TriggerItem> items = new ArrayList<>();
 		
@@ -920,10 +1340,11 @@ final public class ScriptLoader {
 				if (stmt == null)
 					continue;
 				if (Skript.debug() || n.debug())
-					Skript.debug(indentation + stmt.toString(null, true));
+					Skript.debug(pi.getIndentation() + stmt.toString(null, true));
+				stmt.setLineNumber(n.getLine());
 				items.add(stmt);
 				if (stmt instanceof Delay)
-					hasDelayBefore = Kleenean.TRUE;
+					pi.setHasDelayBefore(Kleenean.TRUE);
 			} else if (n instanceof SectionNode) {
 				String name = replaceOptions("" + n.getKey());
 				if (!SkriptParser.validateLine(name))
@@ -937,6 +1358,8 @@ final public class ScriptLoader {
 						loopedExpr = new SkriptParser(l).parseExpression(Object.class);
 						if (loopedExpr != null)
 							loopedExpr = loopedExpr.getConvertedExpression(Object.class);
+						if (loopedExpr != null && ScriptOptimizer.isEnabled())
+							loopedExpr = loopedExpr.simplify();
 						if (loopedExpr == null) {
 							h.printErrors("Can't understand this loop: '" + name + "'");
 							continue;
@@ -950,33 +1373,33 @@ final public class ScriptLoader {
 						continue;
 					}
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "loop " + loopedExpr.toString(null, true) + ":");
-					final Kleenean hadDelayBefore = hasDelayBefore;
+						Skript.debug(pi.getIndentation() + "loop " + loopedExpr.toString(null, true) + ":");
+					final Kleenean hadDelayBefore = pi.getHasDelayBefore();
 					items.add(new Loop(loopedExpr, (SectionNode) n));
-					if (hadDelayBefore != Kleenean.TRUE && hasDelayBefore != Kleenean.FALSE)
-						hasDelayBefore = Kleenean.UNKNOWN;
+					if (hadDelayBefore != Kleenean.TRUE && pi.getHasDelayBefore() != Kleenean.FALSE)
+						pi.setHasDelayBefore(Kleenean.UNKNOWN);
 				} else if (StringUtils.startsWithIgnoreCase(name, "while ")) {
 					final String l = "" + name.substring("while ".length());
 					final Condition c = Condition.parse(l, "Can't understand this condition: " + l);
 					if (c == null)
 						continue;
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "while " + c.toString(null, true) + ":");
-					final Kleenean hadDelayBefore = hasDelayBefore;
+						Skript.debug(pi.getIndentation() + "while " + c.toString(null, true) + ":");
+					final Kleenean hadDelayBefore = pi.getHasDelayBefore();
 					items.add(new While(c, (SectionNode) n));
-					if (hadDelayBefore != Kleenean.TRUE && hasDelayBefore != Kleenean.FALSE)
-						hasDelayBefore = Kleenean.UNKNOWN;
+					if (hadDelayBefore != Kleenean.TRUE && pi.getHasDelayBefore() != Kleenean.FALSE)
+						pi.setHasDelayBefore(Kleenean.UNKNOWN);
 				} else if (name.equalsIgnoreCase("else")) {
 					if (items.size() == 0 || !(items.get(items.size() - 1) instanceof Conditional) || ((Conditional) items.get(items.size() - 1)).hasElseClause()) {
 						Skript.error("'else' has to be placed just after an 'if' or 'else if' section");
 						continue;
 					}
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "else:");
-					final Kleenean hadDelayAfterLastIf = hasDelayBefore;
-					hasDelayBefore = hadDelayBeforeLastIf;
+						Skript.debug(pi.getIndentation() + "else:");
+					final Kleenean hadDelayAfterLastIf = pi.getHasDelayBefore();
+					pi.setHasDelayBefore(hadDelayBeforeLastIf);
 					((Conditional) items.get(items.size() - 1)).loadElseClause((SectionNode) n);
-					hasDelayBefore = hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(hasDelayBefore));
+					pi.setHasDelayBefore(hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(pi.getHasDelayBefore())));
 				} else if (StringUtils.startsWithIgnoreCase(name, "else if ")) {
 					if (items.size() == 0 || !(items.get(items.size() - 1) instanceof Conditional) || ((Conditional) items.get(items.size() - 1)).hasElseClause()) {
 						Skript.error("'else if' has to be placed just after another 'if' or 'else if' section");
@@ -987,11 +1410,11 @@ final public class ScriptLoader {
 					if (cond == null)
 						continue;
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "else if " + cond.toString(null, true));
-					final Kleenean hadDelayAfterLastIf = hasDelayBefore;
-					hasDelayBefore = hadDelayBeforeLastIf;
+						Skript.debug(pi.getIndentation() + "else if " + cond.toString(null, true));
+					final Kleenean hadDelayAfterLastIf = pi.getHasDelayBefore();
+					pi.setHasDelayBefore(hadDelayBeforeLastIf);
 					((Conditional) items.get(items.size() - 1)).loadElseIf(cond, (SectionNode) n);
-					hasDelayBefore = hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(hasDelayBefore.and(Kleenean.UNKNOWN)));
+					pi.setHasDelayBefore(hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(pi.getHasDelayBefore().and(Kleenean.UNKNOWN))));
 				} else {
 					if (StringUtils.startsWithIgnoreCase(name, "if "))
 						name = "" + name.substring(3);
@@ -999,22 +1422,24 @@ final public class ScriptLoader {
 					if (cond == null)
 						continue;
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + cond.toString(null, true) + ":");
-					final Kleenean hadDelayBefore = hasDelayBefore;
+						Skript.debug(pi.getIndentation() + cond.toString(null, true) + ":");
+					final Kleenean hadDelayBefore = pi.getHasDelayBefore();
 					hadDelayBeforeLastIf = hadDelayBefore;
 					items.add(new Conditional(cond, (SectionNode) n));
-					hasDelayBefore = hadDelayBefore.or(hasDelayBefore.and(Kleenean.UNKNOWN));
+					pi.setHasDelayBefore(hadDelayBefore.or(pi.getHasDelayBefore().and(Kleenean.UNKNOWN)));
 				}
 			}
 		}
 		
+		ScriptOptimizer.removeDeadBranches(items);
+		
 		for (int i = 0; i < items.size() - 1; i++)
 			items.get(i).setNext(items.get(i + 1));
 		
 		SkriptLogger.setNode(node);
 		
 		if (Skript.debug())
-			indentation = "" + indentation.substring(0, indentation.length() - 4);
+			pi.setIndentation("" + pi.getIndentation().substring(0, pi.getIndentation().length() - 4));
 		
 		return items;
 	}
@@ -1074,12 +1499,12 @@ final public class ScriptLoader {
 	}
 	
 	public final static boolean isCurrentEvent(final @Nullable Class<? extends Event> event) {
-		return CollectionUtils.containsSuperclass(currentEvents, event);
+		return CollectionUtils.containsSuperclass(ParserInstance.get().getCurrentEvents(), event);
 	}
 	
 	@SafeVarargs
 	public final static boolean isCurrentEvent(final Class<? extends Event>... events) {
-		return CollectionUtils.containsAnySuperclass(currentEvents, events);
+		return CollectionUtils.containsAnySuperclass(ParserInstance.get().getCurrentEvents(), events);
 	}
 	
 	/**
@@ -1087,7 +1512,7 @@ final public class ScriptLoader {
 	 */
 	@Nullable
 	public static Class<? extends Event>[] getCurrentEvents() {
-		return currentEvents;
+		return ParserInstance.get().getCurrentEvents();
 	}
 	
 }
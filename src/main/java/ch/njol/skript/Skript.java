@@ -90,11 +90,14 @@ import ch.njol.skript.lang.ExpressionInfo;
 import ch.njol.skript.lang.ExpressionType;
 import ch.njol.skript.lang.SkriptEvent;
 import ch.njol.skript.lang.SkriptEventInfo;
+import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.Statement;
+import ch.njol.skript.lang.SyntaxElementIndex;
 import ch.njol.skript.lang.SyntaxElementInfo;
 import ch.njol.skript.lang.TriggerItem;
 import ch.njol.skript.lang.VariableString;
 import ch.njol.skript.lang.function.Functions;
+import ch.njol.skript.lang.parser.ScriptCache;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.localization.Message;
@@ -722,6 +725,7 @@ public final class Skript extends JavaPlugin implements Listener {
 		SkriptEventHandler.removeAllTriggers();
 		Commands.clearCommands();
 		Functions.clearFunctions();
+		ScriptLoader.clearLoadedSections();
 	}
 	
 	/**
@@ -749,6 +753,7 @@ public final class Skript extends JavaPlugin implements Listener {
 	 */
 	final static void reloadMainConfig() {
 		SkriptConfig.load();
+		ScriptCache.resetFingerprint();
 	}
 	
 	/**
@@ -757,6 +762,7 @@ public final class Skript extends JavaPlugin implements Listener {
 	final static void reloadAliases() {
 		Aliases.clear();
 		Aliases.load();
+		ScriptCache.resetFingerprint();
 	}
 	
 	@SuppressWarnings("null")
@@ -928,6 +934,13 @@ public final class Skript extends JavaPlugin implements Listener {
 		Converters.createMissingConverters();
 		
 		Classes.onRegistrationsStop();
+		
+		SkriptParser.compilePatterns();
+		
+		statementIndex = new SyntaxElementIndex<>(statements.iterator());
+		conditionIndex = new SyntaxElementIndex<>(conditions.iterator());
+		effectIndex = new SyntaxElementIndex<>(effects.iterator());
+		expressionIndex = new SyntaxElementIndex<>(getExpressions());
 	}
 	
 	// ================ ADDONS ================
@@ -1023,6 +1036,43 @@ public final class Skript extends JavaPlugin implements Listener {
 		return effects;
 	}
 	
+	@Nullable
+	private static SyntaxElementIndex<SyntaxElementInfo<? extends Statement>> statementIndex;
+	@Nullable
+	private static SyntaxElementIndex<SyntaxElementInfo<? extends Condition>> conditionIndex;
+	@Nullable
+	private static SyntaxElementIndex<SyntaxElementInfo<? extends Effect>> effectIndex;
+	
+	/**
+	 * @param expr The text to parse
+	 * @return The statements that could match the given text, in the same order as {@link #getStatements()}
+	 */
+	@SuppressWarnings("null")
+	public static Iterator<SyntaxElementInfo<? extends Statement>> getStatements(final String expr) {
+		final SyntaxElementIndex<SyntaxElementInfo<? extends Statement>> index = statementIndex;
+		return index == null ? statements.iterator() : index.getCandidates(expr);
+	}
+	
+	/**
+	 * @param expr The text to parse
+	 * @return The conditions that could match the given text, in the same order as {@link #getConditions()}
+	 */
+	@SuppressWarnings("null")
+	public static Iterator<SyntaxElementInfo<? extends Condition>> getConditions(final String expr) {
+		final SyntaxElementIndex<SyntaxElementInfo<? extends Condition>> index = conditionIndex;
+		return index == null ? conditions.iterator() : index.getCandidates(expr);
+	}
+	
+	/**
+	 * @param expr The text to parse
+	 * @return The effects that could match the given text, in the same order as {@link #getEffects()}
+	 */
+	@SuppressWarnings("null")
+	public static Iterator<SyntaxElementInfo<? extends Effect>> getEffects(final String expr) {
+		final SyntaxElementIndex<SyntaxElementInfo<? extends Effect>> index = effectIndex;
+		return index == null ? effects.iterator() : index.getCandidates(expr);
+	}
+	
 	// ================ EXPRESSIONS ================
 	
 	private final static List<ExpressionInfo<?, ?>> expressions = new ArrayList<>(100);
@@ -1054,8 +1104,25 @@ public final class Skript extends JavaPlugin implements Listener {
 		return expressions.iterator();
 	}
 	
+	@Nullable
+	private static SyntaxElementIndex<ExpressionInfo<?, ?>> expressionIndex;
+	
 	public static Iterator<ExpressionInfo<?, ?>> getExpressions(final Class<?>... returnTypes) {
-		return new CheckedIterator<>(getExpressions(), new NullableChecker<ExpressionInfo<?, ?>>() {
+		return filterExpressions(getExpressions(), returnTypes);
+	}
+	
+	/**
+	 * @param expr The text to parse
+	 * @param returnTypes
+	 * @return The expressions that could match the given text, in the same order as {@link #getExpressions(Class...)}
+	 */
+	public static Iterator<ExpressionInfo<?, ?>> getExpressions(final String expr, final Class<?>... returnTypes) {
+		final SyntaxElementIndex<ExpressionInfo<?, ?>> index = expressionIndex;
+		return filterExpressions(index == null ? getExpressions() : index.getCandidates(expr), returnTypes);
+	}
+	
+	private static Iterator<ExpressionInfo<?, ?>> filterExpressions(final Iterator<ExpressionInfo<?, ?>> expressions, final Class<?>... returnTypes) {
+		return new CheckedIterator<>(expressions, new NullableChecker<ExpressionInfo<?, ?>>() {
 			@Override
 			public boolean check(final @Nullable ExpressionInfo<?, ?> i) {
 				if (i == null || i.returnType == Object.class)
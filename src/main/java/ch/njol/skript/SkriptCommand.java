@@ -42,10 +42,14 @@ import ch.njol.skript.localization.Language;
 import ch.njol.skript.localization.PluralizingArgsMessage;
 import ch.njol.skript.log.RedirectingLogHandler;
 import ch.njol.skript.log.SkriptLogger;
+import ch.njol.skript.timings.SkriptProfiler;
+import ch.njol.skript.timings.SkriptProfiler.LineResult;
+import ch.njol.skript.timings.SkriptProfiler.Profile;
 import ch.njol.skript.timings.SkriptTimings;
 import ch.njol.skript.util.Color;
 import ch.njol.skript.util.ExceptionUtils;
 import ch.njol.skript.util.FileUtils;
+import ch.njol.skript.util.Task;
 import ch.njol.skript.util.Utils;
 import ch.njol.util.StringUtils;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -103,6 +107,9 @@ public class SkriptCommand implements CommandExecutor {
 			).add(new CommandHelp("timings", Color.DARK_RED)
 					.add("start")
 					.add("stop")
+			).add(new CommandHelp("profile", Color.DARK_RED)
+					.add("start")
+					.add("stop")
 			).add("help");
 	
 	static {
@@ -182,10 +189,7 @@ public class SkriptCommand implements CommandExecutor {
 							return true;
 						}
 						reloading(sender, "script", f.getName());
-						if (!ScriptLoader.loadAsync)
-							ScriptLoader.unloadScript(f);
-						Config config = ScriptLoader.loadStructure(f);
-						ScriptLoader.loadScripts(config);
+						ScriptLoader.reloadScript(f);
 						reloaded(sender, r, "script", f.getName());
 					} else {
 						reloading(sender, "scripts in folder", f.getName());
@@ -355,6 +359,57 @@ public class SkriptCommand implements CommandExecutor {
 				} finally {
 					
 				}
+			} else if (args[0].equalsIgnoreCase("profile")) {
+				if (args[1].equalsIgnoreCase("start")) {
+					final boolean allocations = args.length > 2 && args[2].equalsIgnoreCase("allocations");
+					if (allocations && !SkriptProfiler.isAllocationMeasurementSupported()) {
+						error(sender, "profile.allocations unsupported");
+						return true;
+					}
+					if (SkriptProfiler.startProfiling(allocations))
+						info(sender, allocations ? "profile.started with allocations" : "profile.started");
+					else
+						error(sender, "profile.already running");
+				} else if (args[1].equalsIgnoreCase("stop")) {
+					final Profile profile = SkriptProfiler.stopProfiling();
+					if (profile == null) {
+						error(sender, "profile.not running");
+						return true;
+					}
+					final File folder = new File(Skript.getInstance().getDataFolder(), "profiles");
+					new Task(Skript.getInstance(), 0, true) { // the files of a long run can be large
+						@Override
+						public void run() {
+							final File file;
+							try {
+								file = profile.save(folder);
+							} catch (final IOException e) {
+								final String cause = ExceptionUtils.toString(e);
+								new Task(Skript.getInstance(), 0) {
+									@Override
+									public void run() {
+										error(sender, "profile.io error", cause);
+									}
+								};
+								return;
+							}
+							final List<LineResult> lines = profile.getLines();
+							new Task(Skript.getInstance(), 0) {
+								@Override
+								public void run() {
+									info(sender, "profile.stopped", formatNanos(profile.getDuration()), formatNanos(profile.getTotalNanos()), file.getName());
+									for (int i = 0; i < lines.size() && i < 10; i++) {
+										final LineResult l = lines.get(i);
+										if (profile.hasAllocations())
+											message(sender, "profile.line with allocations", l.location, formatNanos(l.nanos), l.count, l.bytes / 1024);
+										else
+											message(sender, "profile.line", l.location, formatNanos(l.nanos), l.count);
+									}
+								}
+							};
+						}
+					};
+				}
 			} else if (args[0].equalsIgnoreCase("help")) {
 				skriptCommandHelp.showHelp(sender);
 			} else if (args[0].equalsIgnoreCase("gen-docs")) {
@@ -378,6 +433,10 @@ public class SkriptCommand implements CommandExecutor {
 		return true;
 	}
 	
+	private static String formatNanos(final long nanos) {
+		return StringUtils.toString(nanos / 1000000.0, 2) + " ms";
+	}
+	
 	private final static ArgsMessage m_invalid_script = new ArgsMessage(NODE + ".invalid script");
 	private final static ArgsMessage m_invalid_folder = new ArgsMessage(NODE + ".invalid folder");
 	
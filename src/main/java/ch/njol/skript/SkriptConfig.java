@@ -38,6 +38,9 @@ import ch.njol.skript.config.EnumParser;
 import ch.njol.skript.config.Option;
 import ch.njol.skript.config.OptionSection;
 import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.ScriptOptimizer;
+import ch.njol.skript.lang.TriggerCompiler;
+import ch.njol.skript.lang.parser.ScriptCache;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.log.Verbosity;
@@ -239,6 +242,61 @@ public abstract class SkriptConfig {
 			})
 			.optional(true);
 	
+	public final static Option<Integer> scriptLoaderThreads = new Option<Integer>("script loader threads", 1)
+			.setter(new Setter<Integer>() {
+				
+				@Override
+				public void set(Integer t) {
+					ScriptLoader.loaderThreads = t <= 0 ? Runtime.getRuntime().availableProcessors() : t;
+				}
+				
+			})
+			.optional(true);
+	
+	public final static Option<Boolean> reloadChangedSectionsOnly = new Option<Boolean>("reload changed sections only", false)
+			.setter(new Setter<Boolean>() {
+				
+				@Override
+				public void set(Boolean t) {
+					ScriptLoader.reloadChangedSectionsOnly = t;
+				}
+				
+			})
+			.optional(true);
+	
+	public final static Option<Boolean> cacheParsedScripts = new Option<Boolean>("cache parsed scripts", false)
+			.setter(new Setter<Boolean>() {
+				
+				@Override
+				public void set(Boolean t) {
+					ScriptCache.setEnabled(t);
+				}
+				
+			})
+			.optional(true);
+	
+	public final static Option<Boolean> compileTriggers = new Option<Boolean>("compile triggers", false)
+			.setter(new Setter<Boolean>() {
+				
+				@Override
+				public void set(Boolean t) {
+					TriggerCompiler.setEnabled(t);
+				}
+				
+			})
+			.optional(true);
+	
+	public final static Option<Boolean> optimizeScripts = new Option<Boolean>("optimize scripts", false)
+			.setter(new Setter<Boolean>() {
+				
+				@Override
+				public void set(Boolean t) {
+					ScriptOptimizer.setEnabled(t);
+				}
+				
+			})
+			.optional(true);
+	
 	public final static Option<Boolean> allowUnsafePlatforms = new Option<Boolean>("allow unsafe platforms", false)
 			.optional(true);
 	
@@ -21,13 +21,15 @@ package ch.njol.skript;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.Bukkit;
 import org.bukkit.event.Cancellable;
@@ -43,6 +45,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import ch.njol.skript.ScriptLoader.ScriptInfo;
 import ch.njol.skript.command.Commands;
 import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
+import ch.njol.skript.lang.SkriptEvent;
 import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.function.Functions;
 import ch.njol.skript.timings.SkriptTimings;
@@ -57,42 +60,192 @@ public abstract class SkriptEventHandler {
 	
 	private final static List<Trigger> selfRegisteredTriggers = new ArrayList<>();
 	
-	private final static Iterator<Trigger> getTriggers(final Class<? extends Event> event) {
-		return new Iterator<Trigger>() {
-			@Nullable
-			private Class<?> e = event;
-			@Nullable
-			private Iterator<Trigger> current = null;
+	/**
+	 * The triggers of an event class, including the triggers of its superclasses, in the order they are called.
+	 * <p>
+	 * Triggers whose event {@link SkriptEvent#getIndexKeys() provides index keys} are additionally indexed by these keys, grouped by the class of their
+	 * SkriptEvent, so that only the triggers which can match an event have to be {@link SkriptEvent#check(Event) checked}.
+	 */
+	private final static class EventTriggers {
+		
+		final Trigger[] triggers;
+		
+		/**
+		 * One SkriptEvent of each indexed SkriptEvent class, used to get the {@link SkriptEvent#getIndexKey(Event) index key} of events.
+		 */
+		final SkriptEvent[] indexed;
+		/**
+		 * For each indexed SkriptEvent class: the positions of its triggers which can match an event with a given key.
+		 * <p>
+		 * If only one SkriptEvent class is indexed, these arrays also include the {@link #unindexed} triggers.
+		 */
+		final Map<Object, int[]>[] buckets;
+		/**
+		 * For each indexed SkriptEvent class: the positions of all its indexed triggers.
+		 */
+		final int[][] all;
+		/**
+		 * The positions of all triggers which are not indexed.
+		 */
+		final int[] unindexed;
+		/**
+		 * If more than one SkriptEvent class is indexed: the candidates of each combination of keys that occurred, see {@link #getCandidates(Event)}. This is a tree
+		 * of maps with one level per indexed SkriptEvent class, keyed by the key of the event if the class has a bucket for it, or by {@link #ALL} or
+		 * {@link #NONE} otherwise, so that its size is limited by the keys of the triggers.
+		 */
+		private final Map<Object, Object> merged = new ConcurrentHashMap<>();
+		
+		/**
+		 * Used in {@link #merged} for events without a key and for keys without a bucket respectively
+		 */
+		private final static Object ALL = new Object(), NONE = new Object();
+		
+		@SuppressWarnings("unchecked")
+		EventTriggers(final Trigger[] triggers) {
+			this.triggers = triggers;
 			
-			@Override
-			public boolean hasNext() {
-				Iterator<Trigger> current = this.current;
-				Class<?> e = this.e;
-				while (current == null || !current.hasNext()) {
-					if (e == null || !Event.class.isAssignableFrom(e))
-						return false;
-					final List<Trigger> l = triggers.get(e);
-					this.current = current = l == null ? null : l.iterator();
-					this.e = e = e.getSuperclass();
+			final Map<Class<?>, Integer> groups = new LinkedHashMap<>();
+			final List<SkriptEvent> indexed = new ArrayList<>();
+			final List<Map<Object, List<Integer>>> buckets = new ArrayList<>();
+			final List<List<Integer>> all = new ArrayList<>();
+			final List<Integer> unindexed = new ArrayList<>();
+			for (int i = 0; i < triggers.length; i++) {
+				final SkriptEvent event = triggers[i].getEvent();
+				final Object[] keys = event.getIndexKeys();
+				if (keys == null) {
+					unindexed.add(i);
+					continue;
 				}
-				return true;
+				Integer group = groups.get(event.getClass());
+				if (group == null) {
+					groups.put(event.getClass(), group = indexed.size());
+					indexed.add(event);
+					buckets.add(new HashMap<Object, List<Integer>>());
+					all.add(new ArrayList<Integer>());
+				}
+				for (final Object key : keys) {
+					List<Integer> bucket = buckets.get(group).get(key);
+					if (bucket == null)
+						buckets.get(group).put(key, bucket = new ArrayList<>());
+					bucket.add(i);
+				}
+				all.get(group).add(i);
 			}
 			
-			@Override
-			public Trigger next() {
-				final Iterator<Trigger> current = this.current;
-				if (current == null || !hasNext())
-					throw new NoSuchElementException();
-				final Trigger next = current.next();
-				assert next != null;
-				return next;
+			this.indexed = indexed.toArray(new SkriptEvent[indexed.size()]);
+			this.buckets = new Map[buckets.size()];
+			this.all = new int[all.size()][];
+			this.unindexed = toArray(unindexed);
+			for (int g = 0; g < buckets.size(); g++) {
+				final Map<Object, int[]> b = new HashMap<>();
+				for (final Map.Entry<Object, List<Integer>> bucket : buckets.get(g).entrySet()) {
+					if (buckets.size() == 1)
+						bucket.getValue().addAll(unindexed);
+					b.put(bucket.getKey(), toArray(bucket.getValue()));
+				}
+				this.buckets[g] = b;
+				this.all[g] = toArray(all.get(g));
 			}
-			
-			@Override
-			public void remove() {
-				throw new UnsupportedOperationException();
+		}
+		
+		private final static int[] toArray(final List<Integer> positions) {
+			final int[] r = new int[positions.size()];
+			for (int i = 0; i < r.length; i++)
+				r[i] = positions.get(i);
+			Arrays.sort(r);
+			return r;
+		}
+		
+		/**
+		 * @param e
+		 * @return The positions of the triggers that can match the given event in ascending order, or null if all triggers can match it.
+		 */
+		@Nullable
+		int[] getCandidates(final Event e) {
+			if (indexed.length == 0)
+				return null;
+			if (indexed.length == 1) {
+				final Object key = indexed[0].getIndexKey(e);
+				if (key == null)
+					return null;
+				final int[] bucket = buckets[0].get(key);
+				return bucket == null ? unindexed : bucket;
+			}
+			Map<Object, Object> level = merged;
+			for (int g = 0;; g++) {
+				final Object key = indexed[g].getIndexKey(e);
+				final Object k = key == null ? ALL : buckets[g].containsKey(key) ? key : NONE;
+				if (g == indexed.length - 1) {
+					int[] candidates = (int[]) level.get(k);
+					if (candidates == null)
+						level.put(k, candidates = merge(e));
+					return candidates;
+				}
+				@SuppressWarnings("unchecked")
+				Map<Object, Object> next = (Map<Object, Object>) level.get(k);
+				if (next == null) {
+					next = new ConcurrentHashMap<>();
+					@SuppressWarnings("unchecked")
+					final Map<Object, Object> n = (Map<Object, Object>) level.putIfAbsent(k, next);
+					if (n != null)
+						next = n;
+				}
+				level = next;
+			}
+		}
+		
+		/**
+		 * Merges the candidates of all indexed SkriptEvent classes for the given event. Only used once for each combination of keys, see {@link #merged}.
+		 */
+		private int[] merge(final Event e) {
+			final int[][] lists = new int[indexed.length][];
+			int size = unindexed.length;
+			for (int g = 0; g < indexed.length; g++) {
+				final Object key = indexed[g].getIndexKey(e);
+				lists[g] = key == null ? all[g] : buckets[g].get(key);
+				if (lists[g] != null)
+					size += lists[g].length;
+			}
+			final int[] candidates = Arrays.copyOf(unindexed, size);
+			int i = unindexed.length;
+			for (final int[] list : lists) {
+				if (list == null)
+					continue;
+				System.arraycopy(list, 0, candidates, i, list.length);
+				i += list.length;
 			}
-		};
+			Arrays.sort(candidates);
+			return candidates;
+		}
+		
+	}
+	
+	/**
+	 * Caches the triggers of each event class. Cleared whenever {@link #triggers} changes.
+	 * <p>
+	 * A new map is created to invalidate the cache, so that triggers collected from outdated triggers by a concurrent (asynchronous) event won't be put into the
+	 * new cache.
+	 */
+	private static volatile Map<Class<? extends Event>, EventTriggers> dispatchTable = new ConcurrentHashMap<>();
+	
+	private final static EventTriggers getTriggers(final Class<? extends Event> event) {
+		final Map<Class<? extends Event>, EventTriggers> dispatchTable = SkriptEventHandler.dispatchTable;
+		EventTriggers ts = dispatchTable.get(event);
+		if (ts != null)
+			return ts;
+		final List<Trigger> l = new ArrayList<>();
+		for (Class<?> e = event; e != null && Event.class.isAssignableFrom(e); e = e.getSuperclass()) {
+			final List<Trigger> t = triggers.get(e);
+			if (t != null)
+				l.addAll(t);
+		}
+		ts = new EventTriggers(l.toArray(new Trigger[l.size()]));
+		dispatchTable.put(event, ts);
+		return ts;
+	}
+	
+	private final static void invalidateDispatchTable() {
+		dispatchTable = new ConcurrentHashMap<>();
 	}
 	
 	@Nullable
@@ -111,28 +264,32 @@ public abstract class SkriptEventHandler {
 	};
 	
 	static void check(final Event e) {
-		Iterator<Trigger> ts = getTriggers(e.getClass());
-		if (!ts.hasNext())
+		final Class<? extends Event> c = e.getClass();
+		assert c != null;
+		final EventTriggers et = getTriggers(c);
+		final Trigger[] ts = et.triggers;
+		if (ts.length == 0)
+			return;
+		final int[] candidates = et.getCandidates(e);
+		if (candidates != null && candidates.length == 0)
 			return;
+		final int n = candidates == null ? ts.length : candidates.length;
 		
 		if (Skript.logVeryHigh()) {
 			boolean hasTrigger = false;
-			while (ts.hasNext()) {
-				if (ts.next().getEvent().check(e)) {
+			for (int i = 0; i < n; i++) {
+				if (ts[candidates == null ? i : candidates[i]].getEvent().check(e)) {
 					hasTrigger = true;
 					break;
 				}
 			}
 			if (!hasTrigger)
 				return;
-			final Class<? extends Event> c = e.getClass();
-			assert c != null;
-			ts = getTriggers(c);
 			
 			logEventStart(e);
 		}
 		
-		if (e instanceof Cancellable && ((Cancellable) e).isCancelled() && !listenCancelled.contains(e.getClass()) &&
+		if (e instanceof Cancellable && ((Cancellable) e).isCancelled() && !listenCancelled.contains(c) &&
 				!(e instanceof PlayerInteractEvent && (((PlayerInteractEvent) e).getAction() == Action.LEFT_CLICK_AIR || ((PlayerInteractEvent) e).getAction() == Action.RIGHT_CLICK_AIR) && ((PlayerInteractEvent) e).useItemInHand() != Result.DENY)
 				|| e instanceof ServerCommandEvent && (((ServerCommandEvent) e).getCommand() == null || ((ServerCommandEvent) e).getCommand().isEmpty())) {
 			if (Skript.logVeryHigh())
@@ -140,8 +297,8 @@ public abstract class SkriptEventHandler {
 			return;
 		}
 		
-		while (ts.hasNext()) {
-			final Trigger t = ts.next();
+		for (int i = 0; i < n; i++) {
+			final Trigger t = ts[candidates == null ? i : candidates[i]];
 			if (!t.getEvent().check(e))
 				continue;
 			
@@ -195,6 +352,7 @@ public abstract class SkriptEventHandler {
 				triggers.put(e, ts = new ArrayList<>());
 			ts.add(trigger);
 		}
+		invalidateDispatchTable();
 	}
 	
 	/**
@@ -207,6 +365,26 @@ public abstract class SkriptEventHandler {
 		selfRegisteredTriggers.add(t);
 	}
 	
+	/**
+	 * Removes a single trigger, e.g. because it is being reloaded.
+	 * 
+	 * @param t The trigger to remove
+	 */
+	static void removeTrigger(final Trigger t) {
+		if (t.getEvent() instanceof SelfRegisteringSkriptEvent) {
+			if (selfRegisteredTriggers.remove(t))
+				((SelfRegisteringSkriptEvent) t.getEvent()).unregister(t);
+			return;
+		}
+		final Iterator<List<Trigger>> triggersIter = triggers.values().iterator();
+		while (triggersIter.hasNext()) {
+			final List<Trigger> ts = triggersIter.next();
+			if (ts.remove(t) && ts.isEmpty())
+				triggersIter.remove();
+		}
+		invalidateDispatchTable();
+	}
+	
 	static ScriptInfo removeTriggers(final File script) {
 		final ScriptInfo info = new ScriptInfo();
 		info.files = 1;
@@ -224,6 +402,7 @@ public abstract class SkriptEventHandler {
 				}
 			}
 		}
+		invalidateDispatchTable();
 		
 		for (int i = 0; i < selfRegisteredTriggers.size(); i++) {
 			final Trigger t = selfRegisteredTriggers.get(i);
@@ -244,6 +423,7 @@ public abstract class SkriptEventHandler {
 	
 	static void removeAllTriggers() {
 		triggers.clear();
+		invalidateDispatchTable();
 		for (final Trigger t : selfRegisteredTriggers)
 			((SelfRegisteringSkriptEvent) t.getEvent()).unregisterAll();
 		selfRegisteredTriggers.clear();
@@ -697,6 +697,27 @@ public class ItemType implements Unit, Iterable<ItemData>, Container<ItemStack>,
 		return types.size();
 	}
 	
+	/**
+	 * Gets the materials of all given item types, e.g. to {@link ch.njol.skript.lang.SkriptEvent#getIndexKeys() index} events by them.
+	 * 
+	 * @param itemTypes
+	 * @return The materials of the given item types, or null if any of them is not restricted to certain materials.
+	 */
+	@Nullable
+	public static Material[] getMaterials(final ItemType... itemTypes) {
+		final List<Material> materials = new ArrayList<>();
+		for (final ItemType t : itemTypes) {
+			for (final ItemData d : t.types) {
+				if (d.typeid == -1)
+					return null;
+				final Material m = Material.getMaterial(d.typeid);
+				if (m != null && !materials.contains(m))
+					materials.add(m);
+			}
+		}
+		return materials.toArray(new Material[materials.size()]);
+	}
+	
 	/**
 	 * @return How many different items this item type represents
 	 */
@@ -66,6 +66,7 @@ import ch.njol.skript.config.validate.SectionValidator;
 import ch.njol.skript.lang.Effect;
 import ch.njol.skript.lang.ParseContext;
 import ch.njol.skript.lang.SkriptParser;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.localization.ArgsMessage;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.localization.Message;
@@ -140,6 +141,19 @@ public abstract class Commands {
 			.addEntry("executable by", true)
 			.addSection("trigger", false);
 	
+	/**
+	 * @return The arguments of the command that is currently being parsed by this thread, or null if no command is being parsed
+	 */
+	@Nullable
+	public static List<Argument<?>> getCurrentArguments() {
+		return ParserInstance.get().getCurrentArguments();
+	}
+	
+	/**
+	 * @deprecated Use {@link #getCurrentArguments()}. This field is set whenever any thread starts parsing another command, thus it is only correct if scripts are parsed by
+	 *             one thread. Assigning it has no effect.
+	 */
+	@Deprecated
 	@Nullable
 	public static List<Argument<?>> currentArguments = null;
 	
@@ -340,7 +354,8 @@ public abstract class Commands {
 		final String arguments = m.group(3) == null ? "" : m.group(3);
 		final StringBuilder pattern = new StringBuilder();
 		
-		List<Argument<?>> currentArguments = Commands.currentArguments = new ArrayList<>(); //Mirre
+		List<Argument<?>> currentArguments = new ArrayList<>(); //Mirre
+		ParserInstance.get().setCurrentArguments(currentArguments);
 		m = argumentPattern.matcher(arguments);
 		int lastEnd = 0;
 		int optionals = 0;
@@ -444,12 +459,12 @@ public abstract class Commands {
 			return null;
 		}
 		
-		Commands.currentArguments = currentArguments;
+		ParserInstance.get().setCurrentArguments(currentArguments);
 		final ScriptCommand c;
 		try {
 			c = new ScriptCommand(config, command, "" + pattern.toString(), currentArguments, description, usage, aliases, permission, permissionMessage, executableBy, ScriptLoader.loadItems(trigger));
 		} finally {
-			Commands.currentArguments = null;
+			ParserInstance.get().setCurrentArguments(null);
 		}
 		
 		if (alsoRegister)
@@ -486,6 +501,24 @@ public abstract class Commands {
 		command.registerHelp();
 	}
 	
+	/**
+	 * Unregisters a single command, e.g. because it is being reloaded.
+	 * 
+	 * @param command The command to unregister
+	 */
+	public static void unregisterCommand(final ScriptCommand command) {
+		command.unregisterHelp();
+		if (commandMap != null) {
+			assert cmKnownCommands != null;// && cmAliases != null;
+			command.unregister(commandMap, cmKnownCommands, cmAliases);
+		}
+		final Iterator<ScriptCommand> commandsIter = commands.values().iterator();
+		while (commandsIter.hasNext()) {
+			if (commandsIter.next() == command)
+				commandsIter.remove();
+		}
+	}
+	
 	public static int unregisterCommands(final File script) {
 		int numCommands = 0;
 		final Iterator<ScriptCommand> commandsIter = commands.values().iterator();
@@ -50,6 +50,7 @@ import org.eclipse.jdt.annotation.Nullable;
 
 import ch.njol.skript.Skript;
 import ch.njol.skript.command.Commands.CommandAliasHelpTopic;
+import ch.njol.skript.lang.ExecutionFrame;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.TriggerItem;
@@ -195,6 +196,8 @@ public class ScriptCommand implements CommandExecutor {
 	boolean execute2(final CommandSender sender, final String commandLabel, final String rest) {
 		final ScriptCommandEvent event = new ScriptCommandEvent(ScriptCommand.this, sender);
 		
+		final ExecutionFrame frame = new ExecutionFrame(event, trigger.getLocalVariableSlots()); // holds the arguments' local variables
+		final ExecutionFrame previous = ExecutionFrame.enter(frame);
 		final ParseLogHandler log = SkriptLogger.startParseLogHandler();
 		try {
 			final boolean ok = SkriptParser.parseArguments(rest, ScriptCommand.this, event);
@@ -211,13 +214,14 @@ public class ScriptCommand implements CommandExecutor {
 			log.printLog();
 		} finally {
 			log.stop();
+			ExecutionFrame.exit(previous);
 		}
 		
 		if (Skript.log(Verbosity.VERY_HIGH))
 			Skript.info("# /" + name + " " + rest);
 		final long startTrigger = System.nanoTime();
 		
-		if (!trigger.execute(event))
+		if (!trigger.execute(event, frame))
 			sender.sendMessage(Commands.m_internal_error.toString());
 		
 		if (Skript.log(Verbosity.VERY_HIGH))
@@ -36,9 +36,11 @@ import ch.njol.skript.entity.EntityData;
 import ch.njol.skript.lang.Condition;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionList;
+import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.ParseContext;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.UnparsedLiteral;
 import ch.njol.skript.log.ErrorQuality;
 import ch.njol.skript.log.RetainingLogHandler;
 import ch.njol.skript.log.SkriptLogger;
@@ -277,6 +279,40 @@ public class CondCompare extends Condition {
 		});
 	}
 	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	@Override
+	public Kleenean getConstantResult() {
+		final Expression<?> third = this.third;
+		final Object o1 = getConstantValue(first), o2 = getConstantValue(second), o3 = third == null ? null : getConstantValue(third);
+		if (o1 == null || o2 == null || third != null && o3 == null)
+			return Kleenean.UNKNOWN;
+		final Comparator comp = this.comp;
+		final boolean result;
+		try {
+			if (o3 == null) {
+				result = relation.is(comp != null ? comp.compare(o1, o2) : Comparators.compare(o1, o2));
+			} else {
+				result = relation == Relation.NOT_EQUAL ^
+						(Relation.GREATER_OR_EQUAL.is(comp != null ? comp.compare(o1, o2) : Comparators.compare(o1, o2))
+						&& Relation.SMALLER_OR_EQUAL.is(comp != null ? comp.compare(o1, o3) : Comparators.compare(o1, o3)));
+			}
+		} catch (final RuntimeException e) { // left to fail when the trigger is run, where the error is reported with the trigger's details
+			return Kleenean.UNKNOWN;
+		}
+		return Kleenean.get(result ^ isNegated());
+	}
+	
+	/**
+	 * @param e
+	 * @return The value of the given expression if it is a single literal, i.e. its value neither depends on the event nor changes, or null otherwise
+	 */
+	@Nullable
+	private static Object getConstantValue(final Expression<?> e) {
+		if (!(e instanceof Literal) || e instanceof UnparsedLiteral || !e.isSingle())
+			return null;
+		return ((Literal<?>) e).getSingle();
+	}
+	
 	@Override
 	public String toString(final @Nullable Event e, final boolean debug) {
 		String s;
@@ -22,6 +22,7 @@ package ch.njol.skript.conditions;
 import ch.njol.skript.ScriptLoader;
 import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptCommand;
+import ch.njol.skript.config.Config;
 import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
@@ -54,8 +55,9 @@ public class CondScriptLoaded extends Condition {
 	@SuppressWarnings({"unchecked"})
 	@Override
 	public boolean init(Expression<?>[] exprs, int matchedPattern, Kleenean isDelayed, SkriptParser.ParseResult parseResult) {
-		assert ScriptLoader.currentScript != null;
-		currentScriptFile = ScriptLoader.currentScript.getFile();
+		final Config script = ScriptLoader.getCurrentScript();
+		assert script != null;
+		currentScriptFile = script.getFile();
 		scripts = (Expression<String>) exprs[0];
 		setNegated(matchedPattern == 1);
 		return true;
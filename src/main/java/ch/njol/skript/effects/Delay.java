@@ -33,6 +33,7 @@ import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Effect;
+import ch.njol.skript.lang.ExecutionFrame;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.Trigger;
@@ -80,7 +81,11 @@ public class Delay extends Effect {
 		final long start = Skript.debug() ? System.nanoTime() : 0;
 		final TriggerItem next = getNext();
 		if (next != null) {
-			delayed.add(e);
+			final ExecutionFrame frame = ExecutionFrame.get(e);
+			if (frame != null)
+				frame.setDelayed(); // the frame is passed on below
+			else
+				delayed.add(e);
 			final Timespan d = duration.getSingle(e);
 			if (d == null)
 				return null;
@@ -98,7 +103,10 @@ public class Delay extends Effect {
 						}
 					}
 					
-					TriggerItem.walk(next, e);
+					if (frame != null)
+						TriggerItem.walk(next, e, frame);
+					else
+						TriggerItem.walk(next, e);
 					
 					SkriptTimings.stop(timing); // Stop timing if it was even started
 				}
@@ -107,15 +115,27 @@ public class Delay extends Effect {
 		return null;
 	}
 
+	/**
+	 * Events that have been delayed outside of any trigger's {@link ExecutionFrame}. Delayed executions of triggers are marked in their frame instead.
+	 */
 	@SuppressWarnings("null")
-	protected final static Set<Event> delayed = Collections.newSetFromMap(new WeakHashMap<Event, Boolean>());
+	protected final static Set<Event> delayed = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Event, Boolean>()));
 
 	public final static boolean isDelayed(final Event e) {
-		return delayed.contains(e);
+		final ExecutionFrame frame = ExecutionFrame.get(e);
+		return frame != null ? frame.isDelayed() : delayed.contains(e);
 	}
 
+	/**
+	 * Marks the given event as delayed. If a trigger is executing for it, its frame is kept until the trigger is continued with
+	 * {@link TriggerItem#walk(TriggerItem, Event)}, see {@link ExecutionFrame#suspend()}.
+	 */
 	public static void addDelayedEvent(Event event){
-		delayed.add(event);
+		final ExecutionFrame frame = ExecutionFrame.get(event);
+		if (frame != null)
+			frame.suspend();
+		else
+			delayed.add(event);
 	}
 
 	@Override
@@ -26,6 +26,7 @@ import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
 import ch.njol.skript.Skript;
+import ch.njol.skript.lang.ExecutionFrame;
 import ch.njol.skript.lang.TriggerItem;
 import ch.njol.skript.util.Timespan;
 
@@ -41,7 +42,11 @@ public class IndeterminateDelay extends Delay {
 		final long start = Skript.debug() ? System.nanoTime() : 0;
 		final TriggerItem next = getNext();
 		if (next != null) {
-			delayed.add(e);
+			final ExecutionFrame frame = ExecutionFrame.get(e);
+			if (frame != null)
+				frame.setDelayed(); // the frame is passed on below
+			else
+				delayed.add(e);
 			final Timespan d = duration.getSingle(e);
 			if (d == null)
 				return null;
@@ -50,7 +55,10 @@ public class IndeterminateDelay extends Delay {
 				public void run() {
 					if (Skript.debug())
 						Skript.info(getIndentation() + "... continuing after " + (System.nanoTime() - start) / 1000000000. + "s");
-					TriggerItem.walk(next, e);
+					if (frame != null)
+						TriggerItem.walk(next, e, frame);
+					else
+						TriggerItem.walk(next, e);
 				}
 			}, d.getTicks_i());
 		}
@@ -144,6 +144,28 @@ public class EvtBlock extends SkriptEvent {
 		});
 	}
 	
+	@Override
+	@Nullable
+	public Object[] getIndexKeys() {
+		final Literal<ItemType> types = this.types;
+		if (types == null)
+			return null;
+		return ItemType.getMaterials(types.getAll());
+	}
+	
+	@Override
+	@Nullable
+	public Object getIndexKey(final Event e) {
+		if (e instanceof BlockEvent) {
+			return ((BlockEvent) e).getBlock().getType();
+		} else if (e instanceof PlayerBucketFillEvent) {
+			return ((PlayerBucketEvent) e).getBlockClicked().getRelative(((PlayerBucketEvent) e).getBlockFace()).getType();
+		} else if (e instanceof PlayerBucketEmptyEvent) {
+			return ((PlayerBucketEmptyEvent) e).getBucket() == Material.WATER_BUCKET ? Material.STATIONARY_WATER : Material.STATIONARY_LAVA;
+		}
+		return null; // hanging entities are compared to items differently
+	}
+	
 	@Override
 	public String toString(final @Nullable Event e, final boolean debug) {
 		return "break/place/burn/fade/form of " + Classes.toString(types);
@@ -213,6 +213,25 @@ public class EvtClick extends SkriptEvent {
 		return true;
 	}
 	
+	@Override
+	@Nullable
+	public Object[] getIndexKeys() {
+		final Literal<?> types = this.types;
+		if (types == null || !ItemType.class.isAssignableFrom(types.getReturnType()))
+			return null;
+		final Object[] all = types.getAll();
+		return ItemType.getMaterials(Arrays.copyOf(all, all.length, ItemType[].class));
+	}
+	
+	@Override
+	@Nullable
+	public Object getIndexKey(final Event e) {
+		if (!(e instanceof PlayerInteractEvent))
+			return null; // entities are compared to items differently
+		final Block block = ((PlayerInteractEvent) e).getClickedBlock();
+		return block == null ? Material.AIR : block.getType();
+	}
+	
 	@Override
 	public String toString(final @Nullable Event e, final boolean debug) {
 		return (click == LEFT ? "left" : click == RIGHT ? "right" : "") + "click" + (types != null ? " on " + types.toString(e, debug) : "") + (tools != null ? " holding " + tools.toString(e, debug) : "");
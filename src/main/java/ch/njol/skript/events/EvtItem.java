@@ -19,6 +19,7 @@
  */
 package ch.njol.skript.events;
 
+import org.bukkit.Material;
 import org.bukkit.event.Event;
 import org.bukkit.event.block.BlockDispenseEvent;
 import org.bukkit.event.entity.ItemSpawnEvent;
@@ -140,6 +141,39 @@ public class EvtItem extends SkriptEvent {
 		});
 	}
 	
+	@Override
+	@Nullable
+	public Object[] getIndexKeys() {
+		final Literal<ItemType> types = this.types;
+		if (types == null)
+			return null;
+		return ItemType.getMaterials(types.getAll());
+	}
+	
+	@Override
+	@Nullable
+	public Object getIndexKey(final Event e) {
+		final ItemStack is;
+		if (e instanceof BlockDispenseEvent) {
+			is = ((BlockDispenseEvent) e).getItem();
+		} else if (e instanceof PlayerDropItemEvent) {
+			is = ((PlayerDropItemEvent) e).getItemDrop().getItemStack();
+		} else if (e instanceof CraftItemEvent) {
+			is = ((CraftItemEvent) e).getRecipe().getResult();
+		} else if (hasPrepareCraftEvent && e instanceof PrepareItemCraftEvent) {
+			is = ((PrepareItemCraftEvent) e).getRecipe().getResult();
+		} else if (e instanceof PlayerPickupItemEvent) {
+			is = ((PlayerPickupItemEvent) e).getItem().getItemStack();
+		} else if (hasConsumeEvent && e instanceof PlayerItemConsumeEvent) {
+			is = ((PlayerItemConsumeEvent) e).getItem();
+		} else if (e instanceof InventoryClickEvent) {
+			is = ((InventoryClickEvent) e).getCurrentItem();
+		} else {
+			return null; // item spawn events must always be checked to set the last spawned item
+		}
+		return is == null ? Material.AIR : is.getType();
+	}
+	
 	@Override
 	public String toString(final @Nullable Event e, final boolean debug) {
 		return "dispense/spawn/drop/craft/pickup/consume/break" + (types == null ? "" : " of " + types);
@@ -19,8 +19,6 @@
  */
 package ch.njol.skript.expressions;
 
-import java.lang.reflect.Array;
-
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -32,6 +30,7 @@ import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
 import ch.njol.skript.lang.Literal;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.lang.util.SimpleLiteral;
@@ -48,56 +47,64 @@ import ch.njol.util.Kleenean;
 		"	message \"Two useless numbers: %loop-num*2 - 5%, %2^loop-num - 1%\"",
 		"message \"You have %health of player * 2% half hearts of HP!\""})
 @Since("1.4.2")
-public class ExprArithmetic extends SimpleExpression<Number> {
+public class ExprArithmetic extends SimpleExpression<Number> implements NumberExpression {
 	
 	private static enum Operator {
 		PLUS('+') {
-			@SuppressWarnings("null")
 			@Override
-			public Number calculate(final Number n1, final Number n2, final boolean integer) {
-				if (integer)
-					return Long.valueOf(n1.longValue() + n2.longValue());
-				return Double.valueOf(n1.doubleValue() + n2.doubleValue());
+			public long calculate(final long n1, final long n2) {
+				return n1 + n2;
+			}
+			
+			@Override
+			public double calculate(final double n1, final double n2) {
+				return n1 + n2;
 			}
 		},
 		MINUS('-') {
-			@SuppressWarnings("null")
 			@Override
-			public Number calculate(final Number n1, final Number n2, final boolean integer) {
-				if (integer)
-					return Long.valueOf(n1.longValue() - n2.longValue());
-				return Double.valueOf(n1.doubleValue() - n2.doubleValue());
+			public long calculate(final long n1, final long n2) {
+				return n1 - n2;
+			}
+			
+			@Override
+			public double calculate(final double n1, final double n2) {
+				return n1 - n2;
 			}
 		},
 		MULT('*') {
-			@SuppressWarnings("null")
 			@Override
-			public Number calculate(final Number n1, final Number n2, final boolean integer) {
-				if (integer)
-					return Long.valueOf(n1.longValue() * n2.longValue());
-				return Double.valueOf(n1.doubleValue() * n2.doubleValue());
+			public long calculate(final long n1, final long n2) {
+				return n1 * n2;
+			}
+			
+			@Override
+			public double calculate(final double n1, final double n2) {
+				return n1 * n2;
 			}
 		},
 		DIV('/') {
-			@SuppressWarnings("null")
 			@Override
-			public Number calculate(final Number n1, final Number n2, final boolean integer) {
-				if (integer) {
-					final long div = n2.longValue();
-					if (div == 0)
-						return Long.MAX_VALUE;
-					return Long.valueOf(n1.longValue() / div);
-				}
-				return Double.valueOf(n1.doubleValue() / n2.doubleValue());
+			public long calculate(final long n1, final long n2) {
+				if (n2 == 0)
+					return Long.MAX_VALUE;
+				return n1 / n2;
+			}
+			
+			@Override
+			public double calculate(final double n1, final double n2) {
+				return n1 / n2;
 			}
 		},
 		EXP('^') {
-			@SuppressWarnings("null")
 			@Override
-			public Number calculate(final Number n1, final Number n2, final boolean integer) {
-				if (integer)
-					return Long.valueOf((long) Math.pow(n1.longValue(), n2.longValue()));
-				return Double.valueOf(Math.pow(n1.doubleValue(), n2.doubleValue()));
+			public long calculate(final long n1, final long n2) {
+				return (long) Math.pow(n1, n2);
+			}
+			
+			@Override
+			public double calculate(final double n1, final double n2) {
+				return Math.pow(n1, n2);
 			}
 		};
 		
@@ -107,7 +114,9 @@ public class ExprArithmetic extends SimpleExpression<Number> {
 			this.sign = sign;
 		}
 		
-		public abstract Number calculate(Number n1, Number n2, boolean integer);
+		public abstract long calculate(long n1, long n2);
+		
+		public abstract double calculate(double n1, double n2);
 		
 		@Override
 		public String toString() {
@@ -168,14 +177,25 @@ public class ExprArithmetic extends SimpleExpression<Number> {
 	@SuppressWarnings("null")
 	@Override
 	protected Number[] get(final Event e) {
-		final Number[] one = (Number[]) Array.newInstance(returnType, 1);
-		Number n1 = first.getSingle(e), n2 = second.getSingle(e);
-		if (n1 == null)
-			n1 = Integer.valueOf(0);
-		if (n2 == null)
-			n2 = Integer.valueOf(0);
-		one[0] = op.calculate(n1, n2, integer);
-		return one;
+		if (integer)
+			return new Long[] {getLong(e, 0)};
+		return new Double[] {getDouble(e, 0)};
+	}
+	
+	// missing operands are treated as 0, thus this expression always has a value
+	
+	@Override
+	public double getDouble(final Event e, final double none) {
+		if (integer)
+			return getLong(e, 0);
+		return op.calculate(NumberExpression.doubleValue(first, e, 0), NumberExpression.doubleValue(second, e, 0));
+	}
+	
+	@Override
+	public long getLong(final Event e, final long none) {
+		if (!integer)
+			return (long) getDouble(e, 0);
+		return op.calculate(NumberExpression.longValue(first, e, 0), NumberExpression.longValue(second, e, 0));
 	}
 	
 	@Override
@@ -193,11 +213,11 @@ public class ExprArithmetic extends SimpleExpression<Number> {
 		return first.toString(e, debug) + " " + op + " " + second.toString(e, debug);
 	}
 	
-	@SuppressWarnings("null")
+	@SuppressWarnings({"null", "unchecked"})
 	@Override
 	public Expression<? extends Number> simplify() {
 		if (first instanceof Literal && second instanceof Literal)
-			return new SimpleLiteral<>(getArray(null), Number.class, false);
+			return new SimpleLiteral<>(getArray(null), (Class<Number>) returnType, false); // keeps the return type, which decides whether arithmetic with the result uses integers
 		return this;
 	}
 	
@@ -30,6 +30,7 @@ import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
@@ -42,7 +43,7 @@ import ch.njol.util.Kleenean;
 @Examples({"distance between the player and {%player%.home} is smaller than 20:",
 		"	message \"You're very close to your home!\""})
 @Since("1.0")
-public class ExprDistance extends SimpleExpression<Double> {
+public class ExprDistance extends SimpleExpression<Double> implements NumberExpression {
 	static {
 		Skript.registerExpression(ExprDistance.class, Double.class, ExpressionType.COMBINED, "[the] distance between %location% and %location%");
 	}
@@ -67,6 +68,22 @@ public class ExprDistance extends SimpleExpression<Double> {
 		return new Double[] {l1.distance(l2)};
 	}
 	
+	@Override
+	public double getDouble(final Event e, final double none) {
+		final Location l1 = loc1.getSingle(e), l2 = loc2.getSingle(e);
+		if (l1 == null || l2 == null || l1.getWorld() != l2.getWorld())
+			return none;
+		return l1.distance(l2);
+	}
+	
+	@Override
+	public long getLong(final Event e, final long none) {
+		final Location l1 = loc1.getSingle(e), l2 = loc2.getSingle(e);
+		if (l1 == null || l2 == null || l1.getWorld() != l2.getWorld())
+			return none;
+		return (long) l1.distance(l2);
+	}
+	
 	@Override
 	public String toString(final @Nullable Event e, final boolean debug) {
 		return "distance between " + loc1.toString(e, debug) + " and " + loc2.toString(e, debug);
@@ -30,11 +30,7 @@ import ch.njol.skript.doc.Events;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
-import ch.njol.skript.expressions.base.PropertyExpression;
-import ch.njol.skript.lang.Expression;
-import ch.njol.skript.lang.SkriptParser.ParseResult;
-import ch.njol.skript.util.Getter;
-import ch.njol.util.Kleenean;
+import ch.njol.skript.expressions.base.SimplePropertyExpression;
 import ch.njol.util.coll.CollectionUtils;
 
 /**
@@ -45,40 +41,20 @@ import ch.njol.util.coll.CollectionUtils;
 @Examples({"message \"You have %health% HP left.\""})
 @Since("1.0")
 @Events("damage")
-public class ExprHealth extends PropertyExpression<LivingEntity, Double> {
+public class ExprHealth extends SimplePropertyExpression<LivingEntity, Double> {
 	static {
 		register(ExprHealth.class, Double.class, "health", "livingentities");
 	}
 	
-	@SuppressWarnings({"unchecked", "null"})
+	@SuppressWarnings("null")
 	@Override
-	public boolean init(final Expression<?>[] vars, final int matchedPattern, final Kleenean isDelayed, final ParseResult parser) {
-		setExpr((Expression<LivingEntity>) vars[0]);
-		return true;
+	public Double convert(final LivingEntity entity) {
+		return Double.valueOf(HealthUtils.getHealth(entity));
 	}
 	
 	@Override
-	protected Double[] get(final Event e, final LivingEntity[] source) {
-//		if (e instanceof EntityDamageEvent && getTime() > 0 && entities.getSource() instanceof ExprAttacked && !Delay.isDelayed(e)) {
-//			return ConverterUtils.convert(entities.getArray(e), Float.class, new Getter<Float, LivingEntity>() {
-//				@Override
-//				public Float get(final LivingEntity entity) {
-//					return Float.valueOf(0.5f * (entity.getHealth() - ((EntityDamageEvent) e).getDamage()));
-//				}
-//			});
-//		}
-		return get(source, new Getter<Double, LivingEntity>() {
-			@SuppressWarnings("null")
-			@Override
-			public Double get(final LivingEntity entity) {
-				return Double.valueOf(HealthUtils.getHealth(entity));
-			}
-		});
-	}
-	
-	@Override
-	public String toString(final @Nullable Event e, final boolean debug) {
-		return "the health of " + getExpr().toString(e, debug);
+	protected String getPropertyName() {
+		return "health";
 	}
 	
 //	@Override
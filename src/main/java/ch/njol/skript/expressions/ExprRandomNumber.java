@@ -31,6 +31,7 @@ import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
@@ -45,7 +46,7 @@ import ch.njol.util.Math2;
 @Examples({"set the player's health to a random number between 5 and 10",
 		"send \"You rolled a %random integer from 1 to 6%!\" to the player"})
 @Since("1.4")
-public class ExprRandomNumber extends SimpleExpression<Number> {
+public class ExprRandomNumber extends SimpleExpression<Number> implements NumberExpression {
 	static {
 		Skript.registerExpression(ExprRandomNumber.class, Number.class, ExpressionType.COMBINED,
 				"[a] random (1¦integer|2¦number) (from|between) %number% (to|and) %number%");
@@ -70,19 +71,45 @@ public class ExprRandomNumber extends SimpleExpression<Number> {
 	@Override
 	@Nullable
 	protected Number[] get(final Event e) {
-		final Number l = lower.getSingle(e);
-		final Number u = upper.getSingle(e);
-		if (u == null || l == null)
+		final double l = NumberExpression.doubleValue(lower, e, Double.NaN);
+		final double u = NumberExpression.doubleValue(upper, e, Double.NaN);
+		if (Double.isNaN(l) || Double.isNaN(u))
 			return null;
-		final double ll = Math.min(l.doubleValue(), u.doubleValue());
-		final double uu = Math.max(l.doubleValue(), u.doubleValue());
 		if (integer) {
-			return new Long[] {Math2.ceil(ll) + Math2.mod(rand.nextLong(), Math2.floor(uu) - Math2.ceil(ll) + 1)};
+			return new Long[] {randomInteger(l, u)};
 		} else {
-			return new Double[] {ll + rand.nextDouble() * (uu - ll)};
+			return new Double[] {randomNumber(l, u)};
 		}
 	}
 	
+	@Override
+	public double getDouble(final Event e, final double none) {
+		final double l = NumberExpression.doubleValue(lower, e, Double.NaN);
+		final double u = NumberExpression.doubleValue(upper, e, Double.NaN);
+		if (Double.isNaN(l) || Double.isNaN(u))
+			return none;
+		return integer ? randomInteger(l, u) : randomNumber(l, u);
+	}
+	
+	@Override
+	public long getLong(final Event e, final long none) {
+		final double l = NumberExpression.doubleValue(lower, e, Double.NaN);
+		final double u = NumberExpression.doubleValue(upper, e, Double.NaN);
+		if (Double.isNaN(l) || Double.isNaN(u))
+			return none;
+		return integer ? randomInteger(l, u) : (long) randomNumber(l, u);
+	}
+	
+	private long randomInteger(final double l, final double u) {
+		final double ll = Math.min(l, u), uu = Math.max(l, u);
+		return Math2.ceil(ll) + Math2.mod(rand.nextLong(), Math2.floor(uu) - Math2.ceil(ll) + 1);
+	}
+	
+	private double randomNumber(final double l, final double u) {
+		final double ll = Math.min(l, u), uu = Math.max(l, u);
+		return ll + rand.nextDouble() * (uu - ll);
+	}
+	
 	@Override
 	public Class<? extends Number> getReturnType() {
 		return integer ? Long.class : Double.class;
@@ -31,6 +31,7 @@ import ch.njol.skript.doc.Since;
 import ch.njol.skript.expressions.base.PropertyExpression;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.util.Kleenean;
 import ch.njol.util.Math2;
@@ -45,7 +46,7 @@ import ch.njol.util.Math2;
 		"set {_x} to floor({_y}) - ceil({_x})",
 		"add rounded down argument to the player's health"})
 @Since("2.0")
-public class ExprRound extends PropertyExpression<Number, Long> {
+public class ExprRound extends PropertyExpression<Number, Long> implements NumberExpression {
 	static {
 		Skript.registerExpression(ExprRound.class, Long.class, ExpressionType.PROPERTY,
 				"(a|the|) round[ed] down %number%",
@@ -73,11 +74,37 @@ public class ExprRound extends PropertyExpression<Number, Long> {
 					return Long.valueOf(n.longValue());
 				else if (n instanceof Long)
 					return (Long) n;
-				return Long.valueOf(action == -1 ? Math2.floor(n.doubleValue()) : action == 0 ? Math2.round(n.doubleValue()) : Math2.ceil(n.doubleValue()));
+				return Long.valueOf(round(n.doubleValue()));
 			}
 		});
 	}
 	
+	private long round(final double d) {
+		return action == -1 ? Math2.floor(d) : action == 0 ? Math2.round(d) : Math2.ceil(d);
+	}
+	
+	@Override
+	public double getDouble(final Event e, final double none) {
+		final double d = NumberExpression.doubleValue(getExpr(), e, Double.NaN);
+		return Double.isNaN(d) ? none : round(d);
+	}
+	
+	@Override
+	public long getLong(final Event e, final long none) {
+		final Expression<? extends Number> expr = getExpr();
+		final Class<? extends Number> type = expr.getReturnType();
+		if (type == Long.class || type == Integer.class) // already whole numbers, which might not fit into a double
+			return NumberExpression.longValue(expr, e, none);
+		if (type == Double.class || type == Float.class) {
+			final double d = NumberExpression.doubleValue(expr, e, Double.NaN);
+			return Double.isNaN(d) ? none : round(d);
+		}
+		final Number n = expr.getSingle(e);
+		if (n == null)
+			return none;
+		return n instanceof Integer || n instanceof Long ? n.longValue() : round(n.doubleValue());
+	}
+	
 	@Override
 	public Class<? extends Long> getReturnType() {
 		return Long.class;
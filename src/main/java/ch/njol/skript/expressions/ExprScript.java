@@ -57,7 +57,7 @@ public class ExprScript extends SimpleExpression<String> {
 	
 	@Override
 	public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
-		final Config script = ScriptLoader.currentScript;
+		final Config script = ScriptLoader.getCurrentScript();
 		if (script == null) {
 			assert false;
 			return false;
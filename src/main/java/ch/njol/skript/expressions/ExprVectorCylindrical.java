@@ -26,6 +26,7 @@ import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
@@ -79,13 +80,13 @@ public class ExprVectorCylindrical extends SimpleExpression<Vector> {
 	@Override
 	@SuppressWarnings("null")
 	protected Vector[] get(Event event) {
-		Number r = radius.getSingle(event);
-		Number y = yaw.getSingle(event);
-		Number h = height.getSingle(event);
-		if (r == null || y == null || h == null) {
+		double r = NumberExpression.doubleValue(radius, event, Double.NaN);
+		double y = NumberExpression.doubleValue(yaw, event, Double.NaN);
+		double h = NumberExpression.doubleValue(height, event, Double.NaN);
+		if (Double.isNaN(r) || Double.isNaN(y) || Double.isNaN(h)) {
 			return null;
 		}
-		return new Vector[]{ VectorMath.fromCylindricalCoordinates(r.doubleValue(),VectorMath.fromSkriptYaw(y.floatValue()), h.doubleValue()) };
+		return new Vector[]{ VectorMath.fromCylindricalCoordinates(r,VectorMath.fromSkriptYaw((float) y), h) };
 	}
 
 }
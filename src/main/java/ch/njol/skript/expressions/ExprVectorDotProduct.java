@@ -26,6 +26,7 @@ import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
@@ -48,7 +49,7 @@ import org.eclipse.jdt.annotation.Nullable;
  * going on.
  */
 
-public class ExprVectorDotProduct extends SimpleExpression<Double> {
+public class ExprVectorDotProduct extends SimpleExpression<Double> implements NumberExpression {
 	static {
 		Skript.registerExpression(ExprVectorDotProduct.class, Double.class, ExpressionType.SIMPLE, "%vector% dot %vector%");
 	}
@@ -87,6 +88,26 @@ public class ExprVectorDotProduct extends SimpleExpression<Double> {
 		if (v1 == null || v2 == null) {
 			return null;
 		}
-		return new Double[]{ v1.getX() * v2.getX() + v1.getY() * v2.getY() + v1.getZ() * v2.getZ()};
+		return new Double[]{ v1.dot(v2) };
+	}
+
+	@Override
+	public double getDouble(Event event, double none) {
+		Vector v1 = first.getSingle(event);
+		Vector v2 = second.getSingle(event);
+		if (v1 == null || v2 == null) {
+			return none;
+		}
+		return v1.dot(v2);
+	}
+
+	@Override
+	public long getLong(Event event, long none) {
+		Vector v1 = first.getSingle(event);
+		Vector v2 = second.getSingle(event);
+		if (v1 == null || v2 == null) {
+			return none;
+		}
+		return (long) v1.dot(v2);
 	}
 }
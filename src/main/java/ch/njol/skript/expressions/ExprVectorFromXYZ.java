@@ -26,6 +26,7 @@ import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
@@ -51,13 +52,13 @@ public class ExprVectorFromXYZ extends SimpleExpression<Vector> {
 	@Override
 	@SuppressWarnings("null")
 	protected Vector[] get(Event event) {
-		Number x = this.x.getSingle(event);
-		Number y = this.y.getSingle(event);
-		Number z = this.z.getSingle(event);
-		if ( x == null || y == null || z == null) {
+		double x = NumberExpression.doubleValue(this.x, event, Double.NaN);
+		double y = NumberExpression.doubleValue(this.y, event, Double.NaN);
+		double z = NumberExpression.doubleValue(this.z, event, Double.NaN);
+		if (Double.isNaN(x) || Double.isNaN(y) || Double.isNaN(z)) {
 			return null;
 		}
-		return new Vector[] {new Vector(x.doubleValue(), y.doubleValue(), z.doubleValue())};
+		return new Vector[] {new Vector(x, y, z)};
 	}
 
 	@Override
@@ -26,6 +26,7 @@ import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
@@ -53,13 +54,13 @@ public class ExprVectorFromYawAndPitch extends SimpleExpression<Vector> {
 	@Override
 	@SuppressWarnings("null")
 	protected Vector[] get(Event event) {
-		Number y = yaw.getSingle(event);
-		Number p = pitch.getSingle(event);
-		if (y == null || p == null) {
+		double y = NumberExpression.doubleValue(yaw, event, Double.NaN);
+		double p = NumberExpression.doubleValue(pitch, event, Double.NaN);
+		if (Double.isNaN(y) || Double.isNaN(p)) {
 			return null;
 		}
-		float yaw = VectorMath.fromSkriptYaw(VectorMath.wrapAngleDeg(y.floatValue()));
-		float pitch = VectorMath.fromSkriptPitch(VectorMath.wrapAngleDeg(p.floatValue()));
+		float yaw = VectorMath.fromSkriptYaw(VectorMath.wrapAngleDeg((float) y));
+		float pitch = VectorMath.fromSkriptPitch(VectorMath.wrapAngleDeg((float) p));
 		return new Vector[]{ VectorMath.fromYawAndPitch(yaw, pitch)};
 	}
 
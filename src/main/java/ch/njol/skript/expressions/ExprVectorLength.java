@@ -27,6 +27,7 @@ import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.expressions.base.SimplePropertyExpression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 
 import org.bukkit.event.Event;
 import org.bukkit.util.Vector;
@@ -42,7 +43,7 @@ import org.eclipse.jdt.annotation.Nullable;
 		"set standard length of {_v} to 2",
 		"send \"%standard length of {_v}%\""})
 @Since("2.2-dev28")
-public class ExprVectorLength extends SimplePropertyExpression<Vector, Double> {
+public class ExprVectorLength extends SimplePropertyExpression<Vector, Double> implements NumberExpression {
 	static {
 		Skript.registerExpression(ExprVectorLength.class, Double.class, ExpressionType.PROPERTY, "(vector|standard|normal) length of %vector%", "%vector%['s] (vector|standard|normal) length");
 	}
@@ -56,6 +57,18 @@ public class ExprVectorLength extends SimplePropertyExpression<Vector, Double> {
 		return vector.length();
 	}
 
+	@Override
+	public double getDouble(Event e, double none) {
+		Vector v = getExpr().getSingle(e);
+		return v == null ? none : v.length();
+	}
+
+	@Override
+	public long getLong(Event e, long none) {
+		Vector v = getExpr().getSingle(e);
+		return v == null ? none : (long) v.length();
+	}
+
 	@Override
 	protected String getPropertyName() {
 		return "length of vector";
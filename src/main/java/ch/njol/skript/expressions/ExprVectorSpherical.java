@@ -26,6 +26,7 @@ import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Kleenean;
@@ -79,12 +80,12 @@ public class ExprVectorSpherical extends SimpleExpression<Vector> {
 	@Override
 	@SuppressWarnings("null")
 	protected Vector[] get(Event event) {
-		Number r = radius.getSingle(event);
-		Number y = yaw.getSingle(event);
-		Number p = pitch.getSingle(event);
-		if (r == null || y == null || p == null) {
+		double r = NumberExpression.doubleValue(radius, event, Double.NaN);
+		double y = NumberExpression.doubleValue(yaw, event, Double.NaN);
+		double p = NumberExpression.doubleValue(pitch, event, Double.NaN);
+		if (Double.isNaN(r) || Double.isNaN(y) || Double.isNaN(p)) {
 			return null;
 		}
-		return new Vector[]{ VectorMath.fromSphericalCoordinates(r.doubleValue(), VectorMath.fromSkriptYaw(y.floatValue()), p.floatValue() + 90)};
+		return new Vector[]{ VectorMath.fromSphericalCoordinates(r, VectorMath.fromSkriptYaw((float) y), (float) p + 90)};
 	}
 }
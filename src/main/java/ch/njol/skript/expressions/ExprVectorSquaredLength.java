@@ -26,7 +26,9 @@ import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.expressions.base.SimplePropertyExpression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 
+import org.bukkit.event.Event;
 import org.bukkit.util.Vector;
 
 /**
@@ -36,7 +38,7 @@ import org.bukkit.util.Vector;
 @Description("Gets the squared length of a vector")
 @Examples({"send \"%squared length of vector 1, 2, 3%\""})
 @Since("2.2-dev28")
-public class ExprVectorSquaredLength extends SimplePropertyExpression<Vector, Double> {
+public class ExprVectorSquaredLength extends SimplePropertyExpression<Vector, Double> implements NumberExpression {
 	static {
 		Skript.registerExpression(ExprVectorSquaredLength.class, Double.class, ExpressionType.SIMPLE, "squared length of %vector%", "%vector%['s] squared length");
 	}
@@ -48,6 +50,18 @@ public class ExprVectorSquaredLength extends SimplePropertyExpression<Vector, Do
 		return vector.lengthSquared();
 	}
 
+	@Override
+	public double getDouble(Event e, double none) {
+		Vector v = getExpr().getSingle(e);
+		return v == null ? none : v.lengthSquared();
+	}
+
+	@Override
+	public long getLong(Event e, long none) {
+		Vector v = getExpr().getSingle(e);
+		return v == null ? none : (long) v.lengthSquared();
+	}
+
 	@Override
 	protected String getPropertyName() {
 		return "squared length of vector";
@@ -28,6 +28,7 @@ import ch.njol.skript.doc.Since;
 import ch.njol.skript.expressions.base.SimplePropertyExpression;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.NumberExpression;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.util.Kleenean;
 import org.bukkit.event.Event;
@@ -50,7 +51,7 @@ import org.eclipse.jdt.annotation.Nullable;
 		"set z of {_v} to 3",
 		"send \"%x of {_v}%, %y of {_v}%, %z of {_v}%\"",})
 @Since("2.2-dev28")
-public class ExprVectorXYZ extends SimplePropertyExpression<Vector, Number> {
+public class ExprVectorXYZ extends SimplePropertyExpression<Vector, Number> implements NumberExpression {
 	static {
 		Skript.registerExpression(ExprVectorXYZ.class, Number.class, ExpressionType.PROPERTY, "(0¦x|1¦y|2¦z) of %vector%");
 	}
@@ -71,6 +72,22 @@ public class ExprVectorXYZ extends SimplePropertyExpression<Vector, Number> {
 		return axis == 0 ? v.getX() : axis == 1 ? v.getY() : v.getZ();
 	}
 
+	@Override
+	public double getDouble(final Event e, final double none) {
+		final Vector v = getExpr().getSingle(e);
+		if (v == null)
+			return none;
+		return axis == 0 ? v.getX() : axis == 1 ? v.getY() : v.getZ();
+	}
+
+	@Override
+	public long getLong(final Event e, final long none) {
+		final Vector v = getExpr().getSingle(e);
+		if (v == null)
+			return none;
+		return (long) (axis == 0 ? v.getX() : axis == 1 ? v.getY() : v.getZ());
+	}
+
 	@Override
 	protected String getPropertyName() {
 		return "the " + axes[axis] + "-coordinate";
@@ -74,6 +74,24 @@ public class EventValueExpression<T> extends SimpleExpression<T> implements Defa
 	private Changer<? super T> changer;
 	private final Map<Class<? extends Event>, Getter<? extends T, ?>> getters = new HashMap<>();
 	
+	/**
+	 * Whether a class doesn't override {@link #get(Event)}, i.e. its single value is the event value itself
+	 */
+	private final static ClassValue<Boolean> getsEventValue = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(final @Nullable Class<?> c) {
+			for (Class<?> k = c; k != null && k != EventValueExpression.class; k = k.getSuperclass()) {
+				try {
+					k.getDeclaredMethod("get", Event.class);
+					return Boolean.FALSE;
+				} catch (final NoSuchMethodException e) {}
+			}
+			return Boolean.TRUE;
+		}
+	};
+	
+	private final boolean singleValues = getsEventValue.get(getClass());
+	
 	public EventValueExpression(final Class<? extends T> c) {
 		this(c, null);
 	}
@@ -97,6 +115,14 @@ public class EventValueExpression<T> extends SimpleExpression<T> implements Defa
 		return one;
 	}
 	
+	@Override
+	@Nullable
+	protected T getSingleValue(final Event e) {
+		if (!singleValues)
+			return super.getSingleValue(e);
+		return getValue(e);
+	}
+	
 	@SuppressWarnings("unchecked")
 	@Nullable
 	private <E extends Event> T getValue(final E e) {
@@ -37,6 +37,28 @@ import ch.njol.util.Kleenean;
  */
 public abstract class SimplePropertyExpression<F, T> extends PropertyExpression<F, T> implements Converter<F, T> {
 	
+	/**
+	 * Whether a class overrides neither {@link #get(Event, Object[])} nor {@link #get(Event)}, i.e. gets its values with {@link #convert(Object)} alone
+	 */
+	private final static ClassValue<Boolean> convertsEachValue = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(final @Nullable Class<?> c) {
+			for (Class<?> k = c; k != null && k != SimplePropertyExpression.class; k = k.getSuperclass()) {
+				try {
+					k.getDeclaredMethod("get", Event.class, Object[].class);
+					return Boolean.FALSE;
+				} catch (final NoSuchMethodException e) {}
+				try {
+					k.getDeclaredMethod("get", Event.class);
+					return Boolean.FALSE;
+				} catch (final NoSuchMethodException e) {}
+			}
+			return Boolean.TRUE;
+		}
+	};
+	
+	private final boolean singleValues = convertsEachValue.get(getClass());
+	
 	@SuppressWarnings({"unchecked", "null"})
 	@Override
 	public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
@@ -55,6 +77,15 @@ public abstract class SimplePropertyExpression<F, T> extends PropertyExpression<
 		return super.get(source, this);
 	}
 	
+	@Override
+	@Nullable
+	protected T getSingleValue(final Event e) {
+		if (!singleValues || !getExpr().isSingle())
+			return super.getSingleValue(e);
+		final F f = getExpr().getSingle(e);
+		return f == null ? null : convert(f);
+	}
+	
 	@Override
 	public String toString(final @Nullable Event e, final boolean debug) {
 		return "the " + getPropertyName() + " of " + getExpr().toString(e, debug);
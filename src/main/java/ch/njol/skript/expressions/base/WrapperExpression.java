@@ -142,7 +142,8 @@ public abstract class WrapperExpression<T> extends SimpleExpression<T> {
 	
 	@Override
 	public Expression<? extends T> simplify() {
-		return expr;
+		expr = expr.simplify(); // subclasses might change how the wrapped expression is used, e.g. its time state
+		return this;
 	}
 	
 }
@@ -27,6 +27,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import ch.njol.skript.Skript;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.util.Checker;
+import ch.njol.util.Kleenean;
 
 /**
  * A condition which must be fulfilled for the trigger to continue. If the condition is in a section the behaviour depends on the section.
@@ -56,6 +57,16 @@ public abstract class Condition extends Statement {
 		return check(e);
 	}
 	
+	/**
+	 * Tells whether this condition is always or never satisfied, no matter the event, e.g. because it only compares literals. Conditionals with a constant condition are
+	 * replaced with the branch that is run when the script is loaded (see {@link ScriptOptimizer}).
+	 * 
+	 * @return {@link Kleenean#TRUE} or {@link Kleenean#FALSE} if this condition is always or never satisfied, or {@link Kleenean#UNKNOWN} if it depends on the event
+	 */
+	public Kleenean getConstantResult() {
+		return Kleenean.UNKNOWN;
+	}
+	
 	/**
 	 * Sets the negation state of this condition. This will change the behaviour of {@link Expression#check(Event, Checker, boolean)}.
 	 * 
@@ -78,7 +89,7 @@ public abstract class Condition extends Statement {
 		s = s.trim();
 		while (s.startsWith("(") && SkriptParser.next(s, 0, ParseContext.DEFAULT) == s.length())
 			s = s.substring(1, s.length() - 1);
-		return (Condition) SkriptParser.parse(s, (Iterator) Skript.getConditions().iterator(), defaultError);
+		return (Condition) SkriptParser.parse(s, (Iterator) Skript.getConditions(s), defaultError, "condition");
 	}
 	
 }
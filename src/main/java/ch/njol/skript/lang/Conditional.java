@@ -69,18 +69,7 @@ public class Conditional extends TriggerSection {
 			((Conditional) elseClause).loadElseClause(node);
 			return;
 		}
-		elseClause = new TriggerSection(node) {
-			@Override
-			@Nullable
-			public TriggerItem walk(final Event e) {
-				return walk(e, true);
-			}
-			
-			@Override
-			public String toString(final @Nullable Event e, final boolean debug) {
-				return "else";
-			}
-		}
+		elseClause = new ElseSection(node)
 				.setParent(getParent())
 				.setNext(getNext());
 	}
@@ -96,10 +85,51 @@ public class Conditional extends TriggerSection {
 				.setNext(getNext());
 	}
 	
+	Condition getCondition() {
+		return cond;
+	}
+	
+	/**
+	 * @return The 'else if' following this conditional, or null if there is none
+	 */
+	@Nullable
+	Conditional getElseIf() {
+		final TriggerSection elseClause = this.elseClause;
+		return elseClause instanceof Conditional ? (Conditional) elseClause : null;
+	}
+	
+	/**
+	 * @return The 'else' section of this conditional, or null if it has none or is followed by an 'else if', which has the 'else' section instead
+	 */
+	@Nullable
+	TriggerSection getElseSection() {
+		final TriggerSection elseClause = this.elseClause;
+		return elseClause instanceof ElseSection ? elseClause : null;
+	}
+	
 	public boolean hasElseClause() {
 		return elseClause != null && !(elseClause instanceof Conditional);
 	}
 	
+	private final static class ElseSection extends TriggerSection {
+		
+		ElseSection(final SectionNode node) {
+			super(node);
+		}
+		
+		@Override
+		@Nullable
+		public TriggerItem walk(final Event e) {
+			return walk(e, true);
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "else";
+		}
+		
+	}
+	
 	@Override
 	public Conditional setNext(final @Nullable TriggerItem next) {
 		super.setNext(next);
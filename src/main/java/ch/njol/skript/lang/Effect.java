@@ -71,7 +71,7 @@ public abstract class Effect extends Statement {
 		} finally {
 			log.stop();
 		}
-		return (Effect) SkriptParser.parse(s, (Iterator) Skript.getEffects().iterator(), defaultError);
+		return (Effect) SkriptParser.parse(s, (Iterator) Skript.getEffects(s), defaultError, "effect");
 	}
 	
 }
@@ -0,0 +1,307 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.variables.Variables;
+import ch.njol.skript.variables.VariablesMap;
+
+/**
+ * The state of a single execution of a trigger, i.e. its local variables, the current elements of its loops and whether it has been delayed.
+ * <p>
+ * A frame is created whenever a trigger is executed, and is the current frame of the executing thread while the trigger's items are run (see
+ * {@link TriggerItem#walk(TriggerItem, Event, ExecutionFrame)}). Delays continue the trigger with the same frame later. As every thread has its own current frame, triggers
+ * can run on any thread without interfering with each other.
+ * <p>
+ * Local variables belong to a single execution, not to the event: two triggers that are executed for the same event each have their own local variables, which they keep
+ * over delays. Local variables that are set for an event outside of any frame are moved into the frame that is created for the event next (see
+ * {@link Variables#attachLocalVariables(ExecutionFrame)}).
+ * <p>
+ * Loops and local variables with constant names (see {@link LocalVariableSlots}) are assigned a slot in their trigger when they are parsed, so their values can be found without
+ * looking anything up by the event or the variable's name.
+ */
+public final class ExecutionFrame {
+	
+	private final static ThreadLocal<ExecutionFrame> current = new ThreadLocal<>();
+	
+	/**
+	 * Frames of {@link #suspend() suspended} executions, so that {@link TriggerItem#walk(TriggerItem, Event)} can find the frame of an execution that an addon continues
+	 * after a delay. A frame is removed as soon as its execution continues.
+	 * <p>
+	 * Suspended frames only reference their event weakly (see {@link #event}), so that the frames of executions that are never continued are removed together with their
+	 * event once nothing else references it.
+	 * <p>
+	 * Access must be synchronised.
+	 */
+	private final static Map<Event, List<ExecutionFrame>> suspended = new WeakHashMap<>();
+	
+	private final static Object[] EMPTY_VALUES = new Object[0];
+	private final static Iterator<?>[] EMPTY_ITERATORS = new Iterator<?>[0];
+	
+	/**
+	 * The event of this frame, or null while this frame is {@link #suspended}, as {@link #suspended} must not reference its keys strongly. Only changed while holding the
+	 * lock on {@link #suspended}.
+	 */
+	@Nullable
+	private Event event;
+	private final WeakReference<Event> weakEvent;
+	
+	@Nullable
+	private final LocalVariableSlots localVariableSlots;
+	private Object[] localVariableValues;
+	
+	/**
+	 * Local variables that don't have a slot
+	 */
+	@Nullable
+	private VariablesMap localVariables = null;
+	
+	private Object[] loopValues = EMPTY_VALUES;
+	private Iterator<?>[] loopIterators = EMPTY_ITERATORS;
+	
+	private volatile boolean delayed = false;
+	
+	/**
+	 * Whether this frame is in {@link #suspended}
+	 */
+	private volatile boolean isSuspended = false;
+	
+	public ExecutionFrame(final Event event) {
+		this(event, null);
+	}
+	
+	/**
+	 * @param event
+	 * @param localVariableSlots The local variable slots of the trigger that is executed in this frame
+	 */
+	public ExecutionFrame(final Event event, final @Nullable LocalVariableSlots localVariableSlots) {
+		this.event = event;
+		weakEvent = new WeakReference<>(event);
+		this.localVariableSlots = localVariableSlots;
+		localVariableValues = localVariableSlots == null || localVariableSlots.size() == 0 ? EMPTY_VALUES : new Object[localVariableSlots.size()];
+		Variables.attachLocalVariables(this);
+	}
+	
+	@SuppressWarnings("null")
+	public Event getEvent() {
+		final Event e = event;
+		return e != null ? e : weakEvent.get(); // a suspended frame can only be found through its event, which is thus still referenced
+	}
+	
+	/**
+	 * @param e An event
+	 * @return The frame the current thread is executing a trigger in if it is for the given event, or null otherwise
+	 */
+	@Nullable
+	public static ExecutionFrame get(final @Nullable Event e) {
+		final ExecutionFrame f = current.get();
+		return f != null && f.getEvent() == e ? f : null;
+	}
+	
+	/**
+	 * Finds and removes the frame of a suspended execution.
+	 * 
+	 * @param e An event
+	 * @param trigger The trigger that is continued, or null if unknown
+	 * @return The frame of a suspended execution of the given trigger for the given event, or null if there is none
+	 */
+	@Nullable
+	static ExecutionFrame resumeSuspended(final Event e, final @Nullable Trigger trigger) {
+		synchronized (suspended) {
+			final List<ExecutionFrame> frames = suspended.get(e);
+			if (frames == null)
+				return null;
+			ExecutionFrame frame = frames.get(0);
+			if (trigger != null) {
+				for (final ExecutionFrame f : frames) {
+					if (f.localVariableSlots == trigger.getLocalVariableSlots()) {
+						frame = f;
+						break;
+					}
+				}
+			}
+			frame.removeSuspended(frames);
+			return frame;
+		}
+	}
+	
+	/**
+	 * Called when the execution continues in this frame, so that it is no longer found by {@link #resumeSuspended(Event, Trigger)}.
+	 */
+	void resume() {
+		if (!isSuspended)
+			return;
+		synchronized (suspended) {
+			final Event e = weakEvent.get();
+			final List<ExecutionFrame> frames = e == null ? null : suspended.get(e);
+			if (frames != null)
+				removeSuspended(frames);
+		}
+	}
+	
+	private void removeSuspended(final List<ExecutionFrame> frames) {
+		assert Thread.holdsLock(suspended);
+		final Event e = weakEvent.get();
+		frames.remove(this);
+		if (frames.isEmpty())
+			suspended.remove(e);
+		event = e;
+		isSuspended = false;
+	}
+	
+	/**
+	 * Makes the given frame the current frame of this thread. Must be followed by {@link #exit(ExecutionFrame)} in a finally block.
+	 *
+	 * @param frame
+	 * @return The previous frame of this thread, to pass to {@link #exit(ExecutionFrame)}
+	 */
+	@Nullable
+	public static ExecutionFrame enter(final ExecutionFrame frame) {
+		final ExecutionFrame previous = current.get();
+		current.set(frame);
+		return previous;
+	}
+	
+	/**
+	 * Restores the frame that was current before {@link #enter(ExecutionFrame)} was called.
+	 *
+	 * @param previous The value returned by {@link #enter(ExecutionFrame)}
+	 */
+	public static void exit(final @Nullable ExecutionFrame previous) {
+		if (previous == null)
+			current.remove();
+		else
+			current.set(previous);
+	}
+	
+	@Nullable
+	public LocalVariableSlots getLocalVariableSlots() {
+		return localVariableSlots;
+	}
+	
+	/**
+	 * @param name The lowercased name of a local variable
+	 * @return The variable's slot in this frame, or -1 if it doesn't have one
+	 */
+	public int getLocalVariableSlot(final String name) {
+		final LocalVariableSlots slots = localVariableSlots;
+		return slots == null ? -1 : slots.indexOf(name);
+	}
+	
+	@Nullable
+	public Object getLocalVariable(final int slot) {
+		return slot < localVariableValues.length ? localVariableValues[slot] : null;
+	}
+	
+	/**
+	 * Only to be used by {@link Variables}, which converts the value to how it is stored.
+	 */
+	public void setLocalVariable(final int slot, final @Nullable Object value) {
+		if (slot >= localVariableValues.length) {
+			if (value == null)
+				return;
+			localVariableValues = Arrays.copyOf(localVariableValues, slot + 1);
+		}
+		localVariableValues[slot] = value;
+	}
+	
+	/**
+	 * Only to be used by {@link Variables}.
+	 */
+	@Nullable
+	public VariablesMap getLocalVariables() {
+		return localVariables;
+	}
+	
+	/**
+	 * Only to be used by {@link Variables}.
+	 */
+	public void setLocalVariables(final VariablesMap localVariables) {
+		this.localVariables = localVariables;
+	}
+	
+	@Nullable
+	Object getLoopValue(final int slot) {
+		return slot < loopValues.length ? loopValues[slot] : null;
+	}
+	
+	@Nullable
+	Iterator<?> getLoopIterator(final int slot) {
+		return slot < loopIterators.length ? loopIterators[slot] : null;
+	}
+	
+	void setLoopIterator(final int slot, final @Nullable Iterator<?> iter) {
+		if (slot >= loopIterators.length) {
+			if (iter == null)
+				return;
+			loopIterators = Arrays.copyOf(loopIterators, slot + 1);
+		}
+		loopIterators[slot] = iter;
+	}
+	
+	void setLoopValue(final int slot, final Object value) {
+		if (slot >= loopValues.length)
+			loopValues = Arrays.copyOf(loopValues, slot + 1);
+		loopValues[slot] = value;
+	}
+	
+	public boolean isDelayed() {
+		return delayed;
+	}
+	
+	/**
+	 * Marks this execution as delayed, i.e. it will continue after the event is over. The execution must be continued with
+	 * {@link TriggerItem#walk(TriggerItem, Event, ExecutionFrame)} and this frame.
+	 */
+	public void setDelayed() {
+		delayed = true;
+	}
+	
+	/**
+	 * Marks this execution as delayed, and remembers this frame until the execution continues, so that it can be continued with {@link TriggerItem#walk(TriggerItem, Event)}
+	 * like before executions had frames. A frame that is never continued is kept until its event is garbage collected, so prefer {@link #setDelayed()} and passing the frame
+	 * on.
+	 */
+	public void suspend() {
+		delayed = true;
+		synchronized (suspended) {
+			if (isSuspended)
+				return;
+			final Event e = getEvent();
+			List<ExecutionFrame> frames = suspended.get(e);
+			if (frames == null)
+				suspended.put(e, frames = new ArrayList<>(1));
+			frames.add(this);
+			event = null;
+			isSuspended = true;
+		}
+	}
+	
+}
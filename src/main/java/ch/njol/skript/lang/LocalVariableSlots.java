@@ -0,0 +1,80 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The slots of the local variables of a trigger whose names don't contain any expressions, e.g. <tt>{_x}</tt>. The values of these variables are stored in an array in the
+ * trigger's {@link ExecutionFrame}s, so that they can be accessed without building or looking up any names.
+ * <p>
+ * Local variables that are part of a list (i.e. contain the list separator '::') never get a slot. A variable with a dynamic name is stored in the slot of the variable with the
+ * same name if there is one, so that both always refer to the same value.
+ * <p>
+ * Slots are only assigned while the trigger is parsed, and never change afterwards.
+ */
+public final class LocalVariableSlots {
+	
+	private final Map<String, Integer> slots = new HashMap<>();
+	
+	/**
+	 * Gets or assigns the slot of the given variable. Must only be called while the trigger is parsed.
+	 * 
+	 * @param name The lowercased name of a local variable, without the local variable token
+	 * @return The variable's slot, or -1 if the variable can't have one
+	 */
+	public int getSlot(final String name) {
+		if (name.contains(Variable.SEPARATOR))
+			return -1;
+		final Integer slot = slots.get(name);
+		if (slot != null)
+			return slot;
+		final int s = slots.size();
+		slots.put(name, s);
+		return s;
+	}
+	
+	/**
+	 * @param name The lowercased name of a local variable, without the local variable token
+	 * @return The variable's slot, or -1 if it doesn't have one
+	 */
+	public int indexOf(final String name) {
+		final Integer slot = slots.get(name);
+		return slot == null ? -1 : slot;
+	}
+	
+	/**
+	 * @return The names of all variables that have a slot
+	 */
+	public Set<String> getNames() {
+		return Collections.unmodifiableSet(slots.keySet());
+	}
+	
+	/**
+	 * @return The number of slots
+	 */
+	public int size() {
+		return slots.size();
+	}
+	
+}
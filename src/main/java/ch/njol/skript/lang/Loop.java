@@ -20,8 +20,6 @@
 package ch.njol.skript.lang;
 
 import java.util.Iterator;
-import java.util.Map;
-import java.util.WeakHashMap;
 
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
@@ -29,6 +27,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import ch.njol.skript.ScriptLoader;
 import ch.njol.skript.SkriptAPIException;
 import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.lang.util.ContainerExpression;
 import ch.njol.skript.util.Container;
 import ch.njol.skript.util.Container.ContainerType;
@@ -42,8 +41,10 @@ public class Loop extends TriggerSection {
 	
 	private final Expression<?> expr;
 	
-	private transient Map<Event, Object> current = new WeakHashMap<Event, Object>();
-	private transient Map<Event, Iterator<?>> currentIter = new WeakHashMap<Event, Iterator<?>>();
+	/**
+	 * The index of this loop's state in the {@link ExecutionFrame} of its trigger
+	 */
+	private final int slot;
 	
 	@Nullable
 	private TriggerItem actualNext;
@@ -60,13 +61,15 @@ public class Loop extends TriggerSection {
 		} else {
 			this.expr = expr;
 		}
-		ScriptLoader.currentSections.add(this);
-		ScriptLoader.currentLoops.add(this);
+		slot = ParserInstance.get().nextLoopSlot();
+		setLineNumber(node.getLine());
+		ScriptLoader.getCurrentSections().add(this);
+		ScriptLoader.getCurrentLoops().add(this);
 		try {
 			setTriggerItems(ScriptLoader.loadItems(node));
 		} finally {
-			ScriptLoader.currentLoops.remove(ScriptLoader.currentLoops.size() - 1);
-			ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+			ScriptLoader.getCurrentLoops().remove(ScriptLoader.getCurrentLoops().size() - 1);
+			ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
 		}
 		super.setNext(this);
 	}
@@ -74,24 +77,41 @@ public class Loop extends TriggerSection {
 	@Override
 	@Nullable
 	protected TriggerItem walk(final Event e) {
-		Iterator<?> iter = currentIter.get(e);
+		if (next(e)) {
+			return walk(e, true);
+		} else {
+			debug(e, false);
+			return actualNext;
+		}
+	}
+	
+	/**
+	 * Advances this loop to its next element for the given event.
+	 * 
+	 * @param e
+	 * @return Whether there is a next element, i.e. false if this loop is done
+	 */
+	boolean next(final Event e) {
+		final ExecutionFrame frame = ExecutionFrame.get(e);
+		if (frame == null)
+			throw new IllegalStateException("A loop can only be run by TriggerItem.walk");
+		Iterator<?> iter = frame.getLoopIterator(slot);
 		if (iter == null) {
 			iter = expr instanceof Variable ? ((Variable<?>) expr).variablesIterator(e) : expr.iterator(e);
 			if (iter != null) {
 				if (iter.hasNext())
-					currentIter.put(e, iter);
+					frame.setLoopIterator(slot, iter);
 				else
 					iter = null;
 			}
 		}
 		if (iter == null || !iter.hasNext()) {
 			if (iter != null)
-				currentIter.remove(e); // a loop inside another loop can be called multiple times in the same event
-			debug(e, false);
-			return actualNext;
+				frame.setLoopIterator(slot, null); // a loop inside another loop can be called multiple times in the same event
+			return false;
 		} else {
-			current.put(e, iter.next());
-			return walk(e, true);
+			frame.setLoopValue(slot, iter.next());
+			return true;
 		}
 	}
 	
@@ -102,7 +122,8 @@ public class Loop extends TriggerSection {
 	
 	@Nullable
 	public Object getCurrent(final Event e) {
-		return current.get(e);
+		final ExecutionFrame frame = ExecutionFrame.get(e);
+		return frame == null ? null : frame.getLoopValue(slot);
 	}
 	
 	public Expression<?> getLoopedExpression() {
@@ -0,0 +1,75 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import org.bukkit.event.Event;
+
+/**
+ * An expression that returns a single number and can return it as a primitive, i.e. without boxing it into a {@link Number}.
+ * <p>
+ * This is optional, but expressions that calculate their value as a primitive anyway should implement this, as it allows e.g. arithmetic to use the expression's value
+ * without creating any objects. Users of these methods should use {@link #doubleValue(Expression, Event, double)} and {@link #longValue(Expression, Event, long)}, which work
+ * with all expressions of numbers.
+ * <p>
+ * The methods of this interface must only be used if the expression is {@link Expression#isSingle() single}.
+ */
+public interface NumberExpression {
+	
+	/**
+	 * @param e The event
+	 * @param none The value to return if this expression doesn't have a value
+	 * @return The value of this expression, like {@link Number#doubleValue()} of the value returned by {@link Expression#getSingle(Event)}
+	 */
+	double getDouble(Event e, double none);
+	
+	/**
+	 * @param e The event
+	 * @param none The value to return if this expression doesn't have a value
+	 * @return The value of this expression, like {@link Number#longValue()} of the value returned by {@link Expression#getSingle(Event)}
+	 */
+	long getLong(Event e, long none);
+	
+	/**
+	 * @param expr A single expression
+	 * @param e The event
+	 * @param none The value to return if the expression doesn't have a value
+	 * @return The value of the given expression as a double
+	 */
+	public static double doubleValue(final Expression<? extends Number> expr, final Event e, final double none) {
+		if (expr instanceof NumberExpression)
+			return ((NumberExpression) expr).getDouble(e, none);
+		final Number n = expr.getSingle(e);
+		return n == null ? none : n.doubleValue();
+	}
+	
+	/**
+	 * @param expr A single expression
+	 * @param e The event
+	 * @param none The value to return if the expression doesn't have a value
+	 * @return The value of the given expression as a long
+	 */
+	public static long longValue(final Expression<? extends Number> expr, final Event e, final long none) {
+		if (expr instanceof NumberExpression)
+			return ((NumberExpression) expr).getLong(e, none);
+		final Number n = expr.getSingle(e);
+		return n == null ? none : n.longValue();
+	}
+	
+}
@@ -0,0 +1,163 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.util.Kleenean;
+
+/**
+ * Simplifies scripts while they are loaded, so that work which gives the same result every time isn't repeated whenever a trigger runs.
+ * <p>
+ * Expressions are {@link Expression#simplify() simplified} before they are given to the syntax element they are part of, e.g. arithmetic with literals and converted
+ * literals become literals themselves. Conditionals whose condition is {@link Condition#getConstantResult() constant}, e.g. because it only compares literals that options
+ * expanded to, are replaced with the branch that is always run.
+ * <p>
+ * Disabled by default, see the option <tt>optimize scripts</tt>.
+ * <p>
+ * Expressions in the bodies of loops are not hoisted out of the loops: anything that doesn't depend on the event is already folded into a literal, and whether any other
+ * expression changes while a loop runs cannot be known, as expressions don't tell whether they have side effects.
+ */
+public final class ScriptOptimizer {
+	
+	private ScriptOptimizer() {}
+	
+	private static boolean enabled = false;
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	public static void setEnabled(final boolean enabled) {
+		ScriptOptimizer.enabled = enabled;
+	}
+	
+	/**
+	 * Simplifies the given arguments of a syntax element before they are passed to its <tt>init</tt> method.
+	 * 
+	 * @param exprs The arguments, which are replaced by their simplified versions. Can contain nulls.
+	 */
+	public static void simplify(final @Nullable Expression<?>[] exprs) {
+		if (!enabled)
+			return;
+		for (int i = 0; i < exprs.length; i++) {
+			final Expression<?> e = exprs[i];
+			if (e != null)
+				exprs[i] = e.simplify();
+		}
+	}
+	
+	/**
+	 * Replaces every conditional in the given list whose condition is constant with the branch that is always run, i.e. with a {@link Branch} containing the items of the
+	 * conditional or of its <tt>else</tt> section, the following <tt>else if</tt>, or nothing.
+	 * 
+	 * @param items The items of a section, before they are linked to each other
+	 */
+	public static void removeDeadBranches(final List<TriggerItem> items) {
+		if (!enabled)
+			return;
+		for (int i = 0; i < items.size(); i++) {
+			final TriggerItem item = items.get(i);
+			if (item.getClass() != Conditional.class) // other sections might do more than choosing a branch
+				continue;
+			final List<TriggerItem> branch = getLiveBranch((Conditional) item);
+			if (branch == null)
+				continue;
+			items.remove(i);
+			items.addAll(i, branch);
+			i--; // the branch might be an 'else if' with a constant condition itself
+		}
+	}
+	
+	/**
+	 * @param c
+	 * @return The items that replace the given conditional, or null if its condition isn't constant
+	 */
+	@Nullable
+	private static List<TriggerItem> getLiveBranch(final Conditional c) {
+		final Kleenean result = c.getCondition().getConstantResult();
+		if (result == Kleenean.UNKNOWN)
+			return null;
+		if (result == Kleenean.TRUE)
+			return Branch.of(c, c);
+		final Conditional elseIf = c.getElseIf();
+		if (elseIf != null)
+			return Collections.<TriggerItem>singletonList(elseIf);
+		final TriggerSection elseSection = c.getElseSection();
+		if (elseSection == null)
+			return Collections.emptyList();
+		return Branch.of(c, elseSection);
+	}
+	
+	/**
+	 * The branch of a conditional that is always run. The items of the branch are kept in a section of their own instead of being moved into the enclosing section, as a
+	 * condition that fails and <tt>exit 1 section</tt> continue after the section they are in, which must still be the one of the removed conditional.
+	 */
+	final static class Branch extends TriggerSection {
+		
+		private final TriggerSection section;
+		
+		private Branch(final Conditional conditional, final TriggerSection section) {
+			this.section = section;
+			setLineNumber(conditional.getLineNumber());
+			setTriggerItems(getItems(section));
+		}
+		
+		/**
+		 * @return A list containing the branch of the given section, or an empty list if the section is empty
+		 */
+		static List<TriggerItem> of(final Conditional conditional, final TriggerSection section) {
+			if (section.getFirstItem() == null)
+				return Collections.emptyList();
+			return Collections.<TriggerItem>singletonList(new Branch(conditional, section));
+		}
+		
+		@Override
+		@Nullable
+		protected TriggerItem walk(final Event e) {
+			return walk(e, true);
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return section.toString(e, debug);
+		}
+		
+	}
+	
+	private static List<TriggerItem> getItems(final TriggerSection section) {
+		final List<TriggerItem> r = new ArrayList<>();
+		final TriggerItem last = section.getLastItem();
+		TriggerItem i = section.getFirstItem();
+		while (i != null) {
+			r.add(i);
+			if (i == last)
+				break;
+			i = i instanceof Loop ? ((Loop) i).getActualNext() : i instanceof While ? ((While) i).getActualNext() : i.getNext();
+		}
+		return r;
+	}
+	
+}
@@ -20,8 +20,10 @@
 package ch.njol.skript.lang;
 
 import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
 
 import ch.njol.skript.Skript;
+import ch.njol.skript.SkriptEventHandler;
 import ch.njol.skript.events.EvtClick;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
 import ch.njol.util.Kleenean;
@@ -60,6 +62,32 @@ public abstract class SkriptEvent implements SyntaxElement, Debuggable {
 	 */
 	public abstract boolean check(Event e);
 	
+	/**
+	 * Optional hook to let {@link SkriptEventHandler} skip calling {@link #check(Event)} for triggers that cannot match an event. This method returns the keys
+	 * (e.g. materials) one of which an event must have for this SkriptEvent to match it, i.e. if {@link #check(Event)} returns true for an event then
+	 * {@link #getIndexKey(Event)} must return one of these keys or null for that event.
+	 * <p>
+	 * Triggers are only indexed by keys of SkriptEvents of the same class, thus all SkriptEvents of the same class must use the same kind of keys.
+	 * 
+	 * @return The keys this SkriptEvent can match, or null if it can match events with any key (the default).
+	 */
+	@Nullable
+	public Object[] getIndexKeys() {
+		return null;
+	}
+	
+	/**
+	 * Gets the key of an event that is compared to the {@link #getIndexKeys() keys} of the triggers. This method is only called once per event for all
+	 * SkriptEvents of the same class, thus it must only depend on the event and not on this SkriptEvent.
+	 * 
+	 * @param e
+	 * @return The key of the event, or null to check all triggers (the default).
+	 */
+	@Nullable
+	public Object getIndexKey(final Event e) {
+		return null;
+	}
+	
 	@Override
 	public String toString() {
 		return toString(null, false);
@@ -22,11 +22,11 @@ package ch.njol.skript.lang;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -48,12 +48,16 @@ import ch.njol.skript.command.Argument;
 import ch.njol.skript.command.Commands;
 import ch.njol.skript.command.ScriptCommand;
 import ch.njol.skript.command.ScriptCommandEvent;
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.Node;
 import ch.njol.skript.entity.EntityData;
 import ch.njol.skript.expressions.ExprParse;
 import ch.njol.skript.lang.function.ExprFunctionCall;
 import ch.njol.skript.lang.function.Function;
 import ch.njol.skript.lang.function.FunctionReference;
 import ch.njol.skript.lang.function.Functions;
+import ch.njol.skript.lang.parser.ParserInstance;
+import ch.njol.skript.lang.parser.ScriptCache;
 import ch.njol.skript.lang.util.SimpleLiteral;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.localization.Message;
@@ -132,8 +136,12 @@ public class SkriptParser {
 		public int mark = 0;
 		
 		public ParseResult(final SkriptParser parser, final String pattern) {
+			this(parser, countUnescaped(pattern, '%') / 2);
+		}
+		
+		ParseResult(final SkriptParser parser, final int exprCount) {
 			expr = parser.expr;
-			exprs = new Expression<?>[countUnescaped(pattern, '%') / 2];
+			exprs = new Expression<?>[exprCount];
 		}
 	}
 	
@@ -169,7 +177,20 @@ public class SkriptParser {
 	 * Can print an error.
 	 */
 	@Nullable
-	public final static <T extends SyntaxElement> T parse(String expr, final Iterator<? extends SyntaxElementInfo<T>> source, final @Nullable String defaultError) {
+	public final static <T extends SyntaxElement> T parse(final String expr, final Iterator<? extends SyntaxElementInfo<T>> source, final @Nullable String defaultError) {
+		return parse(expr, source, defaultError, null);
+	}
+	
+	/**
+	 * Parses a string as one of the given syntax elements.
+	 * <p>
+	 * Can print an error.
+	 * 
+	 * @param kind What is parsed, e.g. "effect". If this is not null, the syntax element that matches is remembered in the {@link ScriptCache}, so that it can be tried
+	 *            first the next time the same script is loaded. Must be the same for every call with the same source.
+	 */
+	@Nullable
+	public final static <T extends SyntaxElement> T parse(String expr, final Iterator<? extends SyntaxElementInfo<T>> source, final @Nullable String defaultError, final @Nullable String kind) {
 		expr = "" + expr.trim();
 		if (expr.isEmpty()) {
 			Skript.error(defaultError);
@@ -177,7 +198,7 @@ public class SkriptParser {
 		}
 		final ParseLogHandler log = SkriptLogger.startParseLogHandler();
 		try {
-			final T e = new SkriptParser(expr).parse(source);
+			final T e = new SkriptParser(expr).parse(source, kind);
 			if (e != null) {
 				log.printLog();
 				return e;
@@ -213,52 +234,56 @@ public class SkriptParser {
 	
 	@Nullable
 	private final <T extends SyntaxElement> T parse(final Iterator<? extends SyntaxElementInfo<? extends T>> source) {
+		return parse(source, null);
+	}
+	
+	/**
+	 * @param kind What is parsed, used to look up and remember the matching syntax element in the {@link ScriptCache} of the current script. Must be unique for each
+	 *            possible source, and null if the cache should not be used.
+	 */
+	@Nullable
+	private final <T extends SyntaxElement> T parse(Iterator<? extends SyntaxElementInfo<? extends T>> source, final @Nullable String kind) {
 		final ParseLogHandler log = SkriptLogger.startParseLogHandler();
 		try {
-			while (source.hasNext()) {
-				final SyntaxElementInfo<? extends T> info = source.next();
-				patternsLoop: for (int i = 0; i < info.patterns.length; i++) {
-					log.clear();
-					try {
-						final String pattern = info.patterns[i];
-						assert pattern != null;
-						final ParseResult res = parse_i(pattern, 0, 0);
-						if (res != null) {
-							int x = -1;
-							for (int j = 0; (x = nextUnescaped(pattern, '%', x + 1)) != -1; j++) {
-								final int x2 = nextUnescaped(pattern, '%', x + 1);
-								if (res.exprs[j] == null) {
-									final String name = pattern.substring(x + 1, x2);
-									if (!name.startsWith("-")) {
-										final ExprInfo vi = getExprInfo(name);
-										final DefaultExpression<?> expr = vi.classes[0].getDefaultExpression();
-										if (expr == null)
-											throw new SkriptAPIException("The class '" + vi.classes[0].getCodeName() + "' does not provide a default expression. Either allow null (with %-" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + "]");
-										if (!(expr instanceof Literal) && (vi.flagMask & PARSE_EXPRESSIONS) == 0)
-											throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a literal. Either allow null (with %-*" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + "]");
-										if (expr instanceof Literal && (vi.flagMask & PARSE_LITERALS) == 0)
-											throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is a literal. Either allow null (with %-~" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + "]");
-										if (!vi.isPlural[0] && !expr.isSingle())
-											throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a single-element expression. Change your pattern to allow multiple elements or make the expression mandatory [pattern: " + info.patterns[i] + "]");
-										if (vi.time != 0 && !expr.setTime(vi.time))
-											throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' does not have distinct time states. [pattern: " + info.patterns[i] + "]");
-										if (!expr.init())
-											continue patternsLoop;
-										res.exprs[j] = expr;
-									}
-								}
-								x = x2;
-							}
-							final T t = info.c.newInstance();
-							if (t.init(res.exprs, i, ScriptLoader.hasDelayBefore, res)) {
+			final String firstWord = getFirstWord(expr);
+			final ScriptCache.Entry cache = kind == null ? null : ParserInstance.get().getScriptCache();
+			final Node node = SkriptLogger.getNode();
+			final String key = kind == null || cache == null || node == null ? null : ScriptCache.Entry.getKey(node.getLine(), kind, expr);
+			if (cache != null && key != null) {
+				final ScriptCache.Hint hint = cache.getHint(key);
+				if (hint != null) {
+					// Everything before the hinted pattern didn't match the last time, so it is only tried if the hinted pattern doesn't match anymore
+					final List<SyntaxElementInfo<? extends T>> skipped = new ArrayList<>();
+					while (source.hasNext()) {
+						final SyntaxElementInfo<? extends T> info = source.next();
+						skipped.add(info);
+						if (!info.c.getName().equals(hint.element))
+							continue;
+						if (hint.pattern < info.patterns.length) {
+							log.clear();
+							final T t = parse(info, hint.pattern, firstWord);
+							if (t != null) {
 								log.printLog();
 								return t;
 							}
 						}
-					} catch (final InstantiationException e) {
-						assert false;
-					} catch (final IllegalAccessException e) {
-						assert false;
+						break;
+					}
+					while (source.hasNext())
+						skipped.add(source.next());
+					source = skipped.iterator();
+				}
+			}
+			while (source.hasNext()) {
+				final SyntaxElementInfo<? extends T> info = source.next();
+				for (int i = 0; i < info.patterns.length; i++) {
+					log.clear();
+					final T t = parse(info, i, firstWord);
+					if (t != null) {
+						if (cache != null && key != null)
+							cache.setHint(key, new ScriptCache.Hint(info.c.getName(), i));
+						log.printLog();
+						return t;
 					}
 				}
 			}
@@ -269,6 +294,68 @@ public class SkriptParser {
 		}
 	}
 	
+	/**
+	 * Tries to parse this parser's text with a single pattern of a syntax element.
+	 */
+	@Nullable
+	private final <T extends SyntaxElement> T parse(final SyntaxElementInfo<? extends T> info, final int i, final String firstWord) {
+		try {
+			final String pattern = info.patterns[i];
+			assert pattern != null;
+			final CompiledPattern compiled = getCompiledPattern(info, i);
+			final String leadingWord = compiled.leadingWord;
+			if (leadingWord != null && !leadingWord.equals(firstWord))
+				return null; // cannot match
+			final ParseResult res = parse_i(compiled, 0, 0);
+			if (res != null) {
+				int x = -1;
+				for (int j = 0; (x = nextUnescaped(pattern, '%', x + 1)) != -1; j++) {
+					final int x2 = nextUnescaped(pattern, '%', x + 1);
+					if (res.exprs[j] == null) {
+						final String name = pattern.substring(x + 1, x2);
+						if (!name.startsWith("-")) {
+							final ExprInfo vi = getExprInfo(name);
+							final DefaultExpression<?> expr = vi.classes[0].getDefaultExpression();
+							if (expr == null)
+								throw new SkriptAPIException("The class '" + vi.classes[0].getCodeName() + "' does not provide a default expression. Either allow null (with %-" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + "]");
+							if (!(expr instanceof Literal) && (vi.flagMask & PARSE_EXPRESSIONS) == 0)
+								throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a literal. Either allow null (with %-*" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + "]");
+							if (expr instanceof Literal && (vi.flagMask & PARSE_LITERALS) == 0)
+								throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is a literal. Either allow null (with %-~" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + "]");
+							if (!vi.isPlural[0] && !expr.isSingle())
+								throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a single-element expression. Change your pattern to allow multiple elements or make the expression mandatory [pattern: " + info.patterns[i] + "]");
+							if (vi.time != 0 && !expr.setTime(vi.time))
+								throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' does not have distinct time states. [pattern: " + info.patterns[i] + "]");
+							if (!expr.init())
+								return null;
+							res.exprs[j] = expr;
+						}
+					}
+					x = x2;
+				}
+				ScriptOptimizer.simplify(res.exprs);
+				final T t = info.c.newInstance();
+				if (t.init(res.exprs, i, ScriptLoader.getHasDelayBefore(), res))
+					return t;
+			}
+		} catch (final InstantiationException e) {
+			assert false;
+		} catch (final IllegalAccessException e) {
+			assert false;
+		}
+		return null;
+	}
+	
+	/**
+	 * @return The kind to use for the {@link ScriptCache} when parsing an expression of the given types
+	 */
+	private final static String getCacheKind(final Class<?>[] types) {
+		final StringBuilder b = new StringBuilder("expression");
+		for (final Class<?> t : types)
+			b.append(' ').append(t == null ? null : t.getName());
+		return "" + b;
+	}
+	
 	@SuppressWarnings("null")
 	private final static Pattern varPattern = Pattern.compile("((the )?var(iable)? )?\\{([^{}]|%\\{|\\}%)+\\}", Pattern.CASE_INSENSITIVE);
 	
@@ -322,7 +409,7 @@ public class SkriptParser {
 				if (expr.startsWith("\"") && expr.endsWith("\"") && expr.length() != 1 && (types[0] == Object.class || CollectionUtils.contains(types, String.class))) {
 					e = VariableString.newInstance("" + expr.substring(1, expr.length() - 1));
 				} else {
-					e = (Expression<?>) parse(expr, (Iterator) Skript.getExpressions(types), null);
+					e = (Expression<?>) parse(expr, (Iterator) Skript.getExpressions(expr, types), null, getCacheKind(types));
 				}
 				if (e != null) { // Expression/VariableString parsing success
 					for (final Class<? extends T> t : types) {
@@ -490,7 +577,7 @@ public class SkriptParser {
 				if (expr.startsWith("\"") && expr.endsWith("\"") && expr.length() != 1 && (types[0] == Object.class || CollectionUtils.contains(types, String.class))) {
 					e = VariableString.newInstance("" + expr.substring(1, expr.length() - 1));
 				} else {
-					e = (Expression<?>) parse(expr, (Iterator) Skript.getExpressions(types), null);
+					e = (Expression<?>) parse(expr, (Iterator) Skript.getExpressions(expr, types), null, getCacheKind(types));
 				}
 				if (e != null) { // Expression/VariableString parsing success
 					Class<?> returnType = e.getReturnType(); // Sometimes getReturnType does non-trivial costly operations
@@ -1136,7 +1223,8 @@ public class SkriptParser {
 //				}
 //			}
 //			@SuppressWarnings("null")
-			final FunctionReference<T> e = new FunctionReference<>(functionName, SkriptLogger.getNode(), ScriptLoader.currentScript != null ? ScriptLoader.currentScript.getFile() : null, types, params);//.toArray(new Expression[params.size()]));
+			final Config script = ScriptLoader.getCurrentScript();
+			final FunctionReference<T> e = new FunctionReference<>(functionName, SkriptLogger.getNode(), script != null ? script.getFile() : null, types, params);//.toArray(new Expression[params.size()]));
 			if (!e.validateFunction(true)) {
 				log.printError();
 				return null;
@@ -1204,9 +1292,7 @@ public class SkriptParser {
 				for (int i = 0; i < info.patterns.length; i++) {
 					log.clear();
 					try {
-						final String pattern = info.patterns[i];
-						assert pattern != null;
-						final ParseResult res = parse_i(pattern, 0, 0);
+						final ParseResult res = parse_i(getCompiledPattern(info, i), 0, 0);
 						if (res != null) {
 							final SkriptEvent e = info.c.newInstance();
 							final Literal<?>[] ls = Arrays.copyOf(res.exprs, res.exprs.length, Literal[].class);
@@ -1430,13 +1516,30 @@ public class SkriptParser {
 	 * @return Parsed result or null on error (which does not imply that an error was printed)
 	 */
 	@Nullable
-	private final ParseResult parse_i(final String pattern, int i, int j) {
+	private final ParseResult parse_i(final String pattern, final int i, final int j) {
+		return parse_i(getCompiledPattern(pattern), i, j);
+	}
+	
+	/**
+	 * Prints errors
+	 * 
+	 * @param pattern
+	 * @param i Position in the input string
+	 * @param j Position in the pattern
+	 * @return Parsed result or null on error (which does not imply that an error was printed)
+	 */
+	@Nullable
+	private final ParseResult parse_i(final CompiledPattern pattern, int i, int j) {
+		final char[] chars = pattern.chars;
+		final int length = chars.length;
 		ParseResult res;
-		int end, i2;
+		int i2;
 		
-		while (j < pattern.length()) {
-			switch (pattern.charAt(j)) {
+		while (j < length) {
+			final CompiledPattern.Element element = pattern.elements[j];
+			switch (chars[j]) {
 				case '[': {
+					assert element != null;
 					final ParseLogHandler log = SkriptLogger.startParseLogHandler();
 					try {
 						res = parse_i(pattern, i, j + 1);
@@ -1445,7 +1548,10 @@ public class SkriptParser {
 							return res;
 						}
 						log.clear();
-						j = nextBracket(pattern, ']', '[', j + 1, true) + 1;
+						final RuntimeException error = element.error;
+						if (error != null)
+							throw error;
+						j = element.end;
 						res = parse_i(pattern, i, j);
 						if (res == null)
 							log.printError();
@@ -1457,36 +1563,23 @@ public class SkriptParser {
 					}
 				}
 				case '(': {
+					assert element != null;
 					final ParseLogHandler log = SkriptLogger.startParseLogHandler();
 					try {
-						final int start = j;
-						for (; j < pattern.length(); j++) {
+						final int[] starts = element.starts, marks = element.marks;
+						for (int k = 0; k < starts.length; k++) {
 							log.clear();
-							if (j == start || pattern.charAt(j) == '|') {
-								int mark = 0;
-								if (j != pattern.length() - 1 && ('0' <= pattern.charAt(j + 1) && pattern.charAt(j + 1) <= '9' || pattern.charAt(j + 1) == '-')) {
-									final int j2 = pattern.indexOf('¦', j + 2);
-									if (j2 != -1) {
-										try {
-											mark = Integer.parseInt(pattern.substring(j + 1, j2));
-											j = j2;
-										} catch (final NumberFormatException e) {}
-									}
-								}
-								res = parse_i(pattern, i, j + 1);
-								if (res != null) {
-									log.printLog();
-									res.mark ^= mark; // doesn't do anything if no mark was set as x ^ 0 == x
-									return res;
-								}
-							} else if (pattern.charAt(j) == '(') {
-								j = nextBracket(pattern, ')', '(', j + 1, true);
-							} else if (pattern.charAt(j) == ')') {
-								break;
-							} else if (j == pattern.length() - 1) {
-								throw new MalformedPatternException(pattern, "Missing closing bracket ')'");
+							res = parse_i(pattern, i, starts[k]);
+							if (res != null) {
+								log.printLog();
+								res.mark ^= marks[k]; // doesn't do anything if no mark was set as x ^ 0 == x
+								return res;
 							}
 						}
+						log.clear();
+						final RuntimeException error = element.error;
+						if (error != null)
+							throw error;
 						log.printError();
 						return null;
 					} finally {
@@ -1494,14 +1587,17 @@ public class SkriptParser {
 					}
 				}
 				case '%': {
+					assert element != null;
 					if (i == expr.length())
 						return null;
-					end = pattern.indexOf('%', j + 1);
-					if (end == -1)
-						throw new MalformedPatternException(pattern, "Odd number of '%'");
-					final String name = "" + pattern.substring(j + 1, end); // %type/anothertype%
-					final ExprInfo vi = getExprInfo(name);
-					if (end == pattern.length() - 1) {
+					final RuntimeException error = element.error;
+					if (error != null)
+						throw error;
+					final int end = element.end;
+					ExprInfo vi = element.exprInfo;
+					if (vi == null) // could not be resolved when the pattern was compiled, thus try again (and throw the error if it still fails)
+						vi = getExprInfo("" + element.name);
+					if (end == length - 1) {
 						i2 = expr.length();
 					} else {
 						i2 = next(expr, i, context);
@@ -1530,7 +1626,7 @@ public class SkriptParser {
 										if (vi.time != 0) {
 											if (e instanceof Literal<?>)
 												return null;
-											if (ScriptLoader.hasDelayBefore == Kleenean.TRUE) {
+											if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE) {
 												Skript.error("Cannot use time states after the event has already passed", ErrorQuality.SEMANTIC_ERROR);
 												return null;
 											}
@@ -1541,7 +1637,7 @@ public class SkriptParser {
 										}
 										log2.printLog();
 										log.printLog();
-										res.exprs[countUnescaped(pattern, '%', 0, j) / 2] = e;
+										res.exprs[element.exprIndex] = e;
 										return res;
 									}
 									// results in useless errors most of the time
@@ -1559,15 +1655,13 @@ public class SkriptParser {
 					return null;
 				}
 				case '<': {
-					end = pattern.indexOf('>', j + 1);// not next()
-					if (end == -1)
-						throw new MalformedPatternException(pattern, "Missing closing regex bracket '>'");
-					Pattern p;
-					try {
-						p = Pattern.compile(pattern.substring(j + 1, end));
-					} catch (final PatternSyntaxException e) {
-						throw new MalformedPatternException(pattern, "Invalid regex <" + pattern.substring(j + 1, end) + ">", e);
-					}
+					assert element != null;
+					final RuntimeException error = element.error;
+					if (error != null)
+						throw error;
+					final Pattern p = element.regex;
+					assert p != null;
+					final int end = element.end;
 					final ParseLogHandler log = SkriptLogger.startParseLogHandler();
 					try {
 						final Matcher m = p.matcher(expr);
@@ -1593,11 +1687,15 @@ public class SkriptParser {
 				case ')':
 					j++;
 					continue;
-				case '|':
-					final int newJ = nextBracket(pattern, ')', '(', j + 1, getGroupLevel(pattern, j) != 0);
+				case '|': {
+					assert element != null;
+					final RuntimeException error = element.error;
+					if (error != null)
+						throw error;
+					final int newJ = element.end;
 					if (newJ == -1) {
 						if (i == expr.length()) {
-							j = pattern.length();
+							j = length;
 							break;
 						} else {
 							i = 0;
@@ -1608,6 +1706,7 @@ public class SkriptParser {
 						j = newJ + 1;
 						break;
 					}
+				}
 				case ' ':
 					if (i == 0 || i == expr.length() || (i > 0 && expr.charAt(i - 1) == ' ')) {
 						j++;
@@ -1620,21 +1719,313 @@ public class SkriptParser {
 					continue;
 				case '\\':
 					j++;
-					if (j == pattern.length())
-						throw new MalformedPatternException(pattern, "Must not end with a backslash");
+					if (j == length)
+						throw new MalformedPatternException(pattern.pattern, "Must not end with a backslash");
 					//$FALL-THROUGH$
 				default:
-					if (i == expr.length() || Character.toLowerCase(pattern.charAt(j)) != Character.toLowerCase(expr.charAt(i)))
+					if (i == expr.length() || pattern.lowerCase[j] != Character.toLowerCase(expr.charAt(i)))
 						return null;
 					i++;
 					j++;
 			}
 		}
-		if (i == expr.length() && j == pattern.length())
-			return new ParseResult(this, pattern);
+		if (i == expr.length() && j == length)
+			return new ParseResult(this, pattern.exprCount);
 		return null;
 	}
 	
+	/**
+	 * Compiled patterns that don't belong to a syntax element, i.e. the patterns of commands and the ones used by {@link #parse(String, String)}. Cleared whenever scripts
+	 * are loaded, as these patterns usually come from scripts. The patterns of syntax elements are stored in their {@link SyntaxElementInfo} instead.
+	 */
+	private final static Map<String, CompiledPattern> compiledPatterns = new ConcurrentHashMap<>();
+	
+	/**
+	 * @param pattern
+	 * @return The compiled form of the given pattern, which is only compiled on the first call for any given pattern until the {@link #clearCompiledPatterns() cache is
+	 *         cleared}.
+	 */
+	private static CompiledPattern getCompiledPattern(final String pattern) {
+		CompiledPattern r = compiledPatterns.get(pattern);
+		if (r == null) {
+			r = new CompiledPattern(pattern);
+			compiledPatterns.put(pattern, r); // compiling is deterministic, so it doesn't matter if another thread did the same in the meantime
+		}
+		return r;
+	}
+	
+	/**
+	 * @param info
+	 * @param i
+	 * @return The compiled form of the <tt>i</tt>th pattern of the given syntax element. All patterns of the element are compiled on the first call.
+	 */
+	static CompiledPattern getCompiledPattern(final SyntaxElementInfo<?> info, final int i) {
+		CompiledPattern[] compiled = info.compiledPatterns;
+		if (compiled == null) {
+			compiled = new CompiledPattern[info.patterns.length];
+			for (int j = 0; j < compiled.length; j++) {
+				final String pattern = info.patterns[j];
+				assert pattern != null;
+				compiled[j] = new CompiledPattern(pattern);
+			}
+			info.compiledPatterns = compiled; // see getCompiledPattern(String)
+		}
+		return compiled[i];
+	}
+	
+	/**
+	 * Removes the compiled patterns of commands and {@link #parse(String, String)} calls of scripts that might not exist anymore. Called when scripts are loaded.
+	 */
+	public static void clearCompiledPatterns() {
+		compiledPatterns.clear();
+	}
+	
+	/**
+	 * @param pattern
+	 * @return The literal word (in lower case) that any text matching the given pattern starts with, or null if there is no such word.
+	 * @see #getFirstWord(String)
+	 */
+	@Nullable
+	static String getLeadingWord(final String pattern) {
+		return new CompiledPattern(pattern).leadingWord;
+	}
+	
+	/**
+	 * @param info
+	 * @param i
+	 * @return The {@link #getLeadingWord(String) leading word} of the <tt>i</tt>th pattern of the given syntax element.
+	 */
+	@Nullable
+	static String getLeadingWord(final SyntaxElementInfo<?> info, final int i) {
+		return getCompiledPattern(info, i).leadingWord;
+	}
+	
+	/**
+	 * @param expr
+	 * @return The first word of the given text in lower case, i.e. what the {@link #getLeadingWord(String) leading word} of a pattern must be equal to for the pattern to match
+	 *         the text.
+	 */
+	static String getFirstWord(String expr) {
+		expr = "" + expr.trim();
+		final int space = expr.indexOf(' ');
+		final char[] word = (space == -1 ? expr : expr.substring(0, space)).toCharArray();
+		for (int i = 0; i < word.length; i++)
+			word[i] = Character.toLowerCase(word[i]);
+		return new String(word);
+	}
+	
+	/**
+	 * Compiles the patterns of all registered syntax elements, so that this doesn't have to be done when the first scripts are loaded. Called when registration ends.
+	 */
+	public static void compilePatterns() {
+		for (final SyntaxElementInfo<?> info : Skript.getStatements())
+			compilePatterns(info);
+		for (final Iterator<ExpressionInfo<?, ?>> iter = Skript.getExpressions(); iter.hasNext();)
+			compilePatterns(iter.next());
+		for (final SkriptEventInfo<?> info : Skript.getEvents())
+			compilePatterns(info);
+	}
+	
+	private static void compilePatterns(final SyntaxElementInfo<?> info) {
+		if (info.patterns.length > 0)
+			getCompiledPattern(info, 0);
+	}
+	
+	/**
+	 * A pattern prepared for {@link SkriptParser#parse_i(CompiledPattern, int, int)}: everything that only depends on the pattern itself, i.e. the ends of brackets, the alternatives
+	 * of groups and their marks, the types and indices of expressions and regexes, is determined once when the pattern is compiled instead of on every parse attempt.
+	 * <p>
+	 * Errors in the pattern are not thrown when compiling it, but when the parser reaches the faulty part of the pattern, just like before patterns were compiled.
+	 */
+	final static class CompiledPattern {
+		
+		/**
+		 * Data of a special character of the pattern. Only the fields relevant to the character at the element's position are set.
+		 */
+		final static class Element {
+			/**
+			 * '[': index after the closing bracket, '|': index of the bracket that closes the group or -1 if not in a group, '%' and '<': index of the closing character
+			 */
+			int end = -1;
+			/**
+			 * '(': indices where the alternatives of the group start and their marks
+			 */
+			int[] starts = new int[0], marks = new int[0];
+			@Nullable
+			String name;
+			/**
+			 * '%': the expression info, or null if the types could not be resolved when compiling
+			 */
+			@Nullable
+			ExprInfo exprInfo;
+			int exprIndex;
+			@Nullable
+			Pattern regex;
+			/**
+			 * The error that the parser throws when it reaches this element
+			 */
+			@Nullable
+			RuntimeException error;
+		}
+		
+		final String pattern;
+		final char[] chars;
+		final char[] lowerCase;
+		/**
+		 * Elements indexed by their position in the pattern, null for literal characters
+		 */
+		final Element[] elements;
+		final int exprCount;
+		/**
+		 * The literal word every text matching this pattern has to start with (in lower case), or null if the pattern doesn't start with such a word
+		 */
+		@Nullable
+		final String leadingWord;
+		
+		CompiledPattern(final String pattern) {
+			this.pattern = pattern;
+			chars = pattern.toCharArray();
+			final int length = chars.length;
+			lowerCase = new char[length];
+			elements = new Element[length];
+			for (int j = 0; j < length; j++) {
+				lowerCase[j] = Character.toLowerCase(chars[j]);
+				switch (chars[j]) {
+					case '[':
+						elements[j] = compileOptional(j);
+						break;
+					case '(':
+						elements[j] = compileGroup(j);
+						break;
+					case '%':
+						elements[j] = compileExpression(j);
+						break;
+					case '<':
+						elements[j] = compileRegex(j);
+						break;
+					case '|':
+						elements[j] = compilePipe(j);
+						break;
+				}
+			}
+			exprCount = countUnescaped(pattern, '%') / 2;
+			leadingWord = findLeadingWord();
+		}
+		
+		/**
+		 * A pattern starts with a literal word if its first characters up to the first space (or the end of the pattern) are all literal. Patterns with a pipe outside of any
+		 * group are excluded, as the parser starts over at the pipe.
+		 */
+		@Nullable
+		private String findLeadingWord() {
+			int j = 0;
+			while (j < chars.length && chars[j] != ' ' && "[]()%<>|\\".indexOf(chars[j]) == -1)
+				j++;
+			if (j == 0 || j < chars.length && chars[j] != ' ')
+				return null;
+			for (int k = j; k < chars.length; k++) {
+				final Element e = elements[k];
+				if (chars[k] == '|' && e != null && (e.end == -1 || e.error != null))
+					return null;
+			}
+			return new String(lowerCase, 0, j);
+		}
+		
+		private Element compileOptional(final int j) {
+			final Element e = new Element();
+			try {
+				e.end = nextBracket(pattern, ']', '[', j + 1, true) + 1;
+			} catch (final MalformedPatternException ex) {
+				e.error = ex;
+			}
+			return e;
+		}
+		
+		private Element compileGroup(final int start) {
+			final Element e = new Element();
+			final List<Integer> starts = new ArrayList<>(), marks = new ArrayList<>();
+			try {
+				for (int j = start; j < chars.length; j++) {
+					if (j == start || chars[j] == '|') {
+						int mark = 0;
+						if (j != chars.length - 1 && ('0' <= chars[j + 1] && chars[j + 1] <= '9' || chars[j + 1] == '-')) {
+							final int j2 = pattern.indexOf('¦', j + 2);
+							if (j2 != -1) {
+								try {
+									mark = Integer.parseInt(pattern.substring(j + 1, j2));
+									j = j2;
+								} catch (final NumberFormatException ex) {}
+							}
+						}
+						starts.add(j + 1);
+						marks.add(mark);
+					} else if (chars[j] == '(') {
+						j = nextBracket(pattern, ')', '(', j + 1, true);
+					} else if (chars[j] == ')') {
+						break;
+					} else if (j == chars.length - 1) {
+						throw new MalformedPatternException(pattern, "Missing closing bracket ')'");
+					}
+				}
+			} catch (final MalformedPatternException ex) {
+				e.error = ex;
+			}
+			e.starts = new int[starts.size()];
+			e.marks = new int[marks.size()];
+			for (int i = 0; i < e.starts.length; i++) {
+				e.starts[i] = starts.get(i);
+				e.marks[i] = marks.get(i);
+			}
+			return e;
+		}
+		
+		private Element compileExpression(final int j) {
+			final Element e = new Element();
+			e.end = pattern.indexOf('%', j + 1);
+			if (e.end == -1) {
+				e.error = new MalformedPatternException(pattern, "Odd number of '%'");
+				return e;
+			}
+			final String name = "" + pattern.substring(j + 1, e.end);
+			e.name = name;
+			e.exprIndex = countUnescaped(pattern, '%', 0, j) / 2;
+			if (countUnescaped(pattern, '%', 0, j) % 2 == 0) { // closing percent signs are never parsed as the start of an expression
+				try {
+					e.exprInfo = getExprInfo(name);
+				} catch (final RuntimeException ex) {
+					// resolved again when the expression is parsed
+				}
+			}
+			return e;
+		}
+		
+		private Element compileRegex(final int j) {
+			final Element e = new Element();
+			e.end = pattern.indexOf('>', j + 1);// not next()
+			if (e.end == -1) {
+				e.error = new MalformedPatternException(pattern, "Missing closing regex bracket '>'");
+				return e;
+			}
+			try {
+				e.regex = Pattern.compile(pattern.substring(j + 1, e.end));
+			} catch (final PatternSyntaxException ex) {
+				e.error = new MalformedPatternException(pattern, "Invalid regex <" + pattern.substring(j + 1, e.end) + ">", ex);
+			}
+			return e;
+		}
+		
+		private Element compilePipe(final int j) {
+			final Element e = new Element();
+			try {
+				e.end = nextBracket(pattern, ')', '(', j + 1, getGroupLevel(pattern, j) != 0);
+			} catch (final MalformedPatternException ex) {
+				e.error = ex;
+			}
+			return e;
+		}
+		
+	}
+	
 	/**
 	 * Validates a user-defined pattern (used in {@link ExprParse}).
 	 * 
@@ -1747,7 +2138,7 @@ public class SkriptParser {
 		int time = 0;
 	}
 	
-	private static final Map<String,ExprInfo> exprInfoCache = new HashMap<>();
+	private static final Map<String,ExprInfo> exprInfoCache = new ConcurrentHashMap<>();
 	
 	private static ExprInfo getExprInfo(String s) throws MalformedPatternException, IllegalArgumentException, SkriptAPIException {
 		ExprInfo r = exprInfoCache.get(s);
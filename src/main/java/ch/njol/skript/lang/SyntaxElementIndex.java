@@ -0,0 +1,149 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Maps the leading literal words of the patterns of syntax elements to the syntax elements, so that only the syntax elements that could possibly match a given text have to be
+ * tried when parsing it.
+ * <p>
+ * Syntax elements that have a pattern which doesn't start with a literal word (e.g. because it starts with an expression or an optional part) are candidates for every text.
+ * Candidates are always returned in the order the syntax elements were given to the index, i.e. in the order they would be tried without an index.
+ *
+ * @param <I> The type of syntax element infos in this index
+ */
+public final class SyntaxElementIndex<I extends SyntaxElementInfo<?>> {
+	
+	private final List<I> infos = new ArrayList<>();
+	
+	/**
+	 * Indices of the candidates for every leading word, including those of {@link #fallback}
+	 */
+	private final Map<String, int[]> candidates = new HashMap<>();
+	
+	/**
+	 * Indices of the syntax elements that have to be tried for every text
+	 */
+	private final int[] fallback;
+	
+	public SyntaxElementIndex(final Iterator<? extends I> infos) {
+		final Map<String, List<Integer>> words = new HashMap<>();
+		final List<Integer> fallback = new ArrayList<>();
+		while (infos.hasNext()) {
+			final I info = infos.next();
+			final int index = this.infos.size();
+			this.infos.add(info);
+			boolean isFallback = false;
+			for (int i = 0; i < info.patterns.length; i++) {
+				final String word = SkriptParser.getLeadingWord(info, i);
+				if (word == null) {
+					isFallback = true;
+					break;
+				}
+				List<Integer> l = words.get(word);
+				if (l == null)
+					words.put(word, l = new ArrayList<>());
+				if (l.isEmpty() || l.get(l.size() - 1).intValue() != index)
+					l.add(index);
+			}
+			if (isFallback)
+				fallback.add(index);
+		}
+		this.fallback = merge(new ArrayList<Integer>(), fallback);
+		for (final Map.Entry<String, List<Integer>> e : words.entrySet())
+			candidates.put(e.getKey(), merge(e.getValue(), fallback));
+	}
+	
+	private static int[] merge(final List<Integer> a, final List<Integer> b) {
+		final int[] r = new int[a.size() + b.size()];
+		int i = 0, j = 0, k = 0;
+		while (i < a.size() || j < b.size()) {
+			if (j == b.size() || i < a.size() && a.get(i) < b.get(j))
+				r[k++] = a.get(i++);
+			else if (i == a.size() || b.get(j) < a.get(i))
+				r[k++] = b.get(j++);
+			else { // an element can be in both lists if it has a pattern with a leading word and one without
+				r[k++] = a.get(i++);
+				j++;
+			}
+		}
+		if (k == r.length)
+			return r;
+		final int[] t = new int[k];
+		System.arraycopy(r, 0, t, 0, k);
+		return t;
+	}
+	
+	/**
+	 * @param expr The text to parse
+	 * @return The syntax elements that could possibly match the given text, in the order they were added to this index
+	 */
+	public Iterator<I> getCandidates(final String expr) {
+		final int[] indices = candidates.get(SkriptParser.getFirstWord(expr));
+		return new IndexIterator(indices == null ? fallback : indices);
+	}
+	
+	/**
+	 * @return The number of syntax elements in this index
+	 */
+	public int size() {
+		return infos.size();
+	}
+	
+	private final class IndexIterator implements Iterator<I> {
+		
+		private final int[] indices;
+		private int next = 0;
+		
+		IndexIterator(final int[] indices) {
+			this.indices = indices;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return next < indices.length;
+		}
+		
+		@Override
+		public I next() {
+			if (next >= indices.length)
+				throw new NoSuchElementException();
+			return infos.get(indices[next++]);
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+		
+	}
+	
+	@Override
+	public String toString() {
+		return "SyntaxElementIndex[" + infos.size() + " elements, " + candidates.size() + " words, " + fallback.length + " always tried]";
+	}
+	
+}
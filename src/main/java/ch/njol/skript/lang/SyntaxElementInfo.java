@@ -19,6 +19,8 @@
  */
 package ch.njol.skript.lang;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 /**
  * @author Peter Güttinger
  * @param <E> the syntax element this info is for
@@ -28,6 +30,12 @@ public class SyntaxElementInfo<E extends SyntaxElement> {
 	public final Class<E> c;
 	public final String[] patterns;
 	
+	/**
+	 * The compiled {@link #patterns}, set by the parser when they are first used
+	 */
+	@Nullable
+	volatile SkriptParser.CompiledPattern[] compiledPatterns;
+	
 	public SyntaxElementInfo(final String[] patterns, final Class<E> c) throws IllegalArgumentException {
 		this.patterns = patterns;
 		this.c = c;
@@ -25,6 +25,9 @@ import java.util.List;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
+import ch.njol.skript.lang.parser.ParserInstance;
+import ch.njol.skript.timings.SkriptProfiler;
+
 /**
  * @author Peter Güttinger
  */
@@ -35,15 +38,22 @@ public class Trigger extends TriggerSection {
 	
 	@Nullable
 	private final File script;
-	private int line = -1; // -1 is default: it means there is no line number available
 	private String debugLabel;
 	
+	@Nullable
+	private final TriggerCompiler.CompiledTrigger compiled;
+	
+	@Nullable
+	private LocalVariableSlots localVariableSlots;
+	
 	public Trigger(final @Nullable File script, final String name, final SkriptEvent event, final List<TriggerItem> items) {
 		super(items);
 		this.script = script;
 		this.name = name;
 		this.event = event;
 		this.debugLabel = "unknown trigger";
+		localVariableSlots = ParserInstance.get().getLocalVariableSlots();
+		compiled = TriggerCompiler.isEnabled() ? TriggerCompiler.compile(this) : null;
 	}
 	
 	/**
@@ -52,7 +62,21 @@ public class Trigger extends TriggerSection {
 	 * @return false if an exception occurred
 	 */
 	public boolean execute(final Event e) {
-		return TriggerItem.walk(this, e);
+		return execute(e, new ExecutionFrame(e, localVariableSlots));
+	}
+	
+	/**
+	 * Executes this trigger for certain event in the given frame, e.g. one that already holds some local variables.
+	 * @param e Event.
+	 * @param frame A new frame for the event with this trigger's {@link #getLocalVariableSlots() local variable slots}.
+	 * @return false if an exception occurred
+	 */
+	public boolean execute(final Event e, final ExecutionFrame frame) {
+		final TriggerCompiler.CompiledTrigger compiled = this.compiled;
+		// the profiler measures the items of the trigger one by one
+		if (compiled != null && !SkriptProfiler.isRunning())
+			return compiled.execute(e, frame);
+		return TriggerItem.walk(this, e, frame);
 	}
 	
 	@Override
@@ -66,6 +90,23 @@ public class Trigger extends TriggerSection {
 		return name + " (" + event.toString(e, debug) + ")";
 	}
 	
+	/**
+	 * @return The slots of this trigger's local variables, or null if they don't have any
+	 */
+	@Nullable
+	public LocalVariableSlots getLocalVariableSlots() {
+		return localVariableSlots;
+	}
+	
+	/**
+	 * Sets the slots of this trigger's local variables if its items were parsed before it was created, i.e. if it couldn't get them from the {@link ParserInstance}.
+	 * 
+	 * @param localVariableSlots The slots that were current while the items were parsed
+	 */
+	public void setLocalVariableSlots(final @Nullable LocalVariableSlots localVariableSlots) {
+		this.localVariableSlots = localVariableSlots;
+	}
+	
 	/**
 	 * Gets name of this trigger.
 	 * @return Name of trigger.
@@ -83,24 +124,6 @@ public class Trigger extends TriggerSection {
 		return script;
 	}
 
-	/**
-	 * Sets line number for this trigger's start.
-	 * Only used for debugging.
-	 * @param line Line number
-	 */
-	public void setLineNumber(int line) {
-		this.line  = line;
-	}
-	
-	/**
-	 * Gets line number for this trigger's start.
-	 * Only use it for debugging!
-	 * @return Line number.
-	 */
-	public int getLineNumber() {
-		return line;
-	}
-	
 	public void setDebugLabel(String label) {
 		this.debugLabel = label;
 	}
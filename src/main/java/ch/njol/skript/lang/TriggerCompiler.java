@@ -0,0 +1,405 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.util.EmptyStacktraceException;
+
+/**
+ * Compiles triggers into a tree of steps that runs the trigger's items with plain Java control flow, instead of walking the linked list of trigger items one item at a time
+ * and finding the next item after every single one.
+ * <p>
+ * Effects and conditions are called directly, and conditionals, loops and while loops become Java conditionals and loops. Items that cannot be compiled (e.g. delays,
+ * returns, or sections and effects of addons that override {@link TriggerItem#walk(Event)}) hand the execution over to the interpreter, which then continues with that item
+ * and the rest of the trigger as usual. Loops keep their state where the interpreter expects it, so this can happen at any point of the trigger.
+ */
+public final class TriggerCompiler {
+	
+	private TriggerCompiler() {}
+	
+	private static boolean enabled = false;
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	public static void setEnabled(final boolean enabled) {
+		TriggerCompiler.enabled = enabled;
+	}
+	
+	/**
+	 * What to do after a step instead of continuing with the next step of the section.
+	 */
+	private final static class Result {
+		
+		/**
+		 * Skips the rest of the section the step is in, e.g. because a condition is not met.
+		 */
+		final static Result EXIT = new Result(null);
+		
+		/**
+		 * The item to continue the trigger with in the interpreter, or null for {@link #EXIT}
+		 */
+		@Nullable
+		final TriggerItem next;
+		
+		Result(final @Nullable TriggerItem next) {
+			this.next = next;
+		}
+		
+	}
+	
+	/**
+	 * A compiled trigger item.
+	 */
+	private static abstract class Step {
+		
+		/**
+		 * The item this step runs, which errors are reported for
+		 */
+		final TriggerItem item;
+		
+		Step(final TriggerItem item) {
+			this.item = item;
+		}
+		
+		/**
+		 * @param e
+		 * @return null to continue with the next step, {@link Result#EXIT} to stop executing the current section, or the result of an item to continue with in the
+		 *         interpreter
+		 */
+		@Nullable
+		abstract Result run(Event e);
+		
+	}
+	
+	/**
+	 * The items of a section.
+	 */
+	private final static class Block {
+		
+		private final Step[] steps;
+		
+		Block(final Step[] steps) {
+			this.steps = steps;
+		}
+		
+		/**
+		 * Runs the steps of the section. If a step throws an exception, it is reported for the step's item like the interpreter does, and the trigger is stopped.
+		 * 
+		 * @param e
+		 * @return null if the section is done, or the result of an item to continue with in the interpreter
+		 */
+		@Nullable
+		Result run(final Event e) {
+			for (final Step s : steps) {
+				final Result r;
+				try {
+					r = s.run(e);
+				} catch (final EmptyStacktraceException ex) { // already reported by a step of an inner section
+					throw ex;
+				} catch (final RuntimeException ex) {
+					throw Skript.exception(ex, s.item);
+				}
+				if (r != null)
+					return r == Result.EXIT ? null : r;
+			}
+			return null;
+		}
+		
+	}
+	
+	private final static class EffectStep extends Step {
+		
+		private final Effect effect;
+		
+		EffectStep(final Effect effect) {
+			super(effect);
+			this.effect = effect;
+		}
+		
+		@Override
+		@Nullable
+		Result run(final Event e) {
+			effect.execute(e);
+			effect.debug(e, true);
+			return null;
+		}
+		
+	}
+	
+	private final static class StatementStep extends Step {
+		
+		StatementStep(final TriggerItem item) {
+			super(item);
+		}
+		
+		@Override
+		@Nullable
+		Result run(final Event e) {
+			if (item.run(e)) {
+				item.debug(e, true);
+				return null;
+			}
+			item.debug(e, false);
+			return Result.EXIT;
+		}
+		
+	}
+	
+	private final static class InterpretedStep extends Step {
+		
+		private final Result result;
+		
+		InterpretedStep(final TriggerItem item) {
+			super(item);
+			result = new Result(item);
+		}
+		
+		@Override
+		@Nullable
+		Result run(final Event e) {
+			return result;
+		}
+		
+	}
+	
+	private final static class ConditionalStep extends Step {
+		
+		private final Conditional conditional;
+		private final Condition condition;
+		private final Block body;
+		@Nullable
+		private final Step elseClause;
+		
+		ConditionalStep(final Conditional conditional, final Block body, final @Nullable Step elseClause) {
+			super(conditional);
+			this.conditional = conditional;
+			condition = conditional.getCondition();
+			this.body = body;
+			this.elseClause = elseClause;
+		}
+		
+		@Override
+		@Nullable
+		Result run(final Event e) {
+			if (condition.run(e)) {
+				conditional.debug(e, true);
+				return body.run(e);
+			}
+			conditional.debug(e, false);
+			final Step elseClause = this.elseClause;
+			return elseClause == null ? null : elseClause.run(e);
+		}
+		
+	}
+	
+	private final static class SectionStep extends Step {
+		
+		private final Block body;
+		
+		SectionStep(final TriggerSection section, final Block body) {
+			super(section);
+			this.body = body;
+		}
+		
+		@Override
+		@Nullable
+		Result run(final Event e) {
+			item.debug(e, true);
+			return body.run(e);
+		}
+		
+	}
+	
+	private final static class LoopStep extends Step {
+		
+		private final Loop loop;
+		private final Block body;
+		
+		LoopStep(final Loop loop, final Block body) {
+			super(loop);
+			this.loop = loop;
+			this.body = body;
+		}
+		
+		@Override
+		@Nullable
+		Result run(final Event e) {
+			while (loop.next(e)) {
+				loop.debug(e, true);
+				final Result r = body.run(e);
+				if (r != null)
+					return r;
+			}
+			loop.debug(e, false);
+			return null;
+		}
+		
+	}
+	
+	private final static class WhileStep extends Step {
+		
+		private final While loop;
+		private final Condition condition;
+		private final Block body;
+		
+		WhileStep(final While loop, final Block body) {
+			super(loop);
+			this.loop = loop;
+			condition = loop.getCondition();
+			this.body = body;
+		}
+		
+		@Override
+		@Nullable
+		Result run(final Event e) {
+			while (condition.check(e)) {
+				loop.debug(e, true);
+				final Result r = body.run(e);
+				if (r != null)
+					return r;
+			}
+			loop.debug(e, false);
+			return null;
+		}
+		
+	}
+	
+	/**
+	 * A compiled trigger, which is executed instead of the trigger's items.
+	 */
+	final static class CompiledTrigger {
+		
+		private final Trigger trigger;
+		private final Block body;
+		
+		CompiledTrigger(final Trigger trigger, final Block body) {
+			this.trigger = trigger;
+			this.body = body;
+		}
+		
+		/**
+		 * Runs the trigger in the given frame, and continues it in the interpreter if one of its items cannot be compiled.
+		 * 
+		 * @param e
+		 * @param frame
+		 * @return false iff an exception occurred
+		 */
+		boolean execute(final Event e, final ExecutionFrame frame) {
+			final Result r;
+			final ExecutionFrame previous = ExecutionFrame.enter(frame);
+			try {
+				trigger.debug(e, true);
+				r = body.run(e);
+			} catch (final StackOverflowError err) {
+				TriggerItem.reportStackOverflow(trigger, err);
+				return false;
+			} catch (final EmptyStacktraceException ex) { // reported by the step that failed
+				return false;
+			} finally {
+				ExecutionFrame.exit(previous);
+			}
+			final TriggerItem next = r == null ? null : r.next;
+			return next == null || TriggerItem.walk(next, e, frame);
+		}
+		
+	}
+	
+	/**
+	 * Compiles the given trigger.
+	 *
+	 * @param trigger
+	 * @return The compiled trigger to execute instead of the trigger's items, or null if compiling the trigger would not be of any use
+	 */
+	@Nullable
+	static CompiledTrigger compile(final Trigger trigger) {
+		final Block body = compileSection(trigger);
+		if (body.steps.length == 0 || body.steps[0] instanceof InterpretedStep)
+			return null;
+		return new CompiledTrigger(trigger, body);
+	}
+	
+	private static Block compileSection(final TriggerSection section) {
+		final List<Step> steps = new ArrayList<>();
+		final TriggerItem last = section.getLastItem();
+		TriggerItem i = section.getFirstItem();
+		while (i != null) {
+			final Step s = compileItem(i);
+			steps.add(s);
+			if (i == last || s instanceof InterpretedStep) // the interpreter runs everything after an interpreted item
+				break;
+			i = i instanceof Loop ? ((Loop) i).getActualNext() : i instanceof While ? ((While) i).getActualNext() : i.getNext();
+		}
+		return new Block(steps.toArray(new Step[steps.size()]));
+	}
+	
+	private static Step compileItem(final TriggerItem i) {
+		final Class<?> c = i.getClass();
+		if (c == Conditional.class)
+			return compileConditional((Conditional) i);
+		if (c == Loop.class)
+			return new LoopStep((Loop) i, compileSection((Loop) i));
+		if (c == While.class)
+			return new WhileStep((While) i, compileSection((While) i));
+		if (c == ScriptOptimizer.Branch.class)
+			return new SectionStep((TriggerSection) i, compileSection((TriggerSection) i));
+		if (i instanceof TriggerSection || overridesWalk(c))
+			return new InterpretedStep(i);
+		if (i instanceof Effect)
+			return new EffectStep((Effect) i);
+		return new StatementStep(i);
+	}
+	
+	private static Step compileConditional(final Conditional conditional) {
+		final Conditional elseIf = conditional.getElseIf();
+		final TriggerSection elseSection = conditional.getElseSection();
+		final Step elseStep;
+		if (elseIf != null)
+			elseStep = compileConditional(elseIf);
+		else if (elseSection != null)
+			elseStep = new SectionStep(elseSection, compileSection(elseSection));
+		else
+			elseStep = null;
+		return new ConditionalStep(conditional, compileSection(conditional), elseStep);
+	}
+	
+	/**
+	 * @param c
+	 * @return Whether the given class or one of its superclasses below {@link TriggerItem} overrides {@link TriggerItem#walk(Event)}, and thus cannot be run with
+	 *         {@link TriggerItem#run(Event)}
+	 */
+	private static boolean overridesWalk(final Class<?> c) {
+		for (Class<?> k = c; k != null && k != TriggerItem.class; k = k.getSuperclass()) {
+			try {
+				k.getDeclaredMethod("walk", Event.class);
+				return true;
+			} catch (final NoSuchMethodException e) {}
+		}
+		return false;
+	}
+	
+}
@@ -25,6 +25,7 @@ import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
 import ch.njol.skript.Skript;
+import ch.njol.skript.timings.SkriptProfiler;
 import ch.njol.util.StringUtils;
 
 /**
@@ -42,6 +43,8 @@ public abstract class TriggerItem implements Debuggable {
 	@Nullable
 	private TriggerItem next = null;
 	
+	private int line = -1; // -1 is default: it means there is no line number available
+	
 	protected TriggerItem() {}
 	
 	protected TriggerItem(final TriggerSection parent) {
@@ -77,31 +80,76 @@ public abstract class TriggerItem implements Debuggable {
 	protected abstract boolean run(Event e);
 	
 	/**
+	 * Runs the given item and all following items in the execution frame of the given event, i.e. the one that is currently running on this thread or has been
+	 * delayed, or in a new one if there is none.
+	 * 
 	 * @param start
 	 * @param e
 	 * @return false iff an exception occurred
 	 */
 	public final static boolean walk(final TriggerItem start, final Event e) {
+		ExecutionFrame frame = ExecutionFrame.get(e);
+		if (frame == null) {
+			final Trigger t = start.getTrigger();
+			frame = ExecutionFrame.resumeSuspended(e, t);
+			if (frame == null)
+				frame = new ExecutionFrame(e, t == null ? null : t.getLocalVariableSlots());
+		}
+		return walk(start, e, frame);
+	}
+	
+	/**
+	 * @param start
+	 * @param e
+	 * @param frame The frame to run the items in
+	 * @return false iff an exception occurred
+	 */
+	public final static boolean walk(final TriggerItem start, final Event e, final ExecutionFrame frame) {
 		assert start != null && e != null;
 		TriggerItem i = start;
+		frame.resume();
+		final ExecutionFrame previous = ExecutionFrame.enter(frame);
 		try {
-			while (i != null)
-				i = i.walk(e);
+			if (SkriptProfiler.isRunning()) {
+				while (i != null) {
+					SkriptProfiler.start(i);
+					try {
+						i = i.walk(e);
+					} finally {
+						SkriptProfiler.stop();
+					}
+				}
+			} else {
+				while (i != null)
+					i = i.walk(e);
+			}
 			
 			return true;
 		} catch (final StackOverflowError err) {
-			final Trigger t = start.getTrigger();
-			final File sc = t == null ? null : t.getScript();
-			Skript.adminBroadcast("<red>The script '<gold>" + (sc == null ? "<unknown>" : sc.getName()) + "<red>' infinitely (or excessively) repeated itself!");
-			if (Skript.debug())
-				err.printStackTrace();
+			reportStackOverflow(start, err);
 		} catch (final Exception ex) {
 			if (ex.getStackTrace().length != 0) // empty exceptions have already been printed
 				Skript.exception(ex, i);
+		} finally {
+			ExecutionFrame.exit(previous);
 		}
 		return false;
 	}
 	
+	/**
+	 * Tells the admins that the script of the given item repeated itself too often.
+	 * 
+	 * @param item The item whose execution overflowed the stack
+	 * @param err
+	 */
+	static void reportStackOverflow(final TriggerItem item, final StackOverflowError err) {
+		final Trigger t = item.getTrigger();
+		final File sc = t == null ? null : t.getScript();
+		Skript.adminBroadcast("<red>The script '<gold>" + (sc == null ? "<unknown>" : sc.getName()) + "<red>' infinitely (or excessively) repeated itself!");
+		if (Skript.debug())
+			err.printStackTrace();
+	}
+	
 	/**
 	 * how much to indent each level
 	 */
@@ -166,4 +214,20 @@ public abstract class TriggerItem implements Debuggable {
 		return next;
 	}
 	
+	/**
+	 * Sets the line of the script this item starts at.
+	 * @param line Line number
+	 */
+	public void setLineNumber(final int line) {
+		this.line = line;
+	}
+	
+	/**
+	 * Gets the line of the script this item starts at, e.g. for debugging or profiling.
+	 * @return Line number, or -1 if it is not known.
+	 */
+	public int getLineNumber() {
+		return line;
+	}
+	
 }
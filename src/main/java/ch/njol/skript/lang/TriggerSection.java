@@ -49,11 +49,12 @@ public abstract class TriggerSection extends TriggerItem {
 	}
 	
 	protected TriggerSection(final SectionNode node) {
-		ScriptLoader.currentSections.add(this);
+		setLineNumber(node.getLine());
+		ScriptLoader.getCurrentSections().add(this);
 		try {
 			setTriggerItems(ScriptLoader.loadItems(node));
 		} finally {
-			ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+			ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
 		}
 	}
 	
@@ -66,9 +67,9 @@ public abstract class TriggerSection extends TriggerItem {
 	 * Remember to add this section to {@link ScriptLoader#currentSections} before parsing child elements!
 	 * 
 	 * <pre>
-	 * ScriptLoader.currentSections.add(this);
+	 * ScriptLoader.getCurrentSections().add(this);
 	 * setTriggerItems(ScriptLoader.loadItems(node));
-	 * ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+	 * ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
 	 * </pre>
 	 * 
 	 * @param items
@@ -84,6 +85,16 @@ public abstract class TriggerSection extends TriggerItem {
 		}
 	}
 	
+	@Nullable
+	TriggerItem getFirstItem() {
+		return first;
+	}
+	
+	@Nullable
+	TriggerItem getLastItem() {
+		return last;
+	}
+	
 	@Override
 	public TriggerSection setNext(final @Nullable TriggerItem next) {
 		super.setNext(next);
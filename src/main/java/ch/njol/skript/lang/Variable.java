@@ -48,6 +48,7 @@ import ch.njol.skript.classes.Changer.ChangerUtils;
 import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.classes.Comparator.Relation;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.registrations.Comparators;
@@ -84,6 +85,25 @@ public class Variable<T> implements Expression<T> {
 	@Nullable
 	private final Variable<?> source;
 	
+	/**
+	 * The lowercased name of this variable if it doesn't contain any expressions, i.e. the name is built and lowercased only once when the variable is parsed.
+	 */
+	@Nullable
+	private final String simpleName;
+	
+	/**
+	 * The lowercased name of the default variable of this variable, computed on first use
+	 */
+	@Nullable
+	private String defaultName;
+	
+	/**
+	 * The slots of the trigger this local variable is in, if it has a {@link #slot}
+	 */
+	@Nullable
+	private final LocalVariableSlots slots;
+	private final int slot;
+	
 	@SuppressWarnings("unchecked")
 	private Variable(final VariableString name, final Class<? extends T>[] types, final boolean local, final boolean list, final @Nullable Variable<?> source) {
 		assert name != null;
@@ -100,6 +120,18 @@ public class Variable<T> implements Expression<T> {
 		this.superType = (Class<T>) Utils.getSuperType(types);
 		
 		this.source = source;
+		
+		final String simpleName = this.simpleName = name.isSimple() ? name.getDefaultVariableName().toLowerCase(Locale.ENGLISH) : null;
+		
+		if (source != null) {
+			slots = source.slots;
+			slot = source.slot;
+		} else {
+			final LocalVariableSlots slots = local && !list && simpleName != null ? ParserInstance.get().getLocalVariableSlots() : null;
+			final int slot = slots == null || simpleName == null ? -1 : slots.getSlot(simpleName);
+			this.slots = slot == -1 ? null : slots;
+			this.slot = slot;
+		}
 	}
 	
 	/**
@@ -194,20 +226,61 @@ public class Variable<T> implements Expression<T> {
 		return new Variable<>(name, to, local, list, this);
 	}
 	
+	/**
+	 * @return The lowercased name of this variable for the given event
+	 */
+	private String getName(final Event e) {
+		final String simpleName = this.simpleName;
+		if (simpleName != null)
+			return simpleName;
+		return "" + name.toString(e).toLowerCase(Locale.ENGLISH);
+	}
+	
+	/**
+	 * @return The lowercased name of this list variable for the given event without the trailing '*', i.e. the prefix of all of the list's elements.
+	 */
+	private String getListPrefix(final Event e) {
+		return "" + StringUtils.substring(getName(e), 0, -1);
+	}
+	
 	/**
 	 * Gets the value of this variable as stored in the variables map.
 	 */
 	@Nullable
 	private Object getRaw(final Event e) {
-		final String n = name.toString(e).toLowerCase(Locale.ENGLISH);
+		final String n = getName(e);
 		if (n.endsWith(Variable.SEPARATOR + "*") != list) // prevents e.g. {%expr%} where "%expr%" ends with "::*" from returning a Map
 			return null;
-		final Object val = !list ? convertIfOldPlayer(n, e, Variables.getVariable(n, e, local)) : Variables.getVariable(n, e, local);
-		if (val == null)
-			return Variables.getVariable((local ? LOCAL_VARIABLE_TOKEN : "") + name.getDefaultVariableName().toLowerCase(Locale.ENGLISH), e, false);
+		final Object val = !list ? convertIfOldPlayer(n, e, getValue(n, e)) : Variables.getVariable(n, e, local);
+		if (val == null) {
+			String defaultName = this.defaultName;
+			if (defaultName == null)
+				this.defaultName = defaultName = (local ? LOCAL_VARIABLE_TOKEN : "") + name.getDefaultVariableName().toLowerCase(Locale.ENGLISH);
+			return Variables.getVariable(defaultName, e, false);
+		}
 		return val;
 	}
 	
+	/**
+	 * @return The frame to use this variable's slot in, or null if the variable has to be accessed by its name
+	 */
+	@Nullable
+	private ExecutionFrame getSlotFrame(final Event e) {
+		final LocalVariableSlots slots = this.slots;
+		if (slots == null)
+			return null;
+		final ExecutionFrame frame = ExecutionFrame.get(e);
+		return frame != null && frame.getLocalVariableSlots() == slots ? frame : null;
+	}
+	
+	@Nullable
+	private Object getValue(final String name, final Event e) {
+		final ExecutionFrame frame = getSlotFrame(e);
+		if (frame != null)
+			return frame.getLocalVariable(slot);
+		return Variables.getVariable(name, e, local);
+	}
+	
 	@SuppressWarnings("unchecked")
 	@Nullable
 	private Object get(final Event e) {
@@ -217,7 +290,7 @@ public class Variable<T> implements Expression<T> {
 		if (val == null)
 			return Array.newInstance(types[0], 0);
 		final List<Object> l = new ArrayList<>();
-		final String name = StringUtils.substring(this.name.toString(e), 0, -1).toLowerCase(Locale.ENGLISH);
+		final String name = getListPrefix(e);
 		for (final Entry<String, ?> v : ((Map<String, ?>) val).entrySet()) {
 			if (v.getKey() != null && v.getValue() != null) {
 				Object o;
@@ -254,7 +327,7 @@ public class Variable<T> implements Expression<T> {
 	public Iterator<Pair<String, Object>> variablesIterator(final Event e) {
 		if (!list)
 			throw new SkriptAPIException("Looping a non-list variable");
-		final String name = StringUtils.substring(this.name.toString(e), 0, -1).toLowerCase(Locale.ENGLISH);
+		final String name = getListPrefix(e);
 		final Object val = Variables.getVariable(name + "*", e, local);
 		if (val == null)
 			return new EmptyIterator<>();
@@ -304,7 +377,7 @@ public class Variable<T> implements Expression<T> {
 	public Iterator<T> iterator(final Event e) {
 		if (!list)
 			throw new SkriptAPIException("");
-		final String name = StringUtils.substring(this.name.toString(e), 0, -1).toLowerCase(Locale.ENGLISH);
+		final String name = getListPrefix(e);
 		final Object val = Variables.getVariable(name + "*", e, local);
 		if (val == null)
 			return new EmptyIterator<>();
@@ -365,12 +438,16 @@ public class Variable<T> implements Expression<T> {
 	}
 	
 	private final void set(final Event e, final @Nullable Object value) {
-		Variables.setVariable("" + name.toString(e).toLowerCase(Locale.ENGLISH), value, e, local);
+		final ExecutionFrame frame = getSlotFrame(e);
+		if (frame != null)
+			Variables.setLocalVariable(frame, slot, value);
+		else
+			Variables.setVariable(getName(e), value, e, local);
 	}
 	
 	private final void setIndex(final Event e, final String index, final @Nullable Object value) {
 		assert list;
-		final String s = name.toString(e).toLowerCase(Locale.ENGLISH);
+		final String s = getName(e);
 		assert s.endsWith("::*") : s + "; " + name;
 		Variables.setVariable(s.substring(0, s.length() - 1) + index.toLowerCase(Locale.ENGLISH), value, e, local);
 	}
@@ -21,11 +21,11 @@ package ch.njol.skript.lang;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.bukkit.ChatColor;
@@ -144,7 +144,7 @@ public class VariableString implements Expression<String> {
 		return newInstance(s, StringMode.MESSAGE);
 	}
 	
-	public final static Map<String, Pattern> variableNames = new HashMap<>();
+	public final static Map<String, Pattern> variableNames = new ConcurrentHashMap<>();
 	
 	/**
 	 * Tests whether a string is correctly quoted, i.e. only has doubled double quotes in it.
@@ -308,7 +308,7 @@ public class VariableString implements Expression<String> {
 		if (mode != StringMode.VARIABLE_NAME || variableNames.containsKey(name))
 			return;
 		if (name.startsWith("%")) {// inside the if to only print this message once per variable
-			final Config script = ScriptLoader.currentScript;
+			final Config script = ScriptLoader.getCurrentScript();
 			if (script != null)
 				Skript.warning("Starting a variable's name with an expression is discouraged ({" + name + "}). You could prefix it with the script's name: {" + StringUtils.substring(script.getFileName(), 0, -3) + "." + name + "}");
 		}
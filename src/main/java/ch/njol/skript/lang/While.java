@@ -53,6 +53,10 @@ public class While extends TriggerSection {
 		}
 	}
 	
+	Condition getCondition() {
+		return c;
+	}
+	
 	@Nullable
 	private TriggerItem actualNext;
 	
@@ -69,6 +69,11 @@ public class FunctionReference<T> {
 		parameters = params;
 	}
 	
+	@Nullable
+	Node getNode() {
+		return node;
+	}
+	
 	@SuppressWarnings("unchecked")
 	public boolean validateFunction(final boolean first) {
 		Skript.debug("Validating function " + functionName);
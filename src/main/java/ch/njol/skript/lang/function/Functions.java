@@ -27,6 +27,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -37,10 +38,12 @@ import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptAPIException;
 import ch.njol.skript.SkriptAddon;
 import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.config.Node;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.lang.ParseContext;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.log.ParseLogHandler;
 import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.registrations.Classes;
@@ -62,6 +65,23 @@ public abstract class Functions {
 		}
 	}
 	
+	/**
+	 * @return The function that is currently being parsed by this thread, or null if no function is being parsed
+	 */
+	@Nullable
+	public static ScriptFunction<?> getCurrentFunction() {
+		return ParserInstance.get().getCurrentFunction();
+	}
+	
+	public static void setCurrentFunction(final @Nullable ScriptFunction<?> function) {
+		ParserInstance.get().setCurrentFunction(function);
+	}
+	
+	/**
+	 * @deprecated Use {@link #getCurrentFunction()}. This field is set whenever any thread starts parsing another function, thus it is only correct if scripts are parsed by
+	 *             one thread. Assigning it has no effect.
+	 */
+	@Deprecated
 	@Nullable
 	public static ScriptFunction<?> currentFunction = null;
 	
@@ -96,7 +116,9 @@ public abstract class Functions {
 	final static void registerCaller(final FunctionReference<?> r) {
 		final Signature<?> sign = signatures.get(r.functionName);
 		assert sign != null;
-		sign.calls.add(r);
+		synchronized (sign.calls) { // scripts may be parsed in parallel
+			sign.calls.add(r);
+		}
 	}
 	
 	public final static String functionNamePattern = "[\\p{IsAlphabetic}][\\p{IsAlphabetic}\\p{IsDigit}_]*";
@@ -261,6 +283,14 @@ public abstract class Functions {
 		return signatures.get(name);
 	}
 	
+	/**
+	 * @return The signatures of all functions, including Java functions
+	 */
+	@SuppressWarnings("null")
+	public final static Collection<Signature<?>> getSignatures() {
+		return Collections.unmodifiableCollection(signatures.values());
+	}
+	
 	private final static Collection<FunctionReference<?>> toValidate = new ArrayList<>();
 	
 	/**
@@ -299,6 +329,59 @@ public abstract class Functions {
 		return r;
 	}
 	
+	/**
+	 * Forgets all function calls in the given top-level sections of a script, as these sections are about to be unloaded.
+	 * 
+	 * @param script The script
+	 * @param sections Top-level sections of the script
+	 */
+	public final static void clearCalls(final File script, final Set<? extends Node> sections) {
+		for (final Signature<?> sign : signatures.values()) {
+			synchronized (sign.calls) {
+				final Iterator<FunctionReference<?>> it = sign.calls.iterator();
+				while (it.hasNext()) {
+					final FunctionReference<?> c = it.next();
+					if (!script.equals(c.script))
+						continue;
+					Node n = c.getNode();
+					while (n != null && !sections.contains(n))
+						n = n.getParent();
+					if (n != null)
+						it.remove();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Removes the signature of a single function of a script that is being reloaded. All remaining calls of the function will be validated again by the next call to
+	 * {@link #validateFunctions()}, i.e. after the function's new signature has been loaded (if it still exists).
+	 * 
+	 * @param name The function's name
+	 */
+	public final static void unloadSignature(final String name) {
+		if (javaSignatures.containsKey(name))
+			return;
+		final Signature<?> sign = signatures.remove(name);
+		if (sign == null)
+			return;
+		synchronized (sign.calls) {
+			toValidate.addAll(sign.calls);
+			sign.calls.clear();
+		}
+	}
+	
+	/**
+	 * Removes a single function of a script that is being reloaded, unless it has already been replaced by a new function with the same name.
+	 * 
+	 * @param function The function to remove
+	 */
+	public final static void removeFunction(final Function<?> function) {
+		final FunctionData d = functions.get(function.name);
+		if (d != null && d.function == function)
+			functions.remove(function.name);
+	}
+	
 	public final static void validateFunctions() {
 		for (final FunctionReference<?> c : toValidate)
 			c.validateFunction(false);
@@ -26,7 +26,10 @@ import ch.njol.skript.Skript;
 import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.effects.EffReturn;
+import ch.njol.skript.lang.ExecutionFrame;
+import ch.njol.skript.lang.LocalVariableSlots;
 import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.lang.function.Functions.FunctionData;
 import ch.njol.skript.lang.util.SimpleEvent;
 import ch.njol.skript.variables.Variables;
@@ -40,6 +43,11 @@ public class ScriptFunction<T> extends Function<T> {
 	@Nullable
 	final Trigger trigger;
 	
+	/**
+	 * The {@link LocalVariableSlots slots} of the parameters in the trigger's frames, or -1 for parameters that are set by name
+	 */
+	private final int[] parameterSlots;
+	
 	@SuppressFBWarnings("ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD")
 	public ScriptFunction(final String name, final Parameter<?>[] parameters, final SectionNode node, @Nullable final ClassInfo<T> returnType, final boolean single) {
 		super(name, parameters, returnType, single);
@@ -47,11 +55,16 @@ public class ScriptFunction<T> extends Function<T> {
 		// here to allow recursion
 		Functions.functions.put(name, new FunctionData(this));
 		
-		Functions.currentFunction = this;
+		final LocalVariableSlots slots = ParserInstance.get().getLocalVariableSlots();
+		parameterSlots = new int[parameters.length];
+		for (int i = 0; i < parameters.length; i++)
+			parameterSlots[i] = slots != null && parameters[i].single ? slots.getSlot(parameters[i].name) : -1;
+		
+		Functions.setCurrentFunction(this);
 		try {
 			trigger = new Trigger(node.getConfig().getFile(), "function " + name, new SimpleEvent(), ScriptLoader.loadItems(node));
 		} finally {
-			Functions.currentFunction = null;
+			Functions.setCurrentFunction(null);
 		}
 	}
 	
@@ -76,23 +89,33 @@ public class ScriptFunction<T> extends Function<T> {
 	@Override
 	@Nullable
 	public T[] execute(final FunctionEvent e, final Object[][] params) {
+		final Trigger trigger = this.trigger;
 		if (trigger == null)
 			throw new IllegalStateException("trigger for function is not available");
 		
+		final ExecutionFrame frame = new ExecutionFrame(e, trigger.getLocalVariableSlots());
 		for (int i = 0; i < parameters.length; i++) {
 			final Parameter<?> p = parameters[i];
 			final Object[] val = params[i];
-			if (p.single) {
-				Variables.setVariable(p.name, val[0], e, true);
-			} else {
-				for (int j = 0; j < val.length; j++) {
-					Variables.setVariable(p.name + "::" + (j + 1), val[j], e, true);
+			if (parameterSlots[i] != -1) {
+				Variables.setLocalVariable(frame, parameterSlots[i], val[0]);
+				continue;
+			}
+			final ExecutionFrame previous = ExecutionFrame.enter(frame);
+			try {
+				if (p.single) {
+					Variables.setVariable(p.name, val[0], e, true);
+				} else {
+					for (int j = 0; j < val.length; j++) {
+						Variables.setVariable(p.name + "::" + (j + 1), val[j], e, true);
+					}
 				}
+			} finally {
+				ExecutionFrame.exit(previous);
 			}
 		}
 		
-		assert trigger != null;
-		trigger.execute(e);
+		trigger.execute(e, frame);
 		returnValueSet = false;
 		return returnValue;
 	}
@@ -27,7 +27,9 @@ import java.util.List;
 import org.eclipse.jdt.annotation.Nullable;
 
 import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.util.Utils;
 import ch.njol.util.NonNullPair;
+import ch.njol.util.StringUtils;
 
 /**
  * Function signature: name, parameter types and a return type.
@@ -95,4 +97,10 @@ public class Signature<T> {
 	public int hashCode() {
 		return name.hashCode();
 	}
+	
+	@Override
+	public String toString() {
+		final ClassInfo<T> returnType = this.returnType;
+		return name + "(" + StringUtils.join(parameters, ", ") + ")" + (returnType == null ? "" : " :: " + Utils.toEnglishPlural(returnType.getCodeName(), !single));
+	}
 }
@@ -19,72 +19,190 @@
  */
 package ch.njol.skript.lang.parser;
 
-import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.logging.Level;
-import java.util.regex.Matcher;
 
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
 import ch.njol.skript.ScriptLoader;
-import ch.njol.skript.Skript;
-import ch.njol.skript.SkriptCommand;
-import ch.njol.skript.SkriptEventHandler;
-import ch.njol.skript.aliases.Aliases;
 import ch.njol.skript.aliases.ItemType;
-import ch.njol.skript.classes.ClassInfo;
-import ch.njol.skript.command.CommandEvent;
+import ch.njol.skript.command.Argument;
 import ch.njol.skript.command.Commands;
-import ch.njol.skript.command.ScriptCommand;
 import ch.njol.skript.config.Config;
-import ch.njol.skript.config.EntryNode;
-import ch.njol.skript.config.Node;
-import ch.njol.skript.config.SectionNode;
-import ch.njol.skript.config.SimpleNode;
-import ch.njol.skript.effects.Delay;
-import ch.njol.skript.lang.Condition;
-import ch.njol.skript.lang.Conditional;
-import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.LocalVariableSlots;
 import ch.njol.skript.lang.Loop;
-import ch.njol.skript.lang.ParseContext;
-import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
-import ch.njol.skript.lang.SkriptEvent;
-import ch.njol.skript.lang.SkriptEventInfo;
-import ch.njol.skript.lang.SkriptParser;
-import ch.njol.skript.lang.Statement;
-import ch.njol.skript.lang.Trigger;
-import ch.njol.skript.lang.TriggerItem;
 import ch.njol.skript.lang.TriggerSection;
-import ch.njol.skript.lang.While;
-import ch.njol.skript.lang.function.Function;
-import ch.njol.skript.lang.function.FunctionEvent;
 import ch.njol.skript.lang.function.Functions;
 import ch.njol.skript.lang.function.ScriptFunction;
-import ch.njol.skript.log.ErrorQuality;
-import ch.njol.skript.log.LogEntry;
-import ch.njol.skript.log.LogHandler;
-import ch.njol.skript.log.ParseLogHandler;
-import ch.njol.skript.log.RetainingLogHandler;
-import ch.njol.skript.log.SkriptLogger;
-import ch.njol.skript.registrations.Classes;
-import ch.njol.skript.registrations.Converters;
-import ch.njol.skript.variables.Variables;
-import ch.njol.util.Callback;
 import ch.njol.util.Kleenean;
-import ch.njol.util.NonNullPair;
-import ch.njol.util.StringUtils;
-import ch.njol.util.coll.CollectionUtils;
 
 /**
  * Instance of Skript parser. Runs asynchronously.
+ * <p>
+ * Holds everything that describes where the parser currently is, e.g. the script, event and sections that are being parsed. Every thread has its own instance, which allows
+ * to parse multiple scripts at once. Syntax elements should not use this class directly, but the respective methods of {@link ScriptLoader}.
  */
 public class ParserInstance {
 	
+	@SuppressWarnings("null")
+	private final static ThreadLocal<ParserInstance> instances = ThreadLocal.withInitial(ParserInstance::new);
+	
+	/**
+	 * @return The parser instance of the current thread
+	 */
+	@SuppressWarnings("null")
+	public static ParserInstance get() {
+		return instances.get();
+	}
+	
+	@Nullable
+	private Config currentScript = null;
+	
+	@Nullable
+	private String currentEventName = null;
+	@Nullable
+	private Class<? extends Event>[] currentEvents = null;
+	
+	private final List<TriggerSection> currentSections = new ArrayList<>();
+	private final List<Loop> currentLoops = new ArrayList<>();
+	private final Map<String, ItemType> currentAliases = new HashMap<>();
+	private final Map<String, String> currentOptions = new HashMap<>();
+	
+	private Kleenean hasDelayBefore = Kleenean.FALSE;
+	
+	private int loopSlots = 0;
+	@Nullable
+	private LocalVariableSlots localVariableSlots = null;
+	
+	private String indentation = "";
+	
+	@Nullable
+	private ScriptFunction<?> currentFunction = null;
+	@Nullable
+	private List<Argument<?>> currentArguments = null;
+	
+	@Nullable
+	private ScriptCache.Entry scriptCache = null;
+	
+	@Nullable
+	public Config getCurrentScript() {
+		return currentScript;
+	}
+	
+	@SuppressWarnings("deprecation")
+	public void setCurrentScript(final @Nullable Config currentScript) {
+		this.currentScript = currentScript;
+		ScriptLoader.currentScript = currentScript;
+	}
+	
+	@Nullable
+	public String getCurrentEventName() {
+		return currentEventName;
+	}
+	
+	@Nullable
+	public Class<? extends Event>[] getCurrentEvents() {
+		return currentEvents;
+	}
+	
+	/**
+	 * Sets the current event and resets {@link #getHasDelayBefore() hasDelayBefore}, the loop slots and the {@link #getLocalVariableSlots() local variable slots}.
+	 * 
+	 * @param name The event's name, or null if no event is being parsed
+	 * @param events The event's classes
+	 */
+	public void setCurrentEvent(final @Nullable String name, final @Nullable Class<? extends Event>[] events) {
+		currentEventName = name;
+		currentEvents = events;
+		setHasDelayBefore(Kleenean.FALSE);
+		loopSlots = 0;
+		localVariableSlots = name == null ? null : new LocalVariableSlots();
+	}
+	
+	/**
+	 * @return The slots of the local variables of the trigger currently being parsed, or null if no event is being parsed
+	 */
+	@Nullable
+	public LocalVariableSlots getLocalVariableSlots() {
+		return localVariableSlots;
+	}
+	
+	/**
+	 * @return The next free slot for a loop's state in the {@link ch.njol.skript.lang.ExecutionFrame frame} of the trigger currently being parsed
+	 */
+	public int nextLoopSlot() {
+		return loopSlots++;
+	}
+	
+	public List<TriggerSection> getCurrentSections() {
+		return currentSections;
+	}
+	
+	public List<Loop> getCurrentLoops() {
+		return currentLoops;
+	}
+	
+	public Map<String, ItemType> getCurrentAliases() {
+		return currentAliases;
+	}
+	
+	public Map<String, String> getCurrentOptions() {
+		return currentOptions;
+	}
+	
+	public Kleenean getHasDelayBefore() {
+		return hasDelayBefore;
+	}
+	
+	@SuppressWarnings("deprecation")
+	public void setHasDelayBefore(final Kleenean hasDelayBefore) {
+		this.hasDelayBefore = hasDelayBefore;
+		ScriptLoader.hasDelayBefore = hasDelayBefore;
+	}
+	
+	public String getIndentation() {
+		return indentation;
+	}
+	
+	public void setIndentation(final String indentation) {
+		this.indentation = indentation;
+	}
+	
+	@Nullable
+	public ScriptFunction<?> getCurrentFunction() {
+		return currentFunction;
+	}
+	
+	@SuppressWarnings("deprecation")
+	public void setCurrentFunction(final @Nullable ScriptFunction<?> currentFunction) {
+		this.currentFunction = currentFunction;
+		Functions.currentFunction = currentFunction;
+	}
+	
+	@Nullable
+	public List<Argument<?>> getCurrentArguments() {
+		return currentArguments;
+	}
+	
+	@SuppressWarnings("deprecation")
+	public void setCurrentArguments(final @Nullable List<Argument<?>> currentArguments) {
+		this.currentArguments = currentArguments;
+		Commands.currentArguments = currentArguments;
+	}
+	
+	/**
+	 * @return The cache entry of the script that is currently being parsed, or null if it is not cached
+	 */
+	@Nullable
+	public ScriptCache.Entry getScriptCache() {
+		return scriptCache;
+	}
+	
+	public void setScriptCache(final @Nullable ScriptCache.Entry scriptCache) {
+		this.scriptCache = scriptCache;
+	}
+	
 }
@@ -0,0 +1,339 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Bukkit;
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.SkriptAddon;
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.config.Config;
+import ch.njol.skript.lang.ExpressionInfo;
+import ch.njol.skript.lang.SkriptEventInfo;
+import ch.njol.skript.lang.SyntaxElementInfo;
+import ch.njol.skript.lang.function.Functions;
+import ch.njol.skript.lang.function.Signature;
+import ch.njol.skript.localization.Language;
+import ch.njol.skript.registrations.Classes;
+
+/**
+ * Remembers which syntax element and pattern matched each part of each script, so that loading an unchanged script again doesn't have to try all the syntax elements
+ * that didn't match the last time.
+ * <p>
+ * The syntax elements themselves are still created and initialised as usual, as they cannot be stored in general. Every script has its own {@link Entry}, which is only
+ * used if neither the script's file nor the {@link #getFingerprint() fingerprint} of everything else that can change how a script is parsed (i.e. the server version, the
+ * registered syntax elements and classes, the installed addons, the configuration and aliases, and the signatures of all functions) changed since it was created.
+ */
+public final class ScriptCache {
+	
+	private ScriptCache() {}
+	
+	/**
+	 * Increase this if the format of the cache file changes
+	 */
+	private final static int VERSION = 1;
+	
+	/**
+	 * Lines longer than this are not cached, as they could not be stored in the cache file
+	 */
+	private final static int MAX_LENGTH = 10000;
+	
+	/**
+	 * The syntax element that matched a part of a script, and the index of the pattern that matched.
+	 */
+	public final static class Hint {
+		
+		public final String element;
+		public final int pattern;
+		
+		public Hint(final String element, final int pattern) {
+			this.element = element;
+			this.pattern = pattern;
+		}
+		
+	}
+	
+	/**
+	 * The hints for a single script. Only used by the thread that is parsing the script.
+	 */
+	public final static class Entry {
+		
+		final String fileHash;
+		final String fingerprint;
+		final Map<String, Hint> hints = new HashMap<>();
+		
+		Entry(final String fileHash, final String fingerprint) {
+			this.fileHash = fileHash;
+			this.fingerprint = fingerprint;
+		}
+		
+		/**
+		 * @param line The line of the text in the script
+		 * @param kind What the text is parsed as, e.g. an effect or an expression of some type
+		 * @param expr The text
+		 * @return The key to use for {@link #getHint(String)} and {@link #setHint(String, Hint)}, or null if the text should not be cached
+		 */
+		@Nullable
+		public static String getKey(final int line, final String kind, final String expr) {
+			if (expr.length() > MAX_LENGTH)
+				return null;
+			return line + " " + kind + " " + expr;
+		}
+		
+		@Nullable
+		public Hint getHint(final String key) {
+			return hints.get(key);
+		}
+		
+		public void setHint(final String key, final Hint hint) {
+			hints.put(key, hint);
+		}
+		
+	}
+	
+	private static volatile boolean enabled = false;
+	private static volatile boolean loaded = false;
+	
+	/**
+	 * Entries by the path of the script's file
+	 */
+	private final static Map<String, Entry> entries = new ConcurrentHashMap<>();
+	
+	@Nullable
+	private static String registryFingerprint = null;
+	static volatile String fingerprint = "";
+	
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	public static void setEnabled(final boolean enabled) {
+		ScriptCache.enabled = enabled;
+		if (!enabled)
+			entries.clear();
+	}
+	
+	private static File getFile() {
+		return new File(Skript.getInstance().getDataFolder(), "scripts.cache");
+	}
+	
+	/**
+	 * Called before scripts are parsed. Loads the cache file if it hasn't been loaded yet, and updates the fingerprint to the currently registered functions.
+	 */
+	public static synchronized void startLoading() {
+		if (!enabled)
+			return;
+		if (!loaded) {
+			loaded = true;
+			load(getFile());
+		}
+		String r = registryFingerprint;
+		if (r == null)
+			registryFingerprint = r = getRegistryFingerprint();
+		final StringBuilder b = new StringBuilder(r);
+		final List<String> signatures = new ArrayList<>();
+		for (final Signature<?> s : Functions.getSignatures())
+			signatures.add(s.toString());
+		Collections.sort(signatures);
+		for (final String s : signatures)
+			b.append(s).append('\n');
+		fingerprint = hash(b.toString().getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * @return The fingerprint of everything but the script itself that can change how a script is parsed. Only valid after {@link #startLoading()} has been called.
+	 */
+	public static String getFingerprint() {
+		return fingerprint;
+	}
+	
+	/**
+	 * Gets the entry of the given script, or creates a new one if it doesn't have a valid one.
+	 *
+	 * @param config The script
+	 * @return The script's entry, or null if caching is disabled or the script's file cannot be read
+	 */
+	@Nullable
+	public static Entry getEntry(final Config config) {
+		final File f = config.getFile();
+		if (!enabled || f == null)
+			return null;
+		final String fileHash;
+		try {
+			fileHash = hash(Files.readAllBytes(f.toPath()));
+		} catch (final IOException e) {
+			return null;
+		}
+		final String path = f.getAbsolutePath();
+		final String fingerprint = ScriptCache.fingerprint;
+		final Entry e = entries.get(path);
+		if (e != null && e.fileHash.equals(fileHash) && e.fingerprint.equals(fingerprint))
+			return e;
+		final Entry n = new Entry(fileHash, fingerprint);
+		entries.put(path, n);
+		return n;
+	}
+	
+	/**
+	 * Makes the fingerprint be calculated anew the next time scripts are loaded, e.g. because the aliases have been reloaded.
+	 */
+	public static synchronized void resetFingerprint() {
+		registryFingerprint = null;
+	}
+	
+	private static String getRegistryFingerprint() {
+		final StringBuilder b = new StringBuilder();
+		b.append(Skript.getVersion()).append('\n');
+		// the server version, as e.g. the materials, entity types and events available depend on it
+		b.append(Bukkit.getVersion()).append(' ').append(Bukkit.getBukkitVersion()).append('\n');
+		for (final SkriptAddon addon : Skript.getAddons())
+			b.append(addon.getName()).append(' ').append(addon.version).append('\n');
+		b.append(Language.getName()).append('\n');
+		for (final SyntaxElementInfo<?> info : Skript.getStatements())
+			append(b, info);
+		for (final Iterator<ExpressionInfo<?, ?>> iter = Skript.getExpressions(); iter.hasNext();)
+			append(b, iter.next());
+		for (final SkriptEventInfo<?> info : Skript.getEvents())
+			append(b, info);
+		for (final ClassInfo<?> ci : Classes.getClassInfos())
+			b.append(ci.getCodeName()).append(' ').append(ci.getC().getName()).append('\n');
+		// the configuration and aliases
+		final File[] files = Skript.getInstance().getDataFolder().listFiles();
+		if (files != null) {
+			Arrays.sort(files);
+			for (final File f : files) {
+				if (!f.isFile() || !f.getName().endsWith(".sk"))
+					continue;
+				try {
+					b.append(f.getName()).append(' ').append(hash(Files.readAllBytes(f.toPath()))).append('\n');
+				} catch (final IOException e) {
+					b.append(f.getName()).append('\n');
+				}
+			}
+		}
+		return "" + b;
+	}
+	
+	private static void append(final StringBuilder b, final SyntaxElementInfo<?> info) {
+		b.append(info.c.getName());
+		for (final String p : info.patterns)
+			b.append(' ').append(p);
+		b.append('\n');
+	}
+	
+	private static String hash(final byte[] data) {
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+			return "" + new BigInteger(1, digest).toString(16);
+		} catch (final NoSuchAlgorithmException e) {
+			throw new InternalError("JVM does not adhere to Java specifications");
+		}
+	}
+	
+	static void load(final File file) {
+		if (!file.exists())
+			return;
+		try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != VERSION)
+				return;
+			final int numEntries = in.readInt();
+			for (int i = 0; i < numEntries; i++) {
+				final String path = in.readUTF();
+				final Entry e = new Entry(in.readUTF(), in.readUTF());
+				final int numHints = in.readInt();
+				for (int j = 0; j < numHints; j++) {
+					final String key = in.readUTF();
+					e.hints.put(key, new Hint(in.readUTF(), in.readInt()));
+				}
+				entries.put(path, e);
+			}
+		} catch (final IOException e) {
+			// an outdated or broken cache is simply not used
+			entries.clear();
+			if (Skript.debug())
+				Skript.debug("Could not load the script cache: " + e.getLocalizedMessage());
+		}
+	}
+	
+	/**
+	 * Saves all entries to the cache file. Does nothing if caching is disabled.
+	 */
+	public static synchronized void save() {
+		if (!enabled)
+			return;
+		save(getFile());
+	}
+	
+	static synchronized void save(final File file) {
+		final File tempFile = new File(file.getPath() + ".temp");
+		try {
+			try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(VERSION);
+				// entries of scripts that have been deleted are dropped
+				final List<Map.Entry<String, Entry>> existing = new ArrayList<>();
+				for (final Map.Entry<String, Entry> e : entries.entrySet()) {
+					if (new File(e.getKey()).exists())
+						existing.add(e);
+				}
+				out.writeInt(existing.size());
+				for (final Map.Entry<String, Entry> e : existing) {
+					out.writeUTF(e.getKey());
+					final Entry entry = e.getValue();
+					out.writeUTF(entry.fileHash);
+					out.writeUTF(entry.fingerprint);
+					out.writeInt(entry.hints.size());
+					for (final Map.Entry<String, Hint> h : entry.hints.entrySet()) {
+						out.writeUTF(h.getKey());
+						out.writeUTF(h.getValue().element);
+						out.writeInt(h.getValue().pattern);
+					}
+				}
+			}
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (final IOException e) {
+			Skript.exception(e, "Could not save the script cache");
+		}
+	}
+	
+}
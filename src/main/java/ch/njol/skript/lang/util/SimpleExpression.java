@@ -59,6 +59,21 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	@Override
 	@Nullable
 	public final T getSingle(final Event e) {
+		return getSingleValue(e);
+	}
+	
+	/**
+	 * This is the internal method to get the value of a single expression, and is used by {@link #getSingle(Event)}.
+	 * <p>
+	 * The default implementation gets the value from {@link #get(Event)}, which creates a new array every time. Expressions that can find their value without creating an array
+	 * should override this if they are {@link #isSingle() single}, so that arrays are only created if the expression is used as a list.
+	 * 
+	 * @param e The event
+	 * @return The value {@link #get(Event)} would return, or null if this expression has no value
+	 * @throws SkriptAPIException If this expression is not single and has more than one value
+	 */
+	@Nullable
+	protected T getSingleValue(final Event e) {
 		final T[] all = getArray(e);
 		if (all.length == 0)
 			return null;
@@ -246,7 +261,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	 */
 	@Override
 	public boolean setTime(final int time) {
-		if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+		if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
 			Skript.error("Can't use time states after the event has already passed");
 			return false;
 		}
@@ -255,7 +270,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	}
 	
 	protected final boolean setTime(final int time, final Class<? extends Event> applicableEvent, final Expression<?>... mustbeDefaultVars) {
-		if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+		if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
 			Skript.error("Can't use time states after the event has already passed");
 			return false;
 		}
@@ -271,7 +286,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	}
 	
 	protected final boolean setTime(final int time, final Expression<?> mustbeDefaultVar, final Class<? extends Event>... applicableEvents) {
-		if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+		if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
 			Skript.error("Can't use time states after the event has already passed");
 			return false;
 		}
@@ -38,9 +38,6 @@ public abstract class SkriptLogger {
 	@SuppressWarnings("null")
 	public final static Level SEVERE = Level.SEVERE;
 	
-	@Nullable
-	private static Node node = null;
-	
 	private static Verbosity verbosity = Verbosity.NORMAL;
 	
 	static boolean debug;
@@ -54,7 +51,41 @@ public abstract class SkriptLogger {
 	@SuppressWarnings("null")
 	public final static Logger LOGGER = Bukkit.getServer() != null ? Bukkit.getLogger() : Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); // cannot use Bukkit in tests
 	
-	private final static HandlerList handlers = new HandlerList();
+	/**
+	 * The active log handlers and the current node
+	 */
+	private final static class LogContext {
+		final HandlerList handlers = new HandlerList();
+		@Nullable
+		Node node = null;
+	}
+	
+	/**
+	 * Used by all threads that did not {@link #startThreadLog() start their own log}
+	 */
+	private final static LogContext sharedContext = new LogContext();
+	
+	private final static ThreadLocal<LogContext> threadContext = new ThreadLocal<>();
+	
+	private static LogContext getContext() {
+		final LogContext c = threadContext.get();
+		return c == null ? sharedContext : c;
+	}
+	
+	/**
+	 * Makes the current thread use its own log handlers and node (which are initially empty) until {@link #stopThreadLog()} is called, so that it can log independently
+	 * of other threads, e.g. when parsing scripts in parallel.
+	 */
+	public static void startThreadLog() {
+		threadContext.set(new LogContext());
+	}
+	
+	/**
+	 * Makes the current thread use the shared log handlers and node again. Any log handlers started by this thread should have been stopped before.
+	 */
+	public static void stopThreadLog() {
+		threadContext.remove();
+	}
 	
 	/**
 	 * Shorthand for <tt>{@link #startLogHandler(LogHandler) startLogHandler}(new {@link RetainingLogHandler}());</tt>
@@ -99,11 +130,12 @@ public abstract class SkriptLogger {
 	 * @see RedirectingLogHandler
 	 */
 	public final static <T extends LogHandler> T startLogHandler(final T h) {
-		handlers.add(h);
+		getContext().handlers.add(h);
 		return h;
 	}
 	
 	final static void removeHandler(final LogHandler h) {
+		final HandlerList handlers = getContext().handlers;
 		if (!handlers.contains(h))
 			return;
 		if (!h.equals(handlers.remove())) {
@@ -115,7 +147,7 @@ public abstract class SkriptLogger {
 	}
 	
 	final static boolean isStopped(final LogHandler h) {
-		return !handlers.contains(h);
+		return !getContext().handlers.contains(h);
 	}
 	
 	@Nullable
@@ -134,12 +166,12 @@ public abstract class SkriptLogger {
 	}
 	
 	public static void setNode(final @Nullable Node node) {
-		SkriptLogger.node = node == null || node.getParent() == null ? null : node;
+		getContext().node = node == null || node.getParent() == null ? null : node;
 	}
 	
 	@Nullable
 	public static Node getNode() {
-		return node;
+		return getContext().node;
 	}
 	
 	/**
@@ -161,15 +193,17 @@ public abstract class SkriptLogger {
 	 * @see Skript#debug()
 	 */
 	public static void log(final Level level, final String message) {
-		log(new LogEntry(level, message, node));
+		log(new LogEntry(level, message, getNode()));
 	}
 	
 	public static void log(final @Nullable LogEntry entry) {
 		if (entry == null)
 			return;
+		final LogContext context = getContext();
+		final Node node = context.node;
 		if (Skript.testing() && node != null && node.debug())
 			System.out.print("---> " + entry.level + "/" + ErrorQuality.get(entry.quality) + ": " + entry.getMessage() + " ::" + LogEntry.findCaller());
-		for (final LogHandler h : handlers) {
+		for (final LogHandler h : context.handlers) {
 			final LogResult r = h.log(entry);
 			switch (r) {
 				case CACHED:
@@ -194,7 +228,7 @@ public abstract class SkriptLogger {
 	}
 	
 	public static void logTracked(final Level level, final String message, final ErrorQuality quality) {
-		log(new LogEntry(level, quality.quality(), message, node, true));
+		log(new LogEntry(level, quality.quality(), message, getNode(), true));
 	}
 	
 	/**
@@ -77,7 +77,22 @@ public abstract class Classes {
 	private static ClassInfo<?>[] classInfos = null;
 	private final static List<ClassInfo<?>> tempClassInfos = new ArrayList<ClassInfo<?>>();
 	private final static HashMap<Class<?>, ClassInfo<?>> exactClassInfos = new HashMap<Class<?>, ClassInfo<?>>();
-	private final static HashMap<Class<?>, ClassInfo<?>> superClassInfos = new HashMap<Class<?>, ClassInfo<?>>();
+	/**
+	 * Class infos of every class, only used once all classes have been registered. The second class selects which class info is cached:
+	 * <ul>
+	 * <li><tt>ClassInfo.class</tt>: the closest class info</li>
+	 * <li><tt>Parser.class</tt>: the class info used by {@link #toString(Object, StringMode, int)}, i.e. the closest class info that has a parser</li>
+	 * </ul>
+	 */
+	private final static DispatchCache<ClassInfo<?>> classInfoCache = new DispatchCache<ClassInfo<?>>() {
+		@Override
+		@Nullable
+		protected ClassInfo<?> compute(final Class<?> c, final Class<?> kind) {
+			if (kind == Parser.class)
+				return getParserClassInfo_i(c);
+			return getSuperClassInfo_i(c);
+		}
+	};
 	private final static HashMap<String, ClassInfo<?>> classInfosByCodeName = new HashMap<String, ClassInfo<?>>();
 	
 	/**
@@ -95,6 +110,7 @@ public abstract class Classes {
 			exactClassInfos.put(info.getC(), info);
 			classInfosByCodeName.put(info.getCodeName(), info);
 			tempClassInfos.add(info);
+			classInfoCache.clear();
 		} catch (RuntimeException e) {
 			if (SkriptConfig.apiSoftExceptions.value())
 				Skript.warning("Ignored an exception due to user configuration: " + e.getMessage());
@@ -201,6 +217,7 @@ public abstract class Classes {
 		}
 		
 		Classes.classInfos = classInfos.toArray(new ClassInfo[classInfos.size()]);
+		classInfoCache.clear();
 		
 		// check for circular dependencies
 		if (!tempClassInfos.isEmpty()) {
@@ -299,15 +316,16 @@ public abstract class Classes {
 	public static <T> ClassInfo<? super T> getSuperClassInfo(final Class<T> c) {
 		assert c != null;
 		checkAllowClassInfoInteraction();
-		final ClassInfo<?> i = superClassInfos.get(c);
-		if (i != null)
-			return (ClassInfo<? super T>) i;
+		if (Skript.isAcceptRegistrations())
+			return (ClassInfo<? super T>) getSuperClassInfo_i(c);
+		return (ClassInfo<? super T>) classInfoCache.get(c, ClassInfo.class);
+	}
+	
+	@Nullable
+	private static ClassInfo<?> getSuperClassInfo_i(final Class<?> c) {
 		for (final ClassInfo<?> ci : getClassInfos()) {
-			if (ci.getC().isAssignableFrom(c)) {
-				if (!Skript.isAcceptRegistrations())
-					superClassInfos.put(c, ci);
-				return (ClassInfo<? super T>) ci;
-			}
+			if (ci.getC().isAssignableFrom(c))
+				return ci;
 		}
 		assert false;
 		return null;
@@ -594,19 +612,30 @@ public abstract class Classes {
 			}
 			return "[" + b.toString() + "]";
 		}
-		for (final ClassInfo<?> ci : getClassInfos()) {
+		if (mode == StringMode.MESSAGE && o instanceof String) // the parser of strings returns them unchanged
+			return (String) o;
+		final ClassInfo<?> ci = classInfoCache.get(o.getClass(), Parser.class);
+		if (ci != null) {
 			final Parser<?> parser = ci.getParser();
-			if (parser != null && ci.getC().isInstance(o)) {
-				@SuppressWarnings("unchecked")
-				final String s = mode == StringMode.MESSAGE ? ((Parser<T>) parser).toString(o, flags)
-						: mode == StringMode.DEBUG ? "[" + ci.getCodeName() + ":" + ((Parser<T>) parser).toString(o, mode) + "]"
-								: ((Parser<T>) parser).toString(o, mode);
-				return s;
-			}
+			assert parser != null;
+			@SuppressWarnings("unchecked")
+			final String s = mode == StringMode.MESSAGE ? ((Parser<T>) parser).toString(o, flags)
+					: mode == StringMode.DEBUG ? "[" + ci.getCodeName() + ":" + ((Parser<T>) parser).toString(o, mode) + "]"
+							: ((Parser<T>) parser).toString(o, mode);
+			return s;
 		}
 		return mode == StringMode.VARIABLE_NAME ? "object:" + o : "" + o;
 	}
 	
+	@Nullable
+	private static ClassInfo<?> getParserClassInfo_i(final Class<?> c) {
+		for (final ClassInfo<?> ci : getClassInfos()) {
+			if (ci.getParser() != null && ci.getC().isAssignableFrom(c))
+				return ci;
+		}
+		return null;
+	}
+	
 	public final static String toString(final Object[] os, final int flags, final boolean and) {
 		return toString(os, and, null, StringMode.MESSAGE, flags);
 	}
@@ -21,8 +21,6 @@ package ch.njol.skript.registrations;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -32,7 +30,6 @@ import ch.njol.skript.classes.Comparator.ComparatorInfo;
 import ch.njol.skript.classes.Comparator.Relation;
 import ch.njol.skript.classes.Converter;
 import ch.njol.skript.classes.InverseComparator;
-import ch.njol.util.Pair;
 
 /**
  * @author Peter Güttinger
@@ -56,6 +53,7 @@ public class Comparators {
 		if (t1 == Object.class && t2 == Object.class)
 			throw new IllegalArgumentException("You must not add a comparator for Objects");
 		comparators.add(new ComparatorInfo<T1, T2>(t1, t2, c));
+		comparatorsQuickAccess.clear();
 	}
 	
 	@SuppressWarnings({"rawtypes", "unchecked"})
@@ -80,17 +78,18 @@ public class Comparators {
 		return javaComparator;
 	}
 	
-	private final static Map<Pair<Class<?>, Class<?>>, Comparator<?, ?>> comparatorsQuickAccess = new HashMap<Pair<Class<?>, Class<?>>, Comparator<?, ?>>();
+	private final static DispatchCache<Comparator<?, ?>> comparatorsQuickAccess = new DispatchCache<Comparator<?, ?>>() {
+		@Override
+		@Nullable
+		protected Comparator<?, ?> compute(final Class<?> f, final Class<?> s) {
+			return getComparator_i(f, s);
+		}
+	};
 	
 	@SuppressWarnings("unchecked")
 	@Nullable
 	public final static <F, S> Comparator<? super F, ? super S> getComparator(final Class<F> f, final Class<S> s) {
-		final Pair<Class<?>, Class<?>> p = new Pair<Class<?>, Class<?>>(f, s);
-		if (comparatorsQuickAccess.containsKey(p))
-			return (Comparator<? super F, ? super S>) comparatorsQuickAccess.get(p);
-		final Comparator<?, ?> comp = getComparator_i(f, s);
-		comparatorsQuickAccess.put(p, comp);
-		return (Comparator<? super F, ? super S>) comp;
+		return (Comparator<? super F, ? super S>) comparatorsQuickAccess.get(f, s);
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -0,0 +1,131 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.registrations;
+
+import java.lang.ref.WeakReference;
+import java.util.IdentityHashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A cache for values that depend on a pair of classes, e.g. the converter from one class to another or the comparator of two classes.
+ * <p>
+ * Looking up a cached value neither allocates anything nor takes a lock, so the cache can be used from any thread and in code that runs very often. The first class is
+ * looked up with a {@link ClassValue}, and the second one in an identity map that is replaced by a copy whenever a value is added, as values are added far less often than
+ * they are looked up. Computed values are never removed except by {@link #clear()}, e.g. if a new converter is registered, which empties the rows instead of replacing the
+ * {@link ClassValue}, as the values of a discarded class value would stay attached to their classes.
+ * <p>
+ * The classes only refer to their rows weakly, as a {@link ClassValue} keeps its values as long as the class, and the first classes are often classes of the JDK or Bukkit that
+ * outlive Skript's classloader when the server is reloaded. The rows are held by the cache instead, so they can be collected together with it.
+ * 
+ * @param <V> The type of the cached values
+ */
+public abstract class DispatchCache<V> {
+	
+	/**
+	 * Cached in place of null, as the maps cannot tell apart a missing value and null otherwise
+	 */
+	private final static Object NONE = new Object();
+	
+	/**
+	 * The values of a single first class
+	 */
+	private final static class Row {
+		
+		volatile IdentityHashMap<Class<?>, Object> values = new IdentityHashMap<>(4);
+		
+	}
+	
+	private final static class Rows extends ClassValue<WeakReference<Row>> {
+		
+		/**
+		 * Keeps the rows alive, as the classes only refer to them weakly
+		 */
+		final Queue<Row> rows = new ConcurrentLinkedQueue<>();
+		
+		@Override
+		protected WeakReference<Row> computeValue(final @Nullable Class<?> type) {
+			final Row row = new Row();
+			rows.add(row);
+			return new WeakReference<>(row);
+		}
+		
+	}
+	
+	private final Rows rows = new Rows();
+	
+	/**
+	 * Incremented by {@link #clear()}, so that values computed before the cache was cleared are not added afterwards
+	 */
+	private volatile int generation = 0;
+	
+	/**
+	 * Computes the value of the given classes if it isn't cached yet. May be called more than once for the same classes if they are looked up concurrently.
+	 * 
+	 * @param first
+	 * @param second
+	 * @return The value for the given classes, which may be null
+	 */
+	@Nullable
+	protected abstract V compute(Class<?> first, Class<?> second);
+	
+	/**
+	 * @param first
+	 * @param second
+	 * @return The value for the given classes
+	 */
+	@SuppressWarnings({"unchecked", "null"})
+	@Nullable
+	public final V get(final Class<?> first, final Class<?> second) {
+		final Row row = rows.get(first).get();
+		assert row != null; // kept by rows
+		Object v = row.values.get(second);
+		if (v == null) {
+			final int generation = this.generation;
+			final V c = compute(first, second);
+			v = c == null ? NONE : c;
+			synchronized (row) {
+				if (generation == this.generation) {
+					final IdentityHashMap<Class<?>, Object> values = new IdentityHashMap<>(row.values);
+					values.put(second, v);
+					row.values = values;
+				}
+			}
+		}
+		return v == NONE ? null : (V) v;
+	}
+	
+	/**
+	 * Discards all cached values.
+	 */
+	public final void clear() {
+		synchronized (rows) {
+			generation++;
+		}
+		for (final Row row : rows.rows) {
+			synchronized (row) {
+				row.values = new IdentityHashMap<>(4);
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,388 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.timings;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.lang.TriggerItem;
+
+/**
+ * A profiler for scripts that measures how often each trigger item is run, how much time it takes and optionally how much memory it allocates. Started and stopped with
+ * <tt>/skript profile start|stop</tt>.
+ * <p>
+ * Every item is measured without the items run inside it, e.g. a loop only without its body, and an effect that calls a function only without the function's items. The items
+ * are recorded with their whole stack, i.e. their script, their trigger, the sections they are in and the items that called them, so that the results can be saved as a
+ * collapsed stack file that can be turned into a flame graph (e.g. with <tt>flamegraph.pl</tt>). The results are also summed up per line of each script.
+ * <p>
+ * Triggers are always interpreted while the profiler is running, as the items of {@link ch.njol.skript.lang.TriggerCompiler compiled} triggers cannot be measured one by one.
+ */
+public final class SkriptProfiler {
+	
+	private SkriptProfiler() {}
+	
+	private static volatile boolean running = false;
+	private static volatile boolean allocations = false;
+	private static long startTime;
+	
+	/**
+	 * Measurements by the collapsed stack of the measured item
+	 */
+	private static volatile ConcurrentHashMap<String, Sample> samples = new ConcurrentHashMap<>();
+	
+	/**
+	 * The frames of the items that have been measured, which don't change while the profiler is running
+	 */
+	private final static Map<TriggerItem, String> frames = new ConcurrentHashMap<>();
+	
+	private final static ThreadLocal<Stack> stacks = new ThreadLocal<Stack>() {
+		@Override
+		protected Stack initialValue() {
+			return new Stack();
+		}
+	};
+	
+	/**
+	 * The measurements of a single item with a single stack.
+	 */
+	private final static class Sample {
+		
+		final String stack;
+		final String location;
+		final LongAdder count = new LongAdder();
+		final LongAdder nanos = new LongAdder();
+		final LongAdder bytes = new LongAdder();
+		
+		Sample(final String stack, final String location) {
+			this.stack = stack;
+			this.location = location;
+		}
+		
+	}
+	
+	/**
+	 * The items that are currently being measured on a thread, i.e. an item and the items that called it.
+	 */
+	private final static class Stack {
+		
+		int depth = 0;
+		String[] stacks = new String[8];
+		Sample[] samples = new Sample[8];
+		long[] startNanos = new long[8], childNanos = new long[8];
+		long[] startBytes = new long[8], childBytes = new long[8];
+		
+		void grow() {
+			final int n = stacks.length * 2;
+			stacks = Arrays.copyOf(stacks, n);
+			samples = Arrays.copyOf(samples, n);
+			startNanos = Arrays.copyOf(startNanos, n);
+			childNanos = Arrays.copyOf(childNanos, n);
+			startBytes = Arrays.copyOf(startBytes, n);
+			childBytes = Arrays.copyOf(childBytes, n);
+		}
+		
+	}
+	
+	/**
+	 * @return Whether the profiler is running, i.e. whether trigger items should be measured with {@link #start(TriggerItem)} and {@link #stop()}
+	 */
+	public static boolean isRunning() {
+		return running;
+	}
+	
+	/**
+	 * @return Whether the memory allocated by each thread can be measured
+	 */
+	public static boolean isAllocationMeasurementSupported() {
+		try {
+			final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			return bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported();
+		} catch (final NoClassDefFoundError e) { // not a HotSpot JVM
+			return false;
+		}
+	}
+	
+	/**
+	 * Starts the profiler, discarding the results of the previous run.
+	 * 
+	 * @param measureAllocations Whether to measure the memory allocated by each item. Must only be true if {@link #isAllocationMeasurementSupported()}.
+	 * @return false if the profiler is already running
+	 */
+	public static synchronized boolean startProfiling(final boolean measureAllocations) {
+		if (running)
+			return false;
+		if (measureAllocations)
+			((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).setThreadAllocatedMemoryEnabled(true);
+		samples = new ConcurrentHashMap<>();
+		frames.clear();
+		allocations = measureAllocations;
+		startTime = System.nanoTime();
+		running = true;
+		return true;
+	}
+	
+	/**
+	 * The results of a run of the profiler.
+	 */
+	public final static class Profile {
+		
+		private final long duration;
+		private final boolean allocations;
+		private final List<Sample> samples;
+		
+		Profile(final long duration, final boolean allocations, final List<Sample> samples) {
+			this.duration = duration;
+			this.allocations = allocations;
+			this.samples = samples;
+		}
+		
+		/**
+		 * @return How long the profiler was running in nanoseconds
+		 */
+		public long getDuration() {
+			return duration;
+		}
+		
+		public boolean hasAllocations() {
+			return allocations;
+		}
+		
+		/**
+		 * @return The total time spent in measured items in nanoseconds
+		 */
+		public long getTotalNanos() {
+			long r = 0;
+			for (final Sample s : samples)
+				r += s.nanos.sum();
+			return r;
+		}
+		
+		/**
+		 * Sums up the results per line of each script.
+		 * 
+		 * @return Lines as "script.sk:line" with their number of calls, time in nanoseconds and allocated bytes, sorted by the time spent in them, descending
+		 */
+		public List<LineResult> getLines() {
+			final Map<String, LineResult> lines = new HashMap<>();
+			for (final Sample s : samples) {
+				LineResult l = lines.get(s.location);
+				if (l == null)
+					lines.put(s.location, l = new LineResult(s.location));
+				l.count += s.count.sum();
+				l.nanos += s.nanos.sum();
+				l.bytes += s.bytes.sum();
+			}
+			final List<LineResult> r = new ArrayList<>(lines.values());
+			Collections.sort(r, new Comparator<LineResult>() {
+				@Override
+				public int compare(final LineResult a, final LineResult b) {
+					return Long.compare(b.nanos, a.nanos);
+				}
+			});
+			return r;
+		}
+		
+		/**
+		 * Saves the results into the given folder: the time spent in each item as a collapsed stack file in nanoseconds, the allocated memory in bytes as another one if
+		 * allocations were measured, and the results per line as a table.
+		 * 
+		 * @param folder
+		 * @return The file with the time spent in each item
+		 * @throws IOException
+		 */
+		public File save(final File folder) throws IOException {
+			folder.mkdirs();
+			final String name = "profile-" + new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss").format(new Date());
+			final File time = new File(folder, name + ".collapsed");
+			try (final PrintWriter pw = new PrintWriter(time, "UTF-8")) {
+				for (final Sample s : samples)
+					pw.println(s.stack + " " + s.nanos.sum());
+			}
+			if (allocations) {
+				try (final PrintWriter pw = new PrintWriter(new File(folder, name + "-alloc.collapsed"), "UTF-8")) {
+					for (final Sample s : samples) {
+						final long bytes = s.bytes.sum();
+						if (bytes > 0)
+							pw.println(s.stack + " " + bytes);
+					}
+				}
+			}
+			try (final PrintWriter pw = new PrintWriter(new File(folder, name + "-lines.txt"), "UTF-8")) {
+				pw.println("# line\tcalls\tnanoseconds" + (allocations ? "\tbytes" : ""));
+				for (final LineResult l : getLines())
+					pw.println(l.location + "\t" + l.count + "\t" + l.nanos + (allocations ? "\t" + l.bytes : ""));
+			}
+			return time;
+		}
+		
+	}
+	
+	/**
+	 * The results of a single line of a script.
+	 */
+	public final static class LineResult {
+		
+		public final String location;
+		public long count, nanos, bytes;
+		
+		LineResult(final String location) {
+			this.location = location;
+		}
+		
+	}
+	
+	/**
+	 * Stops the profiler.
+	 * 
+	 * @return The results, or null if the profiler wasn't running
+	 */
+	@Nullable
+	public static synchronized Profile stopProfiling() {
+		if (!running)
+			return null;
+		running = false;
+		final Profile p = new Profile(System.nanoTime() - startTime, allocations, new ArrayList<>(samples.values()));
+		samples = new ConcurrentHashMap<>();
+		frames.clear();
+		return p;
+	}
+	
+	/**
+	 * Starts measuring the given item, which must be followed by {@link #stop()} in a finally block.
+	 * 
+	 * @param item The item that is about to be run
+	 */
+	public static void start(final TriggerItem item) {
+		final Stack s = stacks.get();
+		final int d = s.depth++;
+		if (d == s.stacks.length)
+			s.grow();
+		final String stack = d == 0 ? getFrames(item) : s.stacks[d - 1] + ";" + getFrames(item);
+		s.stacks[d] = stack;
+		final ConcurrentHashMap<String, Sample> samples = SkriptProfiler.samples;
+		Sample sample = samples.get(stack);
+		if (sample == null) {
+			sample = new Sample(stack, getLocation(item));
+			final Sample old = samples.putIfAbsent(stack, sample);
+			if (old != null)
+				sample = old;
+		}
+		s.samples[d] = sample;
+		s.childNanos[d] = 0;
+		s.childBytes[d] = 0;
+		s.startBytes[d] = allocations ? getAllocatedBytes() : 0;
+		s.startNanos[d] = System.nanoTime();
+	}
+	
+	/**
+	 * Stops measuring the item that was last {@link #start(TriggerItem) started} on this thread.
+	 */
+	public static void stop() {
+		final long end = System.nanoTime();
+		final Stack s = stacks.get();
+		final int d = --s.depth;
+		final long bytes = s.startBytes[d] == 0 ? 0 : getAllocatedBytes() - s.startBytes[d];
+		final long nanos = end - s.startNanos[d];
+		final Sample sample = s.samples[d];
+		sample.count.increment();
+		sample.nanos.add(nanos - s.childNanos[d]);
+		sample.bytes.add(bytes - s.childBytes[d]);
+		s.stacks[d] = null;
+		s.samples[d] = null;
+		if (d > 0) {
+			s.childNanos[d - 1] += nanos;
+			s.childBytes[d - 1] += bytes;
+		}
+	}
+	
+	private static long getAllocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	/**
+	 * @param item
+	 * @return The script and line of the given item, e.g. "test.sk:12"
+	 */
+	private static String getLocation(final TriggerItem item) {
+		final Trigger t = item.getTrigger();
+		final File script = t == null ? null : t.getScript();
+		return (script == null ? "<unknown>" : script.getName()) + ":" + item.getLineNumber();
+	}
+	
+	/**
+	 * @param item
+	 * @return The frames of the given item, i.e. its script, trigger, the sections it's in and the item itself
+	 */
+	private static String getFrames(final TriggerItem item) {
+		String r = frames.get(item);
+		if (r != null)
+			return r;
+		final List<String> l = new ArrayList<>();
+		TriggerItem i = item;
+		while (i != null) {
+			l.add(getFrame(i));
+			if (i instanceof Trigger) {
+				final File script = ((Trigger) i).getScript();
+				l.add(script == null ? "<unknown>" : script.getName());
+			}
+			i = i.getParent();
+		}
+		Collections.reverse(l);
+		final StringBuilder b = new StringBuilder();
+		for (final String f : l) {
+			if (b.length() != 0)
+				b.append(';');
+			b.append(f);
+		}
+		r = "" + b;
+		frames.put(item, r);
+		return r;
+	}
+	
+	private static String getFrame(final TriggerItem item) {
+		String s;
+		try {
+			s = item instanceof Trigger ? ((Trigger) item).getName() : item.toString();
+		} catch (final RuntimeException e) { // toString() of some addons' items might not work without an event
+			s = item.getClass().getSimpleName();
+		}
+		// frames must neither contain the separator of frames nor line breaks, and the value is separated by a space from the frames
+		s = s.replace(';', ',').replace('\n', ' ').replace('\r', ' ');
+		return "line " + item.getLineNumber() + ": " + s;
+	}
+	
+}
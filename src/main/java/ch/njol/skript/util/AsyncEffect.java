@@ -22,6 +22,7 @@ package ch.njol.skript.util;
 import ch.njol.skript.Skript;
 import ch.njol.skript.effects.Delay;
 import ch.njol.skript.lang.Effect;
+import ch.njol.skript.lang.ExecutionFrame;
 import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.TriggerItem;
 import ch.njol.skript.timings.SkriptTimings;
@@ -46,12 +47,25 @@ public abstract class AsyncEffect extends Effect {
 	protected TriggerItem walk(Event e) {
 		debug(e, true);
 		TriggerItem next = getNext();
-		Delay.addDelayedEvent(e);
+		ExecutionFrame frame = ExecutionFrame.get(e);
+		if (frame != null)
+			frame.setDelayed(); // the frame is passed on below
+		else
+			Delay.addDelayedEvent(e);
 		Bukkit.getScheduler().runTaskAsynchronously(Skript.getInstance(), new Runnable() {
 	        	@SuppressWarnings("synthetic-access")
 			@Override
 	            	public void run() {
-				execute(e); // Execute this effect
+				if (frame != null) { // Execute this effect with the trigger's local variables
+					ExecutionFrame previous = ExecutionFrame.enter(frame);
+					try {
+						execute(e);
+					} finally {
+						ExecutionFrame.exit(previous);
+					}
+				} else {
+					execute(e);
+				}
 	                	if (next != null) {
 					Bukkit.getScheduler().runTask(Skript.getInstance(), new Runnable() {
 						@Override
@@ -64,7 +78,10 @@ public abstract class AsyncEffect extends Effect {
 								}
 							}
 
-							TriggerItem.walk(next, e);
+							if (frame != null)
+								TriggerItem.walk(next, e, frame);
+							else
+								TriggerItem.walk(next, e);
 
 							SkriptTimings.stop(timing); // Stop timing if it was even started
 						}
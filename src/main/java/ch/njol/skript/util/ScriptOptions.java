@@ -42,7 +42,8 @@
 package ch.njol.skript.util;
 
 import java.io.File;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Mirreducki
@@ -50,7 +51,7 @@ import java.util.HashMap;
  */
 public class ScriptOptions {
 	
-	private HashMap<File, Boolean> usesNewLoops = new HashMap<>();
+	private Map<File, Boolean> usesNewLoops = new ConcurrentHashMap<>();
 	
 	@SuppressWarnings("null")
 	private static ScriptOptions instance = null;
@@ -60,7 +61,7 @@ public class ScriptOptions {
 	}
 	
 	@SuppressWarnings("null")
-	public static ScriptOptions getInstance(){
+	public static synchronized ScriptOptions getInstance(){
 		return instance != null ? instance : new ScriptOptions();
 	}
 	
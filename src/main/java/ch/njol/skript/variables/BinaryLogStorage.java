@@ -0,0 +1,643 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.log.SkriptLogger;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.util.ExceptionUtils;
+import ch.njol.skript.util.FileUtils;
+import ch.njol.skript.util.Task;
+
+/**
+ * Stores variables in an append-only log of binary records, i.e. a change to a variable only appends a record to the end of the file, and the file is never rewritten while
+ * holding any variables lock. Instead the log is compacted in the background once it has grown to twice its compacted size.
+ * <p>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, followed by any number of records of the following form:
+ * <ul>
+ * <li>the length of the rest of the record (int)</li>
+ * <li>the length and UTF-8 bytes of the variable's name (int, bytes)</li>
+ * <li>the length and UTF-8 bytes of the value's type (int, bytes), with -1 as the length for a deleted variable</li>
+ * <li>the length and bytes of the serialised value (int, bytes), omitted for a deleted variable</li>
+ * </ul>
+ * A later record for the same variable overrides all earlier ones.
+ */
+public class BinaryLogStorage extends VariablesStorage {
+	
+	@SuppressWarnings("null")
+	private final static Charset UTF_8 = Charset.forName("UTF-8");
+	
+	final static int MAGIC = 0x534B564C; // "SKVL"
+	final static int VERSION = 1;
+	final static int HEADER_LENGTH = 8;
+	
+	/**
+	 * The log is not compacted while it's smaller than this
+	 */
+	private final static long MIN_COMPACTION_SIZE = 1 << 20;
+	
+	/**
+	 * The maximum number of changes written before the log is flushed
+	 */
+	private final static int BATCH_SIZE = 100;
+	
+	/**
+	 * Must be locked after connectionLock (if that lock is used).
+	 */
+	@Nullable
+	private DataOutputStream out;
+	
+	/**
+	 * The current length of the log. Must be accessed while holding {@link #connectionLock}.
+	 */
+	private long length = 0;
+	
+	/**
+	 * The length of the log after it was last loaded or compacted
+	 */
+	private volatile long compactedLength = 0;
+	
+	@Nullable
+	private Task compactTask;
+	
+	/**
+	 * Held during a whole compaction, as compactions share the temporary file. Must be locked before {@link #connectionLock} (if that lock is used).
+	 */
+	private final Object compactionLock = new Object();
+	
+	/**
+	 * Set by {@link #close()} once the log has been closed for good, after which it must neither be compacted nor reopened. Must be accessed while holding
+	 * {@link #compactionLock}.
+	 */
+	private boolean shutDown = false;
+	
+	protected BinaryLogStorage(final String name) {
+		super(name);
+	}
+	
+	/**
+	 * Reads the records of a log one after another from a stream, so that reading a log never needs more memory than its largest record.
+	 */
+	final static class LogReader implements Closeable {
+		
+		private final DataInputStream in;
+		
+		/**
+		 * The position in the log up to which records are read
+		 */
+		private final long end;
+		
+		final boolean validHeader;
+		
+		/**
+		 * The position after the last complete record
+		 */
+		long validEnd = HEADER_LENGTH;
+		
+		/**
+		 * The position of the current record
+		 */
+		long position = HEADER_LENGTH;
+		
+		/**
+		 * The name of the current record's variable
+		 */
+		String name = "";
+		
+		/**
+		 * The type of the current record's value, or null if the record deletes its variable
+		 */
+		@Nullable
+		String type = null;
+		
+		/**
+		 * The number of bytes of the current record's value that have not been read yet
+		 */
+		private int unread = 0;
+		
+		private boolean invalid = false;
+		
+		LogReader(final InputStream in, final long end) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(in));
+			this.end = end;
+			validHeader = end >= HEADER_LENGTH && this.in.readInt() == MAGIC && this.in.readInt() == VERSION;
+		}
+		
+		/**
+		 * Opens a reader for the records of the given file that end before <tt>end</tt>. The file is not memory-mapped, as a mapped file can neither be truncated nor
+		 * replaced on Windows until the mapping has been garbage collected.
+		 */
+		static LogReader open(final File f, final long end) throws IOException {
+			final FileInputStream in = new FileInputStream(f);
+			try {
+				return new LogReader(in, end);
+			} catch (final IOException e) {
+				in.close();
+				throw e;
+			}
+		}
+		
+		/**
+		 * Reads the next record, skipping the value of the current one if it has not been read. Stops at the first incomplete or invalid record, see {@link #validEnd}.
+		 * 
+		 * @return Whether there was another valid record
+		 */
+		boolean next() throws IOException {
+			if (invalid || !validHeader)
+				return false;
+			while (unread > 0) {
+				final int skipped = in.skipBytes(unread);
+				if (skipped <= 0)
+					throw new EOFException("The log is shorter than expected");
+				unread -= skipped;
+			}
+			position = validEnd;
+			invalid = true; // until the whole record is valid
+			if (end - position < 4)
+				return false;
+			final int length = in.readInt();
+			if (length < 8 || length > end - position - 4)
+				return false;
+			final int nameLength = in.readInt();
+			if (nameLength < 0 || nameLength > length - 8)
+				return false;
+			final String name = readString(in, nameLength);
+			final int typeLength = in.readInt();
+			if (typeLength >= 0) {
+				if (typeLength > length - 12 - nameLength)
+					return false;
+				final String type = readString(in, typeLength);
+				final int dataLength = in.readInt();
+				if (dataLength != length - 12 - nameLength - typeLength)
+					return false;
+				this.type = type;
+				unread = dataLength;
+			} else if (length != 8 + nameLength) {
+				return false;
+			} else {
+				type = null;
+			}
+			this.name = name;
+			validEnd = position + 4 + length;
+			invalid = false;
+			return true;
+		}
+		
+		/**
+		 * Reads the next record that is the last record of its variable.
+		 * 
+		 * @param latest The result of {@link #readLatest()} for another reader of the same log
+		 * @return Whether there was another such record
+		 */
+		boolean nextLatest(final Map<String, Long> latest) throws IOException {
+			while (next()) {
+				final Long p = latest.get(name);
+				if (p != null && p.longValue() == position)
+					return true;
+			}
+			return false;
+		}
+		
+		/**
+		 * Finds the last record of every variable in the log.
+		 * 
+		 * @return The positions of the last records of all variables that are not deleted, mapped by the variables' names
+		 */
+		Map<String, Long> readLatest() throws IOException {
+			final Map<String, Long> latest = new HashMap<String, Long>();
+			while (next()) {
+				if (type == null)
+					latest.remove(name);
+				else
+					latest.put(name, position);
+			}
+			return latest;
+		}
+		
+		/**
+		 * Reads the value of the current record, which must not delete its variable.
+		 * 
+		 * @return The type and serialised value of the current record
+		 */
+		SerializedVariable.Value value() throws IOException {
+			final String type = this.type;
+			assert type != null && !invalid;
+			final byte[] data = new byte[unread];
+			in.readFully(data);
+			unread = 0;
+			return new SerializedVariable.Value(type, data);
+		}
+		
+		private static String readString(final DataInputStream in, final int length) throws IOException {
+			final byte[] b = new byte[length];
+			in.readFully(b);
+			return new String(b, UTF_8);
+		}
+		
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+		
+	}
+	
+	/**
+	 * Copies <tt>length</tt> bytes of the given file starting at <tt>position</tt> to <tt>out</tt>.
+	 */
+	static void copy(final File f, final long position, final long length, final OutputStream out) throws IOException {
+		final RandomAccessFile in = new RandomAccessFile(f, "r");
+		try {
+			in.seek(position);
+			final byte[] buffer = new byte[8192];
+			long remaining = length;
+			while (remaining > 0) {
+				final int r = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+				if (r < 0)
+					throw new EOFException("The file '" + f.getName() + "' is shorter than expected");
+				out.write(buffer, 0, r);
+				remaining -= r;
+			}
+		} finally {
+			in.close();
+		}
+	}
+	
+	@Override
+	protected boolean load_i(final SectionNode n) {
+		SkriptLogger.setNode(null);
+		
+		final File f = file;
+		if (f == null) {
+			assert false : this;
+			return false;
+		}
+		
+		boolean loadError = false;
+		int unsuccessful = 0;
+		final StringBuilder invalid = new StringBuilder();
+		
+		batchSize = BATCH_SIZE;
+		
+		final long fileLength = f.length();
+		if (fileLength == 0) { // new file
+			length = HEADER_LENGTH;
+			if (!connect())
+				return false;
+		} else {
+			try {
+				final Map<String, Long> latest;
+				final long validEnd;
+				final LogReader r = LogReader.open(f, fileLength);
+				try {
+					if (!r.validHeader) {
+						Skript.error("The file '" + f.getName() + "' of the database '" + databaseName + "' is not a binary variables file");
+						return false;
+					}
+					latest = r.readLatest();
+					validEnd = r.validEnd;
+				} finally {
+					r.close();
+				}
+				if (validEnd != fileLength) {
+					Skript.error("The database '" + databaseName + "' ends with " + (fileLength - validEnd) + " bytes of invalid or incomplete data, which will be discarded (this usually happens if the server crashes while saving a variable)");
+					loadError = true;
+				}
+				
+				final LogReader values = LogReader.open(f, validEnd); // reads the file a second time instead of keeping the overridden values in memory
+				try {
+					while (values.nextLatest(latest)) {
+						final SerializedVariable.Value v = values.value();
+						final Object d = Classes.deserialize(v.type, v.data);
+						if (d == null) {
+							if (invalid.length() != 0)
+								invalid.append(", ");
+							invalid.append(values.name);
+							unsuccessful++;
+							continue;
+						}
+						Variables.variableLoaded(values.name, d, this);
+					}
+				} finally {
+					values.close();
+				}
+				length = validEnd;
+				compactedLength = validEnd;
+			} catch (final IOException e) {
+				Skript.error("An I/O error occurred while loading the database '" + databaseName + "': " + ExceptionUtils.toString(e));
+				return false;
+			}
+			
+			if (loadError) {
+				try {
+					final File bu = FileUtils.backup(f);
+					Skript.info("Created a backup of " + f.getName() + " as " + bu.getName());
+					final RandomAccessFile raf = new RandomAccessFile(f, "rw");
+					try {
+						raf.setLength(length);
+					} finally {
+						raf.close();
+					}
+				} catch (final IOException e) {
+					Skript.error("Could not backup and repair " + f.getName() + ": " + e.getMessage());
+					return false;
+				}
+			}
+			if (!connect())
+				return false;
+		}
+		
+		if (unsuccessful > 0) {
+			Skript.error(unsuccessful + " variable" + (unsuccessful == 1 ? "" : "s") + " could not be loaded!");
+			Skript.error("Affected variables: " + invalid.toString());
+		}
+		
+		compactTask = new Task(Skript.getInstance(), 60 * 20, 60 * 20, true) {
+			@Override
+			public void run() {
+				final long l;
+				synchronized (connectionLock) {
+					l = length;
+				}
+				if (l > MIN_COMPACTION_SIZE && l > 2 * compactedLength)
+					compact();
+			}
+		};
+		
+		return true;
+	}
+	
+	@Override
+	protected void allLoaded() {
+		// no transaction support
+	}
+	
+	@Override
+	protected boolean requiresFile() {
+		return true;
+	}
+	
+	@Override
+	protected File getFile(final String file) {
+		return new File(file);
+	}
+	
+	@Override
+	protected boolean save(final String name, final @Nullable String type, final @Nullable byte[] value) {
+		synchronized (connectionLock) {
+			final DataOutputStream out = this.out;
+			if (out == null)
+				return false;
+			try {
+				length += writeRecord(out, name, type, value);
+				out.flush();
+				return true;
+			} catch (final IOException e) {
+				Skript.exception(e, "Cannot save the variable {" + name + "} to the database '" + databaseName + "'");
+				return false;
+			}
+		}
+	}
+	
+	/**
+	 * Appends the whole batch to the log and flushes it once.
+	 */
+	@Override
+	protected void save(final List<SerializedVariable> batch) {
+		synchronized (connectionLock) {
+			final DataOutputStream out = this.out;
+			if (out == null)
+				return;
+			try {
+				for (final SerializedVariable var : batch) {
+					final SerializedVariable.Value v = var.value;
+					length += v == null ? writeRecord(out, var.name, null, null) : writeRecord(out, var.name, v.type, v.data);
+				}
+				out.flush();
+			} catch (final IOException e) {
+				Skript.exception(e, "Cannot save " + batch.size() + " variables to the database '" + databaseName + "'");
+			}
+		}
+	}
+	
+	/**
+	 * @return The number of bytes written
+	 */
+	final static int writeRecord(final DataOutputStream out, final String name, final @Nullable String type, final @Nullable byte[] value) throws IOException {
+		final byte[] n = name.getBytes(UTF_8);
+		if (type == null || value == null) {
+			out.writeInt(4 + n.length + 4);
+			out.writeInt(n.length);
+			out.write(n);
+			out.writeInt(-1);
+			return 4 + 4 + n.length + 4;
+		}
+		final byte[] t = type.getBytes(UTF_8);
+		final int length = 4 + n.length + 4 + t.length + 4 + value.length;
+		out.writeInt(length);
+		out.writeInt(n.length);
+		out.write(n);
+		out.writeInt(t.length);
+		out.write(t);
+		out.writeInt(value.length);
+		out.write(value);
+		return 4 + length;
+	}
+	
+	/**
+	 * Rewrites the log with only the latest record of each variable.
+	 * <p>
+	 * Variables can still be saved while the old log is read and its live records are written to a temporary file. Only copying the records that were appended in the
+	 * meantime and replacing the log with the temporary file blocks saving. The old log is streamed twice, once to find the latest records and once to copy them.
+	 * <p>
+	 * Does nothing if the storage has been closed already, and {@link #close()} waits for a running compaction to finish.
+	 */
+	final void compact() {
+		synchronized (compactionLock) {
+			if (shutDown)
+				return;
+			compact_i();
+		}
+	}
+	
+	@SuppressWarnings("resource")
+	private void compact_i() {
+		final File f = file;
+		if (f == null) {
+			assert false : this;
+			return;
+		}
+		final File tempFile = new File(f.getPath() + ".temp");
+		final long end;
+		synchronized (connectionLock) {
+			try {
+				final DataOutputStream out = this.out;
+				if (out != null)
+					out.flush();
+			} catch (final IOException e) {
+				Skript.exception(e, "Cannot compact the database '" + databaseName + "'");
+				return;
+			}
+			end = length;
+		}
+		
+		DataOutputStream temp = null;
+		try {
+			temp = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			temp.writeInt(MAGIC);
+			temp.writeInt(VERSION);
+			long written = HEADER_LENGTH;
+			final Map<String, Long> latest;
+			final LogReader r = LogReader.open(f, end);
+			try {
+				latest = r.readLatest();
+				if (!r.validHeader || r.validEnd != end)
+					throw new IOException("The file '" + f.getName() + "' contains invalid data");
+			} finally {
+				r.close();
+			}
+			final LogReader values = LogReader.open(f, end);
+			try {
+				while (values.nextLatest(latest)) { // keeps the relative order of the records
+					final SerializedVariable.Value v = values.value();
+					written += writeRecord(temp, values.name, v.type, v.data);
+				}
+			} finally {
+				values.close();
+			}
+			
+			synchronized (connectionLock) {
+				final DataOutputStream out = this.out;
+				if (out != null) {
+					out.flush();
+					out.close();
+					this.out = null;
+				}
+				// copy the records that were saved since starting the compaction
+				final long tail = length - end;
+				if (tail > 0) {
+					copy(f, end, tail, temp);
+					written += tail;
+				}
+				temp.close();
+				temp = null;
+				FileUtils.move(tempFile, f, true);
+				length = written;
+				compactedLength = written;
+				connect();
+			}
+		} catch (final IOException e) {
+			Skript.error("Cannot compact the database '" + databaseName + "' (no variables are lost): " + ExceptionUtils.toString(e));
+			synchronized (connectionLock) {
+				connect();
+			}
+		} finally {
+			if (temp != null) {
+				try {
+					temp.close();
+				} catch (final IOException e) {}
+			}
+		}
+	}
+	
+	@Override
+	protected boolean connect() {
+		synchronized (connectionLock) {
+			if (out != null)
+				return true;
+			final File f = file;
+			if (f == null) {
+				assert false : this;
+				return false;
+			}
+			try {
+				final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f, true)));
+				if (f.length() == 0) {
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					out.flush();
+					length = HEADER_LENGTH;
+				}
+				this.out = out;
+				return true;
+			} catch (final IOException e) {
+				Skript.error("Cannot open the database '" + databaseName + "' for writing: " + ExceptionUtils.toString(e));
+				return false;
+			}
+		}
+	}
+	
+	@Override
+	protected void disconnect() {
+		synchronized (connectionLock) {
+			final DataOutputStream out = this.out;
+			if (out == null)
+				return;
+			try {
+				out.close();
+			} catch (final IOException e) {
+				Skript.exception(e, "Cannot close the database '" + databaseName + "'");
+			}
+			this.out = null;
+		}
+	}
+	
+	@Override
+	public void close() {
+		final Task ct = compactTask;
+		if (ct != null)
+			ct.cancel();
+		final Task bt = backupTask;
+		if (bt != null)
+			bt.cancel();
+		super.close();
+		synchronized (compactionLock) { // waits for a running compaction
+			final long l;
+			synchronized (connectionLock) {
+				l = length;
+			}
+			if (!shutDown && l > MIN_COMPACTION_SIZE && l > 2 * compactedLength)
+				compact_i();
+			disconnect();
+			shutDown = true;
+		}
+	}
+	
+}
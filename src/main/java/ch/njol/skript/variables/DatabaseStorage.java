@@ -23,9 +23,14 @@ import java.io.File;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import lib.PatPeter.SQLibrary.Database;
 import lib.PatPeter.SQLibrary.DatabaseException;
@@ -123,15 +128,52 @@ public class DatabaseStorage extends VariablesStorage {
 	final SynchronizedReference<Database> db = new SynchronizedReference<Database>(null);
 
 	private boolean monitor = false;
+	/**
+	 * The configured monitor interval, i.e. the maximum delay between checks for changes made by other servers.
+	 */
 	long monitor_interval;
 
+	/**
+	 * The minimum delay between checks for changes made by other servers in milliseconds, used while variables are changed frequently.
+	 */
+	private final static long MIN_MONITOR_INTERVAL = 1000;
+
+	/**
+	 * The maximum number of changes made by other servers that are applied per tick.
+	 */
+	private final static int MAX_CHANGES_PER_TICK = 500;
+
+	/**
+	 * Changes read from the database by the monitor thread that still have to be applied on the main thread.
+	 */
+	private final ConcurrentLinkedQueue<VariableChange> monitoredChanges = new ConcurrentLinkedQueue<VariableChange>();
+
+	@Nullable
+	private Task applyChangesTask;
+
+	/**
+	 * Deletes the rows of deleted variables once all servers have had enough time to see the deletions.
+	 */
+	@Nullable
+	private Task cleanUpTask;
+
 	private final static String guid = "" + UUID.randomUUID().toString();
 
 	/**
-	 * The delay between transactions in milliseconds.
+	 * The default delay between transactions in milliseconds.
 	 */
 	private final static long TRANSACTION_DELAY = 500;
 
+	/**
+	 * The default maximum number of changes written with a single JDBC batch.
+	 */
+	private final static int BATCH_SIZE = 100;
+
+	/**
+	 * The delay between transactions in milliseconds, i.e. how long changes may be held back before they are committed.
+	 */
+	private long flushLatency = TRANSACTION_DELAY;
+
 	DatabaseStorage(final String name, final Type type) {
 		super(name);
 		this.type = type;
@@ -178,6 +220,25 @@ public class DatabaseStorage extends VariablesStorage {
 			monitor = monitor_changes;
 			this.monitor_interval = monitor_interval.getMilliSeconds();
 
+			if (n.get("batch size") != null) {
+				final Integer batchSize = getValue(n, "batch size", Integer.class);
+				if (batchSize == null)
+					return false;
+				if (batchSize < 1) {
+					Skript.error("The batch size of the database '" + databaseName + "' must be at least 1");
+					return false;
+				}
+				this.batchSize = batchSize;
+			} else {
+				batchSize = BATCH_SIZE;
+			}
+			if (n.get("flush latency") != null) {
+				final Timespan flushLatency = getValue(n, "flush latency", Timespan.class);
+				if (flushLatency == null)
+					return false;
+				this.flushLatency = flushLatency.getMilliSeconds();
+			}
+
 			final Database db;
 			try {
 				final Object o = type.initialise(this, n);
@@ -243,20 +304,16 @@ public class DatabaseStorage extends VariablesStorage {
 				if (hasOldTable) {
 					if (!hadNewTable) {
 						Skript.info("[2.1] Updating the database '" + databaseName + "' to the new format...");
-						try {
-							Variables.getReadLock().lock();
-							for (final Entry<String, Object> v : Variables.getVariablesHashMap().entrySet()) {
-								if (accept(v.getKey())) {// only one database was possible, so only checking this database is correct
-									@SuppressWarnings("null")
-									final SerializedVariable var = Variables.serialize(v.getKey(), v.getValue());
-									final SerializedVariable.Value d = var.value;
-									save(var.name, d == null ? null : d.type, d == null ? null : d.data);
-								}
+						final Map<String, Object> vars = Variables.copyVariablesHashMap();
+						for (final Entry<String, Object> v : vars.entrySet()) {
+							if (accept(v.getKey())) {// only one database was possible, so only checking this database is correct
+								@SuppressWarnings("null")
+								final SerializedVariable var = Variables.serialize(v.getKey(), v.getValue());
+								final SerializedVariable.Value d = var.value;
+								save(var.name, d == null ? null : d.type, d == null ? null : d.data);
 							}
-							Skript.info("Updated and transferred " + Variables.getVariablesHashMap().size() + " variables to the new table.");
-						} finally {
-							Variables.getReadLock().unlock();
 						}
+						Skript.info("Updated and transferred " + vars.size() + " variables to the new table.");
 					}
 					db.query("DELETE FROM " + OLD_TABLE_NAME + " WHERE value IS NULL");
 					db.query("DELETE FROM old USING " + OLD_TABLE_NAME + " AS old, " + getTableName() + " AS new WHERE old.name = new.name");
@@ -334,13 +391,52 @@ public class DatabaseStorage extends VariablesStorage {
 						lastCommit = System.currentTimeMillis();
 					}
 					try {
-						Thread.sleep(Math.max(0, lastCommit + TRANSACTION_DELAY - System.currentTimeMillis()));
+						Thread.sleep(Math.max(0, lastCommit + flushLatency - System.currentTimeMillis()));
 					} catch (final InterruptedException e) {}
 				}
 			}
 		}, "Skript database '" + databaseName + "' transaction committing thread").start();
 
 		if (monitor) {
+			applyChangesTask = new Task(Skript.getInstance(), 1, 1) {
+				@Override
+				public void run() {
+					for (int i = 0; i < MAX_CHANGES_PER_TICK; i++) {
+						final VariableChange c = monitoredChanges.poll();
+						if (c == null)
+							break;
+						c.apply();
+					}
+				}
+			};
+
+			final long cleanUpDelay = (long) Math.ceil(2. * monitor_interval / 50) + 100; // 2 times the interval + 5 seconds
+			cleanUpTask = new Task(Skript.getInstance(), cleanUpDelay, cleanUpDelay, true) {
+				/**
+				 * The last row ID seen by this server when this task last ran. All rows up to it have been visible for at least the delay of this task.
+				 */
+				private long cleanUpRowID = -1;
+
+				@Override
+				public void run() {
+					try {
+						synchronized (db) {
+							if (closed || db.get() == null)
+								return;
+							if (cleanUpRowID != -1) {
+								final PreparedStatement monitorCleanUpQuery = DatabaseStorage.this.monitorCleanUpQuery;
+								assert monitorCleanUpQuery != null;
+								monitorCleanUpQuery.setLong(1, cleanUpRowID);
+								monitorCleanUpQuery.executeUpdate();
+							}
+							cleanUpRowID = lastRowID;
+						}
+					} catch (final SQLException e) {
+						sqlException(e);
+					}
+				}
+			};
+
 			Skript.newThread(new Runnable() {
 				@Override
 				public void run() {
@@ -350,19 +446,22 @@ public class DatabaseStorage extends VariablesStorage {
 
 					long lastWarning = Long.MIN_VALUE;
 					final int WARING_INTERVAL = 10;
+					long interval = monitor_interval;
 
 					while (!closed) {
-						final long next = System.currentTimeMillis() + monitor_interval;
-						checkDatabase();
+						final long start = System.currentTimeMillis();
+						final int changes = checkDatabase();
 						final long now = System.currentTimeMillis();
-						if (next < now && lastWarning + WARING_INTERVAL * 1000 < now) {
+						if (start + monitor_interval < now && lastWarning + WARING_INTERVAL * 1000 < now) {
 							// TODO don't print this message when Skript loads (because scripts are loaded after variables and take some time)
-							Skript.warning("Cannot load variables from the database fast enough (loading took " + ((now - next + monitor_interval) / 1000.) + "s, monitor interval = " + (monitor_interval / 1000.) + "s). " +
+							Skript.warning("Cannot load variables from the database fast enough (loading took " + ((now - start) / 1000.) + "s, monitor interval = " + (monitor_interval / 1000.) + "s). " +
 									"Please increase your monitor interval or reduce usage of variables. " +
 									"(this warning will be repeated at most once every " + WARING_INTERVAL + " seconds)");
 							lastWarning = now;
 						}
-						while (System.currentTimeMillis() < next) {
+						interval = nextMonitorInterval(interval, monitor_interval, changes, monitoredChanges.size());
+						final long next = start + interval;
+						while (!closed && System.currentTimeMillis() < next) {
 							try {
 								Thread.sleep(next - System.currentTimeMillis());
 							} catch (final InterruptedException e) {}
@@ -419,7 +518,7 @@ public class DatabaseStorage extends VariablesStorage {
 	 *
 	 * @return
 	 */
-	private boolean prepareQueries() {
+	boolean prepareQueries() {
 		synchronized (db) {
 			final Database db = this.db.get();
 			assert db != null;
@@ -494,14 +593,18 @@ public class DatabaseStorage extends VariablesStorage {
 	@Nullable
 	PreparedStatement monitorCleanUpQuery;
 
+	private final static void checkSize(final String name, final @Nullable byte[] value) {
+		// REMIND get the actual maximum size from the database
+		if (name.length() > MAX_VARIABLE_NAME_LENGTH)
+			Skript.error("The name of the variable {" + name + "} is too long to be saved in a database (length: " + name.length() + ", maximum allowed: " + MAX_VARIABLE_NAME_LENGTH + ")! It will be truncated and won't bet available under the same name again when loaded.");
+		if (value != null && value.length > MAX_VALUE_SIZE)
+			Skript.error("The variable {" + name + "} cannot be saved in the database as its value's size (" + value.length + ") exceeds the maximum allowed size of " + MAX_VALUE_SIZE + "! An attempt to save the variable will be made nonetheless.");
+	}
+
 	@Override
 	protected boolean save(final String name, final @Nullable String type, final @Nullable byte[] value) {
 		synchronized (db) {
-			// REMIND get the actual maximum size from the database
-			if (name.length() > MAX_VARIABLE_NAME_LENGTH)
-				Skript.error("The name of the variable {" + name + "} is too long to be saved in a database (length: " + name.length() + ", maximum allowed: " + MAX_VARIABLE_NAME_LENGTH + ")! It will be truncated and won't bet available under the same name again when loaded.");
-			if (value != null && value.length > MAX_VALUE_SIZE)
-				Skript.error("The variable {" + name + "} cannot be saved in the database as its value's size (" + value.length + ") exceeds the maximum allowed size of " + MAX_VALUE_SIZE + "! An attempt to save the variable will be made nonetheless.");
+			checkSize(name, value);
 			try {
 				if (type == null) {
 					assert value == null;
@@ -527,11 +630,85 @@ public class DatabaseStorage extends VariablesStorage {
 		return true;
 	}
 
+	/**
+	 * Writes the whole batch with at most one JDBC batch for writes and one for deletes. The changes will be committed by the transaction committing thread.
+	 */
+	@Override
+	protected void save(final List<SerializedVariable> batch) {
+		synchronized (db) {
+			final PreparedStatement writeQuery = this.writeQuery, deleteQuery = this.deleteQuery;
+			assert writeQuery != null && deleteQuery != null;
+			try {
+				saveBatch(writeQuery, deleteQuery, guid, batch);
+			} catch (final SQLException e) {
+				sqlException(e);
+			}
+		}
+	}
+
+	/**
+	 * Adds the given changes to the given statements' batches and executes them.
+	 * <p>
+	 * Only the last change of each variable is written. As the remaining changes all concern different variables, the writes and deletes can be executed in any
+	 * order.
+	 * 
+	 * @param writeQuery Params: name, type, value, GUID
+	 * @param deleteQuery Params: name
+	 * @param guid
+	 * @param batch
+	 * @return The number of distinct variables written or deleted
+	 * @throws SQLException
+	 */
+	final static int saveBatch(final PreparedStatement writeQuery, final PreparedStatement deleteQuery, final String guid, final List<SerializedVariable> batch) throws SQLException {
+		final Map<String, SerializedVariable> last;
+		if (batch.size() == 1) {
+			last = null;
+		} else {
+			last = new LinkedHashMap<String, SerializedVariable>();
+			for (final SerializedVariable var : batch)
+				last.put(var.name, var);
+		}
+		boolean writes = false, deletes = false;
+		for (final SerializedVariable var : last == null ? batch : last.values()) {
+			final SerializedVariable.Value d = var.value;
+			checkSize(var.name, d == null ? null : d.data);
+			if (d == null) {
+				deleteQuery.setString(1, var.name);
+				deleteQuery.addBatch();
+				deletes = true;
+			} else {
+				int i = 1;
+				writeQuery.setString(i++, var.name);
+				writeQuery.setString(i++, d.type);
+				writeQuery.setBytes(i++, d.data); // SQLite desn't support setBlob
+				writeQuery.setString(i++, guid);
+				writeQuery.addBatch();
+				writes = true;
+			}
+		}
+		try {
+			if (writes)
+				writeQuery.executeBatch();
+			if (deletes)
+				deleteQuery.executeBatch();
+		} finally {
+			writeQuery.clearBatch();
+			deleteQuery.clearBatch();
+		}
+		return last == null ? batch.size() : last.size();
+	}
+
 	@SuppressWarnings("null")
 	@Override
 	public void close() {
+		final Task applyChangesTask = this.applyChangesTask;
+		if (applyChangesTask != null)
+			applyChangesTask.cancel();
+		final Task cleanUpTask = this.cleanUpTask;
+		if (cleanUpTask != null)
+			cleanUpTask.cancel();
+		super.close(); // waits for the write thread, which needs the lock on db to save its last batches
 		synchronized (db) {
-			super.close();
 			final Database db = this.db.get();
 			if (db != null) {
 				try {
@@ -547,51 +724,136 @@ public class DatabaseStorage extends VariablesStorage {
 
 	long lastRowID = -1;
 
-	protected void checkDatabase() {
-		try {
-			final long lastRowID; // local variable as this is used to clean the database below
-			ResultSet r = null;
-			try {
-				synchronized (db) {
-					if (closed || db.get() == null)
-						return;
-					lastRowID = this.lastRowID;
-					final PreparedStatement monitorQuery = this.monitorQuery;
-					assert monitorQuery != null;
-					monitorQuery.setLong(1, lastRowID);
-					monitorQuery.setString(2, guid);
-					monitorQuery.execute();
-					r = monitorQuery.getResultSet();
-					assert r != null;
-				}
-				if (!closed)
-					loadVariables(r);
-			} finally {
-				if (r != null)
-					r.close();
-			}
+	/**
+	 * Adapts the delay between checks for changes to the rate at which other servers change variables: The delay is halved whenever changes were found (down to
+	 * {@link #MIN_MONITOR_INTERVAL}), and doubled whenever nothing changed (up to the configured interval). If many changes are still waiting to be applied the
+	 * delay is not reduced, as checking more often wouldn't make them available any sooner.
+	 *
+	 * @param interval The current delay
+	 * @param maxInterval The configured monitor interval
+	 * @param changes How many changes were found by the last check
+	 * @param pending How many changes are still waiting to be applied
+	 * @return The delay until the next check
+	 */
+	final static long nextMonitorInterval(final long interval, final long maxInterval, final int changes, final int pending) {
+		if (changes == 0)
+			return Math.min(maxInterval, interval * 2);
+		if (pending >= MAX_CHANGES_PER_TICK)
+			return interval;
+		return Math.max(Math.min(MIN_MONITOR_INTERVAL, maxInterval), interval / 2);
+	}
 
-			if (!closed) { // Skript may have been disabled in the meantime // TODO not fixed
-				new Task(Skript.getInstance(), (long) Math.ceil(2. * monitor_interval / 50) + 100, true) { // 2 times the interval + 5 seconds
-					@Override
-					public void run() {
-						try {
-							synchronized (db) {
-								if (closed || db.get() == null)
-									return;
-								final PreparedStatement monitorCleanUpQuery = DatabaseStorage.this.monitorCleanUpQuery;
-								assert monitorCleanUpQuery != null;
-								monitorCleanUpQuery.setLong(1, lastRowID);
-								monitorCleanUpQuery.executeUpdate();
-							}
-						} catch (final SQLException e) {
-							sqlException(e);
+	/**
+	 * Checks the database for changes made by other servers. The changed rows are read while holding the database lock, deserialised on the calling thread
+	 * where possible, and then queued to be applied on the main thread in batches of at most {@link #MAX_CHANGES_PER_TICK} changes per tick.
+	 *
+	 * @return How many changes were found
+	 */
+	protected int checkDatabase() {
+		try {
+			final long lastRowID;
+			final List<VariableChange> changes = new ArrayList<VariableChange>();
+			synchronized (db) {
+				if (closed || db.get() == null)
+					return 0;
+				lastRowID = this.lastRowID;
+				final PreparedStatement monitorQuery = this.monitorQuery;
+				assert monitorQuery != null;
+				monitorQuery.setLong(1, lastRowID);
+				monitorQuery.setString(2, guid);
+				monitorQuery.execute();
+				final ResultSet r = monitorQuery.getResultSet();
+				assert r != null;
+				try {
+					while (r.next()) {
+						int i = 1;
+						final String name = r.getString(i++);
+						final String type = r.getString(i++);
+						final byte[] value = r.getBytes(i++); // Blob not supported by SQLite
+						this.lastRowID = r.getLong(i++);
+						if (name == null) {
+							Skript.error("Variable with NULL name found in the database '" + databaseName + "', ignoring it");
+							continue;
 						}
+						changes.add(new VariableChange(name, type, value));
 					}
-				};
+				} finally {
+					r.close();
+				}
 			}
+
+			for (final VariableChange c : changes)
+				c.deserialise();
+			monitoredChanges.addAll(changes);
+			return changes.size();
 		} catch (final SQLException e) {
 			sqlException(e);
+			return 0;
+		}
+	}
+
+	/**
+	 * A variable changed by another server.
+	 */
+	private final class VariableChange {
+		final String name;
+		@Nullable
+		final String type;
+		/**
+		 * null if the variable was deleted
+		 */
+		@Nullable
+		final byte[] data;
+
+		@Nullable
+		ClassInfo<?> classInfo;
+		@Nullable
+		Object value;
+		boolean deserialised = false;
+
+		VariableChange(final String name, final @Nullable String type, final @Nullable byte[] data) {
+			this.name = name;
+			this.type = type;
+			this.data = data;
+		}
+
+		/**
+		 * Deserialises the value if that can be done off the main thread.
+		 */
+		void deserialise() {
+			final byte[] data = this.data;
+			if (data == null)
+				return;
+			final ClassInfo<?> c = classInfo = Classes.getClassInfoNoError(type);
+			final Serializer<?> s;
+			if (c == null || (s = c.getSerializer()) == null || s.mustSyncDeserialization())
+				return;
+			value = Classes.deserialize(c, data);
+			deserialised = true;
+		}
+
+		/**
+		 * Must be called on the main thread.
+		 */
+		void apply() {
+			final byte[] data = this.data;
+			if (data == null) {
+				Variables.variableLoaded(name, null, DatabaseStorage.this);
+				return;
+			}
+			final ClassInfo<?> c = classInfo;
+			if (c == null || c.getSerializer() == null) {
+				Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', because the type '" + type + "' cannot be recognised or cannot be stored in variables");
+				return;
+			}
+			if (!deserialised)
+				value = Classes.deserialize(c, data);
+			final Object d = value;
+			if (d == null) {
+				Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', because it cannot be loaded as " + c.getName().withIndefiniteArticle());
+				return;
+			}
+			Variables.variableLoaded(name, d, DatabaseStorage.this);
 		}
 	}
 
@@ -29,9 +29,17 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -39,6 +47,8 @@ import java.util.regex.Pattern;
 import org.eclipse.jdt.annotation.Nullable;
 
 import ch.njol.skript.Skript;
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.classes.Serializer;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.lang.Variable;
 import ch.njol.skript.log.SkriptLogger;
@@ -63,7 +73,7 @@ public class FlatFileStorage extends VariablesStorage {
 	public final static Charset UTF_8 = Charset.forName("UTF-8");
 	
 	/**
-	 * A Lock on this object must be acquired after connectionLock (if that lock is used) (and thus also after {@link Variables#getReadLock()}).
+	 * A Lock on this object must be acquired after connectionLock (if that lock is used).
 	 */
 	private final NotifyingReference<PrintWriter> changesWriter = new NotifyingReference<PrintWriter>();
 	
@@ -82,9 +92,131 @@ public class FlatFileStorage extends VariablesStorage {
 	}
 	
 	/**
+	 * How many lines are handed to a loader thread at once.
+	 */
+	private final static int LOAD_BATCH_SIZE = 1000;
+	
+	/**
+	 * How many batches may be read ahead of the main thread before reading waits for the oldest batch.
+	 */
+	private final static int MAX_PENDING_BATCHES = 64;
+	
+	/**
+	 * Returned by {@link #deserializeAsync(String, byte[])} for values that must be deserialised on the main thread.
+	 */
+	final static Object SYNC = new Object();
+	
+	/**
+	 * How many loader threads {@link #loadFile(BufferedReader, StringBuilder)} uses. The lines are parsed on the calling thread if this is less than 1.
+	 */
+	int loaderThreads = Runtime.getRuntime().availableProcessors() - 1;
+	
+	/**
+	 * Whether the loaded file was saved by a version of Skript older than 2.1, set by {@link #loadFile(BufferedReader, StringBuilder)}.
+	 */
+	private boolean update2_1 = false;
+	
+	/**
+	 * A line of the variables file which has been parsed (and usually deserialised) by a loader thread.
+	 */
+	private final class LoadedLine {
+		
+		final int lineNum;
+		final String line;
+		final boolean update2_0_beta3;
+		final boolean update2_1;
+		
+		@Nullable
+		String[] split;
+		
+		/**
+		 * The deserialised value, or null if the variable is not set or deserialisation failed.
+		 */
+		@Nullable
+		Object value;
+		
+		/**
+		 * Whether the value still has to be deserialised on the main thread.
+		 */
+		boolean sync = false;
+		
+		/**
+		 * Decoded value for {@link #sync} lines.
+		 */
+		@Nullable
+		byte[] data;
+		
+		LoadedLine(final int lineNum, final String line, final boolean update2_0_beta3, final boolean update2_1) {
+			this.lineNum = lineNum;
+			this.line = line;
+			this.update2_0_beta3 = update2_0_beta3;
+			this.update2_1 = update2_1;
+		}
+		
+		/**
+		 * Parses this line and deserialises its value if that can be done off the main thread.
+		 */
+		void parse() {
+			final String[] split = this.split = splitCSV(line);
+			if (split == null || split.length != 3 || split[1].equals("null"))
+				return;
+			if (update2_1) { // the old string format can only be read on the main thread
+				sync = true;
+				return;
+			}
+			final byte[] data = decode("" + split[2]);
+			final Object value = deserializeAsync("" + split[1], data);
+			if (value == SYNC) {
+				this.data = data;
+				sync = true;
+				return;
+			}
+			this.value = value;
+		}
+		
+	}
+	
+	/**
+	 * Deserialises a value on a loader thread.
+	 * 
+	 * @return The value, null if it cannot be deserialised, or {@link #SYNC} if it must be deserialised on the main thread with
+	 *         {@link #deserializeSync(String, byte[])}
+	 */
+	@Nullable
+	Object deserializeAsync(final String type, final byte[] data) {
+		final ClassInfo<?> ci = Classes.getClassInfoNoError(type);
+		if (ci == null)
+			return null;
+		final Serializer<?> s = ci.getSerializer();
+		if (s == null || s.mustSyncDeserialization())
+			return SYNC;
+		return Classes.deserialize(ci, data);
+	}
+	
+	/**
+	 * Deserialises a value on the main thread.
+	 */
+	@Nullable
+	Object deserializeSync(final String type, final byte[] data) {
+		return Classes.deserialize(type, data);
+	}
+	
+	/**
+	 * Passes a loaded variable on to {@link Variables#variableLoaded(String, Object, VariablesStorage)}.
+	 */
+	void variableLoaded(final String name, final @Nullable Object value) {
+		Variables.variableLoaded(name, value, this);
+	}
+	
+	/**
+	 * Loads the variables file.
+	 * <p>
+	 * The file is read on the calling thread, but parsing and deserialisation of the lines is done in batches by a pool of loader threads. Values whose serialiser
+	 * {@link Serializer#mustSyncDeserialization() must deserialise synchronously} are deserialised on the calling thread. The variables are passed to
+	 * {@link Variables#variableLoaded(String, Object, VariablesStorage)} in the order they appear in the file.
+	 * <p>
 	 * Doesn'ts lock the connection as required by {@link Variables#variableLoaded(String, Object, VariablesStorage)}.
 	 */
-	@SuppressWarnings({"deprecation"})
 	@Override
 	protected boolean load_i(final SectionNode n) {
 		SkriptLogger.setNode(null);
@@ -93,61 +225,10 @@ public class FlatFileStorage extends VariablesStorage {
 		int unsuccessful = 0;
 		final StringBuilder invalid = new StringBuilder();
 		
-		Version varVersion = Skript.getVersion(); // will be set later
-		
-		final Version v2_0_beta3 = new Version(2, 0, "beta 3");
-		boolean update2_0_beta3 = false;
-		final Version v2_1 = new Version(2, 1);
-		boolean update2_1 = false;
-		
 		BufferedReader r = null;
 		try {
 			r = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
-			String line = null;
-			int lineNum = 0;
-			while ((line = r.readLine()) != null) {
-				lineNum++;
-				line = line.trim();
-				if (line.isEmpty() || line.startsWith("#")) {
-					if (line.startsWith("# version:")) {
-						try {
-							varVersion = new Version("" + line.substring("# version:".length()).trim());
-							update2_0_beta3 = varVersion.isSmallerThan(v2_0_beta3);
-							update2_1 = varVersion.isSmallerThan(v2_1);
-						} catch (final IllegalArgumentException e) {}
-					}
-					continue;
-				}
-				final String[] split = splitCSV(line);
-				if (split == null || split.length != 3) {
-					Skript.error("invalid amount of commas in line " + lineNum + " ('" + line + "')");
-					if (invalid.length() != 0)
-						invalid.append(", ");
-					invalid.append(split == null ? "<unknown>" : split[0]);
-					unsuccessful++;
-					continue;
-				}
-				if (split[1].equals("null")) {
-					Variables.variableLoaded("" + split[0], null, this);
-				} else {
-					Object d;
-					if (update2_1)
-						d = Classes.deserialize("" + split[1], "" + split[2]);
-					else
-						d = Classes.deserialize("" + split[1], decode("" + split[2]));
-					if (d == null) {
-						if (invalid.length() != 0)
-							invalid.append(", ");
-						invalid.append(split[0]);
-						unsuccessful++;
-						continue;
-					}
-					if (d instanceof String && update2_0_beta3) {
-						d = Utils.replaceChatStyles((String) d);
-					}
-					Variables.variableLoaded("" + split[0], d, this);
-				}
-			}
+			unsuccessful = loadFile(r, invalid);
 		} catch (final IOException e) {
 			loadError = true;
 			ioEx = e;
@@ -197,13 +278,8 @@ public class FlatFileStorage extends VariablesStorage {
 			@Override
 			public void run() {
 				if (changes.get() >= REQUIRED_CHANGES_FOR_RESAVE) {
-					try {
-						Variables.getReadLock().lock();
-						saveVariables(false);
-						changes.set(0);
-					} finally {
-						Variables.getReadLock().unlock();
-					}
+					saveVariables(false);
+					changes.set(0);
 				}
 			}
 		};
@@ -211,6 +287,161 @@ public class FlatFileStorage extends VariablesStorage {
 		return ioEx == null;
 	}
 	
+	/**
+	 * Reads the variables from the given reader, see {@link #load_i(SectionNode)}.
+	 * 
+	 * @return How many variables could not be loaded
+	 */
+	@SuppressWarnings("deprecation")
+	final int loadFile(final BufferedReader r, final StringBuilder invalid) throws IOException {
+		int unsuccessful = 0;
+		
+		final Version v2_0_beta3 = new Version(2, 0, "beta 3");
+		boolean update2_0_beta3 = false;
+		final Version v2_1 = new Version(2, 1);
+		update2_1 = false;
+		
+		final int threads = loaderThreads;
+		@Nullable
+		final ExecutorService executor = threads < 1 ? null : Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger(0);
+			
+			@Override
+			public Thread newThread(final @Nullable Runnable r) {
+				final Thread t = new Thread(r, "Skript variable loader #" + count.incrementAndGet() + " (" + databaseName + ")");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		final ArrayDeque<Future<List<LoadedLine>>> pending = new ArrayDeque<>();
+		
+		try {
+			String line = null;
+			int lineNum = 0;
+			List<LoadedLine> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+			while (true) {
+				line = r.readLine();
+				if (line != null) {
+					lineNum++;
+					line = line.trim();
+					if (line.isEmpty() || line.startsWith("#")) {
+						if (line.startsWith("# version:")) {
+							try {
+								final Version varVersion = new Version("" + line.substring("# version:".length()).trim());
+								update2_0_beta3 = varVersion.isSmallerThan(v2_0_beta3);
+								update2_1 = varVersion.isSmallerThan(v2_1);
+							} catch (final IllegalArgumentException e) {}
+						}
+						continue;
+					}
+					batch.add(new LoadedLine(lineNum, line, update2_0_beta3, update2_1));
+					if (batch.size() < LOAD_BATCH_SIZE)
+						continue;
+				}
+				
+				if (!batch.isEmpty()) {
+					final List<LoadedLine> b = batch;
+					if (executor == null) {
+						for (final LoadedLine l : b)
+							l.parse();
+						unsuccessful += loadLines(b, invalid);
+					} else {
+						pending.add(executor.submit(new Callable<List<LoadedLine>>() {
+							@Override
+							public List<LoadedLine> call() {
+								for (final LoadedLine l : b)
+									l.parse();
+								return b;
+							}
+						}));
+					}
+					batch = new ArrayList<>(LOAD_BATCH_SIZE);
+				}
+				
+				while (!pending.isEmpty() && (line == null || pending.size() > MAX_PENDING_BATCHES || pending.peek().isDone()))
+					unsuccessful += loadLines(getBatch(pending.poll()), invalid);
+				
+				if (line == null)
+					break;
+			}
+		} finally {
+			if (executor != null)
+				executor.shutdownNow();
+		}
+		return unsuccessful;
+	}
+	
+	/**
+	 * Waits for a batch of lines to be parsed by a loader thread.
+	 */
+	private final static List<LoadedLine> getBatch(final Future<List<LoadedLine>> future) {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					final List<LoadedLine> batch = future.get();
+					assert batch != null;
+					return batch;
+				} catch (final InterruptedException e) {
+					interrupted = true;
+				} catch (final ExecutionException e) {
+					throw Skript.exception(e.getCause(), "Error while loading variables");
+				}
+			}
+		} finally {
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Passes a batch of parsed lines to {@link Variables#variableLoaded(String, Object, VariablesStorage)}, deserialising the values that must be deserialised
+	 * on the main thread.
+	 * 
+	 * @return How many variables could not be loaded
+	 */
+	@SuppressWarnings("deprecation")
+	private final int loadLines(final List<LoadedLine> batch, final StringBuilder invalid) {
+		int unsuccessful = 0;
+		for (final LoadedLine l : batch) {
+			final String[] split = l.split;
+			if (split == null || split.length != 3) {
+				Skript.error("invalid amount of commas in line " + l.lineNum + " ('" + l.line + "')");
+				if (invalid.length() != 0)
+					invalid.append(", ");
+				invalid.append(split == null ? "<unknown>" : split[0]);
+				unsuccessful++;
+				continue;
+			}
+			if (split[1].equals("null")) {
+				variableLoaded("" + split[0], null);
+			} else {
+				Object d;
+				if (!l.sync) {
+					d = l.value;
+				} else if (l.update2_1) {
+					d = Classes.deserialize("" + split[1], "" + split[2]);
+				} else {
+					final byte[] data = l.data;
+					assert data != null;
+					d = deserializeSync("" + split[1], data);
+				}
+				if (d == null) {
+					if (invalid.length() != 0)
+						invalid.append(", ");
+					invalid.append(split[0]);
+					unsuccessful++;
+					continue;
+				}
+				if (d instanceof String && l.update2_0_beta3) {
+					d = Utils.replaceChatStyles((String) d);
+				}
+				variableLoaded("" + split[0], d);
+			}
+		}
+		return unsuccessful;
+	}
+	
 	@Override
 	protected void allLoaded() {
 		// no transaction support
@@ -363,55 +594,50 @@ public class FlatFileStorage extends VariablesStorage {
 			if (bt != null)
 				bt.cancel();
 		}
-		try {
-			Variables.getReadLock().lock();
-			synchronized (connectionLock) {
-				try {
-					final File f = file;
-					if (f == null) {
-						assert false : this;
-						return;
-					}
-					disconnect();
-					if (loadError) {
-						try {
-							final File backup = FileUtils.backup(f);
-							Skript.info("Created a backup of the old " + f.getName() + " as " + backup.getName());
-							loadError = false;
-						} catch (final IOException e) {
-							Skript.error("Could not backup the old " + f.getName() + ": " + ExceptionUtils.toString(e));
-							Skript.error("No variables are saved!");
-							return;
-						}
-					}
-					final File tempFile = new File(Skript.getInstance().getDataFolder(), "variables.csv.temp");
-					PrintWriter pw = null;
+		synchronized (connectionLock) {
+			try {
+				final File f = file;
+				if (f == null) {
+					assert false : this;
+					return;
+				}
+				disconnect();
+				if (loadError) {
 					try {
-						pw = new PrintWriter(tempFile, "UTF-8");
-						pw.println("# === Skript's variable storage ===");
-						pw.println("# Please do not modify this file manually!");
-						pw.println("#");
-						pw.println("# version: " + Skript.getVersion());
-						pw.println();
-						save(pw, "", Variables.getVariables());
-						pw.println();
-						pw.flush();
-						pw.close();
-						FileUtils.move(tempFile, f, true);
+						final File backup = FileUtils.backup(f);
+						Skript.info("Created a backup of the old " + f.getName() + " as " + backup.getName());
+						loadError = false;
 					} catch (final IOException e) {
-						Skript.error("Unable to make a final save of the database '" + databaseName + "' (no variables are lost): " + ExceptionUtils.toString(e)); // FIXME happens at random - check locks/threads
-					} finally {
-						if (pw != null)
-							pw.close();
+						Skript.error("Could not backup the old " + f.getName() + ": " + ExceptionUtils.toString(e));
+						Skript.error("No variables are saved!");
+						return;
 					}
+				}
+				final File tempFile = new File(Skript.getInstance().getDataFolder(), "variables.csv.temp");
+				PrintWriter pw = null;
+				try {
+					pw = new PrintWriter(tempFile, "UTF-8");
+					pw.println("# === Skript's variable storage ===");
+					pw.println("# Please do not modify this file manually!");
+					pw.println("#");
+					pw.println("# version: " + Skript.getVersion());
+					pw.println();
+					save(pw, "", Variables.copyVariables()); // copied while holding connectionLock, so that changes made after the copy are written to the new file
+					pw.println();
+					pw.flush();
+					pw.close();
+					FileUtils.move(tempFile, f, true);
+				} catch (final IOException e) {
+					Skript.error("Unable to make a final save of the database '" + databaseName + "' (no variables are lost): " + ExceptionUtils.toString(e)); // FIXME happens at random - check locks/threads
 				} finally {
-					if (!finalSave) {
-						connect();
-					}
+					if (pw != null)
+						pw.close();
+				}
+			} finally {
+				if (!finalSave) {
+					connect();
 				}
 			}
-		} finally {
-			Variables.getReadLock().unlock();
 		}
 	}
 	
@@ -20,8 +20,8 @@
 package ch.njol.skript.variables;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -32,6 +32,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
 import java.util.regex.Pattern;
 
 import org.bukkit.Bukkit;
@@ -49,9 +50,12 @@ import ch.njol.skript.classes.ConfigurationSerializer;
 import ch.njol.skript.config.Config;
 import ch.njol.skript.config.Node;
 import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.ExecutionFrame;
+import ch.njol.skript.lang.LocalVariableSlots;
 import ch.njol.skript.lang.Variable;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.registrations.Converters;
+import ch.njol.skript.util.Task;
 import ch.njol.skript.variables.DatabaseStorage.Type;
 import ch.njol.skript.variables.SerializedVariable.Value;
 import ch.njol.util.Closeable;
@@ -106,8 +110,7 @@ public abstract class Variables {
 	static List<VariablesStorage> storages = new ArrayList<VariablesStorage>();
 	
 	public static boolean load() {
-		assert variables.treeMap.isEmpty();
-		assert variables.hashMap.isEmpty();
+		assert numVariables() == 0;
 		assert storages.isEmpty();
 		
 		final Config c = SkriptConfig.getConfig();
@@ -163,6 +166,8 @@ public abstract class Variables {
 					final VariablesStorage s;
 					if (type.equalsIgnoreCase("csv") || type.equalsIgnoreCase("file") || type.equalsIgnoreCase("flatfile")) {
 						s = new FlatFileStorage(name);
+					} else if (type.equalsIgnoreCase("binary")) {
+						s = new BinaryLogStorage(name);
 					} else if (type.equalsIgnoreCase("mysql")) {
 						s = new DatabaseStorage(name, Type.MYSQL);
 					} else if (type.equalsIgnoreCase("sqlite")) {
@@ -220,6 +225,12 @@ public abstract class Variables {
 			loadingLoggerThread.interrupt();
 			
 			saveThread.start();
+			changesTask = new Task(Skript.getInstance(), 1, 1) {
+				@Override
+				public void run() {
+					flushChanges();
+				}
+			};
 		}
 		return true;
 	}
@@ -232,34 +243,142 @@ public abstract class Variables {
 		return variableNameSplitPattern.split(name);
 	}
 	
-	private final static ReadWriteLock variablesLock = new ReentrantReadWriteLock(true);
 	/**
-	 * must be locked with {@link #variablesLock}.
+	 * The number of stripes the global variables are split into. Must be a power of two.
 	 */
-	private final static VariablesMap variables = new VariablesMap();
+	private final static int STRIPES = 64;
+	
 	/**
-	 * Not accessed concurrently
+	 * The global variables, split by the hash of their top-level name segment (i.e. the part before the first {@link Variable#SEPARATOR}). All variables of a list thus end
+	 * up in the same stripe, which keeps the list semantics of {@link VariablesMap} intact while writes to unrelated variables never contend.
+	 * <p>
+	 * Each stripe must be locked with the lock of the same index in {@link #variablesLocks}.
+	 */
+	private final static VariablesMap[] variables = new VariablesMap[STRIPES];
+	private final static ReadWriteLock[] variablesLocks = new ReadWriteLock[STRIPES];
+	static {
+		for (int i = 0; i < STRIPES; i++) {
+			variables[i] = new VariablesMap();
+			variablesLocks[i] = new ReentrantReadWriteLock();
+		}
+	}
+	
+	/**
+	 * Local variables that are set for an event while no trigger is executed for it, e.g. by addons before they execute a trigger. They are moved into the
+	 * {@link ExecutionFrame} that is created for the event next, see {@link #attachLocalVariables(ExecutionFrame)}.
+	 * <p>
+	 * Access must be synchronised.
 	 */
 	private final static WeakHashMap<Event, VariablesMap> localVariables = new WeakHashMap<Event, VariablesMap>();
 	
 	/**
-	 * Remember to lock with {@link #getReadLock()} and to not make any changes!
+	 * Whether {@link #localVariables} might not be empty, so that creating a frame doesn't have to lock it most of the time
 	 */
-	static TreeMap<String, Object> getVariables() {
-		return variables.treeMap;
+	private static volatile boolean hasDetachedLocalVariables = false;
+	
+	/**
+	 * Moves the local variables that have been set for the event of a new frame outside of any frame into the frame.
+	 * 
+	 * @param frame A new frame
+	 */
+	public static void attachLocalVariables(final ExecutionFrame frame) {
+		if (!hasDetachedLocalVariables)
+			return;
+		final VariablesMap map;
+		synchronized (localVariables) {
+			map = localVariables.remove(frame.getEvent());
+			if (localVariables.isEmpty())
+				hasDetachedLocalVariables = false;
+		}
+		if (map == null)
+			return;
+		final LocalVariableSlots slots = frame.getLocalVariableSlots();
+		if (slots != null) {
+			for (final String name : slots.getNames()) {
+				final Object value = map.getVariable(name);
+				if (value != null) {
+					frame.setLocalVariable(slots.indexOf(name), value);
+					map.setVariable(name, null);
+				}
+			}
+		}
+		frame.setLocalVariables(map);
 	}
 	
 	/**
-	 * Remember to lock with {@link #getReadLock()}!
+	 * @param e
+	 * @param frame The current frame of the event
+	 * @param create Whether to create the local variables if the event doesn't have any yet
+	 * @return The local variables of the given event
 	 */
-	@SuppressWarnings("null")
-	static Map<String, Object> getVariablesHashMap() {
-		return Collections.unmodifiableMap(variables.hashMap);
+	@Nullable
+	private static VariablesMap getLocalVariables(final @Nullable Event e, final @Nullable ExecutionFrame frame, final boolean create) {
+		if (frame != null) {
+			VariablesMap map = frame.getLocalVariables();
+			if (map == null && create)
+				frame.setLocalVariables(map = new VariablesMap());
+			return map;
+		}
+		if (e == null)
+			return null;
+		synchronized (localVariables) {
+			VariablesMap map = localVariables.get(e);
+			if (map == null && create) {
+				localVariables.put(e, map = new VariablesMap());
+				hasDetachedLocalVariables = true;
+			}
+			return map;
+		}
 	}
 	
-	@SuppressWarnings("null")
-	static Lock getReadLock() {
-		return variablesLock.readLock();
+	/**
+	 * @param name A global variable's name
+	 * @return The index of the stripe the variable belongs to
+	 */
+	static int getStripe(final String name) {
+		int end = name.indexOf(Variable.SEPARATOR);
+		if (end == -1)
+			end = name.length();
+		int h = 0;
+		for (int i = 0; i < end; i++)
+			h = 31 * h + name.charAt(i);
+		return (h ^ (h >>> 16)) & (STRIPES - 1);
+	}
+	
+	/**
+	 * Creates a sorted copy of the tree of all global variables, locking only one stripe at a time. The values themselves are not copied, so do not modify them!
+	 * <p>
+	 * This is used to save all variables without blocking changes to them while the copy is written.
+	 */
+	static TreeMap<String, Object> copyVariables() {
+		final TreeMap<String, Object> r = new TreeMap<String, Object>();
+		for (int i = 0; i < STRIPES; i++) {
+			final Lock l = variablesLocks[i].readLock();
+			l.lock();
+			try {
+				variables[i].copyTree(r);
+			} finally {
+				l.unlock();
+			}
+		}
+		return r;
+	}
+	
+	/**
+	 * Creates a copy of all global variables mapped by their full names, locking only one stripe at a time. The values themselves are not copied, so do not modify them!
+	 */
+	static Map<String, Object> copyVariablesHashMap() {
+		final Map<String, Object> r = new HashMap<String, Object>();
+		for (int i = 0; i < STRIPES; i++) {
+			final Lock l = variablesLocks[i].readLock();
+			l.lock();
+			try {
+				variables[i].copyVariables(r);
+			} finally {
+				l.unlock();
+			}
+		}
+		return r;
 	}
 	
 	/**
@@ -273,16 +392,24 @@ public abstract class Variables {
 	@Nullable
 	public final static Object getVariable(final String name, final @Nullable Event e, final boolean local) {
 		if (local) {
-			final VariablesMap map = localVariables.get(e);
+			final ExecutionFrame frame = ExecutionFrame.get(e);
+			if (frame != null) {
+				final int slot = frame.getLocalVariableSlot(name);
+				if (slot != -1)
+					return frame.getLocalVariable(slot);
+			}
+			final VariablesMap map = getLocalVariables(e, frame, false);
 			if (map == null)
 				return null;
 			return map.getVariable(name);
 		} else {
+			final int stripe = getStripe(name);
+			final Lock l = variablesLocks[stripe].readLock();
+			l.lock();
 			try {
-				variablesLock.readLock().lock();
-				return variables.getVariable(name);
+				return variables[stripe].getVariable(name);
 			} finally {
-				variablesLock.readLock().unlock();
+				l.unlock();
 			}
 		}
 	}
@@ -294,33 +421,62 @@ public abstract class Variables {
 	 * @param value The variable's value. Use <tt>null</tt> to delete the variable.
 	 */
 	public final static void setVariable(final String name, @Nullable Object value, final @Nullable Event e, final boolean local) {
-		if (value != null) {
-			assert !name.endsWith("::*");
-			@SuppressWarnings("null")
-			final ClassInfo<?> ci = Classes.getSuperClassInfo(value.getClass());
-			final Class<?> sas = ci.getSerializeAs();
-			if (sas != null) {
-				value = Converters.convert(value, sas);
-				assert value != null : ci + ", " + sas;
-			}
-		}
+		assert value == null || !name.endsWith("::*");
+		value = toStoredValue(value);
 		if (local) {
 			assert e != null : name;
-			VariablesMap map = localVariables.get(e);
-			if (map == null)
-				localVariables.put(e, map = new VariablesMap());
+			final ExecutionFrame frame = ExecutionFrame.get(e);
+			if (frame != null) {
+				final int slot = frame.getLocalVariableSlot(name);
+				if (slot != -1) {
+					frame.setLocalVariable(slot, value);
+					return;
+				}
+			}
+			final VariablesMap map = getLocalVariables(e, frame, true);
+			assert map != null;
 			map.setVariable(name, value);
 		} else {
 			setVariable(name, value);
 		}
 	}
 	
+	/**
+	 * Sets a local variable that has a slot in the given frame.
+	 * 
+	 * @param frame
+	 * @param slot The variable's slot, see {@link ch.njol.skript.lang.LocalVariableSlots}
+	 * @param value The variable's value. Use <tt>null</tt> to delete the variable.
+	 */
+	public final static void setLocalVariable(final ExecutionFrame frame, final int slot, final @Nullable Object value) {
+		frame.setLocalVariable(slot, toStoredValue(value));
+	}
+	
+	/**
+	 * @return The given value converted to the class it is serialised as, if any
+	 */
+	@Nullable
+	private static Object toStoredValue(final @Nullable Object value) {
+		if (value == null)
+			return null;
+		@SuppressWarnings("null")
+		final ClassInfo<?> ci = Classes.getSuperClassInfo(value.getClass());
+		final Class<?> sas = ci.getSerializeAs();
+		if (sas == null)
+			return value;
+		final Object converted = Converters.convert(value, sas);
+		assert converted != null : ci + ", " + sas;
+		return converted;
+	}
+	
 	final static void setVariable(final String name, @Nullable final Object value) {
+		final int stripe = getStripe(name);
+		final Lock l = variablesLocks[stripe].writeLock();
+		l.lock();
 		try {
-			variablesLock.writeLock().lock();
-			variables.setVariable(name, value);
+			variables[stripe].setVariable(name, value);
 		} finally {
-			variablesLock.writeLock().unlock();
+			l.unlock();
 		}
 		saveVariableChange(name, value);
 	}
@@ -369,11 +525,13 @@ public abstract class Variables {
 			}
 		}
 		
-		variablesLock.writeLock().lock();
+		final int stripe = getStripe(name);
+		final Lock l = variablesLocks[stripe].writeLock();
+		l.lock();
 		try {
-			variables.setVariable(name, value);
+			variables[stripe].setVariable(name, value);
 		} finally {
-			variablesLock.writeLock().unlock();
+			l.unlock();
 		}
 		
 		for (final VariablesStorage s : storages) {
@@ -405,23 +563,18 @@ public abstract class Variables {
 			final Map<String, NonNullPair<Object, VariablesStorage>> tvs = tempVars.get();
 			tempVars.set(null);
 			assert tvs != null;
-			variablesLock.writeLock().lock();
-			try {
-				int n = 0;
-				for (final Entry<String, NonNullPair<Object, VariablesStorage>> tv : tvs.entrySet()) {
-					if (!variableLoaded(tv.getKey(), tv.getValue().getFirst(), tv.getValue().getSecond()))
-						n++;
-				}
-				
-				for (final VariablesStorage s : storages)
-					s.allLoaded();
-				
-				Skript.debug("Variables set. Queue size = " + queue.size());
-				
-				return n;
-			} finally {
-				variablesLock.writeLock().unlock();
+			int n = 0;
+			for (final Entry<String, NonNullPair<Object, VariablesStorage>> tv : tvs.entrySet()) {
+				if (!variableLoaded(tv.getKey(), tv.getValue().getFirst(), tv.getValue().getSecond()))
+					n++;
 			}
+			
+			for (final VariablesStorage s : storages)
+				s.allLoaded();
+			
+			Skript.debug("Variables set. Queue size = " + queue.size());
+			
+			return n;
 		}
 	}
 	
@@ -437,8 +590,60 @@ public abstract class Variables {
 		return Classes.serialize(value);
 	}
 	
+	/**
+	 * Global variables changed since the last {@link #flushChanges() flush}, mapped to their latest value (<tt>null</tt> if they were deleted). Repeated changes to the same
+	 * variable thus only cause a single serialisation and write.
+	 * <p>
+	 * Must only be accessed while holding {@link #changesLock}.
+	 */
+	private static LinkedHashMap<String, Object> changes = new LinkedHashMap<String, Object>();
+	private final static Object changesLock = new Object();
+	
+	/**
+	 * Serialises the changes when they are flushed
+	 */
+	private static volatile BiFunction<String, Object, SerializedVariable> changeSerializer = Variables::serialize;
+	
+	/**
+	 * For testing only, as values cannot be serialised without a server. Replaces how changes are serialised when they are flushed.
+	 * 
+	 * @return The previous serialiser, to be restored once the test is done
+	 */
+	static BiFunction<String, Object, SerializedVariable> setChangeSerializer(final BiFunction<String, Object, SerializedVariable> serializer) {
+		final BiFunction<String, Object, SerializedVariable> previous = changeSerializer;
+		changeSerializer = serializer;
+		return previous;
+	}
+	
+	/**
+	 * Flushes {@link #changes} once per tick
+	 */
+	@Nullable
+	private static Task changesTask;
+	
 	private final static void saveVariableChange(final String name, final @Nullable Object value) {
-		queue.add(serialize(name, value));
+		synchronized (changesLock) {
+			changes.put(name, value);
+		}
+	}
+	
+	/**
+	 * Serialises the latest value of all variables changed since the last flush and hands them to the save thread in one batch.
+	 * <p>
+	 * Must be called on Bukkit's main thread as required by serialisation.
+	 */
+	final static void flushChanges() {
+		final LinkedHashMap<String, Object> cs;
+		synchronized (changesLock) {
+			if (changes.isEmpty())
+				return;
+			cs = changes;
+			changes = new LinkedHashMap<String, Object>();
+		}
+		final List<SerializedVariable> batch = new ArrayList<SerializedVariable>(cs.size());
+		for (final Entry<String, Object> c : cs.entrySet())
+			batch.add(changeSerializer.apply("" + c.getKey(), c.getValue()));
+		queue.addAll(batch);
 	}
 	
 	final static BlockingQueue<SerializedVariable> queue = new LinkedBlockingQueue<SerializedVariable>();
@@ -463,6 +668,10 @@ public abstract class Variables {
 	}, "Skript variable save thread");
 	
 	public static void close() {
+		final Task ct = changesTask;
+		if (ct != null)
+			ct.cancel();
+		flushChanges();
 		while (queue.size() > 0) {
 			try {
 				Thread.sleep(10);
@@ -473,12 +682,17 @@ public abstract class Variables {
 	}
 	
 	public static int numVariables() {
-		try {
-			variablesLock.readLock().lock();
-			return variables.hashMap.size();
-		} finally {
-			variablesLock.readLock().unlock();
+		int n = 0;
+		for (int i = 0; i < STRIPES; i++) {
+			final Lock l = variablesLocks[i].readLock();
+			l.lock();
+			try {
+				n += variables[i].size();
+			} finally {
+				l.unlock();
+			}
 		}
+		return n;
 	}
 	
 }
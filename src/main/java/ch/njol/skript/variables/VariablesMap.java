@@ -20,7 +20,6 @@
 package ch.njol.skript.variables;
 
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
@@ -31,7 +30,16 @@ import ch.njol.skript.lang.Variable;
 import ch.njol.skript.util.Utils;
 import ch.njol.util.StringUtils;
 
-final class VariablesMap {
+/**
+ * A tree of variables, used for global variables and the local variables of every {@link ch.njol.skript.lang.ExecutionFrame execution frame}. Only {@link Variables} can
+ * access the variables in it.
+ */
+public final class VariablesMap {
+	
+	/**
+	 * Numbers with at most this many digits always fit into a long
+	 */
+	private final static int MAX_EXACT_DIGITS = 18;
 	
 	final static Comparator<String> variableNameComparator = new Comparator<String>() {
 		@Override
@@ -40,38 +48,268 @@ final class VariablesMap {
 				return s2 == null ? 0 : -1;
 			if (s2 == null)
 				return 1;
-			int i = 0, j = 0;
-			while (i < s1.length() && j < s2.length()) {
-				final char c1 = s1.charAt(i), c2 = s2.charAt(j);
-				if ('0' <= c1 && c1 <= '9' && '0' <= c2 && c2 <= '9') { // TODO negative numbers? what about {blah-%number%}? // '-' < '0'
-					final int i2 = StringUtils.findLastDigit(s1, i), j2 = StringUtils.findLastDigit(s2, j);
+			return compareNames(s1, 0, s1.length(), s2, 0, s2.length());
+		}
+	};
+	
+	/**
+	 * Compares the part of <tt>s1</tt> from <tt>i</tt> to <tt>end1</tt> with the part of <tt>s2</tt> from <tt>j</tt> to <tt>end2</tt> like {@link #variableNameComparator}.
+	 */
+	final static int compareNames(final String s1, int i, final int end1, final String s2, int j, final int end2) {
+		while (i < end1 && j < end2) {
+			final char c1 = s1.charAt(i), c2 = s2.charAt(j);
+			if ('0' <= c1 && c1 <= '9' && '0' <= c2 && c2 <= '9') { // TODO negative numbers? what about {blah-%number%}? // '-' < '0'
+				final int i2 = Math.min(StringUtils.findLastDigit(s1, i), end1), j2 = Math.min(StringUtils.findLastDigit(s2, j), end2);
+				// skip leading zeroes, after which a longer number is larger and numbers of the same length compare like strings (this is called for every step of a lookup and must thus not allocate)
+				int a = i, b = j;
+				while (a < i2 - 1 && s1.charAt(a) == '0')
+					a++;
+				while (b < j2 - 1 && s2.charAt(b) == '0')
+					b++;
+				if (i2 - a > MAX_EXACT_DIGITS || j2 - b > MAX_EXACT_DIGITS) { // may overflow a long, which is handled by Utils.parseLong
 					final long n1 = Utils.parseLong("" + s1.substring(i, i2)), n2 = Utils.parseLong("" + s2.substring(j, j2));
 					if (n1 > n2)
 						return 1;
 					if (n1 < n2)
 						return -1;
-					i = i2;
-					j = j2;
-					continue;
+				} else if (i2 - a != j2 - b) {
+					return i2 - a > j2 - b ? 1 : -1;
 				} else {
-					if (c1 > c2)
-						return 1;
-					if (c1 < c2)
-						return -1;
-					i++;
-					j++;
+					for (; a < i2; a++, b++) {
+						final char d1 = s1.charAt(a), d2 = s2.charAt(b);
+						if (d1 != d2)
+							return d1 > d2 ? 1 : -1;
+					}
 				}
+				i = i2;
+				j = j2;
+				continue;
+			} else {
+				if (c1 > c2)
+					return 1;
+				if (c1 < c2)
+					return -1;
+				i++;
+				j++;
 			}
-			if (i < s1.length())
-				return -1;
-			if (j < s2.length())
-				return 1;
-			return 0;
 		}
-	};
+		if (i < end1)
+			return -1;
+		if (j < end2)
+			return 1;
+		return 0;
+	}
+	
+	/**
+	 * Hashes the part of <tt>name</tt> from <tt>start</tt> to <tt>end</tt> consistently with {@link #variableNameComparator}, i.e. numbers are hashed without their leading
+	 * zeroes, so that e.g. "01" and "1" have the same hash.
+	 */
+	final static int hashName(final String name, final int start, final int end) {
+		int h = 0;
+		for (int i = start; i < end; i++) {
+			final char c = name.charAt(i);
+			if ('0' <= c && c <= '9') {
+				final int last = Math.min(StringUtils.findLastDigit(name, i), end);
+				int a = i;
+				while (a < last - 1 && name.charAt(a) == '0')
+					a++;
+				if (last - a > MAX_EXACT_DIGITS) { // such numbers are compared by their value
+					final long n = Utils.parseLong("" + name.substring(a, last));
+					h = 31 * h + (int) (n ^ (n >>> 32));
+				} else {
+					for (; a < last; a++)
+						h = 31 * h + name.charAt(a);
+				}
+				i = last - 1;
+			} else {
+				h = 31 * h + c;
+			}
+		}
+		return h;
+	}
+	
+	/**
+	 * The tree of all variables, split at {@link Variable#SEPARATOR}. This is the only copy of the variables and serves both lookups of single variables and iteration
+	 * over list variables.
+	 * <p>
+	 * A variable without any children is stored directly as a value in its parent map, while a variable with children is stored as a map of its children, with its own value
+	 * (if any) under the key <tt>null</tt>. All maps of the tree are {@link Node}s, and nested maps use the {@link #variableNameComparator}.
+	 */
+	final Node treeMap = new Node(null);
+	
+	/**
+	 * Nodes with at least this many children get a hash index for lookups of single children.
+	 */
+	private final static int INDEX_THRESHOLD = 8;
+	
+	/**
+	 * A map of the variable tree. Lookups of single children are served by a hash index once the node has enough children, so that accessing a single variable doesn't
+	 * depend on the size of the lists it's in. The index is an open addressing table that only references the keys and values of the map itself, i.e. no variable names
+	 * are stored twice, and it can be queried with a part of a variable's name without creating a substring first. The index finds keys like the map's comparator does,
+	 * i.e. names are only matched exactly if the node has no comparator, like the root of the tree.
+	 * <p>
+	 * Only {@link #get(Object)}, {@link #put(String, Object)} and {@link #remove(Object)} may be used to modify or query single entries, as the index is not updated
+	 * otherwise.
+	 */
+	@SuppressWarnings("serial")
+	final static class Node extends TreeMap<String, Object> {
+		
+		/**
+		 * The index, storing each key at an even index immediately followed by its value
+		 */
+		@Nullable
+		private transient Object[] table = null;
+		private transient int indexed = 0;
+		
+		/**
+		 * Whether keys are compared with {@link String#equals(Object)}, i.e. whether this node has no comparator
+		 */
+		private final boolean exact;
+		
+		Node(final @Nullable Comparator<String> comparator) {
+			super(comparator);
+			exact = comparator == null;
+		}
+		
+		/**
+		 * Hashes the part of <tt>name</tt> from <tt>start</tt> to <tt>end</tt> consistently with this node's comparator.
+		 */
+		private int hash(final String name, final int start, final int end) {
+			if (!exact)
+				return hashName(name, start, end);
+			int h = 0; // same as String.hashCode()
+			for (int i = start; i < end; i++)
+				h = 31 * h + name.charAt(i);
+			return h;
+		}
+		
+		/**
+		 * @return Whether the key <tt>k</tt> is the part of <tt>name</tt> from <tt>start</tt> to <tt>end</tt> according to this node's comparator
+		 */
+		private boolean matches(final String k, final String name, final int start, final int end) {
+			if (exact)
+				return k.length() == end - start && k.regionMatches(0, name, start, end - start);
+			return compareNames(k, 0, k.length(), name, start, end) == 0;
+		}
+		
+		/**
+		 * @return The position of the given key in the table, or the free position it would be inserted at as <tt>-1 - position</tt>
+		 */
+		private int find(final Object[] table, final String name, final int start, final int end) {
+			final int h = hash(name, start, end);
+			final int mask = table.length - 2;
+			int i = (h ^ (h >>> 16)) << 1 & mask;
+			String k;
+			while ((k = (String) table[i]) != null) {
+				if (matches(k, name, start, end))
+					return i;
+				i = (i + 2) & mask;
+			}
+			return -1 - i;
+		}
+		
+		/**
+		 * Gets the child whose key is the part of <tt>name</tt> from <tt>start</tt> (inclusive) to <tt>end</tt> (exclusive).
+		 */
+		@Nullable
+		final Object get(final String name, final int start, final int end) {
+			final Object[] table = this.table;
+			if (table == null)
+				return super.get(name.substring(start, end));
+			final int i = find(table, name, start, end);
+			return i < 0 ? null : table[i + 1];
+		}
+		
+		@Override
+		@Nullable
+		public Object get(final @Nullable Object key) {
+			if (key instanceof String && table != null)
+				return get((String) key, 0, ((String) key).length());
+			return super.get(key);
+		}
+		
+		@Override
+		@Nullable
+		public Object put(final @Nullable String key, final Object value) {
+			final Object r = super.put(key, value);
+			if (key != null && (table != null || size() >= INDEX_THRESHOLD))
+				index(key, value);
+			return r;
+		}
+		
+		private final void index(final String key, final Object value) {
+			Object[] table = this.table;
+			if (table == null || 4 * (indexed + 1) > table.length) { // keeps the load factor at most 1/2
+				int capacity = INDEX_THRESHOLD * 4;
+				while (capacity < 4 * size())
+					capacity *= 2;
+				this.table = table = new Object[capacity];
+				indexed = 0;
+				for (final Entry<String, Object> e : entrySet()) {
+					final String k = e.getKey();
+					if (k != null) {
+						final int i = -1 - find(table, k, 0, k.length());
+						table[i] = k;
+						table[i + 1] = e.getValue();
+						indexed++;
+					}
+				}
+				return;
+			}
+			final int i = find(table, key, 0, key.length());
+			if (i >= 0) {
+				table[i + 1] = value;
+			} else {
+				table[-1 - i] = key;
+				table[-1 - i + 1] = value;
+				indexed++;
+			}
+		}
+		
+		@Override
+		@Nullable
+		public Object remove(final @Nullable Object key) {
+			final Object[] table = this.table;
+			if (key instanceof String && table != null) {
+				int i = find(table, (String) key, 0, ((String) key).length());
+				if (i >= 0) {
+					// backward shift deletion, which keeps all remaining keys reachable without using tombstones
+					final int mask = table.length - 2;
+					int j = i;
+					while (true) {
+						table[i] = null;
+						table[i + 1] = null;
+						String k;
+						while (true) {
+							j = (j + 2) & mask;
+							if ((k = (String) table[j]) == null) {
+								indexed--;
+								return super.remove(key);
+							}
+							final int h = hash(k, 0, k.length()), home = (h ^ (h >>> 16)) << 1 & mask;
+							if (i <= j ? i < home && home <= j : i < home || home <= j)
+								continue;
+							break;
+						}
+						table[i] = k;
+						table[i + 1] = table[j + 1];
+						i = j;
+					}
+				}
+			}
+			return super.remove(key);
+		}
+		
+	}
+	
+	/**
+	 * The number of variables with a value in this map
+	 */
+	private int size = 0;
 	
-	final HashMap<String, Object> hashMap = new HashMap<String, Object>();
-	final TreeMap<String, Object> treeMap = new TreeMap<String, Object>();
+	final int size() {
+		return size;
+	}
 	
 	/**
 	 * Returns the internal value of the requested variable.
@@ -81,32 +319,26 @@ final class VariablesMap {
 	 * @param name
 	 * @return an Object for a normal Variable or a Map<String, Object> for a list variable, or null if the variable is not set.
 	 */
-	@SuppressWarnings("unchecked")
 	@Nullable
 	final Object getVariable(final String name) {
-		if (!name.endsWith("*")) {
-			return hashMap.get(name);
-		} else {
-			final String[] split = Variables.splitVariableName(name);
-			Map<String, Object> current = treeMap;
-			for (int i = 0; i < split.length; i++) {
-				final String n = split[i];
-				if (n.equals("*")) {
-					assert i == split.length - 1;
-					return current;
-				}
-				final Object o = current.get(n);
-				if (o == null)
-					return null;
-				if (o instanceof Map) {
-					current = (Map<String, Object>) o;
-					assert i != split.length - 1;
-					continue;
-				} else {
-					return null;
-				}
+		final boolean list = name.endsWith(Variable.SEPARATOR + "*") || name.equals("*");
+		Node current = treeMap;
+		int start = 0;
+		while (true) {
+			final int end = name.indexOf(Variable.SEPARATOR, start);
+			if (list && end == -1) {
+				assert name.substring(start).equals("*") : name;
+				return current;
 			}
-			return null;
+			final Object o = current.get(name, start, end == -1 ? name.length() : end);
+			if (o == null)
+				return null;
+			if (end == -1) // only reached for non-list variables
+				return o instanceof Node ? ((Node) o).get(null) : o;
+			if (!(o instanceof Node))
+				return null;
+			current = (Node) o;
+			start = end + Variable.SEPARATOR.length();
 		}
 	}
 	
@@ -116,82 +348,127 @@ final class VariablesMap {
 	 * @param name The variable's name. Can be a "list variable::*" (<tt>value</tt> must be <tt>null</tt> in this case)
 	 * @param value The variable's value. Use <tt>null</tt> to delete the variable.
 	 */
-	@SuppressWarnings("unchecked")
+	@SuppressWarnings("null")
 	final void setVariable(final String name, final @Nullable Object value) {
-		if (!name.endsWith("*")) {
-			if (value == null)
-				hashMap.remove(name);
-			else
-				hashMap.put(name, value);
-		}
-		final String[] split = Variables.splitVariableName(name);
-		TreeMap<String, Object> parent = treeMap;
-		for (int i = 0; i < split.length; i++) {
-			final String n = split[i];
-			Object current = parent.get(n);
+		Node parent = treeMap;
+		int start = 0;
+		while (true) {
+			final int end = name.indexOf(Variable.SEPARATOR, start);
+			final boolean last = end == -1;
+			final int segmentEnd = last ? name.length() : end;
+			final Object current = parent.get(name, start, segmentEnd);
 			if (current == null) {
-				if (i == split.length - 1) {
-					if (value != null)
-						parent.put(n, value);
-					break;
+				if (last) {
+					if (value != null) {
+						parent.put(name.substring(start), value);
+						size++;
+					}
+					return;
 				} else if (value != null) {
-					parent.put(n, current = new TreeMap<String, Object>(variableNameComparator));
-					parent = (TreeMap<String, Object>) current;
-					continue;
+					final Node c = new Node(variableNameComparator);
+					parent.put(name.substring(start, end), c);
+					parent = c;
 				} else {
-					break;
+					return;
 				}
-			} else if (current instanceof TreeMap) {
-				if (i == split.length - 1) {
-					if (value == null)
-						((TreeMap<String, Object>) current).remove(null);
-					else
-						((TreeMap<String, Object>) current).put(null, value);
-					break;
-				} else if (i == split.length - 2 && split[i + 1].equals("*")) {
+			} else if (current instanceof Node) {
+				final Node c = (Node) current;
+				if (last) {
+					if (value == null) {
+						if (c.remove(null) != null)
+							size--;
+					} else {
+						if (c.put(null, value) == null)
+							size++;
+					}
+					return;
+				} else if (end + Variable.SEPARATOR.length() == name.length() - 1 && name.endsWith("*")) {
 					assert value == null;
-					deleteFromHashMap(StringUtils.join(split, Variable.SEPARATOR, 0, i + 1), (TreeMap<String, Object>) current);
-					final Object v = ((TreeMap<String, Object>) current).get(null);
+					final Object v = c.get(null);
+					size -= count(c) - (v == null ? 0 : 1);
 					if (v == null)
-						parent.remove(n);
+						parent.remove(name.substring(start, end));
 					else
-						parent.put(n, v);
-					break;
+						parent.put(name.substring(start, end), v);
+					return;
 				} else {
-					parent = (TreeMap<String, Object>) current;
-					continue;
+					parent = c;
 				}
 			} else {
-				if (i == split.length - 1) {
-					if (value == null)
-						parent.remove(n);
-					else
-						parent.put(n, value);
-					break;
+				if (last) {
+					if (value == null) {
+						parent.remove(name.substring(start));
+						size--;
+					} else {
+						parent.put(name.substring(start), value);
+					}
+					return;
 				} else if (value != null) {
-					final TreeMap<String, Object> c = new TreeMap<String, Object>(variableNameComparator);
+					final Node c = new Node(variableNameComparator);
 					c.put(null, current);
-					parent.put(n, c);
+					parent.put(name.substring(start, end), c);
 					parent = c;
-					continue;
 				} else {
-					break;
+					return;
 				}
 			}
+			start = end + Variable.SEPARATOR.length();
 		}
 	}
 	
+	/**
+	 * @return The number of variables with a value in the given subtree, including the value of the subtree's root itself
+	 */
 	@SuppressWarnings("unchecked")
-	void deleteFromHashMap(final String parent, final TreeMap<String, Object> current) {
-		for (final Entry<String, Object> e : current.entrySet()) {
-			if (e.getKey() == null)
-				continue;
-			hashMap.remove(parent + Variable.SEPARATOR + e.getKey());
+	private static int count(final TreeMap<String, Object> map) {
+		int n = 0;
+		for (final Object o : map.values()) {
+			if (o instanceof TreeMap)
+				n += count((TreeMap<String, Object>) o);
+			else
+				n++;
+		}
+		return n;
+	}
+	
+	/**
+	 * Adds all variables of this map to the given map, mapped by their full names. The values are not copied.
+	 */
+	void copyVariables(final Map<String, Object> to) {
+		copyVariables(to, "", treeMap);
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static void copyVariables(final Map<String, Object> to, final String parent, final TreeMap<String, Object> map) {
+		for (final Entry<String, Object> e : map.entrySet()) {
 			final Object val = e.getValue();
-			if (val instanceof TreeMap) {
-				deleteFromHashMap(parent + Variable.SEPARATOR + e.getKey(), (TreeMap<String, Object>) val);
-			}
+			if (e.getKey() == null)
+				to.put(parent.substring(0, parent.length() - Variable.SEPARATOR.length()), val);
+			else if (val instanceof TreeMap)
+				copyVariables(to, parent + e.getKey() + Variable.SEPARATOR, (TreeMap<String, Object>) val);
+			else
+				to.put(parent + e.getKey(), val);
 		}
 	}
 	
+	/**
+	 * Copies the variable tree of this map into the given map. Only the nested maps are copied, the values themselves are shared with this map.
+	 * 
+	 * @param to The map to add this map's top-level variables to
+	 */
+	void copyTree(final Map<String, Object> to) {
+		for (final Entry<String, Object> e : treeMap.entrySet())
+			to.put(e.getKey(), copy(e.getValue()));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static Object copy(final Object o) {
+		if (!(o instanceof TreeMap))
+			return o;
+		final TreeMap<String, Object> r = new TreeMap<String, Object>((TreeMap<String, Object>) o); // keeps the comparator
+		for (final Entry<String, Object> e : r.entrySet())
+			e.setValue(copy(e.getValue()));
+		return r;
+	}
+	
 }
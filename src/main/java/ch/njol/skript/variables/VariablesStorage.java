@@ -21,7 +21,10 @@ package ch.njol.skript.variables;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -52,6 +55,26 @@ public abstract class VariablesStorage implements Closeable {
 	
 	protected volatile boolean closed = false;
 	
+	/**
+	 * Set by {@link #close()} to make the {@link #writeThread} stop once it has saved all queued changes
+	 */
+	private volatile boolean stopWriting = false;
+	
+	/**
+	 * The maximum number of changes the {@link #writeThread} takes from the queue at once and passes to {@link #save(List)}. Must be set before the storage is
+	 * loaded completely, i.e. in {@link #load_i(SectionNode)} at the latest.
+	 */
+	protected int batchSize = 1;
+	
+	// statistics, only written by the write thread (or by the threads queueing changes for maxQueueDepth, where a lost update doesn't matter)
+	private volatile long batches = 0, savedVariables = 0;
+	private volatile int largestBatch = 0, maxQueueDepth = 0;
+	
+	private final static int STATISTICS_INTERVAL = 5 * 60;
+	// only accessed by the write thread, and by close() after it has stopped
+	private long lastStatistics = System.currentTimeMillis();
+	private long loggedBatches = 0;
+	
 	protected final String databaseName;
 	
 	@Nullable
@@ -64,22 +87,38 @@ public abstract class VariablesStorage implements Closeable {
 	private Pattern variablePattern;
 	
 	// created in the constructor, started in load()
-	private final Thread writeThread;
+	final Thread writeThread;
 	
 	protected VariablesStorage(final String name) {
 		databaseName = name;
 		writeThread = Skript.newThread(new Runnable() {
 			@Override
 			public void run() {
-				while (!closed) {
+				final List<SerializedVariable> batch = new ArrayList<SerializedVariable>();
+				while (!stopWriting || !changesQueue.isEmpty()) {
+					if (Skript.debug() && lastStatistics < System.currentTimeMillis() - STATISTICS_INTERVAL * 1000) {
+						logStatistics();
+						lastStatistics = System.currentTimeMillis();
+					}
+					final SerializedVariable first;
 					try {
-						final SerializedVariable var = changesQueue.take();
-						final Value d = var.value;
-						if (d != null)
-							save(var.name, d.type, d.data);
-						else
-							save(var.name, null, null);
-					} catch (final InterruptedException e) {}
+						first = changesQueue.poll(100, TimeUnit.MILLISECONDS); // not interrupted by close(), as that could abort saving a batch
+					} catch (final InterruptedException e) {
+						continue;
+					}
+					if (first == null)
+						continue;
+					try {
+						batch.add(first);
+						changesQueue.drainTo(batch, batchSize - 1);
+						save(batch);
+						batches++;
+						savedVariables += batch.size();
+						if (batch.size() > largestBatch)
+							largestBatch = batch.size();
+					} finally {
+						batch.clear();
+					}
 				}
 			}
 		}, "Skript variable save thread for database '" + name + "'");
@@ -189,7 +228,8 @@ public abstract class VariablesStorage implements Closeable {
 	protected abstract File getFile(String file);
 	
 	/**
-	 * Must be locked after {@link Variables#getReadLock()} (if that lock is used at all)
+	 * Must be locked before the variables' locks, i.e. the variables' locks may be acquired while holding this lock (e.g. by {@link Variables#copyVariables()} while the
+	 * variables are saved), but this lock must not be acquired while holding any of the variables' locks.
 	 */
 	protected final Object connectionLock = new Object();
 	
@@ -244,7 +284,10 @@ public abstract class VariablesStorage implements Closeable {
 	 * May be called from a different thread than Bukkit's main thread.
 	 */
 	final void save(final SerializedVariable var) {
-		if (changesQueue.size() > FIRST_WARNING && lastWarning < System.currentTimeMillis() - WARNING_INTERVAL * 1000) {
+		final int queueDepth = changesQueue.size();
+		if (queueDepth > maxQueueDepth)
+			maxQueueDepth = queueDepth;
+		if (queueDepth > FIRST_WARNING && lastWarning < System.currentTimeMillis() - WARNING_INTERVAL * 1000) {
 			Skript.warning("Cannot write variables to the database '" + databaseName + "' at sufficient speed; server performance may suffer and many variables will be lost if the server crashes. (this warning will be repeated at most once every " + WARNING_INTERVAL + " seconds)");
 			lastWarning = System.currentTimeMillis();
 		}
@@ -264,18 +307,68 @@ public abstract class VariablesStorage implements Closeable {
 	}
 	
 	/**
-	 * Called when Skript gets disabled. The default implementation will wait for all variables to be saved before setting {@link #closed} to true and stopping the write thread,
-	 * thus <tt>super.close()</tt> must be called if this method is overridden!
+	 * @return The number of changes currently waiting to be saved
+	 */
+	int getQueueDepth() {
+		return changesQueue.size();
+	}
+	
+	/**
+	 * @return The largest number of changes that were waiting to be saved at once
+	 */
+	int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+	
+	/**
+	 * @return How many batches of changes have been saved by the write thread
+	 */
+	long getBatchCount() {
+		return batches;
+	}
+	
+	/**
+	 * @return The average number of changes per batch saved by the write thread, or 0 if no changes have been saved yet
+	 */
+	double getAverageBatchSize() {
+		final long batches = this.batches;
+		return batches == 0 ? 0 : (double) savedVariables / batches;
+	}
+	
+	/**
+	 * @return The largest batch of changes saved by the write thread
+	 */
+	int getLargestBatchSize() {
+		return largestBatch;
+	}
+	
+	/**
+	 * Logs the statistics of the write thread in debug verbosity if it saved any changes since they were last logged. Called periodically by the write thread and when
+	 * the storage is closed.
+	 */
+	private void logStatistics() {
+		final long batches = this.batches;
+		if (batches == loggedBatches)
+			return;
+		loggedBatches = batches;
+		Skript.debug("Database '" + databaseName + "' saved " + savedVariables + " changes in " + batches + " batches (average size " + String.format("%.1f", getAverageBatchSize())
+				+ ", largest " + largestBatch + ", largest queue depth " + maxQueueDepth + ", current queue depth " + getQueueDepth() + ")");
+	}
+	
+	/**
+	 * Called when Skript gets disabled. The default implementation will wait for the write thread to save all variables, including the batch it is currently saving, and to
+	 * stop before setting {@link #closed} to true, thus <tt>super.close()</tt> must be called if this method is overridden!
 	 */
 	@Override
 	public void close() {
-		while (changesQueue.size() > 0) {
+		stopWriting = true;
+		while (writeThread.isAlive()) {
 			try {
-				Thread.sleep(10);
+				writeThread.join();
 			} catch (final InterruptedException e) {}
 		}
 		closed = true;
-		writeThread.interrupt();
+		logStatistics();
 	}
 	
 	/**
@@ -295,4 +388,22 @@ public abstract class VariablesStorage implements Closeable {
 	 */
 	protected abstract boolean save(String name, @Nullable String type, @Nullable byte[] value);
 	
+	/**
+	 * Saves a batch of changes taken from the queue by the {@link #writeThread}, in the order they were made. The batch contains at most {@link #batchSize}
+	 * changes.
+	 * <p>
+	 * The default implementation calls {@link #save(String, String, byte[])} for each change.
+	 * 
+	 * @param batch
+	 */
+	protected void save(final List<SerializedVariable> batch) {
+		for (final SerializedVariable var : batch) {
+			final Value d = var.value;
+			if (d != null)
+				save(var.name, d.type, d.data);
+			else
+				save(var.name, null, null);
+		}
+	}
+	
 }
@@ -31,6 +31,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
@@ -234,7 +235,7 @@ public final class Fields implements Iterable<FieldContext> {
 		}
 	}
 	
-	private final static Map<Class<?>, Collection<Field>> cache = new HashMap<>();
+	private final static Map<Class<?>, Collection<Field>> cache = new ConcurrentHashMap<>();
 	
 	/**
 	 * Gets all serialisable fields of the provided class, including superclasses.
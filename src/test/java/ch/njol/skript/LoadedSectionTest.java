@@ -0,0 +1,287 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.Test;
+
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.Literal;
+import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
+import ch.njol.skript.lang.SkriptEvent;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.lang.function.Function;
+import ch.njol.skript.lang.function.FunctionEvent;
+import ch.njol.skript.lang.function.Parameter;
+
+@SuppressWarnings("null")
+public class LoadedSectionTest {
+	
+	static class TestEvent extends SkriptEvent {
+		@Override
+		public boolean init(final Literal<?>[] args, final int matchedPattern, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		public boolean check(final Event e) {
+			return true;
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "test";
+		}
+	}
+	
+	static class TestSelfRegisteringEvent extends SelfRegisteringSkriptEvent {
+		@Override
+		public boolean init(final Literal<?>[] args, final int matchedPattern, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		public void register(final Trigger t) {}
+		
+		@Override
+		public void unregister(final Trigger t) {}
+		
+		@Override
+		public void unregisterAll() {}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "on load";
+		}
+	}
+	
+	static class TestFunction extends Function<Object> {
+		TestFunction(final String name) {
+			super(name, new Parameter<?>[0], null, true);
+		}
+		
+		@Override
+		@Nullable
+		public Object[] execute(final FunctionEvent e, final Object[][] params) {
+			return null;
+		}
+	}
+	
+	private static Config config(final String... lines) throws IOException {
+		final StringBuilder b = new StringBuilder();
+		for (final String line : lines)
+			b.append(line).append('\n');
+		return new Config("" + b, "test.sk", true, false, ":");
+	}
+	
+	/**
+	 * Loads the sections of a script like the script loader does: unchanged sections are kept and only get their new node, while all others are loaded anew.
+	 */
+	private static List<LoadedSection> load(final Config config, final @Nullable LoadedSection.Diff diff) {
+		final List<LoadedSection> sections = new ArrayList<>();
+		for (final Map.Entry<SectionNode, String> e : LoadedSection.getKeys(config).entrySet()) {
+			final LoadedSection old = diff != null ? diff.unchanged.get(e.getKey()) : null;
+			if (old != null) {
+				old.node = e.getKey();
+				sections.add(old);
+				continue;
+			}
+			final LoadedSection section = new LoadedSection(e.getValue(), e.getKey());
+			final String key = e.getKey().getKey();
+			if (key.toLowerCase(Locale.ENGLISH).startsWith("function "))
+				section.function = new TestFunction(key.substring("function ".length(), key.indexOf('(')));
+			else if (key.equalsIgnoreCase("on load"))
+				section.trigger = new Trigger(null, key, new TestSelfRegisteringEvent(), Collections.emptyList());
+			else
+				section.trigger = new Trigger(null, key, new TestEvent(), Collections.emptyList());
+			sections.add(section);
+		}
+		return sections;
+	}
+	
+	private static LoadedSection get(final List<LoadedSection> sections, final String key) {
+		for (final LoadedSection s : sections) {
+			if (s.node.getKey().equals(key))
+				return s;
+		}
+		throw new AssertionError(key);
+	}
+	
+	@Test
+	public void testChangedSection() throws IOException {
+		final List<LoadedSection> first = load(config(
+				"on join:",
+				"	broadcast \"a\"",
+				"on quit:",
+				"	broadcast \"b\""), null);
+		final Config changed = config(
+				"on join:",
+				"	broadcast \"a\"",
+				"on quit:",
+				"	broadcast \"c\"");
+		final LoadedSection.Diff diff = LoadedSection.diff(first, changed);
+		assertEquals(1, diff.unchanged.size());
+		assertSame(get(first, "on join"), diff.unchanged.values().iterator().next());
+		assertEquals(Collections.singletonList(get(first, "on quit")), diff.removed);
+	}
+	
+	@Test
+	public void testMovedSection() throws IOException {
+		final List<LoadedSection> first = load(config(
+				"on join:",
+				"	broadcast \"a\""), null);
+		final Config moved = config(
+				"on quit:",
+				"	broadcast \"b\"",
+				"on join:",
+				"	broadcast \"a\"");
+		final LoadedSection.Diff diff = LoadedSection.diff(first, moved);
+		assertTrue(diff.removed.isEmpty());
+		final List<LoadedSection> second = load(moved, diff);
+		final LoadedSection join = get(second, "on join");
+		assertSame(get(first, "on join"), join);
+		assertEquals(3, join.node.getLine());
+		assertEquals(1, join.parsedNode.getLine());
+	}
+	
+	@Test
+	public void testTwoReloads() throws IOException {
+		final Config firstConfig = config(
+				"on join:",
+				"	broadcast \"a\"",
+				"on quit:",
+				"	broadcast \"b\"");
+		final List<LoadedSection> first = load(firstConfig, null);
+		final SectionNode joinNode = get(first, "on join").node;
+		
+		final Config secondConfig = config(
+				"on join:",
+				"	broadcast \"a\"",
+				"on quit:",
+				"	broadcast \"c\"");
+		final List<LoadedSection> second = load(secondConfig, LoadedSection.diff(first, secondConfig));
+		assertSame(get(first, "on join"), get(second, "on join"));
+		assertNotSame(joinNode, get(second, "on join").node);
+		
+		// The kept section is identified by the node it has been parsed from, which e.g. its function calls refer to
+		final LoadedSection.Diff diff = LoadedSection.diff(second, config(
+				"on quit:",
+				"	broadcast \"c\""));
+		assertEquals(Collections.singletonList(get(first, "on join")), diff.removed);
+		assertEquals(Collections.singleton(joinNode), diff.removedNodes);
+	}
+	
+	@Test
+	public void testAddAndRemoveFunction() throws IOException {
+		final List<LoadedSection> first = load(config(
+				"function f():",
+				"	broadcast \"f\"",
+				"on join:",
+				"	f()"), null);
+		
+		final Config added = config(
+				"function f():",
+				"	broadcast \"f\"",
+				"function g():",
+				"	broadcast \"g\"",
+				"on join:",
+				"	f()");
+		final LoadedSection.Diff addedDiff = LoadedSection.diff(first, added);
+		assertTrue(addedDiff.removed.isEmpty());
+		assertEquals(2, addedDiff.unchanged.size());
+		final List<LoadedSection> second = load(added, addedDiff);
+		final Function<?> g = get(second, "function g()").function;
+		assertNotNull(g);
+		assertEquals("g", g.getName());
+		
+		final LoadedSection.Diff removedDiff = LoadedSection.diff(second, config(
+				"function g():",
+				"	broadcast \"g\"",
+				"on join:",
+				"	f()"));
+		assertEquals(1, removedDiff.removed.size());
+		final Function<?> f = removedDiff.removed.get(0).function;
+		assertNotNull(f);
+		assertEquals("f", f.getName());
+		assertSame(g, get(new ArrayList<>(removedDiff.unchanged.values()), "function g()").function);
+	}
+	
+	@Test
+	public void testOptions() throws IOException {
+		final List<LoadedSection> first = load(config(
+				"on join:",
+				"	broadcast \"a\"",
+				"options:",
+				"	x: 1",
+				"on quit:",
+				"	broadcast \"{@x}\""), null);
+		final LoadedSection.Diff diff = LoadedSection.diff(first, config(
+				"on join:",
+				"	broadcast \"a\"",
+				"options:",
+				"	x: 2",
+				"on quit:",
+				"	broadcast \"{@x}\""));
+		assertEquals(Collections.singletonList(get(first, "on join")), new ArrayList<>(diff.unchanged.values()));
+		assertEquals(Collections.singletonList(get(first, "on quit")), diff.removed);
+	}
+	
+	@Test
+	public void testNotReusable() throws IOException {
+		final Config config = config(
+				"on join:",
+				"	broadcast \"a\"",
+				"on load:",
+				"	broadcast \"b\"");
+		final List<LoadedSection> first = load(config, null);
+		get(first, "on join").hasErrors = true;
+		final LoadedSection.Diff diff = LoadedSection.diff(first, config);
+		assertTrue(diff.unchanged.isEmpty());
+		assertEquals(first, diff.removed);
+	}
+	
+	@Test
+	public void testDuplicateSections() throws IOException {
+		final List<LoadedSection> first = load(config(
+				"on join:",
+				"	broadcast \"a\"",
+				"on join:",
+				"	broadcast \"a\""), null);
+		final LoadedSection.Diff diff = LoadedSection.diff(first, config(
+				"on join:",
+				"	broadcast \"a\""));
+		assertEquals(1, diff.unchanged.size());
+		assertEquals(1, diff.removed.size());
+		assertNotSame(diff.unchanged.values().iterator().next(), diff.removed.get(0));
+	}
+	
+}
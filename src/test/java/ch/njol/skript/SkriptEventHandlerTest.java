@@ -0,0 +1,237 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.After;
+import org.junit.Test;
+
+import ch.njol.skript.lang.Literal;
+import ch.njol.skript.lang.SkriptEvent;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.Trigger;
+import ch.njol.skript.lang.TriggerItem;
+
+@SuppressWarnings("null")
+public class SkriptEventHandlerTest {
+	
+	static class TestEvent extends Event {
+		private final static HandlerList handlers = new HandlerList();
+		
+		@Override
+		public HandlerList getHandlers() {
+			return handlers;
+		}
+		
+		public static HandlerList getHandlerList() {
+			return handlers;
+		}
+	}
+	
+	final static class SubEvent extends TestEvent {}
+	
+	final static class KeyedEvent extends TestEvent {
+		@Nullable
+		final String key, otherKey;
+		
+		KeyedEvent(final @Nullable String key, final @Nullable String otherKey) {
+			this.key = key;
+			this.otherKey = otherKey;
+		}
+	}
+	
+	/**
+	 * Records every check in {@link #checked} and matches all events.
+	 */
+	static class TestSkriptEvent extends SkriptEvent {
+		
+		final String name;
+		final List<String> checked;
+		
+		TestSkriptEvent(final String name, final List<String> checked) {
+			this.name = name;
+			this.checked = checked;
+		}
+		
+		@Override
+		public boolean init(final Literal<?>[] args, final int matchedPattern, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		public boolean check(final Event e) {
+			checked.add(name);
+			return true;
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return name;
+		}
+		
+	}
+	
+	/**
+	 * Matches events whose {@link KeyedEvent#key key} is one of its keys.
+	 */
+	static class KeyedSkriptEvent extends TestSkriptEvent {
+		
+		final String[] keys;
+		
+		KeyedSkriptEvent(final String name, final List<String> checked, final String... keys) {
+			super(name, checked);
+			this.keys = keys;
+		}
+		
+		@Override
+		public boolean check(final Event e) {
+			checked.add(name);
+			return Arrays.asList(keys).contains(getIndexKey(e));
+		}
+		
+		@Override
+		@Nullable
+		public Object[] getIndexKeys() {
+			return keys;
+		}
+		
+		@Override
+		@Nullable
+		public Object getIndexKey(final Event e) {
+			return e instanceof KeyedEvent ? ((KeyedEvent) e).key : null;
+		}
+		
+	}
+	
+	/**
+	 * Like {@link KeyedSkriptEvent}, but for the {@link KeyedEvent#otherKey other key} of events.
+	 */
+	final static class OtherKeyedSkriptEvent extends KeyedSkriptEvent {
+		
+		OtherKeyedSkriptEvent(final String name, final List<String> checked, final String... keys) {
+			super(name, checked, keys);
+		}
+		
+		@Override
+		@Nullable
+		public Object getIndexKey(final Event e) {
+			return e instanceof KeyedEvent ? ((KeyedEvent) e).otherKey : null;
+		}
+		
+	}
+	
+	private final List<String> checked = new ArrayList<>();
+	
+	@After
+	public void removeTriggers() {
+		SkriptEventHandler.removeAllTriggers();
+	}
+	
+	private Trigger trigger(final SkriptEvent event) {
+		return new Trigger(null, event.toString(), event, Collections.<TriggerItem>emptyList());
+	}
+	
+	@SafeVarargs
+	private final Trigger add(final SkriptEvent event, final Class<? extends Event>... events) {
+		final Trigger t = trigger(event);
+		SkriptEventHandler.addTrigger(events, t);
+		return t;
+	}
+	
+	private List<String> dispatch(final Event e) {
+		checked.clear();
+		SkriptEventHandler.check(e);
+		return new ArrayList<>(checked);
+	}
+	
+	@Test
+	public void testSuperclassTriggers() {
+		add(new TestSkriptEvent("a", checked), TestEvent.class);
+		add(new TestSkriptEvent("b", checked), SubEvent.class);
+		add(new TestSkriptEvent("c", checked), TestEvent.class);
+		
+		assertEquals(Arrays.asList("a", "c"), dispatch(new TestEvent()));
+		assertEquals(Arrays.asList("b", "a", "c"), dispatch(new SubEvent()));
+		// dispatching again uses the cached triggers
+		assertEquals(Arrays.asList("b", "a", "c"), dispatch(new SubEvent()));
+	}
+	
+	@Test
+	public void testInvalidation() {
+		final Trigger a = add(new TestSkriptEvent("a", checked), TestEvent.class);
+		assertEquals(Arrays.asList("a"), dispatch(new SubEvent()));
+		
+		add(new TestSkriptEvent("b", checked), SubEvent.class);
+		assertEquals(Arrays.asList("b", "a"), dispatch(new SubEvent()));
+		
+		SkriptEventHandler.removeTrigger(a);
+		assertEquals(Arrays.asList("b"), dispatch(new SubEvent()));
+		assertEquals(Collections.emptyList(), dispatch(new TestEvent()));
+		
+		SkriptEventHandler.removeAllTriggers();
+		assertEquals(Collections.emptyList(), dispatch(new SubEvent()));
+	}
+	
+	@Test
+	public void testIndexedTriggers() {
+		add(new KeyedSkriptEvent("a", checked, "stone"), KeyedEvent.class);
+		add(new TestSkriptEvent("b", checked), TestEvent.class);
+		add(new KeyedSkriptEvent("c", checked, "dirt", "stone"), KeyedEvent.class);
+		add(new KeyedSkriptEvent("d", checked, "dirt"), KeyedEvent.class);
+		
+		// triggers of the event's class come before the ones of its superclasses
+		assertEquals(Arrays.asList("a", "c", "b"), dispatch(new KeyedEvent("stone", null)));
+		assertEquals(Arrays.asList("c", "d", "b"), dispatch(new KeyedEvent("dirt", null)));
+		assertEquals(Arrays.asList("b"), dispatch(new KeyedEvent("grass", null)));
+		// events without a key are checked by all triggers
+		assertEquals(Arrays.asList("a", "c", "d", "b"), dispatch(new KeyedEvent(null, null)));
+	}
+	
+	@Test
+	public void testMultipleIndexedClasses() {
+		add(new KeyedSkriptEvent("a", checked, "stone"), KeyedEvent.class);
+		add(new OtherKeyedSkriptEvent("b", checked, "left"), KeyedEvent.class);
+		add(new TestSkriptEvent("c", checked), KeyedEvent.class);
+		add(new KeyedSkriptEvent("d", checked, "dirt"), KeyedEvent.class);
+		add(new OtherKeyedSkriptEvent("e", checked, "right", "left"), KeyedEvent.class);
+		
+		assertEquals(Arrays.asList("a", "b", "c", "e"), dispatch(new KeyedEvent("stone", "left")));
+		assertEquals(Arrays.asList("c", "d", "e"), dispatch(new KeyedEvent("dirt", "right")));
+		assertEquals(Arrays.asList("a", "c", "d", "e"), dispatch(new KeyedEvent(null, "right")));
+		assertEquals(Arrays.asList("c"), dispatch(new KeyedEvent("grass", "up")));
+		
+		// the merged candidates are cached per combination of keys
+		assertEquals(Arrays.asList("a", "b", "c", "e"), dispatch(new KeyedEvent("stone", "left")));
+		assertEquals(Arrays.asList("a", "c", "e"), dispatch(new KeyedEvent("stone", "right")));
+		assertEquals(Arrays.asList("a", "c", "d", "e"), dispatch(new KeyedEvent(null, "right")));
+		assertEquals(Arrays.asList("c"), dispatch(new KeyedEvent("gravel", "down")));
+		assertEquals(Arrays.asList("a", "b", "c", "d", "e"), dispatch(new KeyedEvent(null, null)));
+	}
+	
+}
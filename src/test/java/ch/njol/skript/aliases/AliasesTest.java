@@ -21,11 +21,13 @@ package ch.njol.skript.aliases;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Set;
 import java.util.logging.Filter;
 import java.util.logging.LogRecord;
 
+import org.bukkit.Material;
 import org.eclipse.jdt.annotation.Nullable;
 import org.junit.Test;
 
@@ -96,4 +98,18 @@ public class AliasesTest {
 		}
 	}
 	
+	@SuppressWarnings({"deprecation", "null"})
+	@Test
+	public void testGetMaterials() {
+		final ItemType stone = new ItemType(Material.STONE.getId());
+		final ItemType granite = new ItemType(Material.STONE.getId(), (short) 1);
+		final ItemType dirt = new ItemType(Material.DIRT.getId());
+		final ItemType any = new ItemType(new ItemData());
+		
+		assertArrayEquals(new Material[] {Material.STONE}, ItemType.getMaterials(stone, granite));
+		assertEquals(Arrays.asList(Material.STONE, Material.DIRT), Arrays.asList(ItemType.getMaterials(stone, dirt)));
+		// an item type of any material can't be indexed
+		assertNull(ItemType.getMaterials(stone, any));
+	}
+	
 }
@@ -0,0 +1,201 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.expressions.base;
+
+import static org.junit.Assert.*;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.njol.skript.ScriptLoader;
+import ch.njol.skript.lang.Expression;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.util.SimpleExpression;
+import ch.njol.skript.registrations.EventValues;
+import ch.njol.skript.util.Getter;
+import ch.njol.util.Kleenean;
+
+/**
+ * Checks that the {@link SimpleExpression#getSingle(Event) single value} of expressions that find it without an array is the same as the one in their
+ * {@link SimpleExpression#getArray(Event) array}.
+ */
+@SuppressWarnings("null")
+public class SingleValueTest {
+	
+	static class TestEvent extends Event {
+		private final static HandlerList handlers = new HandlerList();
+		
+		@Nullable
+		final String value;
+		
+		TestEvent(final @Nullable String value) {
+			this.value = value;
+		}
+		
+		@Override
+		public HandlerList getHandlers() {
+			return handlers;
+		}
+		
+		public static HandlerList getHandlerList() {
+			return handlers;
+		}
+	}
+	
+	/**
+	 * The value of the event, which may be none
+	 */
+	static class Value extends SimpleExpression<String> {
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		@Nullable
+		protected String[] get(final Event e) {
+			final String value = ((TestEvent) e).value;
+			return value == null ? null : new String[] {value};
+		}
+		
+		@Override
+		public boolean isSingle() {
+			return true;
+		}
+		
+		@Override
+		public Class<? extends String> getReturnType() {
+			return String.class;
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "value";
+		}
+	}
+	
+	/**
+	 * Gets its values with {@link #convert(Object)} alone, so its single value is found without an array
+	 */
+	static class Length extends SimplePropertyExpression<String, Integer> {
+		@Override
+		@Nullable
+		public Integer convert(final String s) {
+			return s.isEmpty() ? null : s.length();
+		}
+		
+		@Override
+		protected String getPropertyName() {
+			return "length";
+		}
+		
+		@Override
+		public Class<? extends Integer> getReturnType() {
+			return Integer.class;
+		}
+	}
+	
+	/**
+	 * Overrides {@link #get(Event, Object[])}, so its single value is taken from the array
+	 */
+	static class LengthPlusOne extends Length {
+		@Override
+		protected Integer[] get(final Event e, final String[] source) {
+			final Integer[] r = super.get(e, source);
+			for (int i = 0; i < r.length; i++)
+				r[i] = r[i] + 1;
+			return r;
+		}
+	}
+	
+	/**
+	 * Overrides {@link #get(Event)}, so its single value is taken from the array
+	 */
+	static class UpperCaseValue extends EventValueExpression<String> {
+		UpperCaseValue() {
+			super(String.class);
+		}
+		
+		@Override
+		@Nullable
+		protected String[] get(final Event e) {
+			final String[] r = super.get(e);
+			if (r != null) {
+				for (int i = 0; i < r.length; i++)
+					r[i] = r[i].toUpperCase();
+			}
+			return r;
+		}
+	}
+	
+	private final static String[] values = {"test", "", null};
+	
+	@BeforeClass
+	public static void beforeClass() {
+		EventValues.registerEventValue(TestEvent.class, String.class, new Getter<String, TestEvent>() {
+			@Override
+			@Nullable
+			public String get(final TestEvent e) {
+				return e.value;
+			}
+		}, 0);
+	}
+	
+	private static <T> void assertSingleValue(final SimpleExpression<T> expr, final @Nullable Object expected) {
+		for (final String value : values) {
+			final TestEvent e = new TestEvent(value);
+			final T[] array = expr.getArray(e);
+			assertTrue(array.length <= 1);
+			assertEquals(array.length == 0 ? null : array[0], expr.getSingle(e));
+		}
+		assertEquals(expected, expr.getSingle(new TestEvent(values[0])));
+	}
+	
+	@Test
+	public void testSimplePropertyExpression() {
+		final Length length = new Length();
+		length.setExpr(new Value());
+		assertSingleValue(length, 4);
+		
+		final LengthPlusOne plusOne = new LengthPlusOne();
+		plusOne.setExpr(new Value());
+		assertSingleValue(plusOne, 5);
+	}
+	
+	private static <T extends EventValueExpression<String>> T init(final T expr) {
+		ScriptLoader.setCurrentEvent("test", TestEvent.class);
+		try {
+			assertTrue(expr.init());
+		} finally {
+			ScriptLoader.deleteCurrentEvent();
+		}
+		return expr;
+	}
+	
+	@Test
+	public void testEventValueExpression() {
+		assertSingleValue(init(new EventValueExpression<>(String.class)), "test");
+		assertSingleValue(init(new UpperCaseValue()), "TEST");
+	}
+	
+}
@@ -0,0 +1,195 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import static org.junit.Assert.*;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.Test;
+
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.util.Kleenean;
+
+/**
+ * Checks that every execution of a trigger has its own local variables, also when several executions for the same event are delayed.
+ */
+@SuppressWarnings("null")
+public class ExecutionFrameTest {
+	
+	static class TestEvent extends Event {
+		private final static HandlerList handlers = new HandlerList();
+		
+		/**
+		 * The values of the local variable that the triggers found
+		 */
+		final List<String> log = new ArrayList<>();
+		
+		/**
+		 * The items the suspended executions continue with
+		 */
+		final List<TriggerItem> suspended = new ArrayList<>();
+		
+		@Override
+		public HandlerList getHandlers() {
+			return handlers;
+		}
+		
+		public static HandlerList getHandlerList() {
+			return handlers;
+		}
+	}
+	
+	/**
+	 * Logs the current value of the local variable {_x}, then sets it to a new value.
+	 */
+	static class Set extends Effect {
+		final String value;
+		
+		Set(final String value) {
+			this.value = value;
+		}
+		
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		protected void execute(final Event e) {
+			final ExecutionFrame frame = ExecutionFrame.get(e);
+			final int slot = frame.getLocalVariableSlot("x");
+			((TestEvent) e).log.add(String.valueOf(frame.getLocalVariable(slot)));
+			frame.setLocalVariable(slot, value);
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "set {_x} to " + value;
+		}
+	}
+	
+	/**
+	 * Stops the trigger like an addon's delay that continues it later with {@link TriggerItem#walk(TriggerItem, Event)}.
+	 */
+	static class Suspend extends Effect {
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		@Nullable
+		protected TriggerItem walk(final Event e) {
+			ExecutionFrame.get(e).suspend();
+			((TestEvent) e).suspended.add(getNext());
+			return null;
+		}
+		
+		@Override
+		protected void execute(final Event e) {
+			assert false;
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "suspend";
+		}
+	}
+	
+	private static Trigger trigger(final TriggerItem... items) {
+		for (int i = 0; i < items.length - 1; i++)
+			items[i].setNext(items[i + 1]);
+		final Trigger t = new Trigger(null, "test", new SkriptEvent() {
+			@Override
+			public boolean init(final Literal<?>[] args, final int matchedPattern, final ParseResult parseResult) {
+				return true;
+			}
+			
+			@Override
+			public boolean check(final Event e) {
+				return true;
+			}
+			
+			@Override
+			public String toString(final @Nullable Event e, final boolean debug) {
+				return "test";
+			}
+		}, Arrays.asList(items));
+		final LocalVariableSlots slots = new LocalVariableSlots();
+		slots.getSlot("x");
+		t.setLocalVariableSlots(slots);
+		return t;
+	}
+	
+	@Test
+	public void testTwoTriggers() {
+		final TestEvent e = new TestEvent();
+		assertTrue(trigger(new Set("a")).execute(e));
+		assertTrue(trigger(new Set("b")).execute(e));
+		assertEquals(Arrays.asList("null", "null"), e.log);
+	}
+	
+	@Test
+	public void testSuspended() {
+		final TestEvent e = new TestEvent();
+		assertTrue(trigger(new Set("a1"), new Suspend(), new Set("a2")).execute(e));
+		assertTrue(trigger(new Set("b1"), new Suspend(), new Set("b2")).execute(e));
+		assertNull(ExecutionFrame.get(e));
+		
+		// continued in the opposite order
+		assertTrue(TriggerItem.walk(e.suspended.get(1), e));
+		assertTrue(TriggerItem.walk(e.suspended.get(0), e));
+		assertEquals(Arrays.asList("null", "null", "b1", "a1"), e.log);
+		
+		// the frames have been forgotten
+		assertTrue(TriggerItem.walk(e.suspended.get(0), e));
+		assertEquals("null", e.log.get(4));
+	}
+	
+	@Test
+	public void testSuspendedTwice() {
+		final TestEvent e = new TestEvent();
+		assertTrue(trigger(new Set("1"), new Suspend(), new Set("2"), new Suspend(), new Set("3")).execute(e));
+		assertTrue(TriggerItem.walk(e.suspended.get(0), e));
+		assertTrue(TriggerItem.walk(e.suspended.get(1), e));
+		assertEquals(Arrays.asList("null", "1", "2"), e.log);
+	}
+	
+	@Test
+	public void testSuspendedFrameDoesNotKeepEvent() throws InterruptedException {
+		TestEvent e = new TestEvent();
+		assertTrue(trigger(new Set("a"), new Suspend(), new Set("b")).execute(e)); // never continued
+		final WeakReference<TestEvent> ref = new WeakReference<>(e);
+		e = null;
+		for (int i = 0; i < 100 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(ref.get());
+	}
+	
+}
@@ -0,0 +1,125 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import static org.junit.Assert.*;
+
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.Test;
+
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.util.SimpleExpression;
+import ch.njol.util.Kleenean;
+
+/**
+ * Checks that {@link NumberExpression#doubleValue(Expression, Event, double)} and {@link NumberExpression#longValue(Expression, Event, long)} give the same values for
+ * expressions that implement {@link NumberExpression} and for those that don't.
+ */
+@SuppressWarnings("null")
+public class NumberExpressionTest {
+	
+	/**
+	 * A single number, or none if the value is null
+	 */
+	static class Boxed extends SimpleExpression<Number> {
+		@Nullable
+		final Number value;
+		
+		Boxed(final @Nullable Number value) {
+			this.value = value;
+		}
+		
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		@Nullable
+		protected Number[] get(final Event e) {
+			return value == null ? new Number[0] : new Number[] {value};
+		}
+		
+		@Override
+		public boolean isSingle() {
+			return true;
+		}
+		
+		@Override
+		public Class<? extends Number> getReturnType() {
+			return Number.class;
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "" + value;
+		}
+	}
+	
+	/**
+	 * Like {@link Boxed}, but its value must only be read as a primitive.
+	 */
+	static class Primitive extends Boxed implements NumberExpression {
+		Primitive(final @Nullable Number value) {
+			super(value);
+		}
+		
+		@Override
+		@Nullable
+		protected Number[] get(final Event e) {
+			throw new AssertionError("boxed the value");
+		}
+		
+		@Override
+		public double getDouble(final Event e, final double none) {
+			final Number value = this.value;
+			return value == null ? none : value.doubleValue();
+		}
+		
+		@Override
+		public long getLong(final Event e, final long none) {
+			final Number value = this.value;
+			return value == null ? none : value.longValue();
+		}
+	}
+	
+	private final static Event e = null;
+	
+	@Test
+	public void testDoubleValue() {
+		for (final boolean primitive : new boolean[] {false, true}) {
+			assertEquals(2.5, NumberExpression.doubleValue(primitive ? new Primitive(2.5) : new Boxed(2.5), e, 0), 0);
+			assertEquals(-3, NumberExpression.doubleValue(primitive ? new Primitive(-3L) : new Boxed(-3L), e, 0), 0);
+			assertEquals(7, NumberExpression.doubleValue(primitive ? new Primitive(null) : new Boxed(null), e, 7), 0);
+			assertTrue(Double.isNaN(NumberExpression.doubleValue(primitive ? new Primitive(null) : new Boxed(null), e, Double.NaN)));
+		}
+	}
+	
+	@Test
+	public void testLongValue() {
+		for (final boolean primitive : new boolean[] {false, true}) {
+			assertEquals(2, NumberExpression.longValue(primitive ? new Primitive(2.5) : new Boxed(2.5), e, 0));
+			assertEquals(Long.MAX_VALUE, NumberExpression.longValue(primitive ? new Primitive(Long.MAX_VALUE) : new Boxed(Long.MAX_VALUE), e, 0));
+			assertEquals(7, NumberExpression.longValue(primitive ? new Primitive(null) : new Boxed(null), e, 7));
+		}
+	}
+	
+}
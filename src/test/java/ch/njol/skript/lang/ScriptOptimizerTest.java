@@ -0,0 +1,318 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.TriggerCompilerTest.Log;
+import ch.njol.skript.lang.TriggerCompilerTest.Numbers;
+import ch.njol.skript.lang.TriggerCompilerTest.TestEvent;
+import ch.njol.util.Kleenean;
+
+/**
+ * Checks that the {@link ScriptOptimizer} replaces conditionals with the branch that is run, and that the resulting triggers do the same as before.
+ */
+@SuppressWarnings("null")
+public class ScriptOptimizerTest {
+	
+	/**
+	 * A condition with a result that is known when the script is loaded, or {@link Kleenean#UNKNOWN} for one that depends on the event's counter.
+	 */
+	static class Constant extends Condition {
+		final Kleenean result;
+		
+		Constant(final Kleenean result) {
+			this.result = result;
+		}
+		
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		public boolean check(final Event e) {
+			return result == Kleenean.UNKNOWN ? ((TestEvent) e).counter > 0 : result.isTrue();
+		}
+		
+		@Override
+		public Kleenean getConstantResult() {
+			return result;
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "" + result;
+		}
+	}
+	
+	/**
+	 * Stops the trigger like a delay, and remembers the item to continue with.
+	 */
+	static class Pause extends Effect {
+		@Nullable
+		TriggerItem continueWith;
+		
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		@Nullable
+		protected TriggerItem walk(final Event e) {
+			continueWith = getNext();
+			return null;
+		}
+		
+		@Override
+		protected void execute(final Event e) {
+			assert false;
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "pause";
+		}
+	}
+	
+	/**
+	 * An expression that is replaced with a different one when it is simplified
+	 */
+	static class Foldable extends Numbers {
+		final Numbers folded = new Numbers(3);
+		
+		Foldable() {
+			super(1, 2);
+		}
+		
+		@Override
+		public Expression<? extends Integer> simplify() {
+			return folded;
+		}
+	}
+	
+	private static SectionNode script;
+	
+	@BeforeClass
+	public static void beforeClass() throws IOException {
+		script = new Config("", "test.sk", true, false, ":").getMainNode();
+	}
+	
+	@Before
+	public void before() {
+		ScriptOptimizer.setEnabled(true);
+	}
+	
+	@After
+	public void after() {
+		ScriptOptimizer.setEnabled(false);
+	}
+	
+	private static SectionNode node() {
+		return new SectionNode("section", "", script, 1);
+	}
+	
+	private static <T extends TriggerSection> T section(final T section, final TriggerItem... items) {
+		for (int i = 0; i < items.length - 1; i++)
+			items[i].setNext(items[i + 1]);
+		section.setTriggerItems(Arrays.asList(items));
+		return section;
+	}
+	
+	private static Conditional ifThen(final Kleenean result, final TriggerItem... items) {
+		return section(new Conditional(new Constant(result), node()), items);
+	}
+	
+	private static Conditional elseIf(final Conditional c, final Kleenean result, final TriggerItem... items) {
+		c.loadElseIf(new Constant(result), node());
+		Conditional last = c;
+		while (last.getElseIf() != null)
+			last = last.getElseIf();
+		section(last, items);
+		return c;
+	}
+	
+	private static Conditional orElse(final Conditional c, final TriggerItem... items) {
+		c.loadElseClause(node());
+		Conditional last = c;
+		while (last.getElseIf() != null)
+			last = last.getElseIf();
+		section(last.getElseSection(), items);
+		return c;
+	}
+	
+	/**
+	 * Removes the dead branches from the given items and links them like the script loader does.
+	 */
+	private static List<TriggerItem> optimize(final TriggerItem... items) {
+		final List<TriggerItem> r = new ArrayList<>(Arrays.asList(items));
+		ScriptOptimizer.removeDeadBranches(r);
+		for (int i = 0; i < r.size() - 1; i++)
+			r.get(i).setNext(r.get(i + 1));
+		return r;
+	}
+	
+	private static TestEvent run(final List<TriggerItem> items, final int counter) {
+		final Trigger t = new Trigger(null, "test", new SkriptEvent() {
+			@Override
+			public boolean init(final Literal<?>[] args, final int matchedPattern, final ParseResult parseResult) {
+				return true;
+			}
+			
+			@Override
+			public boolean check(final Event e) {
+				return true;
+			}
+			
+			@Override
+			public String toString(final @Nullable Event e, final boolean debug) {
+				return "test";
+			}
+		}, items);
+		final TestEvent e = new TestEvent();
+		e.counter = counter;
+		assertTrue(t.execute(e));
+		return e;
+	}
+	
+	@Test
+	public void testSimplify() {
+		final Foldable foldable = new Foldable();
+		final Expression<?>[] exprs = {foldable, null};
+		ScriptOptimizer.simplify(exprs);
+		assertSame(foldable.folded, exprs[0]);
+		assertNull(exprs[1]);
+		
+		ScriptOptimizer.setEnabled(false);
+		exprs[0] = foldable;
+		ScriptOptimizer.simplify(exprs);
+		assertSame(foldable, exprs[0]);
+	}
+	
+	@Test
+	public void testConstantConditions() {
+		List<TriggerItem> items = optimize(orElse(ifThen(Kleenean.TRUE, new Log("if")), new Log("else")), new Log("end"));
+		assertEquals(2, items.size());
+		assertEquals(Arrays.asList("if", "end"), run(items, 0).log);
+		
+		items = optimize(orElse(ifThen(Kleenean.FALSE, new Log("if")), new Log("else")), new Log("end"));
+		assertEquals(2, items.size());
+		assertEquals(Arrays.asList("else", "end"), run(items, 0).log);
+		
+		items = optimize(ifThen(Kleenean.FALSE, new Log("if")), new Log("end"));
+		assertEquals(1, items.size());
+		assertEquals(Arrays.asList("end"), run(items, 0).log);
+		
+		// not constant
+		items = optimize(orElse(ifThen(Kleenean.UNKNOWN, new Log("if")), new Log("else")), new Log("end"));
+		assertEquals(2, items.size());
+		assertEquals(Arrays.asList("else", "end"), run(items, 0).log);
+		assertEquals(Arrays.asList("if", "end"), run(items, 1).log);
+	}
+	
+	@Test
+	public void testElseIfChain() {
+		List<TriggerItem> items = optimize(
+				orElse(elseIf(elseIf(ifThen(Kleenean.FALSE, new Log("if")), Kleenean.FALSE, new Log("else if 1")), Kleenean.TRUE, new Log("else if 2")), new Log("else")),
+				new Log("end"));
+		assertEquals(2, items.size());
+		assertEquals(Arrays.asList("else if 2", "end"), run(items, 0).log);
+		
+		items = optimize(
+				orElse(elseIf(ifThen(Kleenean.FALSE, new Log("if")), Kleenean.FALSE, new Log("else if")), new Log("else")),
+				new Log("end"));
+		assertEquals(2, items.size());
+		assertEquals(Arrays.asList("else", "end"), run(items, 0).log);
+		
+		// the chain is kept from the first condition that isn't constant
+		items = optimize(
+				orElse(elseIf(ifThen(Kleenean.FALSE, new Log("if")), Kleenean.UNKNOWN, new Log("else if")), new Log("else")),
+				new Log("end"));
+		assertEquals(2, items.size());
+		assertTrue(items.get(0) instanceof Conditional);
+		assertEquals(Arrays.asList("else", "end"), run(items, 0).log);
+		assertEquals(Arrays.asList("else if", "end"), run(items, 1).log);
+	}
+	
+	@Test
+	public void testTrailingDelay() {
+		final Pause pause = new Pause();
+		final List<TriggerItem> items = optimize(ifThen(Kleenean.TRUE, new Log("a"), pause), new Log("end"));
+		assertEquals(2, items.size());
+		final TestEvent e = run(items, 0);
+		assertEquals(Arrays.asList("a"), e.log);
+		// the delayed part continues after the removed conditional
+		assertNotNull(pause.continueWith);
+		assertTrue(TriggerItem.walk(pause.continueWith, e));
+		assertEquals(Arrays.asList("a", "end"), e.log);
+	}
+	
+	@Test
+	public void testLoop() {
+		final List<TriggerItem> items = optimize(
+				ifThen(Kleenean.TRUE,
+						section(new Loop(new Numbers(1, 2), node()), new Log("loop")),
+						new Log("after loop")),
+				new Log("end"));
+		assertEquals(2, items.size());
+		assertEquals(Arrays.asList("loop 1", "loop 2", "after loop", "end"), run(items, 0).log);
+	}
+	
+	@Test
+	public void testFailingConditionInBranch() {
+		for (final boolean compile : new boolean[] {false, true}) {
+			TriggerCompiler.setEnabled(compile);
+			try {
+				List<TriggerItem> items = optimize(ifThen(Kleenean.TRUE, new Constant(Kleenean.UNKNOWN), new Log("if")), new Log("end"));
+				assertEquals(2, items.size());
+				assertTrue(items.get(0) instanceof ScriptOptimizer.Branch);
+				// a failing condition only skips the rest of the branch
+				assertEquals(Arrays.asList("end"), run(items, 0).log);
+				assertEquals(Arrays.asList("if", "end"), run(items, 1).log);
+				
+				// in a loop it doesn't skip to the next iteration
+				final List<TriggerItem> body = optimize(orElse(ifThen(Kleenean.FALSE, new Log("if")), new Constant(Kleenean.UNKNOWN), new Log("else")), new Log("loop"));
+				assertEquals(2, body.size());
+				items = optimize(section(new Loop(new Numbers(1, 2), node()), body.toArray(new TriggerItem[0])), new Log("end"));
+				assertEquals(Arrays.asList("loop 1", "loop 2", "end"), run(items, 0).log);
+				assertEquals(Arrays.asList("else 1", "loop 1", "else 2", "loop 2", "end"), run(items, 1).log);
+			} finally {
+				TriggerCompiler.setEnabled(false);
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,138 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ch.njol.skript.lang.SkriptParser.CompiledPattern;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+
+/**
+ * Tests that {@link CompiledPattern compiled patterns} match texts like the patterns were matched before they were compiled.
+ */
+@SuppressWarnings("null")
+public class SkriptParserTest {
+	
+	private static void assertMatch(final String pattern, final String text, final int mark) {
+		final ParseResult res = SkriptParser.parse(text, pattern);
+		assertNotNull(pattern + " should match '" + text + "'", res);
+		assertEquals(pattern + " matched with '" + text + "'", mark, res.mark);
+	}
+	
+	private static void assertNoMatch(final String pattern, final String text) {
+		assertNull(pattern + " shouldn't match '" + text + "'", SkriptParser.parse(text, pattern));
+	}
+	
+	@Test
+	public void testOptionals() {
+		assertMatch("[the] player", "the player", 0);
+		assertMatch("[the] player", "player", 0);
+		assertMatch("[the] Player", "THE player", 0);
+		assertNoMatch("[the] player", "a player");
+		assertMatch("a [b [c]] d", "a b c d", 0);
+		assertMatch("a [b [c]] d", "a b d", 0);
+		assertMatch("a [b [c]] d", "a d", 0);
+		assertNoMatch("a [b [c]] d", "a c d");
+	}
+	
+	@Test
+	public void testChoices() {
+		assertMatch("(1¦first|2¦second|third) item", "first item", 1);
+		assertMatch("(1¦first|2¦second|third) item", "second item", 2);
+		assertMatch("(1¦first|2¦second|third) item", "third item", 0);
+		assertNoMatch("(1¦first|2¦second|third) item", "fourth item");
+		assertMatch("a (1¦b|2¦c [(4¦d|8¦e)])", "a b", 1);
+		assertMatch("a (1¦b|2¦c [(4¦d|8¦e)])", "a c", 2);
+		assertMatch("a (1¦b|2¦c [(4¦d|8¦e)])", "a c e", 10);
+		assertMatch("[(1¦all)] (2¦x|y)", "all x", 3);
+		assertMatch("[(1¦all)] (2¦x|y)", "y", 0);
+		// marks are only parsed in groups
+		assertNoMatch("[1¦all] (2¦x|y)", "all x");
+	}
+	
+	@Test
+	public void testRegexes() {
+		final ParseResult res = SkriptParser.parse("item 12 of stone", "item <\\d+> of <.+>");
+		assertNotNull(res);
+		assertEquals(2, res.regexes.size());
+		assertEquals("12", res.regexes.get(0).group());
+		assertEquals("stone", res.regexes.get(1).group());
+		assertNoMatch("item <\\d+> of <.+>", "item x of stone");
+	}
+	
+	@Test
+	public void testEscapes() {
+		assertMatch("\\(a\\) \\[b\\]", "(a) [b]", 0);
+		assertNoMatch("\\(a\\) \\[b\\]", "a b");
+	}
+	
+	@Test
+	public void testExpressions() {
+		assertNoMatch("give %number%", "give");
+		final ParseResult res = SkriptParser.parse("set", "set [%number%]");
+		assertNotNull(res);
+		assertEquals(1, res.exprs.length);
+		assertNull(res.exprs[0]);
+		
+		// the parser used to find the end and index of an expression when it reached it
+		final String pattern = "give %number% to %-players% [with \\%%text%]";
+		final CompiledPattern compiled = new CompiledPattern(pattern);
+		assertEquals(3, compiled.exprCount);
+		int expressions = 0;
+		for (int j = 0; j < pattern.length(); j++) {
+			if (pattern.charAt(j) == '\\') {
+				j++;
+				continue;
+			}
+			if (pattern.charAt(j) != '%')
+				continue;
+			final CompiledPattern.Element e = compiled.elements[j];
+			assertNotNull(e);
+			final int end = pattern.indexOf('%', j + 1);
+			assertEquals(end, e.end);
+			assertEquals(pattern.substring(j + 1, end), e.name);
+			assertEquals(expressions++, e.exprIndex);
+			j = end;
+		}
+		assertEquals(3, expressions);
+	}
+	
+	@Test
+	public void testMalformedPatterns() {
+		// errors are only thrown when the parser reaches them
+		assertMatch("(a|b", "b", 0);
+		assertMatch("a [b", "a b", 0);
+		try {
+			SkriptParser.parse("c", "(a|b");
+			fail("a missing bracket should be reported");
+		} catch (final RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("Missing closing bracket ')'"));
+		}
+		try {
+			SkriptParser.parse("a", "a [b");
+			fail("a missing bracket should be reported");
+		} catch (final RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("Missing closing bracket ']'"));
+		}
+	}
+	
+}
@@ -0,0 +1,97 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.util.Kleenean;
+
+@SuppressWarnings("null")
+public class SyntaxElementIndexTest {
+	
+	public static class Element implements SyntaxElement {
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+	}
+	
+	@Test
+	public void testLeadingWord() {
+		assertEquals("give", SkriptParser.getLeadingWord("give %number% to %players%"));
+		assertEquals("give", SkriptParser.getLeadingWord("Give [the] player"));
+		assertEquals("give", SkriptParser.getLeadingWord("give"));
+		assertEquals("set", SkriptParser.getLeadingWord("set (x|y) to %object%"));
+		
+		assertNull(SkriptParser.getLeadingWord("[the] player"));
+		assertNull(SkriptParser.getLeadingWord("(give|send) %number%"));
+		assertNull(SkriptParser.getLeadingWord("%number% + %number%"));
+		assertNull(SkriptParser.getLeadingWord("<\\d+> items"));
+		assertNull(SkriptParser.getLeadingWord("\\(a\\) b"));
+		// the word doesn't end at the optional part
+		assertNull(SkriptParser.getLeadingWord("give[n] %number%"));
+		// the parser starts over at a pipe outside of any group
+		assertNull(SkriptParser.getLeadingWord("set x|get x"));
+	}
+	
+	@Test
+	public void testFirstWord() {
+		assertEquals("give", SkriptParser.getFirstWord("give 5 to player"));
+		assertEquals("give", SkriptParser.getFirstWord("  GIVE 5 to player"));
+		assertEquals("give", SkriptParser.getFirstWord("Give"));
+		assertEquals("", SkriptParser.getFirstWord(""));
+	}
+	
+	private static SyntaxElementInfo<Element> info(final String... patterns) {
+		return new SyntaxElementInfo<>(patterns, Element.class);
+	}
+	
+	private static <I> List<I> list(final Iterator<I> iter) {
+		final List<I> l = new ArrayList<>();
+		while (iter.hasNext())
+			l.add(iter.next());
+		return l;
+	}
+	
+	@Test
+	public void testCandidates() {
+		final SyntaxElementInfo<Element> give = info("give %number% to %players%"),
+				any = info("[the] %object%"),
+				set = info("set %object% to %object%", "(give|send) %object%"),
+				send = info("send %string%");
+		final SyntaxElementIndex<SyntaxElementInfo<Element>> index = new SyntaxElementIndex<>(Arrays.asList(give, any, set, send).iterator());
+		assertEquals(4, index.size());
+		
+		// elements without a leading word are candidates for every text, in their original order
+		assertEquals(Arrays.asList(give, any, set), list(index.getCandidates("Give 5 to player")));
+		assertEquals(Arrays.asList(any, set, send), list(index.getCandidates("send \"hi\"")));
+		assertEquals(Arrays.asList(any, set), list(index.getCandidates("set x to 5")));
+		assertEquals(Arrays.asList(any, set), list(index.getCandidates("kill player")));
+	}
+	
+}
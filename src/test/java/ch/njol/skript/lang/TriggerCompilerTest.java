@@ -0,0 +1,397 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.util.SimpleExpression;
+import ch.njol.util.Kleenean;
+
+/**
+ * Runs the same triggers with and without the {@link TriggerCompiler} and checks that they do the same.
+ */
+@SuppressWarnings("null")
+public class TriggerCompilerTest {
+	
+	static class TestEvent extends Event {
+		private final static HandlerList handlers = new HandlerList();
+		
+		/**
+		 * What the trigger did
+		 */
+		final List<String> log = new ArrayList<>();
+		int counter = 0;
+		
+		@Override
+		public HandlerList getHandlers() {
+			return handlers;
+		}
+		
+		public static HandlerList getHandlerList() {
+			return handlers;
+		}
+	}
+	
+	/**
+	 * Logs its name, and the loop value of the innermost loop if there is one.
+	 */
+	static class Log extends Effect {
+		final String name;
+		
+		Log(final String name) {
+			this.name = name;
+		}
+		
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		protected void execute(final Event e) {
+			Object value = null;
+			for (TriggerItem i = getParent(); i != null && value == null; i = i.getParent()) {
+				if (i instanceof Loop)
+					value = ((Loop) i).getCurrent(e);
+			}
+			((TestEvent) e).log.add(value == null ? name : name + " " + value);
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "log " + name;
+		}
+	}
+	
+	static class Increment extends Effect {
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		protected void execute(final Event e) {
+			((TestEvent) e).counter++;
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "increment";
+		}
+	}
+	
+	/**
+	 * Like 'stop' and 'exit loop', which the compiler hands over to the interpreter.
+	 */
+	static class Exit extends Effect {
+		final boolean loop;
+		
+		Exit(final boolean loop) {
+			this.loop = loop;
+		}
+		
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		@Nullable
+		protected TriggerItem walk(final Event e) {
+			debug(e, false);
+			if (!loop)
+				return null;
+			TriggerItem n = getParent();
+			while (!(n instanceof Loop || n instanceof While))
+				n = n.getParent();
+			return n instanceof Loop ? ((Loop) n).getActualNext() : ((While) n).getActualNext();
+		}
+		
+		@Override
+		protected void execute(final Event e) {
+			assert false;
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return loop ? "exit loop" : "stop";
+		}
+	}
+	
+	/**
+	 * Checks whether the counter is below a value
+	 */
+	static class Below extends Condition {
+		final int value;
+		
+		Below(final int value) {
+			this.value = value;
+		}
+		
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		public boolean check(final Event e) {
+			return ((TestEvent) e).counter < value;
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return "counter < " + value;
+		}
+	}
+	
+	static class Numbers extends SimpleExpression<Integer> {
+		final Integer[] numbers;
+		
+		Numbers(final Integer... numbers) {
+			this.numbers = numbers;
+		}
+		
+		@Override
+		public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parseResult) {
+			return true;
+		}
+		
+		@Override
+		protected Integer[] get(final Event e) {
+			return numbers.clone();
+		}
+		
+		@Override
+		public boolean isSingle() {
+			return false;
+		}
+		
+		@Override
+		public Class<? extends Integer> getReturnType() {
+			return Integer.class;
+		}
+		
+		@Override
+		public String toString(final @Nullable Event e, final boolean debug) {
+			return Arrays.toString(numbers);
+		}
+	}
+	
+	@After
+	public void after() {
+		TriggerCompiler.setEnabled(false);
+	}
+	
+	private static SectionNode script;
+	
+	@BeforeClass
+	public static void beforeClass() throws IOException {
+		script = new Config("", "test.sk", true, false, ":").getMainNode();
+	}
+	
+	/**
+	 * @return A node for a section, whose items are set by the test itself
+	 */
+	private static SectionNode node() {
+		return new SectionNode("section", "", script, 1);
+	}
+	
+	/**
+	 * Links the given items like the script loader does.
+	 */
+	private static List<TriggerItem> items(final TriggerItem... items) {
+		for (int i = 0; i < items.length - 1; i++)
+			items[i].setNext(items[i + 1]);
+		return Arrays.asList(items);
+	}
+	
+	private static <T extends TriggerSection> T section(final T section, final TriggerItem... items) {
+		section.setTriggerItems(items(items));
+		return section;
+	}
+	
+	private static Loop loop(final Integer[] numbers, final TriggerItem... items) {
+		return section(new Loop(new Numbers(numbers), node()), items);
+	}
+	
+	private static While whileBelow(final int value, final TriggerItem... items) {
+		return section(new While(new Below(value), node()), items);
+	}
+	
+	private static Conditional ifBelow(final int value, final TriggerItem... items) {
+		return section(new Conditional(new Below(value), node()), items);
+	}
+	
+	private static Conditional elseIfBelow(final Conditional c, final int value, final TriggerItem... items) {
+		c.loadElseIf(new Below(value), node());
+		Conditional last = c;
+		while (last.getElseIf() != null)
+			last = last.getElseIf();
+		section(last, items);
+		return c;
+	}
+	
+	private static Conditional orElse(final Conditional c, final TriggerItem... items) {
+		c.loadElseClause(node());
+		Conditional last = c;
+		while (last.getElseIf() != null)
+			last = last.getElseIf();
+		section(last.getElseSection(), items);
+		return c;
+	}
+	
+	private static Integer[] numbers(final Integer... numbers) {
+		return numbers;
+	}
+	
+	private static List<String> run(final boolean compile, final Supplier<List<TriggerItem>> items, final int counter) {
+		TriggerCompiler.setEnabled(compile);
+		final Trigger t = new Trigger(null, "test", new SkriptEvent() {
+			@Override
+			public boolean init(final Literal<?>[] args, final int matchedPattern, final ParseResult parseResult) {
+				return true;
+			}
+			
+			@Override
+			public boolean check(final Event e) {
+				return true;
+			}
+			
+			@Override
+			public String toString(final @Nullable Event e, final boolean debug) {
+				return "test";
+			}
+		}, items.get());
+		final TestEvent e = new TestEvent();
+		e.counter = counter;
+		assertTrue(t.execute(e));
+		return e.log;
+	}
+	
+	/**
+	 * Runs the trigger with and without compiling it, and checks that both log the expected entries.
+	 */
+	private static void assertBoth(final Supplier<List<TriggerItem>> items, final int counter, final String... expected) {
+		assertEquals("interpreted", Arrays.asList(expected), run(false, items, counter));
+		assertEquals("compiled", Arrays.asList(expected), run(true, items, counter));
+	}
+	
+	@Test
+	public void testLoop() {
+		assertBoth(() -> items(
+				new Log("start"),
+				loop(numbers(1, 2, 3),
+						new Log("a"),
+						loop(numbers(4, 5), new Log("b"))),
+				new Log("end")),
+				0, "start", "a 1", "b 4", "b 5", "a 2", "b 4", "b 5", "a 3", "b 4", "b 5", "end");
+		assertBoth(() -> items(loop(numbers(), new Log("a")), new Log("end")), 0, "end");
+	}
+	
+	@Test
+	public void testWhile() {
+		assertBoth(() -> items(
+				whileBelow(3, new Log("a"), new Increment()),
+				new Log("end")),
+				0, "a", "a", "a", "end");
+		assertBoth(() -> items(whileBelow(3, new Increment()), new Log("end")), 5, "end");
+	}
+	
+	@Test
+	public void testConditions() {
+		for (int counter = 0; counter < 4; counter++) {
+			assertBoth(() -> items(
+					orElse(elseIfBelow(ifBelow(1, new Log("if")), 2, new Log("else if")), new Log("else")),
+					new Log("end")),
+					counter, counter == 0 ? "if" : counter == 1 ? "else if" : "else", "end");
+			assertBoth(() -> items(
+					elseIfBelow(ifBelow(1, new Log("if")), 2, new Log("else if")),
+					new Log("end")),
+					counter, counter == 0 ? new String[] {"if", "end"} : counter == 1 ? new String[] {"else if", "end"} : new String[] {"end"});
+		}
+		// a condition that isn't met skips the rest of its section
+		assertBoth(() -> items(
+				loop(numbers(1, 2),
+						new Log("a"),
+						new Below(0),
+						new Log("b")),
+				new Log("c"),
+				new Below(0),
+				new Log("d")),
+				0, "a 1", "a 2", "c");
+	}
+	
+	@Test
+	public void testStop() {
+		assertBoth(() -> items(
+				new Log("a"),
+				loop(numbers(1, 2),
+						new Log("b"),
+						ifBelow(1, new Exit(false))),
+				new Log("c")),
+				0, "a", "b 1");
+		assertBoth(() -> items(new Log("a"), new Exit(false), new Log("b")), 0, "a");
+	}
+	
+	@Test
+	public void testExit() {
+		assertBoth(() -> items(
+				loop(numbers(1, 2, 3),
+						new Log("a"),
+						ifBelow(1, new Exit(true)),
+						new Log("b")),
+				new Log("c")),
+				0, "a 1", "c");
+		assertBoth(() -> items(
+				whileBelow(5,
+						new Increment(),
+						new Log("a"),
+						orElse(ifBelow(3), new Exit(true))),
+				new Log("b")),
+				0, "a", "a", "a", "b");
+		// the interpreter continues with the outer loop after exiting the inner one
+		assertBoth(() -> items(
+				loop(numbers(1, 2),
+						whileBelow(10,
+								new Increment(),
+								new Log("a"),
+								new Exit(true)),
+						new Log("b")),
+				new Log("c")),
+				0, "a 1", "b 1", "a 2", "b 2", "c");
+	}
+	
+}
@@ -0,0 +1,161 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.njol.skript.config.Config;
+import ch.njol.skript.lang.parser.ScriptCache.Entry;
+import ch.njol.skript.lang.parser.ScriptCache.Hint;
+
+@SuppressWarnings("null")
+public class ScriptCacheTest {
+	
+	private File script;
+	private File cache;
+	
+	@Before
+	public void before() throws IOException {
+		script = File.createTempFile("script", ".sk");
+		cache = File.createTempFile("scripts", ".cache");
+		write("on load:\n\tbroadcast \"hello\"\n");
+		ScriptCache.setEnabled(false); // clears all entries
+		ScriptCache.setEnabled(true);
+		ScriptCache.fingerprint = "a";
+	}
+	
+	@After
+	public void after() {
+		ScriptCache.setEnabled(false);
+		ScriptCache.fingerprint = "";
+		script.delete();
+		cache.delete();
+		new File(cache.getPath() + ".temp").delete();
+	}
+	
+	private void write(final String s) throws IOException {
+		Files.write(script.toPath(), s.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private Entry getEntry() throws IOException {
+		final Entry e = ScriptCache.getEntry(new Config(script, false, false, ":"));
+		assertNotNull(e);
+		return e;
+	}
+	
+	private static Entry cached(final Entry e) {
+		e.setHint("2 effect broadcast \"hello\"", new Hint("ch.njol.skript.effects.EffBroadcast", 0));
+		return e;
+	}
+	
+	private static boolean hasHint(final Entry e) {
+		final Hint h = e.getHint("2 effect broadcast \"hello\"");
+		return h != null && h.element.equals("ch.njol.skript.effects.EffBroadcast") && h.pattern == 0;
+	}
+	
+	@Test
+	public void testUnchanged() throws IOException {
+		final Entry e = cached(getEntry());
+		assertSame(e, getEntry());
+		assertTrue(hasHint(getEntry()));
+	}
+	
+	@Test
+	public void testScriptChanged() throws IOException {
+		cached(getEntry());
+		write("on load:\n\tbroadcast \"bye\"\n");
+		assertFalse(hasHint(getEntry()));
+	}
+	
+	@Test
+	public void testFingerprintChanged() throws IOException {
+		cached(getEntry());
+		ScriptCache.fingerprint = "b";
+		assertFalse(hasHint(getEntry()));
+		// the entry is replaced, so changing the fingerprint back doesn't bring back the old hints
+		ScriptCache.fingerprint = "a";
+		assertFalse(hasHint(getEntry()));
+	}
+	
+	@Test
+	public void testDisabled() throws IOException {
+		cached(getEntry());
+		ScriptCache.setEnabled(false);
+		assertNull(ScriptCache.getEntry(new Config(script, false, false, ":")));
+		ScriptCache.setEnabled(true);
+		assertFalse(hasHint(getEntry()));
+	}
+	
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		cached(getEntry());
+		ScriptCache.save(cache);
+		ScriptCache.setEnabled(false);
+		ScriptCache.setEnabled(true);
+		ScriptCache.load(cache);
+		assertTrue(hasHint(getEntry()));
+		
+		// a loaded entry is invalidated just like one created in this session
+		ScriptCache.setEnabled(false);
+		ScriptCache.setEnabled(true);
+		ScriptCache.load(cache);
+		ScriptCache.fingerprint = "b";
+		assertFalse(hasHint(getEntry()));
+		
+		ScriptCache.setEnabled(false);
+		ScriptCache.setEnabled(true);
+		ScriptCache.load(cache);
+		write("on load:\n\tbroadcast \"bye\"\n");
+		assertFalse(hasHint(getEntry()));
+	}
+	
+	@Test
+	public void testOutdatedCacheFile() throws IOException {
+		try (final DataOutputStream out = new DataOutputStream(new FileOutputStream(cache))) {
+			out.writeInt(-1);
+			out.writeInt(1);
+			out.writeUTF(script.getAbsolutePath());
+		}
+		ScriptCache.load(cache);
+		assertFalse(hasHint(getEntry()));
+	}
+	
+	@Test
+	public void testKey() {
+		assertNotNull(Entry.getKey(1, "effect", "broadcast \"hello\""));
+		assertNotEquals(Entry.getKey(1, "effect", "x"), Entry.getKey(2, "effect", "x"));
+		final StringBuilder b = new StringBuilder();
+		for (int i = 0; i <= 10000; i++)
+			b.append('x');
+		assertNull(Entry.getKey(1, "effect", b.toString()));
+	}
+	
+}
@@ -0,0 +1,122 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.registrations;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.Test;
+
+@SuppressWarnings("null")
+public class DispatchCacheTest {
+	
+	/**
+	 * Caches the simple names of both classes, or null if the first class is {@link Void}, and records every computation.
+	 */
+	static class NameCache extends DispatchCache<String> {
+		
+		final List<String> computed = new ArrayList<>();
+		
+		/**
+		 * Whether to clear the cache while computing the next value, as if it were cleared concurrently
+		 */
+		boolean clearWhileComputing = false;
+		
+		@Override
+		@Nullable
+		protected String compute(final Class<?> first, final Class<?> second) {
+			final String name = first.getSimpleName() + " " + second.getSimpleName();
+			computed.add(name);
+			if (clearWhileComputing) {
+				clearWhileComputing = false;
+				clear();
+			}
+			return first == Void.class ? null : name;
+		}
+		
+	}
+	
+	@Test
+	public void testCachedValues() {
+		final NameCache cache = new NameCache();
+		assertEquals("String Integer", cache.get(String.class, Integer.class));
+		assertEquals("String Long", cache.get(String.class, Long.class));
+		assertEquals("Integer String", cache.get(Integer.class, String.class));
+		assertEquals("String Integer", cache.get(String.class, Integer.class));
+		assertEquals("String Long", cache.get(String.class, Long.class));
+		assertEquals(3, cache.computed.size());
+	}
+	
+	@Test
+	public void testNullValues() {
+		final NameCache cache = new NameCache();
+		assertNull(cache.get(Void.class, String.class));
+		assertNull(cache.get(Void.class, String.class));
+		assertEquals(1, cache.computed.size());
+	}
+	
+	@Test
+	public void testClear() {
+		final NameCache cache = new NameCache();
+		cache.get(String.class, Integer.class);
+		cache.get(Void.class, String.class);
+		cache.clear();
+		assertEquals("String Integer", cache.get(String.class, Integer.class));
+		assertNull(cache.get(Void.class, String.class));
+		assertEquals(4, cache.computed.size());
+	}
+	
+	@Test
+	public void testClearWhileComputing() {
+		final NameCache cache = new NameCache();
+		cache.clearWhileComputing = true;
+		assertEquals("String Integer", cache.get(String.class, Integer.class)); // still returned, but not cached
+		assertEquals("String Integer", cache.get(String.class, Integer.class));
+		assertEquals("String Integer", cache.get(String.class, Integer.class));
+		assertEquals(2, cache.computed.size());
+	}
+	
+	@Test
+	public void testRowsAreKeptByTheCache() throws InterruptedException {
+		final NameCache cache = new NameCache();
+		cache.get(String.class, Integer.class);
+		for (int i = 0; i < 5; i++) { // the classes only refer to their rows weakly
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertEquals("String Integer", cache.get(String.class, Integer.class));
+		assertEquals(1, cache.computed.size());
+	}
+	
+	@Test
+	public void testSeparateCaches() {
+		final NameCache a = new NameCache(), b = new NameCache();
+		a.get(String.class, Integer.class);
+		b.get(String.class, Integer.class);
+		a.clear();
+		b.get(String.class, Integer.class);
+		assertEquals(1, a.computed.size());
+		assertEquals(1, b.computed.size());
+	}
+	
+}
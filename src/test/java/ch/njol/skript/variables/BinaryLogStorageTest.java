@@ -0,0 +1,228 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+@SuppressWarnings("null")
+public class BinaryLogStorageTest {
+	
+	private static byte[] log(final Object... records) throws IOException {
+		final ByteArrayOutputStream b = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(b);
+		out.writeInt(BinaryLogStorage.MAGIC);
+		out.writeInt(BinaryLogStorage.VERSION);
+		for (int i = 0; i < records.length; i += 2)
+			BinaryLogStorage.writeRecord(out, (String) records[i], records[i + 1] == null ? null : "long", (byte[]) records[i + 1]);
+		out.close();
+		return b.toByteArray();
+	}
+	
+	private static BinaryLogStorage.LogReader reader(final byte[] log) throws IOException {
+		return new BinaryLogStorage.LogReader(new ByteArrayInputStream(log), log.length);
+	}
+	
+	/**
+	 * Reads the latest values of a log like loading it does, i.e. in two passes.
+	 */
+	private static Map<String, byte[]> read(final byte[] log, final long validEnd) throws IOException {
+		final BinaryLogStorage.LogReader r = reader(log);
+		assertTrue(r.validHeader);
+		final Map<String, Long> latest = r.readLatest();
+		assertEquals(validEnd, r.validEnd);
+		final Map<String, byte[]> values = new HashMap<String, byte[]>();
+		final BinaryLogStorage.LogReader v = reader(log);
+		while (v.nextLatest(latest)) {
+			final SerializedVariable.Value value = v.value();
+			assertEquals("long", value.type);
+			assertNull(v.name, values.put(v.name, value.data));
+		}
+		assertEquals(latest.keySet(), values.keySet());
+		return values;
+	}
+	
+	private static Map<String, byte[]> read(final File f) throws IOException {
+		return read(Files.readAllBytes(f.toPath()), f.length());
+	}
+	
+	private static void assertValue(final Map<String, byte[]> values, final String name, final int value) {
+		assertArrayEquals(name, new byte[] {(byte) value}, values.get(name));
+	}
+	
+	@Test
+	public void testRoundTrip() throws IOException {
+		final byte[] log = log("a", new byte[] {1}, "b", new byte[] {2}, "a", new byte[] {3}, "c", new byte[] {4}, "c", null, "\u00e4\u00f6\u00fc::1", new byte[] {5});
+		final Map<String, byte[]> values = read(log, log.length);
+		assertEquals(3, values.size());
+		assertValue(values, "a", 3);
+		assertValue(values, "b", 2);
+		assertValue(values, "\u00e4\u00f6\u00fc::1", 5);
+		assertFalse(values.containsKey("c"));
+	}
+	
+	@Test
+	public void testRecords() throws IOException {
+		final byte[] log = log("a", new byte[] {1}, "b", null, "a", new byte[] {2, 3});
+		final BinaryLogStorage.LogReader r = reader(log);
+		assertTrue(r.next());
+		assertEquals("a", r.name);
+		assertEquals(BinaryLogStorage.HEADER_LENGTH, r.position);
+		assertTrue(r.next()); // skips the unread value
+		assertEquals("b", r.name);
+		assertNull(r.type);
+		assertTrue(r.next());
+		assertEquals("a", r.name);
+		assertArrayEquals(new byte[] {2, 3}, r.value().data);
+		assertFalse(r.next());
+		assertFalse(r.next());
+		assertEquals(log.length, r.validEnd);
+	}
+	
+	@Test
+	public void testInvalidHeader() throws IOException {
+		assertFalse(reader(new byte[] {1, 2, 3}).validHeader);
+		assertFalse(reader(new byte[16]).validHeader);
+	}
+	
+	@Test
+	public void testTruncatedTail() throws IOException {
+		final byte[] valid = log("a", new byte[] {1}, "b", new byte[] {2});
+		final byte[] full = log("a", new byte[] {1}, "b", new byte[] {2}, "a", new byte[] {3});
+		for (int length = valid.length; length < full.length; length++) {
+			final Map<String, byte[]> values = read(Arrays.copyOf(full, length), valid.length);
+			assertValue(values, "a", 1);
+			assertValue(values, "b", 2);
+		}
+	}
+	
+	@Test
+	public void testCorruptTail() throws IOException {
+		final byte[] valid = log("a", new byte[] {1});
+		final byte[][] tails = {
+				{0, 0, 0, 0}, // too short for a record
+				{0x7F, 0, 0, 0, 1, 2, 3, 4}, // longer than the file
+				{0, 0, 0, 12, 0x7F, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0}, // invalid name length
+				{0, 0, 0, 13, 0, 0, 0, 1, 'x', 0, 0, 0, 0, 0, 0, 0, 5}, // invalid value length
+				{0, 0, 0, 10, 0, 0, 0, 1, 'x', -1, -1, -1, -1, 0}, // deletion with trailing data
+		};
+		for (final byte[] tail : tails) {
+			final byte[] log = Arrays.copyOf(valid, valid.length + tail.length);
+			System.arraycopy(tail, 0, log, valid.length, tail.length);
+			final BinaryLogStorage.LogReader r = reader(log);
+			r.readLatest();
+			assertEquals(Arrays.toString(tail), valid.length, r.validEnd);
+			final Map<String, byte[]> values = read(log, valid.length);
+			assertEquals(1, values.size());
+			assertValue(values, "a", 1);
+		}
+	}
+	
+	@Test
+	public void testCompaction() throws IOException {
+		final File f = File.createTempFile("variables", ".bin");
+		try {
+			final BinaryLogStorage storage = new BinaryLogStorage("test");
+			storage.file = f;
+			assertTrue(storage.connect());
+			storage.save("a", "long", new byte[] {1});
+			storage.save("b", "long", new byte[] {2});
+			storage.save("a", "long", new byte[] {3});
+			storage.save("b", null, null);
+			storage.save("c", "long", new byte[] {4});
+			storage.compact();
+			assertEquals(log("a", new byte[] {3}, "c", new byte[] {4}).length, f.length());
+			
+			storage.save("d", "long", new byte[] {5}); // appended to the compacted log
+			storage.disconnect();
+			
+			final Map<String, byte[]> values = read(f);
+			assertEquals(3, values.size());
+			assertValue(values, "a", 3);
+			assertValue(values, "c", 4);
+			assertValue(values, "d", 5);
+		} finally {
+			f.delete();
+			new File(f.getPath() + ".temp").delete();
+		}
+	}
+	
+	private static void awaitBlocked(final Thread t) throws InterruptedException {
+		while (t.getState() != Thread.State.BLOCKED)
+			Thread.sleep(10);
+	}
+	
+	@Test(timeout = 10000)
+	public void testCloseDuringCompaction() throws Exception {
+		final File f = File.createTempFile("variables", ".bin");
+		try {
+			final BinaryLogStorage storage = new BinaryLogStorage("test");
+			storage.file = f;
+			assertTrue(storage.connect());
+			final byte[] big = new byte[10000];
+			for (int i = 0; i < 150; i++) // large enough for close() to compact the log as well
+				storage.save("a", "long", big);
+			storage.save("b", "long", new byte[] {2});
+			
+			final Thread compaction = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					storage.compact();
+				}
+			});
+			final Thread close = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					storage.close();
+				}
+			});
+			synchronized (storage.connectionLock) {
+				compaction.start();
+				awaitBlocked(compaction); // the compaction has started and waits for the log to be flushed
+				close.start();
+				awaitBlocked(close);
+			}
+			compaction.join();
+			close.join();
+			
+			assertFalse(storage.save("c", "long", new byte[] {3})); // not reopened
+			assertFalse(new File(f.getPath() + ".temp").exists());
+			final Map<String, byte[]> values = read(f);
+			assertEquals(2, values.size());
+			assertArrayEquals(big, values.get("a"));
+			assertValue(values, "b", 2);
+		} finally {
+			f.delete();
+			new File(f.getPath() + ".temp").delete();
+		}
+	}
+	
+}
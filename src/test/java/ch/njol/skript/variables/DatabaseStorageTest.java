@@ -0,0 +1,238 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import lib.PatPeter.SQLibrary.SQLite;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.variables.SerializedVariable.Value;
+
+@SuppressWarnings("null")
+public class DatabaseStorageTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private Connection connection;
+	private PreparedStatement writeQuery, deleteQuery;
+	
+	@Before
+	public void setUp() throws SQLException {
+		connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+		connection.setAutoCommit(false);
+		try (Statement s = connection.createStatement()) {
+			s.execute(String.format(DatabaseStorage.Type.SQLITE.createQuery, "variables21"));
+		}
+		writeQuery = connection.prepareStatement("REPLACE INTO variables21 (name, type, value, update_guid) VALUES (?, ?, ?, ?)");
+		deleteQuery = connection.prepareStatement("DELETE FROM variables21 WHERE name = ?");
+	}
+	
+	@After
+	public void tearDown() throws SQLException {
+		writeQuery.close();
+		deleteQuery.close();
+		connection.close();
+	}
+	
+	private static SerializedVariable write(final String name, final int value) {
+		return new SerializedVariable(name, new Value("long", new byte[] {(byte) value}));
+	}
+	
+	private static SerializedVariable delete(final String name) {
+		return new SerializedVariable(name, null);
+	}
+	
+	private void save(final SerializedVariable... batch) throws SQLException {
+		final List<SerializedVariable> vars = new ArrayList<>(Arrays.asList(batch));
+		DatabaseStorage.saveBatch(writeQuery, deleteQuery, "guid", vars);
+		connection.commit();
+	}
+	
+	private byte[] get(final String name) throws SQLException {
+		try (PreparedStatement s = connection.prepareStatement("SELECT value FROM variables21 WHERE name = ?")) {
+			s.setString(1, name);
+			try (ResultSet r = s.executeQuery()) {
+				return r.next() ? r.getBytes(1) : null;
+			}
+		}
+	}
+	
+	@Test
+	public void testSaveBatch() throws SQLException {
+		save(write("a", 1), write("b", 2), write("c", 3));
+		assertArrayEquals(new byte[] {1}, get("a"));
+		assertArrayEquals(new byte[] {2}, get("b"));
+		assertArrayEquals(new byte[] {3}, get("c"));
+		
+		save(delete("a"), write("b", 4), write("d", 5));
+		assertNull(get("a"));
+		assertArrayEquals(new byte[] {4}, get("b"));
+		assertArrayEquals(new byte[] {5}, get("d"));
+		
+		save(delete("c"));
+		assertNull(get("c"));
+	}
+	
+	@Test
+	public void testLastChangeWins() throws SQLException {
+		save(write("a", 1), delete("a"), write("b", 2), delete("b"), write("b", 3));
+		assertNull(get("a"));
+		assertArrayEquals(new byte[] {3}, get("b"));
+		
+		save(delete("b"), write("b", 4));
+		assertArrayEquals(new byte[] {4}, get("b"));
+	}
+	
+	@Test
+	public void testCloseWaitsForCurrentBatch() throws Exception {
+		final CountDownLatch saving = new CountDownLatch(1);
+		final AtomicBoolean interrupted = new AtomicBoolean(false);
+		final VariablesStorage storage = new VariablesStorage("test") {
+			{
+				batchSize = 100;
+			}
+			
+			@Override
+			protected void save(final List<SerializedVariable> batch) {
+				saving.countDown();
+				try {
+					Thread.sleep(200); // the queue is empty while this batch is being saved
+				} catch (final InterruptedException e) {
+					interrupted.set(true);
+				}
+				try {
+					DatabaseStorage.saveBatch(writeQuery, deleteQuery, "guid", batch);
+				} catch (final SQLException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			
+			@Override
+			protected boolean save(final String name, final String type, final byte[] value) {
+				throw new UnsupportedOperationException();
+			}
+			
+			@Override
+			protected boolean load_i(final SectionNode n) {
+				return true;
+			}
+			
+			@Override
+			protected void allLoaded() {}
+			
+			@Override
+			protected boolean requiresFile() {
+				return false;
+			}
+			
+			@Override
+			protected File getFile(final String file) {
+				throw new UnsupportedOperationException();
+			}
+			
+			@Override
+			protected boolean connect() {
+				return true;
+			}
+			
+			@Override
+			protected void disconnect() {}
+		};
+		storage.writeThread.start();
+		for (int i = 0; i < 50; i++)
+			storage.save(write("v" + i, i));
+		saving.await();
+		storage.close();
+		assertFalse(storage.writeThread.isAlive());
+		assertFalse(interrupted.get());
+		connection.commit();
+		for (int i = 0; i < 50; i++)
+			assertArrayEquals(new byte[] {(byte) i}, get("v" + i));
+	}
+	
+	@Test(timeout = 10000)
+	public void testCloseSavesQueuedChanges() throws Exception {
+		final File dir = folder.newFolder();
+		final DatabaseStorage storage = new DatabaseStorage("test", DatabaseStorage.Type.SQLITE);
+		storage.batchSize = 10;
+		storage.db.set(new SQLite(Logger.getLogger("test"), "[Skript]", dir.getPath(), "variables"));
+		assertTrue(storage.connect());
+		storage.db.get().query(storage.getFormattedCreateQuery());
+		assertTrue(storage.prepareQueries());
+		for (int i = 0; i < 50; i++)
+			storage.save(write("v" + i, i));
+		storage.writeThread.start();
+		storage.close();
+		assertFalse(storage.writeThread.isAlive());
+		assertTrue(storage.changesQueue.isEmpty());
+		assertNull(storage.db.get());
+		assertEquals(5, storage.getBatchCount());
+		assertEquals(10, storage.getLargestBatchSize());
+		assertEquals(10, storage.getAverageBatchSize(), 0);
+		assertEquals(49, storage.getMaxQueueDepth());
+		assertEquals(0, storage.getQueueDepth());
+		
+		try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + new File(dir, "variables.db").getPath());
+				PreparedStatement s = c.prepareStatement("SELECT value FROM variables21 WHERE name = ?")) {
+			for (int i = 0; i < 50; i++) {
+				s.setString(1, "v" + i);
+				try (ResultSet r = s.executeQuery()) {
+					assertTrue(r.next());
+					assertArrayEquals(new byte[] {(byte) i}, r.getBytes(1));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testMonitorInterval() {
+		final long max = 20000;
+		assertEquals(10000, DatabaseStorage.nextMonitorInterval(max, max, 5, 0));
+		assertEquals(1000, DatabaseStorage.nextMonitorInterval(1500, max, 5, 0));
+		assertEquals(1000, DatabaseStorage.nextMonitorInterval(1000, max, 5, 0));
+		assertEquals(5000, DatabaseStorage.nextMonitorInterval(5000, max, 5, 100000));
+		assertEquals(10000, DatabaseStorage.nextMonitorInterval(5000, max, 0, 0));
+		assertEquals(max, DatabaseStorage.nextMonitorInterval(15000, max, 0, 0));
+		assertEquals(500, DatabaseStorage.nextMonitorInterval(500, 500, 5, 0));
+	}
+	
+}
@@ -21,8 +21,14 @@ package ch.njol.skript.variables;
 
 import static org.junit.Assert.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.junit.Test;
 
 /**
@@ -67,4 +73,50 @@ public class FlatFileStorageTest {
 		}
 	}
 	
+	@Test
+	public void testParallelLoad() throws IOException {
+		final Thread main = Thread.currentThread();
+		final Map<String, Object> loaded = new HashMap<>();
+		final FlatFileStorage storage = new FlatFileStorage("test") {
+			@Override
+			@Nullable
+			Object deserializeAsync(final String type, final byte[] data) {
+				if (type.equals("sync"))
+					return SYNC;
+				return new String(data, UTF_8);
+			}
+			
+			@Override
+			@Nullable
+			Object deserializeSync(final String type, final byte[] data) {
+				assertSame(main, Thread.currentThread());
+				return "sync " + new String(data, UTF_8);
+			}
+			
+			@Override
+			void variableLoaded(final String name, final @Nullable Object value) {
+				assertSame(main, Thread.currentThread());
+				loaded.put(name, value);
+			}
+		};
+		storage.loaderThreads = 2;
+		
+		final StringBuilder file = new StringBuilder("# version: 2.2\n\n");
+		final int lines = 2500; // several batches
+		for (int i = 0; i < lines; i++)
+			file.append("var::").append(i).append(", ").append(i % 100 == 0 ? "sync" : "string").append(", ").append(FlatFileStorage.encode(("" + i).getBytes(FlatFileStorage.UTF_8))).append("\n");
+		file.append("var::0, string, ").append(FlatFileStorage.encode("new".getBytes(FlatFileStorage.UTF_8))).append("\n"); // overrides the first line
+		file.append("var::1, null, \n"); // deletes a variable
+		final StringBuilder invalid = new StringBuilder();
+		assertEquals(0, storage.loadFile(new BufferedReader(new StringReader(file.toString())), invalid));
+		assertEquals("", invalid.toString());
+		
+		assertEquals(lines, loaded.size());
+		assertEquals("new", loaded.get("var::0"));
+		assertNull(loaded.get("var::1"));
+		assertTrue(loaded.containsKey("var::1"));
+		for (int i = 2; i < lines; i++)
+			assertEquals((i % 100 == 0 ? "sync " : "") + i, loaded.get("var::" + i));
+	}
+	
 }
@@ -0,0 +1,163 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class VariablesMapTest {
+	
+	@Test
+	public void testSingleVariables() {
+		final VariablesMap map = new VariablesMap();
+		map.setVariable("a", 1);
+		map.setVariable("a::b", 2);
+		map.setVariable("a::b::c", 3);
+		assertEquals(1, map.getVariable("a"));
+		assertEquals(2, map.getVariable("a::b"));
+		assertEquals(3, map.getVariable("a::b::c"));
+		assertNull(map.getVariable("a::c"));
+		assertNull(map.getVariable("b::c"));
+		assertEquals(3, map.size());
+		
+		map.setVariable("a::b", null);
+		assertNull(map.getVariable("a::b"));
+		assertEquals(3, map.getVariable("a::b::c"));
+		assertEquals(2, map.size());
+	}
+	
+	@Test
+	public void testListVariables() {
+		final VariablesMap map = new VariablesMap();
+		map.setVariable("list", "self");
+		for (int i = 1; i <= 100; i++)
+			map.setVariable("list::" + i, i);
+		map.setVariable("list::5::x", "x");
+		
+		final Map<?, ?> list = (Map<?, ?>) map.getVariable("list::*");
+		assertNotNull(list);
+		final ArrayList<Object> keys = new ArrayList<Object>(list.keySet());
+		assertNull(keys.get(0)); // the list's own value
+		assertEquals("1", keys.get(1));
+		assertEquals("2", keys.get(2)); // numeric order
+		assertEquals("100", keys.get(100));
+		assertEquals(5, map.getVariable("list::5"));
+		assertEquals(102, map.size());
+		
+		map.setVariable("list::*", null);
+		assertEquals("self", map.getVariable("list"));
+		assertNull(map.getVariable("list::5"));
+		assertNull(map.getVariable("list::5::x"));
+		assertEquals(1, map.size());
+	}
+	
+	@Test
+	public void testNamesEndingInAsterisk() {
+		final VariablesMap map = new VariablesMap();
+		map.setVariable("a", "a");
+		map.setVariable("a*", "star");
+		map.setVariable("x::a", "x a");
+		map.setVariable("x::a*", "x star");
+		assertEquals("star", map.getVariable("a*"));
+		assertEquals("x star", map.getVariable("x::a*"));
+		assertNull(map.getVariable("b*"));
+		assertNull(map.getVariable("x::b*"));
+		
+		final Map<?, ?> x = (Map<?, ?>) map.getVariable("x::*");
+		assertNotNull(x);
+		assertEquals(2, x.size());
+	}
+	
+	@Test
+	public void testIndexedRemoval() {
+		final VariablesMap map = new VariablesMap();
+		final Map<String, Object> expected = new HashMap<String, Object>();
+		for (int i = 0; i < 1000; i++) {
+			map.setVariable("x::" + i, i);
+			expected.put("x::" + i, i);
+		}
+		for (int i = 0; i < 1000; i += 3) {
+			map.setVariable("x::" + i, null);
+			expected.remove("x::" + i);
+		}
+		for (int i = 0; i < 1000; i++)
+			assertEquals(expected.get("x::" + i), map.getVariable("x::" + i));
+		final Map<String, Object> copy = new HashMap<String, Object>();
+		map.copyVariables(copy);
+		assertEquals(expected, copy);
+		assertEquals(expected.size(), map.size());
+	}
+	
+	@Test
+	public void testLeadingZeroes() {
+		final VariablesMap map = new VariablesMap();
+		for (int i = 0; i < 20; i++) // enough for the list to be indexed
+			map.setVariable("x::" + i, i);
+		map.setVariable("x::01", "one");
+		assertEquals("one", map.getVariable("x::1"));
+		assertEquals("one", map.getVariable("x::001"));
+		assertEquals(20, map.size());
+		map.setVariable("x::0001", null);
+		assertNull(map.getVariable("x::1"));
+		assertEquals(19, map.size());
+		map.setVariable("x::00", "zero");
+		assertEquals("zero", map.getVariable("x::0"));
+		assertEquals(19, map.size());
+		
+		assertEquals(VariablesMap.hashName("a01b002", 0, 7), VariablesMap.hashName("a1b2", 0, 4));
+		assertEquals(VariablesMap.hashName("123456789012345678901234567890", 0, 30), VariablesMap.hashName("0999999999999999999999", 0, 22)); // both larger than a long
+	}
+	
+	@Test
+	public void testLeadingZeroesAtTopLevel() {
+		final VariablesMap map = new VariablesMap();
+		for (int i = 0; i < 10; i++) // enough for the top level to be indexed
+			map.setVariable("var" + i, i);
+		map.setVariable("arena1", "one");
+		map.setVariable("arena01", "zero one");
+		assertEquals("one", map.getVariable("arena1"));
+		assertEquals("zero one", map.getVariable("arena01"));
+		assertNull(map.getVariable("arena001"));
+		assertEquals(12, map.size());
+		
+		map.setVariable("arena01", null);
+		assertNull(map.getVariable("arena01"));
+		assertEquals("one", map.getVariable("arena1"));
+		assertEquals(11, map.size());
+		for (int i = 0; i < 10; i++)
+			assertEquals(i, map.getVariable("var" + i));
+	}
+	
+	@Test
+	public void testNameComparator() {
+		final String[] sorted = {"0", "1", "01", "2", "10", "123456789012345678901234567890", "a1", "a2", "a10", "a", "b", ""}; // names continuing after a common prefix are sorted first
+		final String[] shuffled = {"a10", "10", "b", "2", "123456789012345678901234567890", "a1", "", "1", "0", "a2", "01", "a"};
+		Arrays.sort(shuffled, VariablesMap.variableNameComparator);
+		for (int i = 0; i < sorted.length; i++)
+			assertEquals(0, VariablesMap.variableNameComparator.compare(sorted[i], shuffled[i]));
+	}
+	
+}
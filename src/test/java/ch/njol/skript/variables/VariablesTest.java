@@ -0,0 +1,106 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.njol.skript.variables.SerializedVariable.Value;
+
+/**
+ * Checks that changes to global variables are coalesced until they are flushed.
+ */
+@SuppressWarnings("null")
+public class VariablesTest {
+	
+	private BiFunction<String, Object, SerializedVariable> serializer;
+	
+	@Before
+	public void before() {
+		serializer = Variables.setChangeSerializer((name, value) -> new SerializedVariable(name, value == null ? null : new Value("test", new byte[] {((Integer) value).byteValue()})));
+		Variables.queue.clear();
+	}
+	
+	@After
+	public void after() {
+		for (final String name : new String[] {"coalesce::a", "coalesce::b", "coalesce::c"})
+			Variables.setVariable(name, null);
+		Variables.flushChanges();
+		Variables.queue.clear();
+		Variables.setChangeSerializer(serializer);
+		Variables.closed = false;
+	}
+	
+	private static List<SerializedVariable> takeQueue() {
+		final List<SerializedVariable> r = new ArrayList<>();
+		Variables.queue.drainTo(r);
+		return r;
+	}
+	
+	@Test
+	public void testCoalescedChanges() {
+		Variables.setVariable("coalesce::a", 1);
+		Variables.setVariable("coalesce::b", 1);
+		Variables.setVariable("coalesce::a", 2);
+		Variables.setVariable("coalesce::b", null);
+		Variables.setVariable("coalesce::a", 3);
+		assertTrue(Variables.queue.isEmpty());
+		
+		Variables.flushChanges();
+		final List<SerializedVariable> queued = takeQueue();
+		assertEquals(2, queued.size());
+		assertEquals("coalesce::a", queued.get(0).name);
+		assertArrayEquals(new byte[] {3}, queued.get(0).value.data);
+		assertEquals("coalesce::b", queued.get(1).name);
+		assertNull(queued.get(1).value);
+		
+		Variables.flushChanges(); // nothing changed since
+		assertTrue(Variables.queue.isEmpty());
+	}
+	
+	@Test(timeout = 10000)
+	public void testCloseFlushesChanges() throws InterruptedException {
+		Variables.setVariable("coalesce::c", 4);
+		Variables.setVariable("coalesce::c", 5);
+		final List<SerializedVariable> saved = new ArrayList<>();
+		final Thread saveThread = new Thread(new Runnable() { // takes the place of the save thread, which isn't started
+			@Override
+			public void run() {
+				try {
+					saved.add(Variables.queue.take());
+				} catch (final InterruptedException e) {}
+			}
+		});
+		saveThread.start();
+		Variables.close();
+		saveThread.join();
+		assertEquals(1, saved.size());
+		assertEquals("coalesce::c", saved.get(0).name);
+		assertArrayEquals(new byte[] {5}, saved.get(0).value.data);
+	}
+	
+}